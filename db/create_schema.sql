@@ -1,7 +1,14 @@
+-- Crear la tabla de generadores de ids, reserva bloques de ids para poder agrupar los inserts (id_generator)
+CREATE TABLE id_generator (
+    sequence_name VARCHAR(255) NOT NULL PRIMARY KEY,
+    next_val BIGINT NOT NULL
+);
+
 -- Crear la tabla de categorías (category)
 CREATE TABLE category (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
-    name VARCHAR(255) NOT NULL
+    name VARCHAR(255) NOT NULL,
+    product_count INT NOT NULL DEFAULT 0
 );
 
 -- Crear la tabla de role
@@ -20,6 +27,10 @@ CREATE TABLE customer (
     enabled BOOLEAN NOT NULL DEFAULT TRUE
 );
 
+-- Índices para recorrer los clientes activos con cursor (keyset) por username o email
+CREATE INDEX idx_customer_enabled_username ON customer (enabled, username, id);
+CREATE INDEX idx_customer_enabled_email ON customer (enabled, email, id);
+
 CREATE TABLE customer_roles (
     customer_id BIGINT NOT NULL,
     role_id BIGINT NOT NULL,
@@ -38,9 +49,24 @@ CREATE TABLE product (
     category_id BIGINT,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     enabled BOOLEAN NOT NULL DEFAULT TRUE,
+    stock_stripes INT NOT NULL DEFAULT 0,
+    version BIGINT NOT NULL DEFAULT 0,
     FOREIGN KEY (category_id) REFERENCES category(id)
 );
 
+-- Índices para recorrer los productos activos con cursor (keyset) por nombre o precio
+CREATE INDEX idx_product_enabled_name ON product (enabled, name, id);
+CREATE INDEX idx_product_enabled_price ON product (enabled, price, id);
+
+-- Crear la tabla con el stock repartido de los productos con mucha demanda (product_stock_stripe)
+CREATE TABLE product_stock_stripe (
+    product_id BIGINT NOT NULL,
+    stripe INT NOT NULL,
+    stock INT NOT NULL,
+    PRIMARY KEY (product_id, stripe),
+    FOREIGN KEY (product_id) REFERENCES product(id)
+);
+
 -- Crear la tabla de carritos de compras (cart)
 CREATE TABLE cart (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
@@ -53,6 +79,7 @@ CREATE TABLE cart_product (
     cart_id BIGINT NOT NULL,
     product_id BIGINT NOT NULL,
     quantity INT NOT NULL,
+    unit_price DECIMAL(10, 2),
     PRIMARY KEY (cart_id, product_id),
     FOREIGN KEY (cart_id) REFERENCES cart(id),
     FOREIGN KEY (product_id) REFERENCES product(id)
@@ -68,6 +95,10 @@ CREATE TABLE order_ (
     FOREIGN KEY (customer_id) REFERENCES customer(id)
 );
 
+-- Índices para recorrer los pedidos con cursor (keyset), el de cliente sigue el orden del listado
+CREATE INDEX idx_order_customer ON order_ (customer_id, id);
+CREATE INDEX idx_order_total_price ON order_ (total_price, id);
+
 -- Crear la tabla de detalles de pedidos (order_detail)
 CREATE TABLE order_detail (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
@@ -79,3 +110,52 @@ CREATE TABLE order_detail (
     FOREIGN KEY (order_id) REFERENCES order_(id),
     FOREIGN KEY (product_id) REFERENCES product(id)
 );
+
+-- Índices para recorrer los detalles de pedidos con cursor (keyset)
+CREATE INDEX idx_order_detail_product ON order_detail (product_id, id);
+CREATE INDEX idx_order_detail_order ON order_detail (order_id, id);
+CREATE INDEX idx_order_detail_price ON order_detail (price, id);
+
+-- Crear la tabla de pedidos recibidos pendientes de procesar (order_intake)
+CREATE TABLE order_intake (
+    tracking_id VARCHAR(36) PRIMARY KEY,
+    customer_id BIGINT NOT NULL,
+    payload TEXT NOT NULL,
+    status ENUM('QUEUED', 'COMPLETED', 'FAILED') NOT NULL,
+    order_id BIGINT,
+    error_message VARCHAR(255),
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_order_intake_status ON order_intake (status, next_attempt_at);
+
+-- Crear la tabla de eventos pendientes de publicar (outbox)
+CREATE TABLE outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    aggregate_type VARCHAR(50) NOT NULL,
+    aggregate_id BIGINT NOT NULL,
+    event_type VARCHAR(50) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Crear la tabla de cambios del catálogo, GET /product/changes la lee en orden de seq (product_change)
+CREATE TABLE product_change (
+    seq BIGINT AUTO_INCREMENT PRIMARY KEY,
+    product_id BIGINT NOT NULL,
+    change_type VARCHAR(20) NOT NULL,
+    changed_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_product_change_changed_at ON product_change (changed_at);
+
+-- Crear la tabla de drenajes de reservas aplicados al stock, evita restar dos veces el mismo (inventory_drain)
+CREATE TABLE inventory_drain (
+    drain_id VARCHAR(36) PRIMARY KEY,
+    applied_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_inventory_drain_applied_at ON inventory_drain (applied_at);
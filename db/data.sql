@@ -55,3 +55,14 @@ VALUES
 (1, 3, 2, 25.00),   -- 2 T-shirts para John Doe
 (2, 4, 1, 50.00),   -- 1 Jeans para Jane Smith
 (2, 5, 1, 30.00);   -- 1 Java Programming Book para Jane Smith
+
+-- Contar los productos activos de cada categoría
+UPDATE category SET product_count = (SELECT COUNT(*) FROM product p WHERE p.category_id = category.id AND p.enabled = TRUE);
+
+-- Inicializar los generadores de ids con el siguiente id libre de cada tabla (IdGeneratorSeeder repite este paso al arrancar en bases ya existentes)
+INSERT INTO id_generator (sequence_name, next_val)
+SELECT 'product', COALESCE(MAX(id), 0) + 1 FROM product
+UNION ALL SELECT 'customer', COALESCE(MAX(id), 0) + 1 FROM customer
+UNION ALL SELECT 'cart', COALESCE(MAX(id), 0) + 1 FROM cart
+UNION ALL SELECT 'order_', COALESCE(MAX(id), 0) + 1 FROM order_
+UNION ALL SELECT 'order_detail', COALESCE(MAX(id), 0) + 1 FROM order_detail;
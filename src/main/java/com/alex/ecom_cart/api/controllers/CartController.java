@@ -1,12 +1,18 @@
 package com.alex.ecom_cart.api.controllers;
 
+import com.alex.ecom_cart.api.dtos.request.CartOperationRequest;
 import com.alex.ecom_cart.api.dtos.response.CartResponse;
+import com.alex.ecom_cart.api.dtos.response.OrderResponse;
 import com.alex.ecom_cart.infrastructure.abstract_services.ICartService;
 import io.swagger.v3.oas.annotations.Operation;
+import com.alex.ecom_cart.util.http.ETags;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/cart")
 @RequiredArgsConstructor
@@ -39,16 +45,25 @@ public class CartController {
         return ResponseEntity.ok(cartService.removeProductFromCart(cartId, productId));
     }
 
+    @Operation(summary = "Apply an ordered list of add, set and remove operations to the cart at once")
+    @PostMapping("/{cartId}/ops")
+    public ResponseEntity<CartResponse> applyOperations(
+            @PathVariable Long cartId,
+            @RequestBody List<CartOperationRequest> operations
+    ) {
+        return ResponseEntity.ok(cartService.applyOperations(cartId, operations));
+    }
+
     @Operation(summary = "Get a cart by ID")
     @GetMapping("/{cartId}")
     public ResponseEntity<CartResponse> getCartById(@PathVariable Long cartId) {
-        return ResponseEntity.ok(cartService.getCartById(cartId));
+        return ETags.ok(cartService.getCartById(cartId));
     }
 
     @Operation(summary = "Get a cart by customer ID")
     @GetMapping("/customer/{customerId}")
     public ResponseEntity<CartResponse> getCartByCustomerId(@PathVariable Long customerId) {
-        return ResponseEntity.ok(cartService.getCartByCustomerId(customerId));
+        return ETags.ok(cartService.getCartByCustomerId(customerId));
     }
 
     @Operation(summary = "Clear all products from the customer cart")
@@ -58,4 +73,10 @@ public class CartController {
         return ResponseEntity.noContent().build();
     }
 
+    @Operation(summary = "Turn the cart into an order and empty it")
+    @PostMapping("/{cartId}/checkout")
+    public ResponseEntity<OrderResponse> checkout(@PathVariable Long cartId) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(cartService.checkout(cartId));
+    }
+
 }
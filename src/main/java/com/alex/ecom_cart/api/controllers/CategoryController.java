@@ -0,0 +1,29 @@
+package com.alex.ecom_cart.api.controllers;
+
+import com.alex.ecom_cart.api.dtos.response.CategoryResponse;
+import com.alex.ecom_cart.infrastructure.abstract_services.ICategoryService;
+import com.alex.ecom_cart.util.http.ETags;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/category")
+@RequiredArgsConstructor
+public class CategoryController {
+
+    private final ICategoryService categoryService;
+
+    @Operation(summary = "Retrieve every category with its number of active products")
+    @GetMapping
+    public ResponseEntity<List<CategoryResponse>> findAll() {
+        List<CategoryResponse> response = this.categoryService.findAll();
+        return response.isEmpty() ? ResponseEntity.noContent().build() : ETags.ok(response);
+    }
+
+}
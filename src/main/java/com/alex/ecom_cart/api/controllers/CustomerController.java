@@ -1,6 +1,7 @@
 package com.alex.ecom_cart.api.controllers;
 
 import com.alex.ecom_cart.api.dtos.request.CustomerRequest;
+import com.alex.ecom_cart.api.dtos.response.KeysetPageResponse;
 import com.alex.ecom_cart.api.dtos.response.CustomerResponse;
 import com.alex.ecom_cart.infrastructure.abstract_services.ICustomerService;
 import com.alex.ecom_cart.util.enums.Role;
@@ -31,6 +32,16 @@ public class CustomerController {
         return response.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(response);
     }
 
+    @Operation(summary = "Scroll through customers with a keyset cursor, pass the returned next value as after")
+    @GetMapping("/scroll")
+    public ResponseEntity<KeysetPageResponse<CustomerResponse>> scroll(
+            @RequestParam(required = false, defaultValue = "username") String field,
+            @RequestParam(required = false, defaultValue = "true") Boolean desc,
+            @RequestParam(required = false) String after) {
+        KeysetPageResponse<CustomerResponse> response = customerService.scroll(field, desc, after);
+        return response.getContent().isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(response);
+    }
+
     @Operation(summary = "Retrieve a customer by ID")
     @GetMapping("/{id}")
     public ResponseEntity<CustomerResponse> getById(@PathVariable Long id){
@@ -1,11 +1,16 @@
 package com.alex.ecom_cart.api.controllers;
 
 import com.alex.ecom_cart.api.dtos.request.OrderRequest;
+import com.alex.ecom_cart.api.dtos.response.OrderIntakeResponse;
+import com.alex.ecom_cart.api.dtos.response.KeysetPageResponse;
 import com.alex.ecom_cart.api.dtos.response.OrderResponse;
+import com.alex.ecom_cart.infrastructure.abstract_services.IIdempotencyService;
+import com.alex.ecom_cart.infrastructure.abstract_services.IOrderIntakeService;
 import com.alex.ecom_cart.infrastructure.abstract_services.IOrderService;
 import com.alex.ecom_cart.util.enums.OrderStatus;
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.Valid;
+import com.alex.ecom_cart.util.http.ETags;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
@@ -20,6 +25,8 @@ import java.util.List;
 public class OrderController {
 
     private final IOrderService orderService;
+    private final IIdempotencyService idempotencyService;
+    private final IOrderIntakeService orderIntakeService;
 
     @Operation(summary = "Retrieve all orders with pagination and optional sorting")
     @GetMapping()
@@ -29,25 +36,55 @@ public class OrderController {
             @RequestParam(required = false, defaultValue = "0") Integer page) {
 
         Page<OrderResponse> response = this.orderService.readAll(field, desc, page);
-        return response.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(response);
+        return response.isEmpty() ? ResponseEntity.noContent().build() : ETags.ok(response);
     }
 
-    @Operation(summary = "Create a new order for a customer")
+    @Operation(summary = "Scroll through orders with a keyset cursor, pass the returned next value as after")
+    @GetMapping("/scroll")
+    public ResponseEntity<KeysetPageResponse<OrderResponse>> scroll(
+            @RequestParam(required = false, defaultValue = "customer") String field,
+            @RequestParam(required = false, defaultValue = "true") Boolean desc,
+            @RequestParam(required = false) String after) {
+        KeysetPageResponse<OrderResponse> response = this.orderService.scroll(field, desc, after);
+        return response.getContent().isEmpty() ? ResponseEntity.noContent().build() : ETags.ok(response);
+    }
+
+    @Operation(summary = "Create a new order for a customer, retries with the same Idempotency-Key and body return the first order")
     @PostMapping()
-    public ResponseEntity<OrderResponse> createOrder(@RequestBody @Valid OrderRequest request) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(this.orderService.create(request));
+    public ResponseEntity<OrderResponse> createOrder(
+            @RequestBody @Valid OrderRequest request,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+
+        if (idempotencyKey == null) {
+            return ResponseEntity.status(HttpStatus.CREATED).body(this.orderService.create(request));
+        }
+        String key = "order:" + request.getCustomerId() + ":" + idempotencyKey;
+        OrderResponse response = this.idempotencyService.execute(key, request, () -> this.orderService.create(request));
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    @Operation(summary = "Queue a new order and return a tracking id, the order is written in the background")
+    @PostMapping("/intake")
+    public ResponseEntity<OrderIntakeResponse> enqueueOrder(@RequestBody @Valid OrderRequest request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(this.orderIntakeService.enqueue(request));
+    }
+
+    @Operation(summary = "Retrieve the outcome of a queued order")
+    @GetMapping("/intake/{trackingId}")
+    public ResponseEntity<OrderIntakeResponse> getIntake(@PathVariable String trackingId) {
+        return ResponseEntity.ok(this.orderIntakeService.findByTrackingId(trackingId));
     }
 
     @Operation(summary = "Retrieve an order by ID")
     @GetMapping("/{orderId}")
     public ResponseEntity<OrderResponse> getById(@PathVariable Long orderId){
-        return ResponseEntity.ok(this.orderService.findById(orderId));
+        return ETags.ok(this.orderService.findById(orderId));
     }
 
     @Operation(summary = "Retrieve all orders placed by a customer")
     @GetMapping("/customer/{customerId}")
     public ResponseEntity<List<OrderResponse>> getByCustomerId(@PathVariable Long customerId){
-        return ResponseEntity.ok(this.orderService.findByCustomerId(customerId));
+        return ETags.ok(this.orderService.findByCustomerId(customerId));
     }
 
     @Operation(summary = "Update the status of order")
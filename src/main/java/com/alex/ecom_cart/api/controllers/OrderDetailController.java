@@ -1,5 +1,6 @@
 package com.alex.ecom_cart.api.controllers;
 
+import com.alex.ecom_cart.api.dtos.response.KeysetPageResponse;
 import com.alex.ecom_cart.api.dtos.response.OrderDetailResponse;
 import com.alex.ecom_cart.infrastructure.abstract_services.IOrderDetais;
 import io.swagger.v3.oas.annotations.Operation;
@@ -26,6 +27,16 @@ public class OrderDetailController {
         return response.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(response);
     }
 
+    @Operation(summary = "Scroll through order details with a keyset cursor, pass the returned next value as after")
+    @GetMapping("/scroll")
+    public ResponseEntity<KeysetPageResponse<OrderDetailResponse>> scroll(
+            @RequestParam(required = false, defaultValue = "product") String field,
+            @RequestParam(required = false, defaultValue = "true") Boolean desc,
+            @RequestParam(required = false) String after) {
+        KeysetPageResponse<OrderDetailResponse> response = this.orderDetais.scroll(field, desc, after);
+        return response.getContent().isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(response);
+    }
+
     @Operation(summary = "Retrieve a OrderDetails list by orderId")
     @GetMapping("/order/{orderId}")
     public ResponseEntity<List<OrderDetailResponse>> findByOrderId(@PathVariable Long orderId){
@@ -1,17 +1,30 @@
 package com.alex.ecom_cart.api.controllers;
 
 import com.alex.ecom_cart.api.dtos.request.ProductRequest;
+import com.alex.ecom_cart.api.dtos.request.ProductStockRequest;
+import com.alex.ecom_cart.api.dtos.response.KeysetPageResponse;
+import com.alex.ecom_cart.api.dtos.response.ProductChangesResponse;
+import com.alex.ecom_cart.api.dtos.response.ProductFacetResponse;
+import com.alex.ecom_cart.api.dtos.response.ProductImportResponse;
 import com.alex.ecom_cart.api.dtos.response.ProductResponse;
+import com.alex.ecom_cart.api.dtos.response.ProductStockResponse;
+import com.alex.ecom_cart.infrastructure.abstract_services.IProductImportService;
 import com.alex.ecom_cart.infrastructure.abstract_services.IProductService;
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.Valid;
+import com.alex.ecom_cart.util.http.ETags;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/product")
@@ -19,6 +32,7 @@ import java.util.List;
 public class ProductController {
 
     private final IProductService productService;
+    private final IProductImportService productImportService;
 
     @Operation(summary = "Retrieve all active products with pagination and optional sorting")
     @GetMapping
@@ -28,9 +42,43 @@ public class ProductController {
             @RequestParam(required = false, defaultValue = "0") Integer page
     ) {
         Page<ProductResponse> response = productService.readAll(field, desc, page);
-        return response.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(response);
+        return response.isEmpty() ? ResponseEntity.noContent().build() : ETags.ok(response);
     }
 
+    @Operation(summary = "Scroll through active products by name or price with a keyset cursor, pass the returned next value as after")
+    @GetMapping("/scroll")
+    public ResponseEntity<KeysetPageResponse<ProductResponse>> scroll(
+            @RequestParam(required = false, defaultValue = "name") String field,
+            @RequestParam(required = false, defaultValue = "true") Boolean desc,
+            @RequestParam(required = false) String after) {
+        KeysetPageResponse<ProductResponse> response = productService.scroll(field, desc, after);
+        return response.getContent().isEmpty() ? ResponseEntity.noContent().build() : ETags.ok(response);
+    }
+
+
+    @Operation(summary = "Search active products by name and description, best matches first")
+    @GetMapping("/search")
+    public ResponseEntity<List<ProductResponse>> search(@RequestParam String q) {
+        List<ProductResponse> response = productService.search(q);
+        return response.isEmpty() ? ResponseEntity.noContent().build() : ETags.ok(response);
+    }
+
+    @Operation(summary = "Filter products by category, price band, stock and enabled state, with the count of every facet value")
+    @GetMapping("/facets")
+    public ResponseEntity<ProductFacetResponse> filter(
+            @RequestParam(required = false) List<Long> category,
+            @RequestParam(required = false) List<String> price,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(required = false, defaultValue = "true") Boolean enabled,
+            @RequestParam(required = false, defaultValue = "0") Integer page) {
+        return ETags.ok(productService.filter(category, price, inStock, enabled, page));
+    }
+
+    @Operation(summary = "Retrieve the products changed since a token, without one the response asks for a full reload and gives the token to start from")
+    @GetMapping("/changes")
+    public ResponseEntity<ProductChangesResponse> changes(@RequestParam(required = false) String since) {
+        return ETags.ok(productService.findChanges(since));
+    }
 
     @Operation(summary = "Create a new product")
     @PostMapping
@@ -38,17 +86,35 @@ public class ProductController {
         return ResponseEntity.status(HttpStatus.CREATED).body(this.productService.create(request));
     }
 
+    @Operation(summary = "Import products from a CSV file with a header row or from NDJSON, one product per line")
+    @PostMapping(value = "/bulk", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ProductImportResponse> importProducts(InputStream body,
+                                                                @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType){
+        return ResponseEntity.ok(this.productImportService.importProducts(body, MediaType.parseMediaType(contentType)));
+    }
+
     @Operation(summary = "Retrieve a product by ID")
     @GetMapping("/{id}")
-    public ResponseEntity<ProductResponse> getById(@PathVariable Long id){
-        return ResponseEntity.ok(this.productService.findById(id));
+    public ResponseEntity<ProductResponse> getById(@PathVariable Long id, WebRequest request){
+        // A matching If-None-Match is answered from the version alone, the product is not loaded at all
+        Optional<String> eTag = this.productService.findETag(id);
+        if (eTag.isPresent() && request.checkNotModified(eTag.get())) {
+            return null;
+        }
+        // The body may come from the cache and be older than the version, so it is tagged with its own
+        ProductResponse response = this.productService.findById(id);
+        return ETags.ok(response, ETags.strong(response.getVersion(), response.getStock()));
     }
 
-    @Operation(summary = "Retrieve products by category ID")
+    @Operation(summary = "Retrieve the active products of a category with pagination and optional sorting")
     @GetMapping("/category/{id}")
-    public ResponseEntity<List<ProductResponse>> getByCategoryId(@PathVariable Long id){
-        List<ProductResponse> response = this.productService.findByCategoryId(id);
-        return response.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(response);
+    public ResponseEntity<Page<ProductResponse>> getByCategoryId(
+            @PathVariable Long id,
+            @RequestParam(required = false, defaultValue = "name") String field,
+            @RequestParam(required = false, defaultValue = "true") Boolean desc,
+            @RequestParam(required = false, defaultValue = "0") Integer page) {
+        Page<ProductResponse> response = this.productService.findByCategoryId(id, field, desc, page);
+        return response.isEmpty() ? ResponseEntity.noContent().build() : ETags.ok(response);
     }
 
 
@@ -56,7 +122,7 @@ public class ProductController {
     @GetMapping("/disabled-products")
     public ResponseEntity<List<ProductResponse>> getDisabledProducts(){
         List<ProductResponse> response = this.productService.findDisabledProducts();
-        return response.isEmpty() ? ResponseEntity.noContent().build() :ResponseEntity.ok(response);
+        return response.isEmpty() ? ResponseEntity.noContent().build() : ETags.ok(response);
     }
 
 
@@ -73,6 +139,18 @@ public class ProductController {
         return ResponseEntity.ok(this.productService.updateStock(id, newStock));
     }
 
+    @Operation(summary = "Update the stock of many products at once, each entry sets a new stock or adds a delta")
+    @PatchMapping("/stock")
+    public ResponseEntity<ProductStockResponse> updateStocks(@RequestBody List<ProductStockRequest> request){
+        return ResponseEntity.ok(this.productService.updateStocks(request));
+    }
+
+    @Operation(summary = "Split the stock of a hot product across N stripe rows (0 to merge it back)")
+    @PatchMapping("/{id}/stripes")
+    public ResponseEntity<ProductResponse> updateStockStripes(@PathVariable Long id, @RequestParam Integer stripes){
+        return ResponseEntity.ok(this.productService.updateStockStripes(id, stripes));
+    }
+
     @Operation(summary = "Delete a product by ID (or disable if associated with orders or carts)")
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable Long id){
@@ -0,0 +1,25 @@
+package com.alex.ecom_cart.api.controllers.error_handler;
+
+import com.alex.ecom_cart.api.dtos.response.BaseErrorResponse;
+import com.alex.ecom_cart.api.dtos.response.ErrorResponse;
+import com.alex.ecom_cart.util.exceptions.IdempotencyKeyInUseException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ConflictController {
+
+    @ExceptionHandler(value = IdempotencyKeyInUseException.class)
+    public BaseErrorResponse handleIdempotencyKeyInUse(IdempotencyKeyInUseException exception) {
+        return ErrorResponse
+                .builder()
+                .message(exception.getMessage())
+                .status(HttpStatus.CONFLICT.name())
+                .code(HttpStatus.CONFLICT.value())
+                .build();
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.alex.ecom_cart.api.controllers.error_handler;
+
+import com.alex.ecom_cart.api.dtos.response.BaseErrorResponse;
+import com.alex.ecom_cart.api.dtos.response.ErrorResponse;
+import com.alex.ecom_cart.util.exceptions.GroupCommitTimeoutException;
+import com.alex.ecom_cart.util.exceptions.IntakeQueueFullException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ServiceUnavailableController {
+
+    @ExceptionHandler(value = IntakeQueueFullException.class)
+    public BaseErrorResponse handleIntakeQueueFull(IntakeQueueFullException exception) {
+        return ErrorResponse
+                .builder()
+                .message(exception.getMessage())
+                .status(HttpStatus.SERVICE_UNAVAILABLE.name())
+                .code(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .build();
+    }
+
+    @ExceptionHandler(value = GroupCommitTimeoutException.class)
+    public BaseErrorResponse handleGroupCommitTimeout(GroupCommitTimeoutException exception) {
+        return ErrorResponse
+                .builder()
+                .message(exception.getMessage())
+                .status(HttpStatus.SERVICE_UNAVAILABLE.name())
+                .code(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .build();
+    }
+
+}
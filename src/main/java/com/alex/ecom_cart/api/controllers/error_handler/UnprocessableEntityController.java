@@ -0,0 +1,25 @@
+package com.alex.ecom_cart.api.controllers.error_handler;
+
+import com.alex.ecom_cart.api.dtos.response.BaseErrorResponse;
+import com.alex.ecom_cart.api.dtos.response.ErrorResponse;
+import com.alex.ecom_cart.util.exceptions.IdempotencyKeyMismatchException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+@ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+public class UnprocessableEntityController {
+
+    @ExceptionHandler(value = IdempotencyKeyMismatchException.class)
+    public BaseErrorResponse handleIdempotencyKeyMismatch(IdempotencyKeyMismatchException exception) {
+        return ErrorResponse
+                .builder()
+                .message(exception.getMessage())
+                .status(HttpStatus.UNPROCESSABLE_ENTITY.name())
+                .code(HttpStatus.UNPROCESSABLE_ENTITY.value())
+                .build();
+    }
+
+}
@@ -0,0 +1,22 @@
+package com.alex.ecom_cart.api.dtos.request;
+
+import com.alex.ecom_cart.util.enums.CartOperationType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+// ADD adds quantity to the line, SET replaces it and REMOVE drops the line without a quantity
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class CartOperationRequest implements Serializable {
+
+    private CartOperationType op;
+    private Long productId;
+    private Integer quantity;
+
+}
@@ -0,0 +1,21 @@
+package com.alex.ecom_cart.api.dtos.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+// Exactly one of stock (the new absolute value) or delta (added to the current stock) is expected
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class ProductStockRequest implements Serializable {
+
+    private Long id;
+    private Integer stock;
+    private Integer delta;
+
+}
@@ -17,4 +17,9 @@ public class CartProductResponse implements Serializable {
     private String name;
     private BigDecimal price;
     private Integer quantity;
+    // Price when the line was last added or set, price is the live one the line is charged at
+    private BigDecimal snapshotPrice;
+    private BigDecimal lineTotal;
+    private boolean priceChanged;
+    private boolean insufficientStock;
 }
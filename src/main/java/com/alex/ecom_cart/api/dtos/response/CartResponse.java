@@ -7,6 +7,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
+import java.math.BigDecimal;
 import java.util.List;
 
 @NoArgsConstructor
@@ -18,7 +19,6 @@ public class CartResponse implements Serializable {
     private Long cartId;
     private Long customerId;
     private List<CartProductResponse> products;
-
-
+    private BigDecimal total;
 
 }
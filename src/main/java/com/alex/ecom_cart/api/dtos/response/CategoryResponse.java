@@ -0,0 +1,20 @@
+package com.alex.ecom_cart.api.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class CategoryResponse implements Serializable {
+
+    private Long id;
+    private String name;
+    private int productCount;
+
+}
@@ -17,4 +17,11 @@ public class CustomerResponse implements Serializable {
     private String email;
     private List<String> roles = new ArrayList<>();
 
+    // Used by the projection queries, roles are filled in afterwards
+    public CustomerResponse(Long id, String username, String email) {
+        this.id = id;
+        this.username = username;
+        this.email = email;
+    }
+
 }
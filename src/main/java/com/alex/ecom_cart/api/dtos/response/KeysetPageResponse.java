@@ -0,0 +1,22 @@
+package com.alex.ecom_cart.api.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class KeysetPageResponse<T> implements Serializable {
+
+    private List<T> content;
+    private int size;
+    // Pass it as "after" to get the next page, null on the last page
+    private String next;
+
+}
@@ -0,0 +1,26 @@
+package com.alex.ecom_cart.api.dtos.response;
+
+import com.alex.ecom_cart.util.enums.IntakeStatus;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class OrderIntakeResponse implements Serializable {
+
+    private String trackingId;
+    private IntakeStatus status;
+    private Long orderId;
+    private String errorMessage;
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm")
+    private LocalDateTime createdAt;
+
+}
@@ -0,0 +1,26 @@
+package com.alex.ecom_cart.api.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class ProductChangesResponse implements Serializable {
+
+    // Current state of the products created or changed since the token
+    private List<ProductResponse> changed;
+    // Products disabled or deleted since the token
+    private List<Long> removed;
+    private String next;
+    private boolean hasMore;
+    // The token is missing or older than the change log, the catalog has to be reloaded through GET /product
+    private boolean reset;
+
+}
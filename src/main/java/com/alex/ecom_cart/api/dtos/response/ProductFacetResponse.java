@@ -0,0 +1,27 @@
+package com.alex.ecom_cart.api.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class ProductFacetResponse implements Serializable {
+
+    private List<ProductResponse> content;
+    private int page;
+    private int totalElements;
+    // Each count applies every filter except the one of its own facet
+    private Map<Long, Integer> categories;
+    private Map<String, Integer> priceBands;
+    private int inStock;
+    private int outOfStock;
+
+}
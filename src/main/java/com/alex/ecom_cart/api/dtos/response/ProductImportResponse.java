@@ -0,0 +1,30 @@
+package com.alex.ecom_cart.api.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class ProductImportResponse implements Serializable {
+
+    private int imported;
+    private int rejected;
+    // Only the first rejected rows are listed, rejected always has the full count
+    private List<RowError> errors;
+
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Data
+    public static class RowError implements Serializable {
+        private long line;
+        private String message;
+    }
+
+}
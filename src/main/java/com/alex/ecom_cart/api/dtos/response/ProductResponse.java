@@ -23,4 +23,5 @@ public class ProductResponse implements Serializable {
     private Long category;
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm")
     private LocalDateTime createdAt;
+    private Long version;
 }
@@ -0,0 +1,22 @@
+package com.alex.ecom_cart.api.dtos.response;
+
+import com.alex.ecom_cart.util.enums.StockUpdateRejection;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.Map;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class ProductStockResponse implements Serializable {
+
+    // Stock of every updated product after the update
+    private Map<Long, Integer> updated;
+    private Map<Long, StockUpdateRejection> rejected;
+
+}
@@ -0,0 +1,44 @@
+package com.alex.ecom_cart.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/*
+ * The id_generator rows are seeded by data.sql only on a fresh database. A database upgraded through
+ * ddl-auto=update gets an empty id_generator, and Hibernate would start every generator at 1 on top of
+ * the existing rows. Before anything can allocate an id, every generator is moved up to the next free id
+ * of its table. A generator that is already ahead is left alone, so it is safe on every start and node.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+@Slf4j
+public class IdGeneratorSeeder {
+
+    // pkColumnValue of each @TableGenerator and the table it hands out ids for
+    static final Map<String, String> TABLES_BY_GENERATOR = Map.of(
+            "product", "product",
+            "customer", "customer",
+            "cart", "cart",
+            "order_", "order_",
+            "order_detail", "order_detail");
+
+    private static final String SEED_SQL =
+            "INSERT INTO id_generator (sequence_name, next_val) SELECT ?, COALESCE(MAX(id), 0) + 1 FROM %s "
+                    + "ON DUPLICATE KEY UPDATE next_val = GREATEST(next_val, VALUES(next_val))";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void seed() {
+        TABLES_BY_GENERATOR.forEach((generator, table) ->
+                jdbcTemplate.update(SEED_SQL.formatted(table), generator));
+        log.debug("Id generators seeded for {} tables", TABLES_BY_GENERATOR.size());
+    }
+}
@@ -1,5 +1,6 @@
 package com.alex.ecom_cart.config;
 
+import com.alex.ecom_cart.infrastructure.cache.TwoLevelCacheManager;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.Redisson;
 import org.redisson.api.RedissonClient;
@@ -17,6 +18,7 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -40,15 +42,19 @@ public class RedisConfig {
         return Redisson.create(config);
     }
 
+    // Redis is the shared level, each node keeps a local copy of the hottest entries in front of it, bounded in bytes
     @Bean
-    public CacheManager cacheManager(RedissonClient redissonClient) {
+    public CacheManager cacheManager(RedissonClient redissonClient,
+                                     @Value("${cache.local.max-bytes:33554432}") long localMaxBytes,
+                                     @Value("${cache.local.ttl-seconds:30}") long localTtlSeconds) {
         Map<String, CacheConfig> configs = new HashMap<>();
         configs.put(CacheConstants.PRODUCT_CACHE_NAME, new CacheConfig(30 * 60 * 1000L, 15 * 60 * 1000L));
         configs.put(CacheConstants.CUSTOMERS_CACHE_NAME, new CacheConfig(15 * 60 * 1000L, 5 * 60 * 1000L));
         configs.put(CacheConstants.ORDERS_CACHE_NAME, new CacheConfig(60 * 1000L, 300 * 1000L));
         configs.put(CacheConstants.ORDERS_DETAILS_CACHE_NAME, new CacheConfig(60 * 1000L, 300 * 1000L));
 
-        return new RedissonSpringCacheManager(redissonClient, configs);
+        RedissonSpringCacheManager redisCacheManager = new RedissonSpringCacheManager(redissonClient, configs);
+        return new TwoLevelCacheManager(redisCacheManager, redissonClient, localMaxBytes, Duration.ofSeconds(localTtlSeconds));
     }
 
     public class CacheConstants {
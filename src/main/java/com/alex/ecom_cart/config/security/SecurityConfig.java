@@ -53,15 +53,19 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.DELETE, "/product/**").hasAnyRole(ADMIN, SELLER)
                         .requestMatchers(HttpMethod.GET, "/product/**").permitAll()
 
+                        // CATEGORIES
+                        .requestMatchers(HttpMethod.GET, "/category").permitAll()
+
                         // CART
                         .requestMatchers("/cart/**").hasRole(CUSTOMER)
 
                         // ORDERS
-                        .requestMatchers(HttpMethod.GET, "/order").hasRole(ADMIN)
+                        .requestMatchers(HttpMethod.GET, "/order/intake/*").hasAnyRole(ADMIN, CUSTOMER)
+                        .requestMatchers(HttpMethod.GET, "/order", "/order/scroll").hasRole(ADMIN)
                         .requestMatchers(HttpMethod.GET, "/order/*").hasAnyRole(ADMIN, SELLER)
                         .requestMatchers(HttpMethod.GET, "/order/customer/{id}").hasAnyRole(ADMIN, CUSTOMER)
 
-                        .requestMatchers(HttpMethod.POST, "/order").hasRole(CUSTOMER)
+                        .requestMatchers(HttpMethod.POST, "/order", "/order/intake").hasRole(CUSTOMER)
                         .requestMatchers(HttpMethod.PATCH, "/order/status-order/**").hasAnyRole(ADMIN, SELLER)
                         .requestMatchers(HttpMethod.PATCH, "/order/cancel/**").hasRole(CUSTOMER)
 
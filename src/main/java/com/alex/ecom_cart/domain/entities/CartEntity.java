@@ -16,7 +16,8 @@ import java.util.List;
 public class CartEntity implements Serializable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "cart_id")
+    @TableGenerator(name = "cart_id", table = "id_generator", pkColumnValue = "cart", allocationSize = 50)
     private Long id;
 
     @OneToOne
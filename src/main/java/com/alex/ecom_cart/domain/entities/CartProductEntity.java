@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.*;
 
 import java.io.Serializable;
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -31,6 +32,10 @@ public class CartProductEntity implements Serializable {
 
     private Integer quantity;
 
+    // Product price when the line was last added or set
+    @Column(name = "unit_price")
+    private BigDecimal unitPrice;
+
     public CartProductEntity(CartEntity cart, ProductEntity product, Integer quantity) {
         this.cart = cart;
         this.product = product;
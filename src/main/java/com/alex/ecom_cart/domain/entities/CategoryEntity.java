@@ -1,5 +1,6 @@
 package com.alex.ecom_cart.domain.entities;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -19,4 +20,8 @@ public class CategoryEntity implements Serializable {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     private String name;
+
+    // Enabled products of the category, only ever changed by CategoryRepository.addProductCount
+    @Column(insertable = false, updatable = false)
+    private int productCount;
 }
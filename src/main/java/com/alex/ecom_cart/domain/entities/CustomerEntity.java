@@ -17,7 +17,8 @@ import java.util.Set;
 @Builder
 public class CustomerEntity implements Serializable {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "customer_id")
+    @TableGenerator(name = "customer_id", table = "id_generator", pkColumnValue = "customer", allocationSize = 50)
     private Long id;
     private String username;
     private String password;
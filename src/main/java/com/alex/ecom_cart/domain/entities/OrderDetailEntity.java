@@ -16,7 +16,8 @@ import java.time.LocalDateTime;
 public class OrderDetailEntity implements Serializable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "order_detail_id")
+    @TableGenerator(name = "order_detail_id", table = "id_generator", pkColumnValue = "order_detail", allocationSize = 50)
     private Long id;
     private Integer quantity;
     private BigDecimal price;
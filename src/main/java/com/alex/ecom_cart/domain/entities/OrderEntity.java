@@ -19,7 +19,8 @@ import java.util.List;
 public class OrderEntity implements Serializable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "order_id")
+    @TableGenerator(name = "order_id", table = "id_generator", pkColumnValue = "order_", allocationSize = 50)
     private Long id;
     private BigDecimal totalPrice;
     @Enumerated(EnumType.STRING)
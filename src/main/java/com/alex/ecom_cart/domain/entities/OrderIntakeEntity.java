@@ -0,0 +1,34 @@
+package com.alex.ecom_cart.domain.entities;
+
+import com.alex.ecom_cart.util.enums.IntakeStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Entity(name = "order_intake")
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class OrderIntakeEntity implements Serializable {
+
+    @Id
+    private String trackingId;
+    private Long customerId;
+    // The OrderRequest as JSON, replayed by the intake workers
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+    @Enumerated(EnumType.STRING)
+    private IntakeStatus status;
+    private Long orderId;
+    private String errorMessage;
+    // Transient failures so far, the row is not handed out again before nextAttemptAt
+    private int attempts;
+    private LocalDateTime nextAttemptAt;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+}
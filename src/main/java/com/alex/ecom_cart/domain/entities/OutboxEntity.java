@@ -0,0 +1,30 @@
+package com.alex.ecom_cart.domain.entities;
+
+import com.alex.ecom_cart.util.enums.OutboxEventType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Entity(name = "outbox")
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class OutboxEntity implements Serializable {
+
+    // Identity on purpose, the relay publishes in id order
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String aggregateType;
+    private Long aggregateId;
+    @Enumerated(EnumType.STRING)
+    private OutboxEventType eventType;
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+    private LocalDateTime createdAt;
+
+}
@@ -0,0 +1,27 @@
+package com.alex.ecom_cart.domain.entities;
+
+import com.alex.ecom_cart.util.enums.ProductChangeType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Entity(name = "product_change")
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class ProductChangeEntity implements Serializable {
+
+    // Identity on purpose, the sequence is the sync token handed to clients
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long seq;
+    private Long productId;
+    @Enumerated(EnumType.STRING)
+    private ProductChangeType changeType;
+    private LocalDateTime changedAt;
+
+}
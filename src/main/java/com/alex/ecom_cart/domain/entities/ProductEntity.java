@@ -3,6 +3,7 @@ package com.alex.ecom_cart.domain.entities;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Formula;
 
 import java.io.Serializable;
 import java.math.BigDecimal;
@@ -20,7 +21,8 @@ import java.util.Set;
 public class ProductEntity implements Serializable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "product_id")
+    @TableGenerator(name = "product_id", table = "id_generator", pkColumnValue = "product", allocationSize = 50)
     private Long id;
     private String name;
     private String description;
@@ -29,6 +31,16 @@ public class ProductEntity implements Serializable {
     private LocalDateTime createdAt;
     private boolean enabled = true;
 
+    // Moves with every write through the entity, the stock is written with plain SQL too and goes in the ETag on its own
+    @Version
+    private Long version;
+
+    // Hot products keep their stock split across this many product_stock_stripe rows
+    private int stockStripes;
+
+    @Formula("(SELECT SUM(s.stock) FROM product_stock_stripe s WHERE s.product_id = id)")
+    private Integer stripedStock;
+
     @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     @JoinColumn(name = "category_id")
     private CategoryEntity category;
@@ -43,4 +55,12 @@ public class ProductEntity implements Serializable {
         this.enabled = false;
     }
 
+    public boolean isHot() {
+        return this.stockStripes > 0;
+    }
+
+    public Integer getAvailableStock() {
+        return isHot() && this.stripedStock != null ? this.stripedStock : this.stock;
+    }
+
 }
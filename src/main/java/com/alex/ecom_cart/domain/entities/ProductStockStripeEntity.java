@@ -0,0 +1,21 @@
+package com.alex.ecom_cart.domain.entities;
+
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import lombok.*;
+
+import java.io.Serializable;
+
+@Entity(name = "product_stock_stripe")
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class ProductStockStripeEntity implements Serializable {
+
+    @EmbeddedId
+    private ProductStockStripeId id;
+
+    private Integer stock;
+}
@@ -0,0 +1,17 @@
+package com.alex.ecom_cart.domain.entities;
+
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.io.Serializable;
+
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class ProductStockStripeId implements Serializable {
+    private Long productId;
+    private Integer stripe;
+}
@@ -3,9 +3,25 @@ package com.alex.ecom_cart.domain.repositories;
 import com.alex.ecom_cart.domain.entities.CartProductEntity;
 import com.alex.ecom_cart.domain.entities.CartProductId;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
 public interface CartProductRepository extends JpaRepository<CartProductEntity, CartProductId> {
     void deleteAllByCartId(Long cartId);
+
+    @Modifying
+    @Query("DELETE FROM CartProductEntity cp WHERE cp.cart.id = :cartId")
+    int deleteByCartIdInBulk(@Param("cartId") Long cartId);
+
+    // Adds to the stored quantity or inserts the line in one statement and takes the current price as its
+    // snapshot, nothing is written when the cart does not exist or the product is missing or disabled
+    @Modifying
+    @Query(value = "INSERT INTO cart_product (cart_id, product_id, quantity, unit_price) " +
+            "SELECT c.id, p.id, :quantity, p.price FROM cart c JOIN product p ON p.id = :productId AND p.enabled = 1 " +
+            "WHERE c.id = :cartId " +
+            "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity), unit_price = VALUES(unit_price)", nativeQuery = true)
+    int upsertQuantity(@Param("cartId") Long cartId, @Param("productId") Long productId, @Param("quantity") int quantity);
 }
@@ -1,14 +1,47 @@
 package com.alex.ecom_cart.domain.repositories;
 
 import com.alex.ecom_cart.domain.entities.CartEntity;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 public interface CartRepository extends JpaRepository<CartEntity, Long> {
     Optional<CartEntity> findByCustomerId(Long id);
     @Query("SELECT c FROM cart c LEFT JOIN FETCH c.cartProducts cp LEFT JOIN FETCH cp.product WHERE c.id = :id")
     Optional<CartEntity> findByIdWithProducts(@Param("id") Long id);
+
+    // Only the cart row, locking the fetched lines and products would also hold up orders on those products
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM cart c WHERE c.id = :id")
+    Optional<CartEntity> findByIdForUpdate(@Param("id") Long id);
+
+    // One row per line, an empty cart gives a single row without product and a missing cart no rows.
+    // The stock expression mirrors ProductEntity.getAvailableStock
+    String CART_LINES = "SELECT c.id AS cartId, c.customer.id AS customerId, p.id AS productId, p.name AS name, " +
+            "p.price AS price, cp.unitPrice AS unitPrice, " +
+            "CASE WHEN p.stockStripes > 0 AND p.stripedStock IS NOT NULL THEN p.stripedStock ELSE p.stock END AS stock, " +
+            "cp.quantity AS quantity FROM cart c LEFT JOIN c.cartProducts cp LEFT JOIN cp.product p";
+
+    @Query(CART_LINES + " WHERE c.id = :id ORDER BY p.id")
+    List<CartLine> findLinesById(@Param("id") Long id);
+
+    @Query(CART_LINES + " WHERE c.customer.id = :customerId ORDER BY p.id")
+    List<CartLine> findLinesByCustomerId(@Param("customerId") Long customerId);
+
+    interface CartLine {
+        Long getCartId();
+        Long getCustomerId();
+        Long getProductId();
+        String getName();
+        BigDecimal getPrice();
+        BigDecimal getUnitPrice();
+        Integer getStock();
+        Integer getQuantity();
+    }
 }
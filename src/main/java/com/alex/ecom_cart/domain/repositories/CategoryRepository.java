@@ -1,7 +1,23 @@
 package com.alex.ecom_cart.domain.repositories;
 
 import com.alex.ecom_cart.domain.entities.CategoryEntity;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
+import java.util.List;
+
 public interface CategoryRepository extends CrudRepository<CategoryEntity, Long> {
+
+    List<CategoryEntity> findAllByOrderByName();
+
+    @Modifying
+    @Query(value = "UPDATE category SET product_count = product_count + :delta WHERE id = :id", nativeQuery = true)
+    int addProductCount(Long id, int delta);
+
+    // Repairs the counters from the product table, the writes keep them up to date afterwards
+    @Modifying
+    @Query(value = "UPDATE category SET product_count = " +
+            "(SELECT COUNT(*) FROM product p WHERE p.category_id = category.id AND p.enabled = TRUE)", nativeQuery = true)
+    int recountProducts();
 }
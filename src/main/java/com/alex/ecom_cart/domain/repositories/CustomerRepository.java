@@ -1,18 +1,31 @@
 package com.alex.ecom_cart.domain.repositories;
 
+import com.alex.ecom_cart.api.dtos.response.CustomerResponse;
 import com.alex.ecom_cart.domain.entities.CustomerEntity;
+import com.alex.ecom_cart.util.enums.Role;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface CustomerRepository extends JpaRepository<CustomerEntity, Long> {
 
+    // Roles are a collection and can not go in a constructor expression, they are read with findRolesByCustomerIds
+    String CUSTOMER_RESPONSE = "SELECT new com.alex.ecom_cart.api.dtos.response.CustomerResponse(c.id, c.username, " +
+            "c.email) FROM customer c";
+
     @Query("SELECT p FROM customer p WHERE p.enabled = true")
     Page<CustomerEntity> findAllActive(Pageable pageable);
+    // Keyset variant of findActiveResponses, roles are read with findRolesByCustomerIds
+    Window<CustomerSummary> findSummariesByEnabledTrue(ScrollPosition position, Sort sort, Limit limit);
     List<CustomerEntity> findAllByEnabledFalse();
     Optional<CustomerEntity> findByUsernameAndEnabledTrue(String username);
     Optional<CustomerEntity> findByUsername(String username);
@@ -20,5 +33,26 @@ public interface CustomerRepository extends JpaRepository<CustomerEntity, Long>
     boolean existsByUsername(String email);
     boolean existsByEmail(String email);
 
+    @Query(value = CUSTOMER_RESPONSE + " WHERE c.enabled = true",
+            countQuery = "SELECT COUNT(c) FROM customer c WHERE c.enabled = true")
+    Page<CustomerResponse> findActiveResponses(Pageable pageable);
+
+    @Query(CUSTOMER_RESPONSE + " WHERE c.enabled = false")
+    List<CustomerResponse> findDisabledResponses();
+
+    @Query("SELECT c.id AS customerId, r.name AS role FROM customer c JOIN c.roles r WHERE c.id IN :customerIds")
+    List<CustomerRole> findRolesByCustomerIds(Collection<Long> customerIds);
+
+    interface CustomerSummary {
+        Long getId();
+        String getUsername();
+        String getEmail();
+    }
+
+    interface CustomerRole {
+        Long getCustomerId();
+        Role getRole();
+    }
+
 }
 
@@ -1,13 +1,48 @@
 package com.alex.ecom_cart.domain.repositories;
 
+import com.alex.ecom_cart.api.dtos.response.OrderDetailResponse;
 import com.alex.ecom_cart.domain.entities.OrderDetailEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 public interface OrderDetailRepository extends JpaRepository<OrderDetailEntity, Long> {
+
+    // Reads straight into the response, order and product ids come from the foreign key columns
+    String ORDER_DETAIL_RESPONSE = "SELECT new com.alex.ecom_cart.api.dtos.response.OrderDetailResponse(d.id, " +
+            "d.quantity, d.price, d.createdAt, d.order.id, d.product.id) FROM order_detail d";
+
     List<OrderDetailEntity> findByOrderId(Long orderId);
     List<OrderDetailEntity> findByProductId(Long productId);
+    // Keyset variant of findAllResponses, order and product ids are read from the foreign keys and never loaded
+    Window<OrderDetailSummary> findSummariesBy(ScrollPosition position, Sort sort, Limit limit);
+
+    @Query(value = ORDER_DETAIL_RESPONSE, countQuery = "SELECT COUNT(d) FROM order_detail d")
+    Page<OrderDetailResponse> findAllResponses(Pageable pageable);
+
+    @Query(ORDER_DETAIL_RESPONSE + " WHERE d.order.id = :orderId")
+    List<OrderDetailResponse> findResponsesByOrderId(Long orderId);
+
+    @Query(ORDER_DETAIL_RESPONSE + " WHERE d.product.id = :productId")
+    List<OrderDetailResponse> findResponsesByProductId(Long productId);
+
+    interface OrderDetailSummary {
+        Long getId();
+        Integer getQuantity();
+        BigDecimal getPrice();
+        LocalDateTime getCreatedAt();
+        Long getOrderId();
+        Long getProductId();
+    }
 }
@@ -0,0 +1,36 @@
+package com.alex.ecom_cart.domain.repositories;
+
+import com.alex.ecom_cart.domain.entities.OrderIntakeEntity;
+import com.alex.ecom_cart.util.enums.IntakeStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OrderIntakeRepository extends JpaRepository<OrderIntakeEntity, String> {
+
+    long countByStatus(IntakeStatus status);
+
+    @Query("SELECT i.trackingId FROM order_intake i WHERE i.status = :status AND i.nextAttemptAt <= :now " +
+            "ORDER BY i.nextAttemptAt")
+    List<String> findReadyTrackingIds(@Param("status") IntakeStatus status, @Param("now") LocalDateTime now,
+                                      Pageable pageable);
+
+    // Only moves the row when it is still in the expected status, 0 means another worker already took it
+    @Modifying
+    @Query("UPDATE order_intake i SET i.status = :to, i.orderId = :orderId, i.errorMessage = :errorMessage, i.updatedAt = :now " +
+            "WHERE i.trackingId = :trackingId AND i.status = :from")
+    int transition(@Param("trackingId") String trackingId, @Param("from") IntakeStatus from, @Param("to") IntakeStatus to,
+                   @Param("orderId") Long orderId, @Param("errorMessage") String errorMessage, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE order_intake i SET i.attempts = :attempts, i.nextAttemptAt = :nextAttemptAt, " +
+            "i.errorMessage = :errorMessage, i.updatedAt = :now WHERE i.trackingId = :trackingId AND i.status = :status")
+    int retryLater(@Param("trackingId") String trackingId, @Param("status") IntakeStatus status,
+                   @Param("attempts") int attempts, @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                   @Param("errorMessage") String errorMessage, @Param("now") LocalDateTime now);
+}
@@ -1,10 +1,46 @@
 package com.alex.ecom_cart.domain.repositories;
 
+import com.alex.ecom_cart.api.dtos.response.OrderResponse;
 import com.alex.ecom_cart.domain.entities.OrderEntity;
+import com.alex.ecom_cart.util.enums.OrderStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface OrderRepository extends JpaRepository<OrderEntity, Long> {
+
+    // Reads straight into the response, the username comes from the same join
+    String ORDER_RESPONSE = "SELECT new com.alex.ecom_cart.api.dtos.response.OrderResponse(o.id, o.totalPrice, " +
+            "o.orderStatus, o.createdAt, c.username) FROM order_ o JOIN o.customer c";
+
     List<OrderEntity> findByCustomerId(Long customerId);
+    // Keyset variant of findAllResponses, only the selected columns are read and the customer is joined for its name
+    Window<OrderSummary> findSummariesBy(ScrollPosition position, Sort sort, Limit limit);
+
+    @Query(value = ORDER_RESPONSE, countQuery = "SELECT COUNT(o) FROM order_ o")
+    Page<OrderResponse> findAllResponses(Pageable pageable);
+
+    @Query(ORDER_RESPONSE + " WHERE o.id = :id")
+    Optional<OrderResponse> findResponseById(Long id);
+
+    @Query(ORDER_RESPONSE + " WHERE c.id = :customerId")
+    List<OrderResponse> findResponsesByCustomerId(Long customerId);
+
+    interface OrderSummary {
+        Long getId();
+        BigDecimal getTotalPrice();
+        OrderStatus getOrderStatus();
+        LocalDateTime getCreatedAt();
+        String getCustomerUsername();
+    }
 }
@@ -0,0 +1,11 @@
+package com.alex.ecom_cart.domain.repositories;
+
+import com.alex.ecom_cart.domain.entities.OutboxEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface OutboxRepository extends JpaRepository<OutboxEntity, Long> {
+    List<OutboxEntity> findAllByOrderByIdAsc(Pageable pageable);
+}
@@ -0,0 +1,26 @@
+package com.alex.ecom_cart.domain.repositories;
+
+import com.alex.ecom_cart.domain.entities.ProductChangeEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ProductChangeRepository extends JpaRepository<ProductChangeEntity, Long> {
+
+    // A range scan on the primary key
+    List<ProductChangeEntity> findBySeqGreaterThanOrderBySeqAsc(Long seq, Limit limit);
+
+    @Query("SELECT MIN(c.seq) FROM product_change c")
+    Long findOldestSeq();
+
+    @Query("SELECT MAX(c.seq) FROM product_change c")
+    Long findNewestSeq();
+
+    @Modifying
+    @Query("DELETE FROM product_change c WHERE c.changedAt < :before AND c.seq < :keepFrom")
+    int deleteChangedBefore(LocalDateTime before, Long keepFrom);
+}
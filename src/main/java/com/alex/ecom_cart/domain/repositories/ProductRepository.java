@@ -2,22 +2,101 @@ package com.alex.ecom_cart.domain.repositories;
 
 import com.alex.ecom_cart.api.dtos.response.ProductResponse;
 import com.alex.ecom_cart.domain.entities.ProductEntity;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface ProductRepository extends JpaRepository<ProductEntity, Long> {
+public interface ProductRepository extends JpaRepository<ProductEntity, Long>, ProductStockRepository {
+
+    // Reads straight into the response, the stock expression mirrors ProductEntity.getAvailableStock
+    String PRODUCT_RESPONSE = "SELECT new com.alex.ecom_cart.api.dtos.response.ProductResponse(p.id, p.name, " +
+            "p.description, p.price, " +
+            "CASE WHEN p.stockStripes > 0 AND p.stripedStock IS NOT NULL THEN p.stripedStock ELSE p.stock END, " +
+            "p.category.id, p.createdAt, p.version) FROM product p";
 
     @Query("SELECT p FROM product p WHERE p.enabled  = true")
     Page<ProductEntity> findAllActive(PageRequest pageRequest);
 
+    // Keyset variant of findAllActive, seeks past the position instead of skipping OFFSET rows and never counts
+    Window<ProductEntity> findByEnabledTrue(ScrollPosition position, Sort sort, Limit limit);
+
     @Query("SELECT p FROM product p WHERE p.category.id = :categoryId AND p.enabled  = true")
     List<ProductEntity> findByCategoryIdAndNotDeleted(Long categoryId);
 
     @Query("SELECT p FROM product p WHERE p.enabled = false")
     List<ProductEntity> findAllByEnabledFalse();
+
+    @Query(value = PRODUCT_RESPONSE + " WHERE p.enabled = true",
+            countQuery = "SELECT COUNT(p) FROM product p WHERE p.enabled = true")
+    Page<ProductResponse> findActiveResponses(Pageable pageable);
+
+    @Query(PRODUCT_RESPONSE + " WHERE p.id = :id AND p.enabled = true")
+    Optional<ProductResponse> findEnabledResponseById(Long id);
+
+    // The two values the ETag of findEnabledResponseById is made of, read from the primary key alone
+    @Query("SELECT p.version AS version, " +
+            "CASE WHEN p.stockStripes > 0 AND p.stripedStock IS NOT NULL THEN p.stripedStock ELSE p.stock END AS stock " +
+            "FROM product p WHERE p.id = :id AND p.enabled = true")
+    Optional<ProductVersion> findEnabledVersionById(Long id);
+
+    // The total comes from the category counter, so no count query is issued
+    @Query(PRODUCT_RESPONSE + " WHERE p.category.id = :categoryId AND p.enabled = true")
+    List<ProductResponse> findResponsesByCategoryId(Long categoryId, Pageable pageable);
+
+    @Query(PRODUCT_RESPONSE + " WHERE p.enabled = false")
+    List<ProductResponse> findDisabledResponses();
+
+    @Query(PRODUCT_RESPONSE + " WHERE p.id IN :ids AND p.enabled = true")
+    List<ProductResponse> findEnabledResponsesByIds(Collection<Long> ids);
+
+    @Query("SELECT p.id AS id, p.name AS name, p.description AS description FROM product p WHERE p.enabled = true")
+    List<SearchableProduct> findSearchableProducts();
+
+    @Query("SELECT p.id AS id, p.category.id AS categoryId, p.price AS price, " +
+            "CASE WHEN p.stockStripes > 0 AND p.stripedStock IS NOT NULL THEN p.stripedStock ELSE p.stock END AS stock, " +
+            "p.enabled AS enabled FROM product p")
+    List<FacetProduct> findFacetProducts();
+
+    @Query(PRODUCT_RESPONSE + " WHERE p.id IN :ids")
+    List<ProductResponse> findResponsesByIds(Collection<Long> ids);
+
+    @Query("SELECT p.id AS id, p.category.id AS categoryId, p.price AS price, p.stock AS stock, " +
+            "p.stockStripes AS stockStripes, p.enabled AS enabled FROM product p WHERE p.id IN :ids")
+    List<StockTarget> findStockTargets(Collection<Long> ids);
+
+    interface SearchableProduct {
+        Long getId();
+        String getName();
+        String getDescription();
+    }
+
+    interface FacetProduct {
+        Long getId();
+        Long getCategoryId();
+        BigDecimal getPrice();
+        Integer getStock();
+        Boolean getEnabled();
+    }
+
+    interface ProductVersion {
+        Long getVersion();
+        Integer getStock();
+    }
+
+    // Stock here is the product row, striped products are updated through their stripes
+    interface StockTarget extends FacetProduct {
+        Integer getStockStripes();
+    }
 }
 
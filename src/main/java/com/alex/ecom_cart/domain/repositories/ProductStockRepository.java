@@ -0,0 +1,26 @@
+package com.alex.ecom_cart.domain.repositories;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public interface ProductStockRepository {
+
+    // Returns the ids of the products that were disabled or did not have enough stock
+    List<Long> decrementStock(Map<Long, Integer> quantitiesByProductId);
+
+    // Unconditional decrement used to reconcile reservations that were already accepted elsewhere
+    void subtractStock(Map<Long, Integer> quantitiesByProductId, int batchSize);
+
+    // False when the drain was already applied, the insert runs in the transaction that applies it
+    boolean recordInventoryDrain(String drainId);
+
+    int pruneInventoryDrains(LocalDateTime appliedBefore);
+
+    Map<Long, Integer> findStockOfEnabledProducts();
+
+    void overwriteStock(Map<Long, Integer> stockByProductId, int batchSize);
+
+    // Returns the ids of the products whose stock would have gone below zero, those are left untouched
+    List<Long> addStock(Map<Long, Integer> deltasByProductId, int batchSize);
+}
@@ -0,0 +1,127 @@
+package com.alex.ecom_cart.domain.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RequiredArgsConstructor
+public class ProductStockRepositoryImpl implements ProductStockRepository {
+
+    private static final String DECREMENT_STOCK_SQL =
+            "UPDATE product SET stock = stock - ? WHERE id = ? AND stock >= ? AND enabled = TRUE";
+    private static final String SUBTRACT_STOCK_SQL = "UPDATE product SET stock = stock - ? WHERE id = ?";
+    private static final String OVERWRITE_STOCK_SQL = "UPDATE product SET stock = ? WHERE id = ?";
+    private static final String ADD_STOCK_SQL = "UPDATE product SET stock = stock + ? WHERE id = ? AND stock + ? >= 0";
+    private static final String INSERT_DRAIN_SQL = "INSERT INTO inventory_drain (drain_id, applied_at) VALUES (?, ?)";
+    private static final String PRUNE_DRAINS_SQL = "DELETE FROM inventory_drain WHERE applied_at < ?";
+    private static final String ENABLED_STOCK_SQL = "SELECT id, stock FROM product WHERE enabled = TRUE";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Long> decrementStock(Map<Long, Integer> quantitiesByProductId) {
+        // Rows are always locked in id order so concurrent orders cannot deadlock each other
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(new TreeMap<>(quantitiesByProductId).entrySet());
+
+        int[] updatedRows = jdbcTemplate.batchUpdate(DECREMENT_STOCK_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Map.Entry<Long, Integer> line = lines.get(i);
+                ps.setInt(1, line.getValue());
+                ps.setLong(2, line.getKey());
+                ps.setInt(3, line.getValue());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return lines.size();
+            }
+        });
+
+        List<Long> rejected = new ArrayList<>();
+        for (int i = 0; i < updatedRows.length; i++) {
+            if (updatedRows[i] == 0) {
+                rejected.add(lines.get(i).getKey());
+            }
+        }
+        return rejected;
+    }
+
+    @Override
+    public void subtractStock(Map<Long, Integer> quantitiesByProductId, int batchSize) {
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(new TreeMap<>(quantitiesByProductId).entrySet());
+
+        jdbcTemplate.batchUpdate(SUBTRACT_STOCK_SQL, lines, batchSize, (ps, line) -> {
+            ps.setInt(1, line.getValue());
+            ps.setLong(2, line.getKey());
+        });
+    }
+
+    @Override
+    public boolean recordInventoryDrain(String drainId) {
+        try {
+            jdbcTemplate.update(INSERT_DRAIN_SQL, drainId, Timestamp.valueOf(LocalDateTime.now()));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public int pruneInventoryDrains(LocalDateTime appliedBefore) {
+        return jdbcTemplate.update(PRUNE_DRAINS_SQL, Timestamp.valueOf(appliedBefore));
+    }
+
+    @Override
+    public void overwriteStock(Map<Long, Integer> stockByProductId, int batchSize) {
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(new TreeMap<>(stockByProductId).entrySet());
+
+        jdbcTemplate.batchUpdate(OVERWRITE_STOCK_SQL, lines, batchSize, (ps, line) -> {
+            ps.setInt(1, line.getValue());
+            ps.setLong(2, line.getKey());
+        });
+    }
+
+    @Override
+    public List<Long> addStock(Map<Long, Integer> deltasByProductId, int batchSize) {
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(new TreeMap<>(deltasByProductId).entrySet());
+
+        int[][] updatedRows = jdbcTemplate.batchUpdate(ADD_STOCK_SQL, lines, batchSize, (ps, line) -> {
+            ps.setInt(1, line.getValue());
+            ps.setLong(2, line.getKey());
+            ps.setInt(3, line.getValue());
+        });
+
+        List<Long> rejected = new ArrayList<>();
+        int i = 0;
+        for (int[] batch : updatedRows) {
+            for (int rows : batch) {
+                if (rows == 0) {
+                    rejected.add(lines.get(i).getKey());
+                }
+                i++;
+            }
+        }
+        return rejected;
+    }
+
+    @Override
+    public Map<Long, Integer> findStockOfEnabledProducts() {
+        Map<Long, Integer> stockByProductId = new HashMap<>();
+        jdbcTemplate.query(ENABLED_STOCK_SQL, rs -> {
+            stockByProductId.put(rs.getLong("id"), rs.getInt("stock"));
+        });
+        return stockByProductId;
+    }
+}
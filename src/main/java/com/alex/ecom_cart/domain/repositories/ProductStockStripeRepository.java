@@ -0,0 +1,9 @@
+package com.alex.ecom_cart.domain.repositories;
+
+import com.alex.ecom_cart.domain.entities.ProductStockStripeEntity;
+import com.alex.ecom_cart.domain.entities.ProductStockStripeId;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ProductStockStripeRepository extends JpaRepository<ProductStockStripeEntity, ProductStockStripeId>,
+        StripedStockRepository {
+}
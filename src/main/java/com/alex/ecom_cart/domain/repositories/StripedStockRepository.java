@@ -0,0 +1,15 @@
+package com.alex.ecom_cart.domain.repositories;
+
+public interface StripedStockRepository {
+
+    // Returns false when all the stripes together do not hold the quantity
+    boolean decrementStripes(Long productId, int stripes, int quantity);
+
+    // Relative change on a single stripe, a negative delta is taken like an order and false when it is not held
+    boolean addToStripes(Long productId, int stripes, int delta);
+
+    int sumStripes(Long productId);
+
+    // Spreads the stock evenly over the given number of stripes, zero stripes removes them
+    void replaceStripes(Long productId, int stripes, int stock);
+}
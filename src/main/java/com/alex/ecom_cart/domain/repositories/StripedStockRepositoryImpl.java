@@ -0,0 +1,96 @@
+package com.alex.ecom_cart.domain.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+@RequiredArgsConstructor
+public class StripedStockRepositoryImpl implements StripedStockRepository {
+
+    private static final String DECREMENT_STRIPE_SQL =
+            "UPDATE product_stock_stripe SET stock = stock - ? WHERE product_id = ? AND stripe = ? AND stock >= ?";
+    private static final String LOCK_STRIPES_SQL =
+            "SELECT stripe, stock FROM product_stock_stripe WHERE product_id = ? ORDER BY stripe FOR UPDATE";
+    private static final String SUBTRACT_STRIPE_SQL =
+            "UPDATE product_stock_stripe SET stock = stock - ? WHERE product_id = ? AND stripe = ?";
+    private static final String ADD_STRIPE_SQL =
+            "UPDATE product_stock_stripe SET stock = stock + ? WHERE product_id = ? AND stripe = ?";
+    private static final String SUM_STRIPES_SQL =
+            "SELECT COALESCE(SUM(stock), 0) FROM product_stock_stripe WHERE product_id = ?";
+    private static final String DELETE_STRIPES_SQL = "DELETE FROM product_stock_stripe WHERE product_id = ?";
+    private static final String INSERT_STRIPE_SQL =
+            "INSERT INTO product_stock_stripe (product_id, stripe, stock) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public boolean decrementStripes(Long productId, int stripes, int quantity) {
+        // Start on a random stripe so concurrent checkouts lock different rows, then walk the neighbours
+        int start = ThreadLocalRandom.current().nextInt(stripes);
+        for (int i = 0; i < stripes; i++) {
+            int stripe = (start + i) % stripes;
+            if (jdbcTemplate.update(DECREMENT_STRIPE_SQL, quantity, productId, stripe, quantity) == 1) {
+                return true;
+            }
+        }
+        return decrementAcrossStripes(productId, quantity);
+    }
+
+    @Override
+    public boolean addToStripes(Long productId, int stripes, int delta) {
+        if (delta < 0) {
+            return decrementStripes(productId, stripes, -delta);
+        }
+        int stripe = ThreadLocalRandom.current().nextInt(stripes);
+        return jdbcTemplate.update(ADD_STRIPE_SQL, delta, productId, stripe) == 1;
+    }
+
+    @Override
+    public int sumStripes(Long productId) {
+        return jdbcTemplate.queryForObject(SUM_STRIPES_SQL, Integer.class, productId);
+    }
+
+    @Override
+    public void replaceStripes(Long productId, int stripes, int stock) {
+        jdbcTemplate.update(DELETE_STRIPES_SQL, productId);
+        if (stripes == 0) {
+            return;
+        }
+
+        List<Object[]> rows = new ArrayList<>(stripes);
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            int share = stock / stripes + (stripe < stock % stripes ? 1 : 0);
+            rows.add(new Object[]{productId, stripe, share});
+        }
+        jdbcTemplate.batchUpdate(INSERT_STRIPE_SQL, rows);
+    }
+
+    // No single stripe holds the quantity, lock them all in order and take from each one
+    private boolean decrementAcrossStripes(Long productId, int quantity) {
+        List<int[]> stripes = jdbcTemplate.query(LOCK_STRIPES_SQL,
+                (rs, rowNum) -> new int[]{rs.getInt("stripe"), rs.getInt("stock")}, productId);
+
+        int available = stripes.stream().mapToInt(stripe -> stripe[1]).sum();
+        if (available < quantity) {
+            return false;
+        }
+
+        List<Object[]> updates = new ArrayList<>();
+        int remaining = quantity;
+        for (int[] stripe : stripes) {
+            int taken = Math.min(stripe[1], remaining);
+            if (taken > 0) {
+                updates.add(new Object[]{taken, productId, stripe[0]});
+                remaining -= taken;
+            }
+            if (remaining == 0) {
+                break;
+            }
+        }
+        jdbcTemplate.batchUpdate(SUBTRACT_STRIPE_SQL, updates);
+        return true;
+    }
+}
@@ -1,10 +1,13 @@
 package com.alex.ecom_cart.infrastructure.abstract_services;
 
+import com.alex.ecom_cart.api.dtos.response.KeysetPageResponse;
 import org.springframework.data.domain.Page;
 
 public interface CrudPaginationService<RQ, RS, ID> {
     Page<RS> readAll(String field, Boolean desc, Integer page);
 
+    KeysetPageResponse<RS> scroll(String field, Boolean desc, String after);
+
     RS create(RQ request);
 
     RS findById(ID id);
@@ -1,12 +1,18 @@
 package com.alex.ecom_cart.infrastructure.abstract_services;
 
+import com.alex.ecom_cart.api.dtos.request.CartOperationRequest;
 import com.alex.ecom_cart.api.dtos.response.CartResponse;
+import com.alex.ecom_cart.api.dtos.response.OrderResponse;
+
+import java.util.List;
 
 public interface ICartService {
     CartResponse createCartForCustomer(Long customerId);
     CartResponse addProductToCart(Long cartId, Long productId, int quantity);
     CartResponse removeProductFromCart(Long cartId, Long productId);
+    CartResponse applyOperations(Long cartId, List<CartOperationRequest> operations);
     CartResponse getCartById(Long cartId);
     CartResponse getCartByCustomerId(Long customerId);
     void clearCart(Long cartId);
+    OrderResponse checkout(Long cartId);
 }
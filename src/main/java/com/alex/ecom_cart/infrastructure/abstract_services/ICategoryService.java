@@ -0,0 +1,11 @@
+package com.alex.ecom_cart.infrastructure.abstract_services;
+
+import com.alex.ecom_cart.api.dtos.response.CategoryResponse;
+
+import java.util.List;
+
+public interface ICategoryService {
+
+    List<CategoryResponse> findAll();
+
+}
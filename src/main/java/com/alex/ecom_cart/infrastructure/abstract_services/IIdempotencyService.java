@@ -0,0 +1,9 @@
+package com.alex.ecom_cart.infrastructure.abstract_services;
+
+import java.io.Serializable;
+import java.util.function.Supplier;
+
+public interface IIdempotencyService {
+    // Runs the action once per key and returns its stored result to every later call with the same key and request
+    <T extends Serializable> T execute(String key, Object request, Supplier<T> action);
+}
@@ -0,0 +1,19 @@
+package com.alex.ecom_cart.infrastructure.abstract_services;
+
+import com.alex.ecom_cart.domain.entities.ProductEntity;
+
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+
+public interface IInventoryService {
+    // Returns the ids of the products that could not be reserved, nothing is reserved in that case
+    List<Long> reserve(Map<Long, ProductEntity> productsById, Map<Long, Integer> quantitiesByProductId);
+    void overwrite(ProductEntity product);
+    // Bulk versions for products without stripes whose row was already updated
+    void overwriteAll(Map<Long, Integer> stockByProductId);
+    void addAll(Map<Long, Integer> deltasByProductId);
+    void updateStripes(ProductEntity product, int stripes);
+    // Returns the new striped stock, empty when the stripes do not hold a negative delta
+    OptionalInt addToStripes(Long productId, int stripes, int delta);
+}
@@ -1,5 +1,6 @@
 package com.alex.ecom_cart.infrastructure.abstract_services;
 
+import com.alex.ecom_cart.api.dtos.response.KeysetPageResponse;
 import com.alex.ecom_cart.api.dtos.response.OrderDetailResponse;
 import org.springframework.data.domain.Page;
 
@@ -8,6 +9,7 @@ import java.util.List;
 public interface IOrderDetais {
 
     Page<OrderDetailResponse> readAll(String field, Boolean desc, Integer page);
+    KeysetPageResponse<OrderDetailResponse> scroll(String field, Boolean desc, String after);
     List<OrderDetailResponse> findByOrderId(Long orderId);
     List<OrderDetailResponse> findByProductId(Long productId);
 
@@ -0,0 +1,9 @@
+package com.alex.ecom_cart.infrastructure.abstract_services;
+
+import com.alex.ecom_cart.api.dtos.request.OrderRequest;
+import com.alex.ecom_cart.api.dtos.response.OrderIntakeResponse;
+
+public interface IOrderIntakeService {
+    OrderIntakeResponse enqueue(OrderRequest request);
+    OrderIntakeResponse findByTrackingId(String trackingId);
+}
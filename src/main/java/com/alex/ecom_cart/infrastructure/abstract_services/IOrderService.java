@@ -1,6 +1,7 @@
 package com.alex.ecom_cart.infrastructure.abstract_services;
 
 import com.alex.ecom_cart.api.dtos.request.OrderRequest;
+import com.alex.ecom_cart.api.dtos.response.KeysetPageResponse;
 import com.alex.ecom_cart.api.dtos.response.OrderResponse;
 import com.alex.ecom_cart.util.enums.OrderStatus;
 import org.springframework.data.domain.Page;
@@ -9,7 +10,9 @@ import java.util.List;
 
 public interface IOrderService{
     Page<OrderResponse> readAll(String field, Boolean desc, Integer page);
+    KeysetPageResponse<OrderResponse> scroll(String field, Boolean desc, String after);
     OrderResponse create(OrderRequest request);
+    OrderResponse createFromCart(Long cartId);
     OrderResponse findById(Long id);
     List<OrderResponse> findByCustomerId(Long customerId);
     OrderResponse updateStatus(OrderStatus orderStatus, Long id);
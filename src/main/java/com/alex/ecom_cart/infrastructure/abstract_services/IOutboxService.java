@@ -0,0 +1,12 @@
+package com.alex.ecom_cart.infrastructure.abstract_services;
+
+import com.alex.ecom_cart.util.enums.OutboxEventType;
+
+import java.util.Map;
+
+public interface IOutboxService {
+    // Must run inside the transaction that makes the change, the event is only visible if it commits
+    void record(String aggregateType, Long aggregateId, OutboxEventType eventType, Object payload);
+    // Same as record for many aggregates, written as one JDBC batch
+    void recordAll(String aggregateType, OutboxEventType eventType, Map<Long, ?> payloadsByAggregateId);
+}
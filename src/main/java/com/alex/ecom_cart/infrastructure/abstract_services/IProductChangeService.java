@@ -0,0 +1,19 @@
+package com.alex.ecom_cart.infrastructure.abstract_services;
+
+import com.alex.ecom_cart.util.enums.ProductChangeType;
+
+import java.util.Collection;
+import java.util.Set;
+
+public interface IProductChangeService {
+    // Must run inside the transaction that makes the change, the change is only visible if it commits
+    void record(Long productId, ProductChangeType changeType);
+    // Same as record for many products, written as one JDBC batch
+    void recordAll(Collection<Long> productIds, ProductChangeType changeType);
+    ChangeWindow findSince(long since);
+
+    // Products changed after the token, next is the token to ask with afterwards. With reset the log no
+    // longer reaches back to the token and the client has to reload the catalog before going on from next
+    record ChangeWindow(Set<Long> productIds, long next, boolean hasMore, boolean reset) {
+    }
+}
@@ -0,0 +1,10 @@
+package com.alex.ecom_cart.infrastructure.abstract_services;
+
+import com.alex.ecom_cart.api.dtos.response.ProductImportResponse;
+import org.springframework.http.MediaType;
+
+import java.io.InputStream;
+
+public interface IProductImportService {
+    ProductImportResponse importProducts(InputStream content, MediaType format);
+}
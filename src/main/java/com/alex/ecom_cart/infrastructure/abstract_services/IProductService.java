@@ -1,12 +1,25 @@
 package com.alex.ecom_cart.infrastructure.abstract_services;
 
 import com.alex.ecom_cart.api.dtos.request.ProductRequest;
+import com.alex.ecom_cart.api.dtos.request.ProductStockRequest;
+import com.alex.ecom_cart.api.dtos.response.ProductChangesResponse;
+import com.alex.ecom_cart.api.dtos.response.ProductFacetResponse;
 import com.alex.ecom_cart.api.dtos.response.ProductResponse;
+import com.alex.ecom_cart.api.dtos.response.ProductStockResponse;
+import org.springframework.data.domain.Page;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface IProductService extends CrudPaginationService<ProductRequest, ProductResponse, Long>{
-    List<ProductResponse> findByCategoryId(Long categoryId);
+    Page<ProductResponse> findByCategoryId(Long categoryId, String field, Boolean desc, Integer page);
     List<ProductResponse> findDisabledProducts();
     ProductResponse updateStock(Long id, Integer newStock);
+    ProductStockResponse updateStocks(List<ProductStockRequest> requests);
+    ProductResponse updateStockStripes(Long id, Integer stripes);
+    List<ProductResponse> search(String query);
+    ProductChangesResponse findChanges(String since);
+    // The strong ETag findById would answer with, empty when it would not answer with a product
+    Optional<String> findETag(Long id);
+    ProductFacetResponse filter(List<Long> categories, List<String> priceBands, Boolean inStock, Boolean enabled, Integer page);
 }
@@ -3,12 +3,24 @@ package com.alex.ecom_cart.infrastructure.cache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+
 @Component
 @RequiredArgsConstructor
 public class CacheHelper {
 
     private final RedisCacheManagerWrapper cacheManagerWrapper;
 
+    public <T> T getCacheValue(String cacheName, String key, Callable<T> loader) {
+        return cacheManagerWrapper.getCacheValue(cacheName, key, loader);
+    }
+
+    public <T> T getCacheValue(String cacheName, String key, Collection<String> tags, Callable<T> loader) {
+        return cacheManagerWrapper.getCacheValue(cacheName, key, tags, loader);
+    }
+
     public <T> void putCacheValues(String cacheName, T value, String... keys) {
         for (String key : keys) {
             cacheManagerWrapper.putCacheValue(cacheName, key, value);
@@ -21,4 +33,17 @@ public class CacheHelper {
         }
     }
 
+    public void evictCacheKeys(String cacheName, Collection<String> keys) {
+        cacheManagerWrapper.evictCacheKeys(cacheName, keys);
+    }
+
+    // Evicts every value cached with any of the tags once the current transaction commits
+    public void evictTags(String cacheName, String... tags) {
+        cacheManagerWrapper.evictTaggedKeys(cacheName, List.of(tags));
+    }
+
+    public void evictTags(String cacheName, Collection<String> tags) {
+        cacheManagerWrapper.evictTaggedKeys(cacheName, tags);
+    }
+
 }
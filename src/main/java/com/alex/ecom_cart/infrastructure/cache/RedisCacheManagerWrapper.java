@@ -1,14 +1,117 @@
 package com.alex.ecom_cart.infrastructure.cache;
 
-import lombok.RequiredArgsConstructor;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+ * Besides plain key access, a cached value can be tagged with what it depends on, e.g. a category. Every
+ * tag is a Redis set with the keys of the values that carry it, so a write evicts exactly those keys
+ * instead of the whole cache. The sets expire with the longest lived cache entries.
+ * Each tag also has a generation that every eviction bumps. A load remembers the generations it tagged
+ * under and evicts its own value when one moved meanwhile, the rows it read may predate that write.
+ */
 @Component
-@RequiredArgsConstructor
 public class RedisCacheManagerWrapper {
+
+    static final String TAG_KEY_PREFIX = "cache:tags:";
+    static final String GENERATION_KEY_PREFIX = "cache:tag-generations:";
+
+    // KEYS = tag sets + their generations, returns the generations the key was tagged under
+    private static final String TAG_SCRIPT = """
+            local n = #KEYS / 2
+            local generations = {}
+            for i = 1, n do
+                redis.call('SADD', KEYS[i], ARGV[1])
+                redis.call('EXPIRE', KEYS[i], ARGV[2])
+                generations[i] = redis.call('GET', KEYS[n + i]) or '0'
+            end
+            return table.concat(generations, ',')
+            """;
+
+    private static final String GENERATIONS_SCRIPT = """
+            local generations = {}
+            for i = 1, #KEYS do
+                generations[i] = redis.call('GET', KEYS[i]) or '0'
+            end
+            return table.concat(generations, ',')
+            """;
+
+    // KEYS = tag sets + their generations. Only the members read here are removed, in the same script, so a
+    // key tagged by a later load stays in its set for the next eviction
+    private static final String POP_TAGS_SCRIPT = """
+            local n = #KEYS / 2
+            local keys = {}
+            for i = 1, n do
+                for _, key in ipairs(redis.call('SMEMBERS', KEYS[i])) do
+                    redis.call('SREM', KEYS[i], key)
+                    table.insert(keys, key)
+                end
+                redis.call('INCR', KEYS[n + i])
+                redis.call('EXPIRE', KEYS[n + i], ARGV[1])
+            end
+            return keys
+            """;
+
     private final CacheManager cacheManager;
+    private final RedissonClient redissonClient;
+    private final long tagTtlSeconds;
+
+    public RedisCacheManagerWrapper(CacheManager cacheManager,
+                                    RedissonClient redissonClient,
+                                    @Value("${cache.tags.ttl-seconds:1800}") long tagTtlSeconds) {
+        this.cacheManager = cacheManager;
+        this.redissonClient = redissonClient;
+        this.tagTtlSeconds = tagTtlSeconds;
+    }
+
+    // Exceptions of the loader reach the caller unwrapped, as they would from an @Cacheable method
+    public <T> T getCacheValue(String cacheName, String key, Callable<T> loader) {
+        Cache cache = cacheManager.getCache(cacheName);
+        try {
+            if (cache == null) {
+                return loader.call();
+            }
+            return cache.get(key, loader);
+        } catch (Cache.ValueRetrievalException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new Cache.ValueRetrievalException(key, loader, e);
+        }
+    }
+
+    // Only a miss tags the key, and it does so before loading so an eviction racing the load still finds it.
+    // The eviction may still run before the loaded value is stored, the generations catch that case
+    public <T> T getCacheValue(String cacheName, String key, Collection<String> tags, Callable<T> loader) {
+        AtomicReference<String> taggedGenerations = new AtomicReference<>();
+        T value = getCacheValue(cacheName, key, () -> {
+            taggedGenerations.set(tagCacheKey(cacheName, key, tags));
+            return loader.call();
+        });
+        if (taggedGenerations.get() != null && !taggedGenerations.get().equals(generations(cacheName, tags))) {
+            evictCacheKey(cacheName, key);
+        }
+        return value;
+    }
 
     public void putCacheValue(String cacheName, String key, Object value) {
         Cache cache = cacheManager.getCache(cacheName);
@@ -23,4 +126,63 @@ public class RedisCacheManagerWrapper {
             cache.evict(key);
         }
     }
+
+    public void evictCacheKeys(String cacheName, Collection<String> keys) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache instanceof TwoLevelCache twoLevelCache) {
+            twoLevelCache.evictAll(keys);
+        } else if (cache != null) {
+            keys.forEach(cache::evict);
+        }
+    }
+
+    // Runs after the commit of the calling transaction, a load started before it could still read the old rows
+    public void evictTaggedKeys(String cacheName, Collection<String> tags) {
+        if (tags.isEmpty() || cacheManager.getCache(cacheName) == null) {
+            return;
+        }
+        List<String> tagList = List.copyOf(tags);
+        afterCommit(() -> {
+            List<Object> keys = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE,
+                    POP_TAGS_SCRIPT, RScript.ReturnType.MULTI, tagAndGenerationKeys(cacheName, tagList), tagTtlSeconds);
+            Set<String> distinctKeys = new LinkedHashSet<>();
+            keys.forEach(key -> distinctKeys.add(key.toString()));
+            evictCacheKeys(cacheName, distinctKeys);
+        });
+    }
+
+    private String tagCacheKey(String cacheName, String key, Collection<String> tags) {
+        if (tags.isEmpty()) {
+            return null;
+        }
+        return redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, TAG_SCRIPT,
+                RScript.ReturnType.VALUE, tagAndGenerationKeys(cacheName, tags), key, tagTtlSeconds);
+    }
+
+    private String generations(String cacheName, Collection<String> tags) {
+        List<Object> keys = new ArrayList<>(tags.size());
+        tags.forEach(tag -> keys.add(GENERATION_KEY_PREFIX + cacheName + ":" + tag));
+        return redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_ONLY, GENERATIONS_SCRIPT,
+                RScript.ReturnType.VALUE, keys);
+    }
+
+    private static List<Object> tagAndGenerationKeys(String cacheName, Collection<String> tags) {
+        List<Object> keys = new ArrayList<>(tags.size() * 2);
+        tags.forEach(tag -> keys.add(TAG_KEY_PREFIX + cacheName + ":" + tag));
+        tags.forEach(tag -> keys.add(GENERATION_KEY_PREFIX + cacheName + ":" + tag));
+        return keys;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 }
@@ -0,0 +1,180 @@
+package com.alex.ecom_cart.infrastructure.cache;
+
+import org.redisson.api.RMap;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/*
+ * Reads are answered by the local cache when it has the key and by Redis otherwise, the Redis value is
+ * then kept locally. Writes go to both levels and are announced through the invalidation callback so
+ * the other nodes drop their local copy, a null key stands for the whole cache.
+ *
+ * The local level keeps a serialized copy and hands every reader a fresh instance, as Redis did, so a
+ * caller that changes a response can not change it for everyone else. Values that are not Serializable
+ * are only kept in Redis. Every write or invalidation bumps a version, and a value read from Redis is
+ * only kept locally when no invalidation came in while it was being read, otherwise a read racing a
+ * write on another node could put the old value back for the whole local ttl.
+ */
+public class TwoLevelCache implements Cache {
+
+    private final Cache remote;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, byte[]> local;
+    private final Consumer<Object> invalidation;
+    private final AtomicLong version = new AtomicLong();
+
+    public TwoLevelCache(Cache remote, com.github.benmanes.caffeine.cache.Cache<Object, byte[]> local,
+                         Consumer<Object> invalidation) {
+        this.remote = remote;
+        this.local = local;
+        this.invalidation = invalidation;
+    }
+
+    @Override
+    public String getName() {
+        return remote.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        byte[] copy = local.getIfPresent(key);
+        if (copy != null) {
+            return new SimpleValueWrapper(deserialize(copy));
+        }
+        long readAt = version.get();
+        ValueWrapper value = remote.get(key);
+        if (value != null) {
+            keepLocally(key, value.get(), readAt);
+        }
+        return value;
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper value = get(key);
+        if (value == null) {
+            return null;
+        }
+        Object stored = value.get();
+        if (stored != null && type != null && !type.isInstance(stored)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + stored);
+        }
+        return type == null ? null : type.cast(stored);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        byte[] copy = local.getIfPresent(key);
+        if (copy != null) {
+            return (T) deserialize(copy);
+        }
+        long readAt = version.get();
+        T loaded = remote.get(key, valueLoader);
+        keepLocally(key, loaded, readAt);
+        return loaded;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        keepLocally(key, value, version.incrementAndGet());
+        invalidation.accept(key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = remote.putIfAbsent(key, value);
+        evictLocal(key);
+        invalidation.accept(key);
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        evictLocal(key);
+        invalidation.accept(key);
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        clearLocal();
+        invalidation.accept(null);
+    }
+
+    // A single HDEL when the remote level is a Redisson map and a single message to the other nodes
+    @SuppressWarnings("unchecked")
+    public void evictAll(Collection<?> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        if (remote.getNativeCache() instanceof RMap<?, ?> map) {
+            ((RMap<Object, Object>) map).fastRemove(keys.toArray());
+        } else {
+            keys.forEach(remote::evict);
+        }
+        version.incrementAndGet();
+        local.invalidateAll(keys);
+        invalidation.accept(List.copyOf(keys));
+    }
+
+    // The version moves first, a read that started before can no longer put its value back
+    void evictLocal(Object key) {
+        version.incrementAndGet();
+        local.invalidate(key);
+    }
+
+    void clearLocal() {
+        version.incrementAndGet();
+        local.invalidateAll();
+    }
+
+    // Compute is atomic per key, so the check can not interleave with the invalidation of the same key
+    private void keepLocally(Object key, Object value, long readAt) {
+        byte[] copy = serialize(value);
+        if (copy == null) {
+            return;
+        }
+        local.asMap().compute(key, (k, current) -> version.get() == readAt ? copy : current);
+    }
+
+    private static byte[] serialize(Object value) {
+        if (value != null && !(value instanceof Serializable)) {
+            return null;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        } catch (IOException e) {
+            // A field that can not be serialized keeps the value out of the local level only
+            return null;
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] copy) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(copy))) {
+            return in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Could not read a local cache entry", e);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.alex.ecom_cart.infrastructure.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/*
+ * Puts a bounded in-process cache in front of every Redis cache. The bound is the bytes of the serialized
+ * copies and not a count, a page of products weighs far more than one customer. Local entries are short
+ * lived and every node listens on a shared topic, so a write or eviction on one node drops the local
+ * copies on the others. A lost message only leaves a stale local entry until it expires.
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager {
+
+    static final String INVALIDATION_TOPIC = "cache:invalidations";
+
+    private final CacheManager remote;
+    private final RTopic topic;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final long localMaxBytes;
+    private final Duration localTtl;
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager remote, RedissonClient redissonClient, long localMaxBytes, Duration localTtl) {
+        this.remote = remote;
+        this.localMaxBytes = localMaxBytes;
+        this.localTtl = localTtl;
+        this.topic = redissonClient.getTopic(INVALIDATION_TOPIC);
+        this.topic.addListenerAsync(CacheInvalidation.class, (channel, message) -> onInvalidation(message));
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TwoLevelCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache remoteCache = remote.getCache(name);
+        if (remoteCache == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, cacheName -> new TwoLevelCache(remoteCache,
+                Caffeine.newBuilder()
+                        .maximumWeight(localMaxBytes)
+                        .<Object, byte[]>weigher((key, copy) -> copy.length)
+                        .expireAfterWrite(localTtl)
+                        .build(),
+                key -> publish(cacheName, key)));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remote.getCacheNames();
+    }
+
+    void onInvalidation(CacheInvalidation message) {
+        if (nodeId.equals(message.origin())) {
+            return;
+        }
+        TwoLevelCache cache = caches.get(message.cacheName());
+        if (cache == null) {
+            return;
+        }
+        if (message.key() == null) {
+            cache.clearLocal();
+        } else if (message.key() instanceof Collection<?> keys) {
+            keys.forEach(cache::evictLocal);
+        } else {
+            cache.evictLocal(message.key());
+        }
+    }
+
+    private void publish(String cacheName, Object key) {
+        topic.publishAsync(new CacheInvalidation(nodeId, cacheName, key))
+                .whenComplete((receivers, e) -> {
+                    if (e != null) {
+                        log.warn("Could not broadcast invalidation of {} in cache {}", key, cacheName, e);
+                    }
+                });
+    }
+
+    // A null key invalidates the whole cache and a collection every key in it
+    public record CacheInvalidation(String origin, String cacheName, Object key) implements Serializable {
+    }
+}
@@ -0,0 +1,29 @@
+package com.alex.ecom_cart.infrastructure.outbox;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class OutboxEvent implements Serializable {
+
+    private Long id;
+    private String aggregateType;
+    private Long aggregateId;
+    private String eventType;
+    // Already JSON, written as is
+    @JsonRawValue
+    private String payload;
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS")
+    private LocalDateTime createdAt;
+
+}
@@ -0,0 +1,70 @@
+package com.alex.ecom_cart.infrastructure.outbox;
+
+import com.alex.ecom_cart.domain.entities.OutboxEntity;
+import com.alex.ecom_cart.domain.repositories.OutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/*
+ * Moves committed outbox rows to the sink in id order and deletes them once the sink accepted them.
+ * Delivery is at least once: a crash between publish and delete sends the batch again, consumers
+ * dedupe on the event id.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxRepository outboxRepository;
+    private final OutboxSink outboxSink;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public OutboxRelay(OutboxRepository outboxRepository,
+                       OutboxSink outboxSink,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${outbox.relay.batch-size:500}") int batchSize) {
+        this.outboxRepository = outboxRepository;
+        this.outboxSink = outboxSink;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:500}")
+    public void relay() {
+        int published;
+        do {
+            published = relayBatch();
+        } while (published == batchSize);
+    }
+
+    int relayBatch() {
+        List<OutboxEntity> batch = outboxRepository.findAllByOrderByIdAsc(PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        outboxSink.publish(batch.stream().map(this::entityToEvent).toList());
+        transactionTemplate.executeWithoutResult(status -> outboxRepository.deleteAllInBatch(batch));
+
+        log.debug("Relayed {} outbox events up to id {}", batch.size(), batch.get(batch.size() - 1).getId());
+        return batch.size();
+    }
+
+    private OutboxEvent entityToEvent(OutboxEntity entity) {
+        return OutboxEvent.builder()
+                .id(entity.getId())
+                .aggregateType(entity.getAggregateType())
+                .aggregateId(entity.getAggregateId())
+                .eventType(entity.getEventType().name())
+                .payload(entity.getPayload())
+                .createdAt(entity.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,8 @@
+package com.alex.ecom_cart.infrastructure.outbox;
+
+import java.util.List;
+
+public interface OutboxSink {
+    // Receives the events in id order, throwing makes the relay retry the same batch later
+    void publish(List<OutboxEvent> events);
+}
@@ -0,0 +1,169 @@
+package com.alex.ecom_cart.infrastructure.reservation;
+
+import com.alex.ecom_cart.util.exceptions.InsufficientStockException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/*
+ * Holds the stock of cart lines for a while, so when carts race for the last units the extra ones are
+ * turned away as they add them instead of failing at checkout. A hold covers the whole quantity of a
+ * line and is counted against the available stock of the product together with the holds of the other
+ * carts. Orders are checked against the same count, a direct order against every hold and a checkout
+ * against the holds of the other carts, and checkout consumes the holds of its cart. The ones nobody
+ * checks out are scheduled on a timing wheel, and every tick releases all the holds that came due in one
+ * pass.
+ *
+ * The ledger is single-node and advisory. The stock itself is only taken by the order, a hold is
+ * bookkeeping in the memory of the node that took it. With several nodes every node counts its own
+ * carts, which narrows the race without closing it, and a restart forgets every hold.
+ */
+@Component
+@Slf4j
+public class CartStockReservations {
+
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final TimingWheel<Hold> wheel;
+    private final Map<Long, Map<Long, Hold>> holdsByCart = new HashMap<>();
+    private final Map<Long, Integer> heldByProduct = new HashMap<>();
+
+    @Autowired
+    public CartStockReservations(@Value("${cart.reservations.enabled:false}") boolean enabled,
+                                 @Value("${cart.reservations.ttl-seconds:900}") long ttlSeconds,
+                                 @Value("${cart.reservations.tick-ms:1000}") long tickMillis,
+                                 @Value("${cart.reservations.wheel-size:64}") int wheelSize) {
+        this(enabled, ttlSeconds, tickMillis, wheelSize, System::currentTimeMillis);
+    }
+
+    CartStockReservations(boolean enabled, long ttlSeconds, long tickMillis, int wheelSize, LongSupplier clock) {
+        this.enabled = enabled;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.clock = clock;
+        this.wheel = new TimingWheel<>(tickMillis, wheelSize, clock.getAsLong());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /*
+     * Replaces the hold of the line with one for its new quantity, the time to live starts again. Returns
+     * what puts the line back as it was, for a cart change whose transaction is rolled back.
+     */
+    public synchronized Runnable hold(Long cartId, Long productId, String productName, int quantity, int availableStock) {
+        if (!enabled) {
+            return () -> {
+            };
+        }
+        Hold previous = holdsByCart.getOrDefault(cartId, Map.of()).get(productId);
+        if (quantity <= 0) {
+            remove(previous);
+            return () -> restore(cartId, productId, null, previous);
+        }
+        check(cartId, productId, productName, quantity, availableStock);
+
+        remove(previous);
+        Hold hold = new Hold(cartId, productId, quantity);
+        add(hold);
+        return () -> restore(cartId, productId, hold, previous);
+    }
+
+    // Throws when the stock left after the holds of the other carts does not cover the quantity
+    public synchronized void check(Long cartId, Long productId, String productName, int quantity, int availableStock) {
+        if (!enabled) {
+            return;
+        }
+        Hold own = holdsByCart.getOrDefault(cartId, Map.of()).get(productId);
+        int ownQuantity = own != null ? own.quantity() : 0;
+        int heldByOthers = heldByProduct.getOrDefault(productId, 0) - ownQuantity;
+        // Lowering a line is always allowed, even when the stock went down since it was held
+        if (quantity > ownQuantity && heldByOthers + quantity > availableStock) {
+            throw new InsufficientStockException(productName);
+        }
+    }
+
+    public synchronized void release(Long cartId, Long productId) {
+        if (enabled) {
+            remove(holdsByCart.getOrDefault(cartId, Map.of()).get(productId));
+        }
+    }
+
+    public synchronized void releaseCart(Long cartId) {
+        if (!enabled) {
+            return;
+        }
+        Map<Long, Hold> holds = holdsByCart.get(cartId);
+        if (holds != null) {
+            List.copyOf(holds.values()).forEach(this::remove);
+        }
+    }
+
+    public synchronized int held(Long productId) {
+        return heldByProduct.getOrDefault(productId, 0);
+    }
+
+    @Scheduled(fixedDelayString = "${cart.reservations.tick-ms:1000}")
+    public synchronized void expire() {
+        if (!enabled) {
+            return;
+        }
+        List<Hold> due = wheel.advance(clock.getAsLong());
+        int released = 0;
+        for (Hold hold : due) {
+            // A hold replaced or released since it was scheduled is no longer in the map
+            if (remove(hold)) {
+                released++;
+            }
+        }
+        if (released > 0) {
+            log.debug("Released {} expired cart holds", released);
+        }
+    }
+
+    // Only undoes a hold nothing changed since, a later change of the line wins
+    private synchronized void restore(Long cartId, Long productId, Hold current, Hold previous) {
+        if (holdsByCart.getOrDefault(cartId, Map.of()).get(productId) != current) {
+            return;
+        }
+        remove(current);
+        if (previous != null) {
+            add(previous);
+        }
+    }
+
+    private void add(Hold hold) {
+        holdsByCart.computeIfAbsent(hold.cartId(), id -> new HashMap<>()).put(hold.productId(), hold);
+        heldByProduct.merge(hold.productId(), hold.quantity(), Integer::sum);
+        wheel.schedule(hold, clock.getAsLong() + ttlMillis);
+    }
+
+    private boolean remove(Hold hold) {
+        if (hold == null) {
+            return false;
+        }
+        Map<Long, Hold> holds = holdsByCart.get(hold.cartId());
+        if (holds == null || holds.get(hold.productId()) != hold) {
+            return false;
+        }
+        holds.remove(hold.productId());
+        if (holds.isEmpty()) {
+            holdsByCart.remove(hold.cartId());
+        }
+        if (heldByProduct.merge(hold.productId(), -hold.quantity(), Integer::sum) <= 0) {
+            heldByProduct.remove(hold.productId());
+        }
+        return true;
+    }
+
+    private record Hold(Long cartId, Long productId, int quantity) {
+    }
+}
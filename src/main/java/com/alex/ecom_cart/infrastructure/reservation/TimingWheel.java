@@ -0,0 +1,95 @@
+package com.alex.ecom_cart.infrastructure.reservation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Hierarchical timing wheel. Every level is a ring of buckets one tick wide, a deadline past the window of
+ * a level goes to the next one whose tick is the whole window of the level below. Scheduling is a bucket
+ * append and advancing the clock empties one bucket per tick, so the cost does not grow with the number
+ * of timers. When a higher level reaches a bucket, its timers are scheduled again from the lowest level.
+ * An item may fire up to one tick late, never early. There is no cancel, the owner ignores items it no
+ * longer holds. Not thread safe, the owner guards it.
+ */
+public final class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long intervalMillis;
+    private final List<List<Timer<T>>> buckets;
+    private long currentTime;
+    private TimingWheel<T> overflowWheel;
+
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize <= 1) {
+            throw new IllegalArgumentException("A timing wheel needs a positive tick and at least two buckets");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.intervalMillis = Math.multiplyExact(tickMillis, wheelSize);
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            this.buckets.add(new ArrayList<>());
+        }
+        this.currentTime = startMillis - Math.floorMod(startMillis, tickMillis);
+    }
+
+    // Returns false when the deadline has already passed, the caller handles the item right away
+    public boolean schedule(T item, long deadlineMillis) {
+        return place(new Timer<>(item, deadlineMillis), this);
+    }
+
+    // Moves the clock to now and returns every item whose deadline has passed, in one batch
+    public List<T> advance(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        while (currentTime + tickMillis <= nowMillis) {
+            List<Timer<T>> due = bucketOf(currentTime);
+            currentTime += tickMillis;
+            for (Timer<T> timer : due) {
+                expired.add(timer.item());
+            }
+            due.clear();
+            if (overflowWheel != null) {
+                overflowWheel.cascade(currentTime, this);
+            }
+        }
+        return expired;
+    }
+
+    private boolean place(Timer<T> timer, TimingWheel<T> root) {
+        if (timer.deadline() < currentTime) {
+            return false;
+        }
+        if (timer.deadline() < currentTime + intervalMillis) {
+            bucketOf(timer.deadline()).add(timer);
+            return true;
+        }
+        if (overflowWheel == null) {
+            overflowWheel = new TimingWheel<>(intervalMillis, wheelSize, currentTime);
+        }
+        return overflowWheel.place(timer, root);
+    }
+
+    // A higher level hands the bucket that starts now back to the lowest level, which has room for all of it
+    private void cascade(long rootTime, TimingWheel<T> root) {
+        while (currentTime + tickMillis <= rootTime) {
+            currentTime += tickMillis;
+            List<Timer<T>> starting = bucketOf(currentTime);
+            List<Timer<T>> timers = new ArrayList<>(starting);
+            starting.clear();
+            for (Timer<T> timer : timers) {
+                root.place(timer, root);
+            }
+            if (overflowWheel != null) {
+                overflowWheel.cascade(currentTime, root);
+            }
+        }
+    }
+
+    private List<Timer<T>> bucketOf(long time) {
+        return buckets.get((int) Math.floorMod(Math.floorDiv(time, tickMillis), (long) wheelSize));
+    }
+
+    private record Timer<T>(T item, long deadline) {
+    }
+}
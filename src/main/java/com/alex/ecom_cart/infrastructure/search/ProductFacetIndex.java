@@ -0,0 +1,248 @@
+package com.alex.ecom_cart.infrastructure.search;
+
+import com.alex.ecom_cart.domain.repositories.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * One bitmap per category, price band and stock state, where bit n is the product with id n. Values
+ * of one facet are OR-ed and the facets are AND-ed, so any combination of filters is a handful of
+ * word-wise operations. The count of each facet value applies the filters of the other facets only,
+ * which is what a client needs to show how many products a click would leave.
+ *
+ * Stock also moves when orders are placed, so besides the updates done on product writes the whole
+ * index is rebuilt periodically.
+ */
+@Component
+@Slf4j
+public class ProductFacetIndex {
+
+    private final ProductRepository productRepository;
+    private final List<BigDecimal> priceBounds;
+    private final List<String> priceBandLabels;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Bitmaps bitmaps;
+
+    public ProductFacetIndex(ProductRepository productRepository,
+                             @Value("${product.facets.price-bounds:25,50,100,250,500,1000}") List<BigDecimal> priceBounds) {
+        this.productRepository = productRepository;
+        this.priceBounds = priceBounds.stream().sorted().toList();
+        this.priceBandLabels = labels(this.priceBounds);
+        this.bitmaps = new Bitmaps(priceBandLabels.size());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${product.facets.rebuild-interval-ms:60000}",
+            initialDelayString = "${product.facets.rebuild-interval-ms:60000}")
+    public void rebuild() {
+        Bitmaps rebuilt = new Bitmaps(priceBandLabels.size());
+        productRepository.findFacetProducts().forEach(product -> rebuilt.add(product.getId(), new Facets(
+                product.getCategoryId(), priceBand(product.getPrice()), stocked(product.getStock()), product.getEnabled())));
+
+        lock.writeLock().lock();
+        try {
+            bitmaps = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("Product facet index built with {} products", rebuilt.facetsByProduct.size());
+    }
+
+    public void index(Long productId, Long categoryId, BigDecimal price, Integer stock, boolean enabled) {
+        Facets facets = new Facets(categoryId, priceBand(price), stocked(stock), enabled);
+        lock.writeLock().lock();
+        try {
+            bitmaps.remove(productId);
+            bitmaps.add(productId, facets);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            bitmaps.remove(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Empty collections and null flags leave that facet unfiltered
+    public FacetResult query(Collection<Long> categories, Collection<String> priceBands, Boolean inStock,
+                             Boolean enabled, int page, int size) {
+        List<Integer> bands = priceBands.stream().map(this::bandOf).toList();
+
+        lock.readLock().lock();
+        try {
+            BitSet enabledFilter = enabled == null ? null : enabled ? bitmaps.enabled : bitmaps.not(bitmaps.enabled);
+            BitSet categoryFilter = categories.isEmpty() ? null : bitmaps.union(categories.stream().map(bitmaps::category).toList());
+            BitSet priceFilter = bands.isEmpty() ? null : bitmaps.union(bands.stream().map(band -> bitmaps.priceBands[band]).toList());
+            BitSet stockFilter = inStock == null ? null : inStock ? bitmaps.inStock : bitmaps.not(bitmaps.inStock);
+
+            BitSet matches = bitmaps.intersect(enabledFilter, categoryFilter, priceFilter, stockFilter);
+
+            Map<Long, Integer> categoryCounts = new TreeMap<>();
+            BitSet withoutCategory = bitmaps.intersect(enabledFilter, priceFilter, stockFilter);
+            bitmaps.byCategory.forEach((categoryId, bitmap) -> categoryCounts.put(categoryId, andCardinality(withoutCategory, bitmap)));
+
+            Map<String, Integer> priceBandCounts = new LinkedHashMap<>();
+            BitSet withoutPrice = bitmaps.intersect(enabledFilter, categoryFilter, stockFilter);
+            for (int band = 0; band < priceBandLabels.size(); band++) {
+                priceBandCounts.put(priceBandLabels.get(band), andCardinality(withoutPrice, bitmaps.priceBands[band]));
+            }
+
+            BitSet withoutStock = bitmaps.intersect(enabledFilter, categoryFilter, priceFilter);
+            int stocked = andCardinality(withoutStock, bitmaps.inStock);
+
+            return new FacetResult(page(matches, page, size), matches.cardinality(), categoryCounts, priceBandCounts,
+                    stocked, withoutStock.cardinality() - stocked);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static List<Long> page(BitSet matches, int page, int size) {
+        List<Long> ids = new ArrayList<>(size);
+        int skip = page * size;
+        for (int bit = matches.nextSetBit(0); bit >= 0 && ids.size() < size; bit = matches.nextSetBit(bit + 1)) {
+            if (skip > 0) {
+                skip--;
+            } else {
+                ids.add((long) bit);
+            }
+        }
+        return ids;
+    }
+
+    private static int andCardinality(BitSet left, BitSet right) {
+        BitSet result = (BitSet) left.clone();
+        result.and(right);
+        return result.cardinality();
+    }
+
+    private int bandOf(String label) {
+        int band = priceBandLabels.indexOf(label);
+        if (band < 0) {
+            throw new IllegalArgumentException("Invalid price band: " + label + ", expected one of " + priceBandLabels);
+        }
+        return band;
+    }
+
+    private int priceBand(BigDecimal price) {
+        if (price == null) {
+            return 0;
+        }
+        for (int band = 0; band < priceBounds.size(); band++) {
+            if (price.compareTo(priceBounds.get(band)) < 0) {
+                return band;
+            }
+        }
+        return priceBounds.size();
+    }
+
+    private static boolean stocked(Integer stock) {
+        return stock != null && stock > 0;
+    }
+
+    private static List<String> labels(List<BigDecimal> bounds) {
+        List<String> labels = new ArrayList<>();
+        BigDecimal lower = BigDecimal.ZERO;
+        for (BigDecimal bound : bounds) {
+            labels.add(lower.toPlainString() + "-" + bound.toPlainString());
+            lower = bound;
+        }
+        labels.add(lower.toPlainString() + "+");
+        return List.copyOf(labels);
+    }
+
+    public record FacetResult(List<Long> ids, int totalElements, Map<Long, Integer> categories,
+                              Map<String, Integer> priceBands, int inStock, int outOfStock) {
+    }
+
+    private record Facets(Long categoryId, int priceBand, boolean inStock, boolean enabled) {
+    }
+
+    private static class Bitmaps {
+        private final BitSet all = new BitSet();
+        private final BitSet enabled = new BitSet();
+        private final BitSet inStock = new BitSet();
+        private final BitSet[] priceBands;
+        private final Map<Long, BitSet> byCategory = new HashMap<>();
+        private final Map<Long, Facets> facetsByProduct = new HashMap<>();
+
+        private Bitmaps(int bands) {
+            this.priceBands = new BitSet[bands];
+            for (int band = 0; band < bands; band++) {
+                priceBands[band] = new BitSet();
+            }
+        }
+
+        private void add(Long productId, Facets facets) {
+            int bit = Math.toIntExact(productId);
+            all.set(bit);
+            enabled.set(bit, facets.enabled());
+            inStock.set(bit, facets.inStock());
+            priceBands[facets.priceBand()].set(bit);
+            if (facets.categoryId() != null) {
+                byCategory.computeIfAbsent(facets.categoryId(), id -> new BitSet()).set(bit);
+            }
+            facetsByProduct.put(productId, facets);
+        }
+
+        private void remove(Long productId) {
+            Facets facets = facetsByProduct.remove(productId);
+            if (facets == null) {
+                return;
+            }
+            int bit = Math.toIntExact(productId);
+            all.clear(bit);
+            enabled.clear(bit);
+            inStock.clear(bit);
+            priceBands[facets.priceBand()].clear(bit);
+            BitSet category = byCategory.get(facets.categoryId());
+            if (category != null) {
+                category.clear(bit);
+                if (category.isEmpty()) {
+                    byCategory.remove(facets.categoryId());
+                }
+            }
+        }
+
+        private BitSet category(Long categoryId) {
+            return byCategory.getOrDefault(categoryId, new BitSet());
+        }
+
+        private BitSet not(BitSet bitmap) {
+            BitSet result = (BitSet) all.clone();
+            result.andNot(bitmap);
+            return result;
+        }
+
+        private BitSet union(List<BitSet> bitmaps) {
+            BitSet result = new BitSet();
+            bitmaps.forEach(result::or);
+            return result;
+        }
+
+        // Null filters are skipped, with no filter at all every indexed product matches
+        private BitSet intersect(BitSet... filters) {
+            BitSet result = (BitSet) all.clone();
+            for (BitSet filter : filters) {
+                if (filter != null) {
+                    result.and(filter);
+                }
+            }
+            return result;
+        }
+    }
+}
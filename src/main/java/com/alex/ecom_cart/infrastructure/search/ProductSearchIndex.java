@@ -0,0 +1,156 @@
+package com.alex.ecom_cart.infrastructure.search;
+
+import com.alex.ecom_cart.domain.repositories.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/*
+ * Inverted index over the name and description of the enabled products. Every term points to the
+ * products that contain it with a weight, a name hit weighs more than a description hit. Terms are
+ * kept sorted so a query term also matches every term that starts with it. A product has to match
+ * all the query terms and is ranked by the sum of its weights times the rarity (idf) of each term.
+ *
+ * The index is built on startup, kept up to date by the product service and rebuilt periodically so
+ * changes made on other nodes are picked up too.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchIndex {
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    // A term that only completes the query term counts less than the exact word
+    private static final double PREFIX_BOOST = 0.5;
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{Alnum}]+", Pattern.UNICODE_CHARACTER_CLASS);
+    private static final Pattern MARKS = Pattern.compile("\\p{M}");
+
+    private final ProductRepository productRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private Map<Long, Set<String>> termsByProduct = new HashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${product.search.rebuild-interval-ms:300000}",
+            initialDelayString = "${product.search.rebuild-interval-ms:300000}")
+    public void rebuild() {
+        NavigableMap<String, Map<Long, Integer>> newPostings = new TreeMap<>();
+        Map<Long, Set<String>> newTermsByProduct = new HashMap<>();
+        productRepository.findSearchableProducts().forEach(product ->
+                add(newPostings, newTermsByProduct, product.getId(), product.getName(), product.getDescription()));
+
+        lock.writeLock().lock();
+        try {
+            postings = newPostings;
+            termsByProduct = newTermsByProduct;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Product search index built with {} products and {} terms", newTermsByProduct.size(), newPostings.size());
+    }
+
+    public void index(Long productId, String name, String description) {
+        lock.writeLock().lock();
+        try {
+            remove(postings, termsByProduct, productId);
+            add(postings, termsByProduct, productId, name, description);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            remove(postings, termsByProduct, productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Returns the ids of the matching products, best match first
+    public List<Long> search(String query, int limit) {
+        List<String> queryTerms = tokenize(query).stream().distinct().toList();
+        if (queryTerms.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Double> scores;
+        lock.readLock().lock();
+        try {
+            int products = termsByProduct.size();
+            scores = score(queryTerms.get(0), products);
+            for (int i = 1; i < queryTerms.size() && !scores.isEmpty(); i++) {
+                Map<Long, Double> termScores = score(queryTerms.get(i), products);
+                scores.keySet().retainAll(termScores.keySet());
+                scores.replaceAll((productId, score) -> score + termScores.get(productId));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private Map<Long, Double> score(String queryTerm, int products) {
+        Map<Long, Double> scores = new HashMap<>();
+        postings.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, true).forEach((term, weights) -> {
+            double boost = term.equals(queryTerm) ? 1.0 : PREFIX_BOOST;
+            double idf = Math.log(1 + (double) products / weights.size());
+            // A product matching several completions keeps its best one
+            weights.forEach((productId, weight) -> scores.merge(productId, boost * weight * idf, Math::max));
+        });
+        return scores;
+    }
+
+    private static void add(NavigableMap<String, Map<Long, Integer>> postings, Map<Long, Set<String>> termsByProduct,
+                            Long productId, String name, String description) {
+        Map<String, Integer> weights = new HashMap<>();
+        tokenize(name).forEach(term -> weights.merge(term, NAME_WEIGHT, Integer::sum));
+        tokenize(description).forEach(term -> weights.merge(term, DESCRIPTION_WEIGHT, Integer::sum));
+
+        weights.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(productId, weight));
+        termsByProduct.put(productId, weights.keySet());
+    }
+
+    private static void remove(NavigableMap<String, Map<Long, Integer>> postings, Map<Long, Set<String>> termsByProduct,
+                               Long productId) {
+        Set<String> terms = termsByProduct.remove(productId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Long, Integer> weights = postings.get(term);
+            weights.remove(productId);
+            if (weights.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        return Arrays.stream(SEPARATORS.split(folded))
+                .filter(term -> !term.isEmpty())
+                .toList();
+    }
+}
@@ -0,0 +1,53 @@
+package com.alex.ecom_cart.infrastructure.services;
+
+import com.alex.ecom_cart.api.dtos.response.CartProductResponse;
+import com.alex.ecom_cart.api.dtos.response.CartResponse;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+/*
+ * Prices a cart the same way for the database and the Redis cart. Lines are charged at the live price,
+ * the price stored when the line was last added or set is only compared with it. Totals are summed as
+ * long cents, prices are DECIMAL(10, 2) so no cart gets near the long range, and a BigDecimal is only
+ * built once per line and once for the cart.
+ */
+final class CartPricing {
+
+    private CartPricing() {
+    }
+
+    static CartProductResponse line(Long productId, String name, BigDecimal price, BigDecimal snapshotPrice,
+                                    Integer stock, int quantity) {
+        long lineCents = Math.multiplyExact(cents(price), quantity);
+        return CartProductResponse.builder()
+                .productId(productId)
+                .name(name)
+                .price(price)
+                .quantity(quantity)
+                .snapshotPrice(snapshotPrice)
+                .lineTotal(BigDecimal.valueOf(lineCents, 2))
+                // A line added before snapshots were kept has nothing to compare with
+                .priceChanged(snapshotPrice != null && price.compareTo(snapshotPrice) != 0)
+                .insufficientStock(stock != null && stock < quantity)
+                .build();
+    }
+
+    static CartResponse cart(Long cartId, Long customerId, List<CartProductResponse> products) {
+        long totalCents = 0;
+        for (CartProductResponse product : products) {
+            totalCents = Math.addExact(totalCents, product.getLineTotal().unscaledValue().longValueExact());
+        }
+        return CartResponse.builder()
+                .cartId(cartId)
+                .customerId(customerId)
+                .products(products)
+                .total(BigDecimal.valueOf(totalCents, 2))
+                .build();
+    }
+
+    private static long cents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+}
@@ -1,33 +1,53 @@
 package com.alex.ecom_cart.infrastructure.services;
 
+import com.alex.ecom_cart.api.dtos.request.CartOperationRequest;
 import com.alex.ecom_cart.api.dtos.response.CartProductResponse;
 import com.alex.ecom_cart.api.dtos.response.CartResponse;
+import com.alex.ecom_cart.api.dtos.response.OrderResponse;
 import com.alex.ecom_cart.domain.entities.*;
 import com.alex.ecom_cart.domain.repositories.CartProductRepository;
 import com.alex.ecom_cart.domain.repositories.CartRepository;
 import com.alex.ecom_cart.domain.repositories.ProductRepository;
 import com.alex.ecom_cart.domain.repositories.CustomerRepository;
 import com.alex.ecom_cart.infrastructure.abstract_services.ICartService;
+import com.alex.ecom_cart.infrastructure.abstract_services.IOrderService;
+import com.alex.ecom_cart.infrastructure.reservation.CartStockReservations;
+import com.alex.ecom_cart.util.enums.CartOperationType;
 import com.alex.ecom_cart.util.enums.Tables;
 import com.alex.ecom_cart.util.exceptions.IdNotFoundException;
 import com.alex.ecom_cart.util.exceptions.ResourceNotEnabledException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
+@ConditionalOnProperty(name = "cart.mode", havingValue = "database", matchIfMissing = true)
 @Transactional
 @RequiredArgsConstructor
 public class CartServiceImpl implements ICartService {
 
+    static final int MAX_CART_OPERATIONS = 500;
+
     private final CartRepository cartRepository;
     private final CustomerRepository customerRepository;
     private final ProductRepository productRepository;
     private final CartProductRepository cartProductRepository;
+    private final IOrderService orderService;
+    private final CartStockReservations cartStockReservations;
 
     @Override
     public CartResponse createCartForCustomer(Long customerId) {
@@ -40,7 +60,7 @@ public class CartServiceImpl implements ICartService {
 
         Optional<CartEntity> existingCart = cartRepository.findByCustomerId(customerId);
         if (existingCart.isPresent()) {
-            return entityToResponse(existingCart.get());
+            return linesToResponse(cartRepository.findLinesById(existingCart.get().getId()), Tables.cart.name());
         }
 
         CartEntity cartToSaved = CartEntity.builder()
@@ -53,76 +73,222 @@ public class CartServiceImpl implements ICartService {
 
     @Override
     public CartResponse addProductToCart(Long cartId, Long productId, int quantity) {
-        CartEntity cart = cartRepository.findById(cartId)
-                .orElseThrow(() -> new IdNotFoundException(Tables.cart.name()));
-
-        ProductEntity product = productRepository.findById(productId)
-                .orElseThrow(() -> new IdNotFoundException(Tables.product.name()));
-
-        if (!product.isEnabled()) {
+        // Concurrent adds to the same line both count, the database does the sum
+        if (cartProductRepository.upsertQuantity(cartId, productId, quantity) == 0) {
+            // Only a rejected add pays the queries that tell why
+            if (!cartRepository.existsById(cartId)) {
+                throw new IdNotFoundException(Tables.cart.name());
+            }
+            ProductEntity product = productRepository.findById(productId)
+                    .orElseThrow(() -> new IdNotFoundException(Tables.product.name()));
             throw new ResourceNotEnabledException(product.getName());
         }
 
-        CartProductId id = new CartProductId(cartId, productId);
-        CartProductEntity cartProduct = cartProductRepository.findById(id)
-                .orElse(new CartProductEntity(cart, product, 0));
-
-        cartProduct.setQuantity(cartProduct.getQuantity() + quantity);
-        cartProductRepository.save(cartProduct);
-
-        CartEntity updatedCart = cartRepository.findByIdWithProducts(cartId)
-                .orElseThrow(() -> new IdNotFoundException(Tables.cart.name()));
-
-        return entityToResponse(updatedCart);
+        List<CartRepository.CartLine> lines = cartRepository.findLinesById(cartId);
+        if (cartStockReservations.isEnabled()) {
+            // Thrown before the commit, so an add the stock can not cover is rolled back with its hold
+            CartRepository.CartLine line = lines.stream()
+                    .filter(cartLine -> productId.equals(cartLine.getProductId()))
+                    .findFirst()
+                    .orElseThrow(() -> new IdNotFoundException(Tables.product.name()));
+            afterRollback(cartStockReservations.hold(cartId, productId, line.getName(), line.getQuantity(),
+                    line.getStock()));
+        }
+        return linesToResponse(lines, Tables.cart.name());
     }
 
     @Override
     public CartResponse removeProductFromCart(Long cartId, Long productId) {
         CartProductId id = new CartProductId(cartId, productId);
         cartProductRepository.deleteById(id);
+        afterCommit(() -> cartStockReservations.release(cartId, productId));
+
+        return linesToResponse(cartRepository.findLinesById(cartId), Tables.cart.name());
+    }
 
+    @Override
+    public CartResponse applyOperations(Long cartId, List<CartOperationRequest> operations) {
+        validateOperations(operations);
+        // The outcome is written as absolute quantities, so the cart row is locked before the lines are read.
+        // Batches on the same cart wait for each other, and so does the upsert of addProductToCart, whose
+        // INSERT ... SELECT reads the cart row with a shared lock
+        cartRepository.findByIdForUpdate(cartId)
+                .orElseThrow(() -> new IdNotFoundException(Tables.cart.name()));
         CartEntity cart = cartRepository.findByIdWithProducts(cartId)
                 .orElseThrow(() -> new IdNotFoundException(Tables.cart.name()));
 
+        // Every product that gets a quantity is checked in one query, a removed one needs no check
+        Set<Long> productIds = operations.stream()
+                .filter(operation -> operation.getOp() != CartOperationType.REMOVE)
+                .map(CartOperationRequest::getProductId)
+                .collect(Collectors.toSet());
+        Map<Long, ProductEntity> products = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(ProductEntity::getId, Function.identity()));
+        for (Long productId : productIds) {
+            ProductEntity product = products.get(productId);
+            if (product == null) {
+                throw new IdNotFoundException(Tables.product.name());
+            }
+            if (!product.isEnabled()) {
+                throw new ResourceNotEnabledException(product.getName());
+            }
+        }
+
+        // The operations are folded over the current quantities and only the outcome is written
+        Map<Long, CartProductEntity> lines = new HashMap<>();
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (CartProductEntity line : cart.getCartProducts()) {
+            lines.put(line.getProduct().getId(), line);
+            quantities.put(line.getProduct().getId(), line.getQuantity());
+        }
+        for (CartOperationRequest operation : operations) {
+            switch (operation.getOp()) {
+                case ADD -> quantities.merge(operation.getProductId(), operation.getQuantity(), Integer::sum);
+                case SET -> quantities.put(operation.getProductId(), operation.getQuantity());
+                case REMOVE -> quantities.remove(operation.getProductId());
+            }
+        }
+        quantities.values().removeIf(quantity -> quantity <= 0);
+
+        if (cartStockReservations.isEnabled()) {
+            // Every line is checked before a hold changes, a rejected batch leaves the holds as they were.
+            // A raised hold is taken now and undone if the batch rolls back, a dropped one waits for the commit
+            Set<Long> touched = operations.stream()
+                    .map(CartOperationRequest::getProductId)
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+            for (ProductEntity product : products.values()) {
+                cartStockReservations.check(cartId, product.getId(), product.getName(),
+                        quantities.getOrDefault(product.getId(), 0), product.getAvailableStock());
+            }
+            for (Long productId : touched) {
+                ProductEntity product = products.get(productId);
+                int quantity = quantities.getOrDefault(productId, 0);
+                if (product == null || quantity == 0) {
+                    afterCommit(() -> cartStockReservations.release(cartId, productId));
+                } else {
+                    afterRollback(cartStockReservations.hold(cartId, productId, product.getName(), quantity,
+                            product.getAvailableStock()));
+                }
+            }
+        }
+
+        cart.getCartProducts().removeIf(line -> !quantities.containsKey(line.getProduct().getId()));
+        quantities.forEach((productId, quantity) -> {
+            CartProductEntity line = lines.get(productId);
+            if (line == null) {
+                line = new CartProductEntity(cart, products.get(productId), quantity);
+                cart.getCartProducts().add(line);
+            } else {
+                line.setQuantity(quantity);
+            }
+            // A line the customer added to or set takes the price they saw as its snapshot
+            if (products.containsKey(productId)) {
+                line.setUnitPrice(products.get(productId).getPrice());
+            }
+        });
+
         return entityToResponse(cart);
     }
 
+    // Shared with the Redis cart, a request is rejected as a whole before anything is applied
+    static void validateOperations(List<CartOperationRequest> operations) {
+        if (operations == null || operations.isEmpty()) {
+            throw new IllegalArgumentException("At least one cart operation is expected");
+        }
+        if (operations.size() > MAX_CART_OPERATIONS) {
+            throw new IllegalArgumentException("At most " + MAX_CART_OPERATIONS + " cart operations can be applied at once");
+        }
+        for (CartOperationRequest operation : operations) {
+            if (operation.getOp() == null || operation.getProductId() == null) {
+                throw new IllegalArgumentException("Every cart operation needs an op and a product id");
+            }
+            if (operation.getOp() != CartOperationType.REMOVE && operation.getQuantity() == null) {
+                throw new IllegalArgumentException(operation.getOp() + " of product " + operation.getProductId() + " needs a quantity");
+            }
+            if (operation.getOp() == CartOperationType.SET && operation.getQuantity() < 0) {
+                throw new IllegalArgumentException("SET of product " + operation.getProductId() + " needs a quantity of 0 or more");
+            }
+        }
+    }
+
     @Override
     public CartResponse getCartById(Long cartId) {
-        CartEntity cart = cartRepository.findById(cartId)
-                .orElseThrow(() -> new IdNotFoundException(Tables.cart.name()));
-        return entityToResponse(cart);
+        return linesToResponse(cartRepository.findLinesById(cartId), Tables.cart.name());
     }
 
     @Override
     public CartResponse getCartByCustomerId(Long customerId) {
-        CartEntity cart = cartRepository.findByCustomerId(customerId)
-                .orElseThrow(() -> new IdNotFoundException("Cart not found for customer"));
-        return entityToResponse(cart);
+        return linesToResponse(cartRepository.findLinesByCustomerId(customerId), "Cart not found for customer");
     }
 
     @Override
     public void clearCart(Long cartId) {
         cartProductRepository.deleteAllByCartId(cartId);
+        afterCommit(() -> cartStockReservations.releaseCart(cartId));
+    }
+
+    @Override
+    public OrderResponse checkout(Long cartId) {
+        // The order checks the lines against the holds of the other carts before it is written
+        OrderResponse order = orderService.createFromCart(cartId);
+
+        // The order took the stock, the holds of the cart are consumed once it commits
+        afterCommit(() -> cartStockReservations.releaseCart(cartId));
+        return order;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void afterRollback(Runnable undo) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    undo.run();
+                }
+            }
+        });
+    }
+
+    // The lines come with the live price and stock of their products, the cart is rendered from one query
+    private CartResponse linesToResponse(List<CartRepository.CartLine> lines, String notFound) {
+        if (lines.isEmpty()) {
+            throw new IdNotFoundException(notFound);
+        }
+
+        List<CartProductResponse> productResponses = lines.stream()
+                .filter(line -> line.getProductId() != null)
+                .map(line -> CartPricing.line(line.getProductId(), line.getName(), line.getPrice(),
+                        line.getUnitPrice(), line.getStock(), line.getQuantity()))
+                .toList();
+
+        return CartPricing.cart(lines.get(0).getCartId(), lines.get(0).getCustomerId(), productResponses);
     }
 
     private CartResponse entityToResponse(CartEntity cart) {
         List<CartProductResponse> productResponses =
                 (cart.getCartProducts() != null) ?
                 cart.getCartProducts().stream()
-                .map(cp -> CartProductResponse.builder()
-                        .productId(cp.getProduct().getId())
-                        .name(cp.getProduct().getName())
-                        .price(cp.getProduct().getPrice())
-                        .quantity(cp.getQuantity())
-                        .build())
+                .map(cp -> CartPricing.line(cp.getProduct().getId(), cp.getProduct().getName(),
+                        cp.getProduct().getPrice(), cp.getUnitPrice(), cp.getProduct().getAvailableStock(),
+                        cp.getQuantity()))
                 .toList()
                 : Collections.emptyList();
 
-        return CartResponse.builder()
-                .cartId(cart.getId())
-                .customerId(cart.getCustomer().getId())
-                .products(productResponses)
-                .build();
+        return CartPricing.cart(cart.getId(), cart.getCustomer().getId(), productResponses);
     }
 }
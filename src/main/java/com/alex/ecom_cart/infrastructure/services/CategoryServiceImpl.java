@@ -0,0 +1,45 @@
+package com.alex.ecom_cart.infrastructure.services;
+
+import com.alex.ecom_cart.api.dtos.response.CategoryResponse;
+import com.alex.ecom_cart.domain.entities.CategoryEntity;
+import com.alex.ecom_cart.domain.repositories.CategoryRepository;
+import com.alex.ecom_cart.infrastructure.abstract_services.ICategoryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+@Slf4j
+public class CategoryServiceImpl implements ICategoryService {
+
+    private final CategoryRepository categoryRepository;
+
+    @Override
+    public List<CategoryResponse> findAll() {
+        return this.categoryRepository.findAllByOrderByName().stream()
+                .map(this::entityToResponse)
+                .toList();
+    }
+
+    // The counters move with every product write, a recount on startup repairs any drift left by direct SQL
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void recountProducts() {
+        int categories = this.categoryRepository.recountProducts();
+        log.debug("Product counters recounted for {} categories", categories);
+    }
+
+    private CategoryResponse entityToResponse(CategoryEntity categoryEntity) {
+        CategoryResponse response = new CategoryResponse();
+        BeanUtils.copyProperties(categoryEntity, response);
+        return response;
+    }
+}
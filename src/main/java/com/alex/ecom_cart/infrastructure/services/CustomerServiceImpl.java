@@ -2,6 +2,7 @@ package com.alex.ecom_cart.infrastructure.services;
 
 import com.alex.ecom_cart.api.dtos.request.CustomerRequest;
 import com.alex.ecom_cart.api.dtos.response.CustomerResponse;
+import com.alex.ecom_cart.api.dtos.response.KeysetPageResponse;
 import com.alex.ecom_cart.config.RedisConfig;
 import com.alex.ecom_cart.domain.entities.RoleEntity;
 import com.alex.ecom_cart.domain.entities.CustomerEntity;
@@ -14,14 +15,16 @@ import com.alex.ecom_cart.util.enums.Tables;
 import com.alex.ecom_cart.util.exceptions.IdNotFoundException;
 import com.alex.ecom_cart.util.exceptions.ResourceNotEnabledException;
 import com.alex.ecom_cart.util.exceptions.CustomerNotFoundException;
+import com.alex.ecom_cart.util.pagination.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,8 +32,11 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -42,12 +48,33 @@ public class CustomerServiceImpl implements ICustomerService {
     private final RoleRepositry roleRepositroy;
     private final static short PAGE_SIZE = 5;
     private static final Set<Role> VALID_ROLES = Set.of(Role.CUSTOMER, Role.ADMIN, Role.SELLER);
+    private static final String DISABLED_CUSTOMERS_KEY = "customer:disabled";
     private final CacheHelper cacheHelper;
     private final PasswordEncoder encoder;
 
+    @Transactional(readOnly = true)
     @Override
     public Page<CustomerResponse> readAll(String field, Boolean desc, Integer page) {
 
+        Sort sorting = sortingFor(field);
+        Page<CustomerResponse> customers = desc
+                ? this.customerRepository.findActiveResponses(PageRequest.of(page, PAGE_SIZE, sorting.descending()))
+                : this.customerRepository.findActiveResponses(PageRequest.of(page, PAGE_SIZE, sorting.ascending()));
+        addRoles(customers.getContent());
+        return customers;
+    }
+
+    @Override
+    public KeysetPageResponse<CustomerResponse> scroll(String field, Boolean desc, String after) {
+        Sort sort = KeysetCursor.sortWithId(sortingFor(field), desc);
+        Window<CustomerResponse> customers = this.customerRepository
+                .findSummariesByEnabledTrue(KeysetCursor.decode(after, sort), sort, Limit.of(PAGE_SIZE))
+                .map(customer -> new CustomerResponse(customer.getId(), customer.getUsername(), customer.getEmail()));
+        addRoles(customers.getContent());
+        return KeysetCursor.toResponse(customers);
+    }
+
+    private Sort sortingFor(String field) {
         Sort sorting = Sort.by("username");
         if (Objects.nonNull(field)){
             switch (field){
@@ -56,10 +83,7 @@ public class CustomerServiceImpl implements ICustomerService {
                 default -> throw new IllegalArgumentException("Invalid field: " + field);
             }
         }
-        Page<CustomerEntity> customers = desc
-                ? this.customerRepository.findAllActive(PageRequest.of(page, PAGE_SIZE, sorting.descending()))
-                : this.customerRepository.findAllActive(PageRequest.of(page, PAGE_SIZE, sorting.ascending()));
-        return customers.map(this::entityToResponse);
+        return sorting;
     }
 
     @Override
@@ -125,12 +149,12 @@ public class CustomerServiceImpl implements ICustomerService {
         return entityToResponse(customerFromDb);
     }
 
-    @Cacheable(value = RedisConfig.CacheConstants.CUSTOMERS_CACHE_NAME)
+    @Cacheable(value = RedisConfig.CacheConstants.CUSTOMERS_CACHE_NAME, key = "'customer:disabled'")
+    @Transactional(readOnly = true)
     public List<CustomerResponse> findAllDisabledCustomers() {
-        List<CustomerEntity> customersDisabled = this.customerRepository.findAllByEnabledFalse();
-        return customersDisabled.stream()
-                .map(this::entityToResponse)
-                .toList();
+        List<CustomerResponse> customersDisabled = this.customerRepository.findDisabledResponses();
+        addRoles(customersDisabled);
+        return customersDisabled;
     }
 
     public CustomerResponse update(CustomerRequest request, Long id) {
@@ -204,11 +228,13 @@ public class CustomerServiceImpl implements ICustomerService {
     }
 
 
-    @CacheEvict(cacheNames = RedisConfig.CacheConstants.CUSTOMERS_CACHE_NAME, allEntries = true)
     @Override
     public void delete(Long id) {
         CustomerEntity customerToDelete = this.customerRepository.findById(id)
                 .orElseThrow(() -> new IdNotFoundException(Tables.customer.name()));
+        // The customer's own keys and the disabled list are the only entries a delete can change
+        evictCustomerCaches(customerToDelete);
+        cacheHelper.evictCacheKeys(RedisConfig.CacheConstants.CUSTOMERS_CACHE_NAME, DISABLED_CUSTOMERS_KEY);
         if (!customerToDelete.getOrders().isEmpty()){
             customerToDelete.disable();
             this.customerRepository.save(customerToDelete);
@@ -220,6 +246,17 @@ public class CustomerServiceImpl implements ICustomerService {
         }
     }
 
+    // One query for the roles of the whole page instead of one per customer
+    private void addRoles(List<CustomerResponse> customers) {
+        if (customers.isEmpty()) {
+            return;
+        }
+        Map<Long, CustomerResponse> customersById = customers.stream()
+                .collect(Collectors.toMap(CustomerResponse::getId, Function.identity()));
+        this.customerRepository.findRolesByCustomerIds(customersById.keySet())
+                .forEach(role -> customersById.get(role.getCustomerId()).getRoles().add(role.getRole().name()));
+    }
+
     private CustomerResponse entityToResponse(CustomerEntity customerEntity){
         CustomerResponse response = new CustomerResponse();
         BeanUtils.copyProperties(customerEntity, response);
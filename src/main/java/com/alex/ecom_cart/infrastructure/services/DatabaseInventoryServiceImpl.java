@@ -0,0 +1,85 @@
+package com.alex.ecom_cart.infrastructure.services;
+
+import com.alex.ecom_cart.domain.entities.ProductEntity;
+import com.alex.ecom_cart.domain.repositories.ProductRepository;
+import com.alex.ecom_cart.domain.repositories.ProductStockStripeRepository;
+import com.alex.ecom_cart.infrastructure.abstract_services.IInventoryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+
+@Service
+@ConditionalOnProperty(name = "inventory.mode", havingValue = "database", matchIfMissing = true)
+@RequiredArgsConstructor
+public class DatabaseInventoryServiceImpl implements IInventoryService {
+
+    private final ProductRepository productRepository;
+    private final ProductStockStripeRepository productStockStripeRepository;
+
+    @Override
+    public List<Long> reserve(Map<Long, ProductEntity> productsById, Map<Long, Integer> quantitiesByProductId) {
+        Map<Long, Integer> regular = new LinkedHashMap<>();
+        Map<Long, Integer> hot = new LinkedHashMap<>();
+        quantitiesByProductId.forEach((productId, quantity) ->
+                (productsById.get(productId).isHot() ? hot : regular).put(productId, quantity));
+
+        if (!regular.isEmpty()) {
+            List<Long> rejected = productRepository.decrementStock(regular);
+            if (!rejected.isEmpty()) {
+                return rejected;
+            }
+        }
+
+        for (Map.Entry<Long, Integer> line : hot.entrySet()) {
+            ProductEntity product = productsById.get(line.getKey());
+            if (!productStockStripeRepository.decrementStripes(product.getId(), product.getStockStripes(), line.getValue())) {
+                return List.of(product.getId());
+            }
+        }
+
+        return List.of();
+    }
+
+    @Override
+    public void overwrite(ProductEntity product) {
+        // The product row is the source of truth unless the stock is striped
+        if (product.isHot()) {
+            productStockStripeRepository.replaceStripes(product.getId(), product.getStockStripes(), product.getStock());
+            product.setStripedStock(product.getStock());
+        }
+    }
+
+    @Override
+    public void overwriteAll(Map<Long, Integer> stockByProductId) {
+        // Nothing to sync, the product row already holds the stock
+    }
+
+    @Override
+    public void addAll(Map<Long, Integer> deltasByProductId) {
+        // Nothing to sync, the product row already holds the stock
+    }
+
+    @Override
+    public void updateStripes(ProductEntity product, int stripes) {
+        int stock = product.getAvailableStock();
+
+        productStockStripeRepository.replaceStripes(product.getId(), stripes, stock);
+
+        product.setStockStripes(stripes);
+        product.setStock(stock);
+        product.setStripedStock(stripes > 0 ? stock : null);
+    }
+
+    @Override
+    public OptionalInt addToStripes(Long productId, int stripes, int delta) {
+        if (!productStockStripeRepository.addToStripes(productId, stripes, delta)) {
+            return OptionalInt.empty();
+        }
+        return OptionalInt.of(productStockStripeRepository.sumStripes(productId));
+    }
+}
@@ -0,0 +1,228 @@
+package com.alex.ecom_cart.infrastructure.services;
+
+import com.alex.ecom_cart.api.dtos.request.OrderRequest;
+import com.alex.ecom_cart.api.dtos.response.KeysetPageResponse;
+import com.alex.ecom_cart.api.dtos.response.OrderResponse;
+import com.alex.ecom_cart.infrastructure.abstract_services.IOrderService;
+import com.alex.ecom_cart.util.enums.OrderStatus;
+import com.alex.ecom_cart.util.exceptions.GroupCommitTimeoutException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Page;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/*
+ * Orders that arrive within a short window are written in one transaction, so the database pays one
+ * commit for the whole group. Every order is validated on its own first, and the ones bound to fail are
+ * answered right away and left out of the group. A group is all or nothing: if an order still fails
+ * inside it, for instance because another checkout took the stock since it was validated, or if the
+ * commit itself fails, the whole group is rolled back and every order in it is written in a transaction
+ * of its own, so a single bad order can not take the others down. An order that is still queued after
+ * timeout-ms is dropped and answered with a 503, one that is already in a group waits for the group.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "order.group-commit.enabled", havingValue = "true")
+@Slf4j
+public class GroupCommitOrderServiceImpl implements IOrderService {
+
+    private final OrderServiceImpl orderService;
+    private final TransactionTemplate groupTransaction;
+    private final BlockingQueue<PendingOrder> queue;
+    private final ExecutorService committers;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final long timeoutMs;
+    private volatile boolean running = true;
+
+    public GroupCommitOrderServiceImpl(OrderServiceImpl orderService,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${order.group-commit.window-ms:2}") long windowMs,
+                                       @Value("${order.group-commit.max-batch-size:64}") int maxBatchSize,
+                                       @Value("${order.group-commit.committers:2}") int committers,
+                                       @Value("${order.group-commit.queue-capacity:10000}") int queueCapacity,
+                                       @Value("${order.group-commit.timeout-ms:10000}") long timeoutMs) {
+        this.orderService = orderService;
+        this.groupTransaction = new TransactionTemplate(transactionManager);
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.maxBatchSize = maxBatchSize;
+        this.timeoutMs = timeoutMs;
+        this.committers = Executors.newFixedThreadPool(committers, new CustomizableThreadFactory("order-group-commit-"));
+        for (int i = 0; i < committers; i++) {
+            this.committers.execute(this::commitLoop);
+        }
+    }
+
+    @Override
+    public OrderResponse create(OrderRequest request) {
+        PendingOrder pending = new PendingOrder(request, new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            // Saturated or shutting down, the caller pays for its own transaction
+            return orderService.create(request);
+        }
+        try {
+            return pending.result().get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return awaitGroup(pending);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return awaitGroup(pending);
+        }
+    }
+
+    /*
+     * An order still in the queue was never written, so it can leave and the caller can safely send it
+     * again. One a committer already took may still commit, failing it now would have a caller without an
+     * Idempotency-Key place it twice, so the caller waits for the group to finish whatever it takes.
+     */
+    private OrderResponse awaitGroup(PendingOrder pending) {
+        if (queue.remove(pending)) {
+            log.debug("Order of customer {} left the group commit queue after {} ms", pending.request().getCustomerId(), timeoutMs);
+            throw new GroupCommitTimeoutException(timeoutMs);
+        }
+        try {
+            return pending.result().join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    @Override
+    public OrderResponse createFromCart(Long cartId) {
+        return orderService.createFromCart(cartId);
+    }
+
+    @Override
+    public Page<OrderResponse> readAll(String field, Boolean desc, Integer page) {
+        return orderService.readAll(field, desc, page);
+    }
+
+    @Override
+    public KeysetPageResponse<OrderResponse> scroll(String field, Boolean desc, String after) {
+        return orderService.scroll(field, desc, after);
+    }
+
+    @Override
+    public OrderResponse findById(Long id) {
+        return orderService.findById(id);
+    }
+
+    @Override
+    public List<OrderResponse> findByCustomerId(Long customerId) {
+        return orderService.findByCustomerId(customerId);
+    }
+
+    @Override
+    public OrderResponse updateStatus(OrderStatus orderStatus, Long id) {
+        return orderService.updateStatus(orderStatus, id);
+    }
+
+    @Override
+    public OrderResponse cancelOrder(Long id) {
+        return orderService.cancelOrder(id);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        committers.shutdownNow();
+        PendingOrder pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result().completeExceptionally(new IllegalStateException("Order service is shutting down"));
+        }
+    }
+
+    private void commitLoop() {
+        while (running) {
+            try {
+                List<PendingOrder> batch = collectBatch();
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private List<PendingOrder> collectBatch() throws InterruptedException {
+        List<PendingOrder> batch = new ArrayList<>(maxBatchSize);
+        batch.add(queue.take());
+
+        long deadline = System.nanoTime() + windowNanos;
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            PendingOrder next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    private void commit(List<PendingOrder> batch) {
+        // The orders that can not go through are answered before the group, so they do not roll it back
+        List<PendingOrder> group = new ArrayList<>(batch.size());
+        for (PendingOrder pending : batch) {
+            try {
+                orderService.validate(pending.request());
+                group.add(pending);
+            } catch (RuntimeException e) {
+                pending.result().completeExceptionally(e);
+            }
+        }
+        if (group.isEmpty()) {
+            return;
+        }
+
+        List<OrderResponse> created = new ArrayList<>(group.size());
+        try {
+            groupTransaction.executeWithoutResult(status -> {
+                for (PendingOrder pending : group) {
+                    created.add(orderService.create(pending.request()));
+                }
+            });
+        } catch (RuntimeException e) {
+            log.debug("Group commit of {} orders rolled back, writing them one by one: {}", group.size(), e.getMessage());
+            group.forEach(this::commitAlone);
+            return;
+        }
+
+        // Only answer once the whole group is durable
+        for (int i = 0; i < group.size(); i++) {
+            group.get(i).result().complete(created.get(i));
+        }
+        log.debug("Group committed {} orders, {} rejected up front", group.size(), batch.size() - group.size());
+    }
+
+    private void commitAlone(PendingOrder pending) {
+        try {
+            pending.result().complete(orderService.create(pending.request()));
+        } catch (RuntimeException e) {
+            pending.result().completeExceptionally(e);
+        }
+    }
+
+    private record PendingOrder(OrderRequest request, CompletableFuture<OrderResponse> result) {
+    }
+}
@@ -0,0 +1,117 @@
+package com.alex.ecom_cart.infrastructure.services;
+
+import com.alex.ecom_cart.infrastructure.abstract_services.IIdempotencyService;
+import com.alex.ecom_cart.util.exceptions.IdempotencyKeyInUseException;
+import com.alex.ecom_cart.util.exceptions.IdempotencyKeyMismatchException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.Serializable;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/*
+ * The first result for a key is kept in Redis for a while, next to a SHA-256 fingerprint of the request
+ * that produced it. A duplicate that arrives while the first call is still running waits on the key lock
+ * and then reads that result instead of running again. A key reused with a different request is rejected
+ * instead of replaying a result that does not belong to it. A failed call stores nothing, so the next
+ * retry runs the action.
+ */
+@Service
+@Slf4j
+public class IdempotencyServiceImpl implements IIdempotencyService {
+
+    private static final String KEY_PREFIX = "idempotency:";
+    private static final String LOCK_SUFFIX = ":lock";
+    private static final String FINGERPRINT_SUFFIX = ":fingerprint";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final RedissonClient redissonClient;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final long waitMs;
+
+    public IdempotencyServiceImpl(RedissonClient redissonClient,
+                                  ObjectMapper objectMapper,
+                                  @Value("${idempotency.ttl-seconds:86400}") long ttlSeconds,
+                                  @Value("${idempotency.wait-ms:10000}") long waitMs) {
+        this.redissonClient = redissonClient;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.waitMs = waitMs;
+    }
+
+    @Override
+    public <T extends Serializable> T execute(String key, Object request, Supplier<T> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must have between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String fingerprint = fingerprint(request);
+        RBucket<String> storedFingerprint = redissonClient.getBucket(KEY_PREFIX + key + FINGERPRINT_SUFFIX, StringCodec.INSTANCE);
+        RBucket<T> result = redissonClient.getBucket(KEY_PREFIX + key);
+        T stored = replay(result, storedFingerprint, fingerprint);
+        if (stored != null) {
+            return stored;
+        }
+
+        RLock lock = redissonClient.getLock(KEY_PREFIX + key + LOCK_SUFFIX);
+        if (!tryLock(lock)) {
+            throw new IdempotencyKeyInUseException();
+        }
+        try {
+            // The call holding the lock before us may have finished it already
+            stored = replay(result, storedFingerprint, fingerprint);
+            if (stored != null) {
+                log.debug("Replaying stored result for idempotency key {}", key);
+                return stored;
+            }
+
+            T value = action.get();
+            // The fingerprint goes first, a result is never readable without the request it belongs to
+            storedFingerprint.set(fingerprint, ttl.toMillis(), TimeUnit.MILLISECONDS);
+            result.set(value, ttl.toMillis(), TimeUnit.MILLISECONDS);
+            return value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private <T extends Serializable> T replay(RBucket<T> result, RBucket<String> storedFingerprint, String fingerprint) {
+        String previous = storedFingerprint.get();
+        if (previous != null && !previous.equals(fingerprint)) {
+            throw new IdempotencyKeyMismatchException();
+        }
+        return result.get();
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(hash);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not fingerprint the request", e);
+        }
+    }
+
+    private boolean tryLock(RLock lock) {
+        try {
+            // No lease time so the watchdog keeps the lock while a slow checkout is still running
+            return lock.tryLock(waitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -1,20 +1,22 @@
 package com.alex.ecom_cart.infrastructure.services;
 
+import com.alex.ecom_cart.api.dtos.response.KeysetPageResponse;
 import com.alex.ecom_cart.api.dtos.response.OrderDetailResponse;
 import com.alex.ecom_cart.config.RedisConfig;
-import com.alex.ecom_cart.domain.entities.OrderDetailEntity;
 import com.alex.ecom_cart.domain.repositories.OrderDetailRepository;
 import com.alex.ecom_cart.domain.repositories.OrderRepository;
 import com.alex.ecom_cart.domain.repositories.ProductRepository;
 import com.alex.ecom_cart.infrastructure.abstract_services.IOrderDetais;
 import com.alex.ecom_cart.util.enums.Tables;
 import com.alex.ecom_cart.util.exceptions.IdNotFoundException;
+import com.alex.ecom_cart.util.pagination.KeysetCursor;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.BeanUtils;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -44,11 +46,29 @@ public class OrderDetaisServiceImpl implements IOrderDetais {
                 default -> throw new IllegalArgumentException("invalid field: " + field);
             }
         }
-        Page<OrderDetailEntity> orderPage = desc
-                ? this.orderDetailRepository.findAll(PageRequest.of(page, PAGE_SIZE, sorting.descending()))
-                : this.orderDetailRepository.findAll(PageRequest.of(page, PAGE_SIZE, sorting.ascending()));
+        return desc
+                ? this.orderDetailRepository.findAllResponses(PageRequest.of(page, PAGE_SIZE, sorting.descending()))
+                : this.orderDetailRepository.findAllResponses(PageRequest.of(page, PAGE_SIZE, sorting.ascending()));
+    }
+
+    @Override
+    public KeysetPageResponse<OrderDetailResponse> scroll(String field, Boolean desc, String after) {
+        // Seek on the foreign key columns, an entity can not be compared in the seek predicate
+        Sort sorting = Sort.by("product.id");
+        if (Objects.nonNull(field)) {
+            switch (field) {
+                case "product" -> sorting = Sort.by("product.id");
+                case "order" -> sorting = Sort.by("order.id");
+                case "price" -> sorting = Sort.by("price");
 
-        return orderPage.map(this::entityToResponse);
+                default -> throw new IllegalArgumentException("invalid field: " + field);
+            }
+        }
+        Sort sort = KeysetCursor.sortWithId(sorting, desc);
+        Window<OrderDetailRepository.OrderDetailSummary> details = this.orderDetailRepository
+                .findSummariesBy(KeysetCursor.decode(after, sort), sort, Limit.of(PAGE_SIZE));
+        return KeysetCursor.toResponse(details.map(detail -> new OrderDetailResponse(detail.getId(),
+                detail.getQuantity(), detail.getPrice(), detail.getCreatedAt(), detail.getOrderId(), detail.getProductId())));
     }
 
     @Cacheable(cacheNames = RedisConfig.CacheConstants.ORDERS_DETAILS_CACHE_NAME)
@@ -57,8 +77,7 @@ public class OrderDetaisServiceImpl implements IOrderDetais {
         if (!this.orderRepository.existsById(orderId)){
             throw new IdNotFoundException(Tables.order.name());
         }
-        List<OrderDetailEntity> orderDetailsFromDb = orderDetailRepository.findByOrderId(orderId);
-        return orderDetailsFromDb.stream().map(this::entityToResponse).toList();
+        return orderDetailRepository.findResponsesByOrderId(orderId);
     }
 
     @Cacheable(cacheNames = RedisConfig.CacheConstants.ORDERS_DETAILS_CACHE_NAME)
@@ -67,16 +86,7 @@ public class OrderDetaisServiceImpl implements IOrderDetais {
         if (!this.productRepository.existsById(productId)){
             throw new IdNotFoundException(Tables.product.name());
         }
-        List<OrderDetailEntity> orderDetailsFromDb = orderDetailRepository.findByProductId(productId);
-        return orderDetailsFromDb.stream().map(this::entityToResponse).toList();
-    }
-
-    private OrderDetailResponse entityToResponse(OrderDetailEntity orderDetail){
-        OrderDetailResponse response = new OrderDetailResponse();
-        BeanUtils.copyProperties(orderDetail, response);
-        response.setOrder(orderDetail.getOrder().getId());
-        response.setProduct(orderDetail.getProduct().getId());
-        return response;
+        return orderDetailRepository.findResponsesByProductId(productId);
     }
 
 }
@@ -0,0 +1,236 @@
+package com.alex.ecom_cart.infrastructure.services;
+
+import com.alex.ecom_cart.api.dtos.request.OrderRequest;
+import com.alex.ecom_cart.api.dtos.response.OrderIntakeResponse;
+import com.alex.ecom_cart.api.dtos.response.OrderResponse;
+import com.alex.ecom_cart.domain.entities.OrderIntakeEntity;
+import com.alex.ecom_cart.domain.repositories.OrderIntakeRepository;
+import com.alex.ecom_cart.infrastructure.abstract_services.IOrderIntakeService;
+import com.alex.ecom_cart.infrastructure.abstract_services.IOrderService;
+import com.alex.ecom_cart.util.enums.IntakeStatus;
+import com.alex.ecom_cart.util.enums.Tables;
+import com.alex.ecom_cart.util.exceptions.CustomerNotFoundException;
+import com.alex.ecom_cart.util.exceptions.IdNotFoundException;
+import com.alex.ecom_cart.util.exceptions.InsufficientStockException;
+import com.alex.ecom_cart.util.exceptions.IntakeQueueFullException;
+import com.alex.ecom_cart.util.exceptions.ResourceNotEnabledException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*
+ * Accepted orders are stored in the order_intake table and answered with a tracking id right away.
+ * A scheduled dispatcher takes the oldest queued rows in micro-batches and hands them to a fixed pool
+ * of workers. Each worker moves its row out of QUEUED in the same transaction that writes the order,
+ * so a crash leaves the row queued and no order is ever written twice. That is also why the workers
+ * call OrderServiceImpl directly and never go through the group commit. A rejected order marks its row
+ * FAILED right away. A row that hit a transient database error stays queued and is tried again after a
+ * backoff that doubles with every attempt, so a few rows that keep failing can not fill every batch, and
+ * it is marked FAILED once it used up its attempts.
+ */
+@Service
+@Slf4j
+public class OrderIntakeServiceImpl implements IOrderIntakeService {
+
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    private final OrderIntakeRepository orderIntakeRepository;
+    private final IOrderService orderService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService workers;
+    private final int capacity;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+
+    public OrderIntakeServiceImpl(OrderIntakeRepository orderIntakeRepository,
+                                  @Qualifier("orderServiceImpl") IOrderService orderService,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${order.intake.capacity:10000}") int capacity,
+                                  @Value("${order.intake.workers:8}") int workers,
+                                  @Value("${order.intake.batch-size:50}") int batchSize,
+                                  @Value("${order.intake.max-attempts:5}") int maxAttempts,
+                                  @Value("${order.intake.retry-backoff-ms:1000}") long retryBackoffMs) {
+        this.orderIntakeRepository = orderIntakeRepository;
+        this.orderService = orderService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workers = Executors.newFixedThreadPool(workers, new CustomizableThreadFactory("order-intake-"));
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMs = retryBackoffMs;
+    }
+
+    @Override
+    public OrderIntakeResponse enqueue(OrderRequest request) {
+        long waiting = orderIntakeRepository.countByStatus(IntakeStatus.QUEUED);
+        if (waiting >= capacity) {
+            throw new IntakeQueueFullException(waiting);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        OrderIntakeEntity intake = OrderIntakeEntity.builder()
+                .trackingId(UUID.randomUUID().toString())
+                .customerId(request.getCustomerId())
+                .payload(writePayload(request))
+                .status(IntakeStatus.QUEUED)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+
+        return entityToResponse(orderIntakeRepository.save(intake));
+    }
+
+    @Override
+    public OrderIntakeResponse findByTrackingId(String trackingId) {
+        return orderIntakeRepository.findById(trackingId)
+                .map(this::entityToResponse)
+                .orElseThrow(() -> new IdNotFoundException(Tables.order_intake.name()));
+    }
+
+    // One batch per tick, a full queue must not keep the shared scheduler from running the other jobs
+    @Scheduled(fixedDelayString = "${order.intake.poll-interval-ms:200}")
+    public void drain() {
+        List<String> trackingIds = orderIntakeRepository.findReadyTrackingIds(IntakeStatus.QUEUED,
+                LocalDateTime.now(), PageRequest.of(0, batchSize));
+        if (trackingIds.isEmpty()) {
+            return;
+        }
+
+        // The next batch is only read on the next tick, once this one is done, so a row is never handed out twice
+        List<Callable<Void>> tasks = trackingIds.stream()
+                .<Callable<Void>>map(trackingId -> () -> {
+                    process(trackingId);
+                    return null;
+                })
+                .toList();
+        try {
+            workers.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void process(String trackingId) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                OrderIntakeEntity intake = orderIntakeRepository.findById(trackingId).orElse(null);
+                if (intake == null || intake.getStatus() != IntakeStatus.QUEUED) {
+                    return;
+                }
+                OrderResponse order = orderService.create(readPayload(intake));
+                int moved = orderIntakeRepository.transition(trackingId, IntakeStatus.QUEUED, IntakeStatus.COMPLETED,
+                        order.getId(), null, LocalDateTime.now());
+                if (moved == 0) {
+                    // Another instance completed it first, drop our copy of the order
+                    status.setRollbackOnly();
+                }
+            });
+        } catch (RuntimeException e) {
+            if (!isRejection(e)) {
+                // Lock timeouts, lost connections and the like: the row stays queued for a later tick
+                retryLater(trackingId, e);
+                return;
+            }
+            log.debug("Queued order {} was rejected: {}", trackingId, e.getMessage());
+            transactionTemplate.executeWithoutResult(status ->
+                    orderIntakeRepository.transition(trackingId, IntakeStatus.QUEUED, IntakeStatus.FAILED,
+                            null, truncate(e.getMessage()), LocalDateTime.now()));
+        }
+    }
+
+    private void retryLater(String trackingId, RuntimeException error) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                OrderIntakeEntity intake = orderIntakeRepository.findById(trackingId).orElse(null);
+                if (intake == null || intake.getStatus() != IntakeStatus.QUEUED) {
+                    return;
+                }
+                int attempts = intake.getAttempts() + 1;
+                LocalDateTime now = LocalDateTime.now();
+                if (attempts >= maxAttempts) {
+                    log.warn("Queued order {} failed after {} attempts: {}", trackingId, attempts, error.getMessage());
+                    orderIntakeRepository.transition(trackingId, IntakeStatus.QUEUED, IntakeStatus.FAILED, null,
+                            truncate("Failed after " + attempts + " attempts: " + error.getMessage()), now);
+                    return;
+                }
+                long backoffMs = retryBackoffMs << Math.min(attempts - 1, 20);
+                log.warn("Queued order {} will be retried in {} ms: {}", trackingId, backoffMs, error.getMessage());
+                orderIntakeRepository.retryLater(trackingId, IntakeStatus.QUEUED, attempts,
+                        now.plus(Duration.ofMillis(backoffMs)), truncate(error.getMessage()), now);
+            });
+        } catch (RuntimeException e) {
+            // The row is still queued with its old attempt, the next tick takes it again
+            log.warn("Could not record the failed attempt of queued order {}: {}", trackingId, e.getMessage());
+        }
+    }
+
+    // Only a verdict on the order itself is final, anything else may go through when it is tried again
+    static boolean isRejection(RuntimeException e) {
+        return e instanceof IdNotFoundException
+                || e instanceof InsufficientStockException
+                || e instanceof ResourceNotEnabledException
+                || e instanceof CustomerNotFoundException
+                || e instanceof IllegalArgumentException
+                || e instanceof IllegalStateException;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    private String writePayload(OrderRequest request) {
+        try {
+            return objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Order request can not be queued", e);
+        }
+    }
+
+    private OrderRequest readPayload(OrderIntakeEntity intake) {
+        try {
+            return objectMapper.readValue(intake.getPayload(), OrderRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Queued order " + intake.getTrackingId() + " is not readable", e);
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private OrderIntakeResponse entityToResponse(OrderIntakeEntity entity) {
+        return OrderIntakeResponse.builder()
+                .trackingId(entity.getTrackingId())
+                .status(entity.getStatus())
+                .orderId(entity.getOrderId())
+                .errorMessage(entity.getErrorMessage())
+                .createdAt(entity.getCreatedAt())
+                .build();
+    }
+}
@@ -2,37 +2,50 @@ package com.alex.ecom_cart.infrastructure.services;
 
 import com.alex.ecom_cart.api.dtos.request.OrderProductRequest;
 import com.alex.ecom_cart.api.dtos.request.OrderRequest;
+import com.alex.ecom_cart.api.dtos.response.KeysetPageResponse;
 import com.alex.ecom_cart.api.dtos.response.OrderResponse;
 import com.alex.ecom_cart.config.RedisConfig;
+import com.alex.ecom_cart.domain.entities.CartEntity;
+import com.alex.ecom_cart.domain.entities.CartProductEntity;
 import com.alex.ecom_cart.domain.entities.OrderDetailEntity;
 import com.alex.ecom_cart.domain.entities.OrderEntity;
 import com.alex.ecom_cart.domain.entities.ProductEntity;
 import com.alex.ecom_cart.domain.entities.CustomerEntity;
-import com.alex.ecom_cart.domain.repositories.OrderDetailRepository;
+import com.alex.ecom_cart.domain.repositories.CartProductRepository;
+import com.alex.ecom_cart.domain.repositories.CartRepository;
 import com.alex.ecom_cart.domain.repositories.OrderRepository;
 import com.alex.ecom_cart.domain.repositories.ProductRepository;
 import com.alex.ecom_cart.domain.repositories.CustomerRepository;
+import com.alex.ecom_cart.infrastructure.abstract_services.IInventoryService;
 import com.alex.ecom_cart.infrastructure.abstract_services.IOrderService;
+import com.alex.ecom_cart.infrastructure.abstract_services.IOutboxService;
+import com.alex.ecom_cart.infrastructure.reservation.CartStockReservations;
 import com.alex.ecom_cart.util.enums.OrderStatus;
+import com.alex.ecom_cart.util.enums.OutboxEventType;
 import com.alex.ecom_cart.util.enums.Tables;
 import com.alex.ecom_cart.util.exceptions.IdNotFoundException;
 import com.alex.ecom_cart.util.exceptions.InsufficientStockException;
 import com.alex.ecom_cart.util.exceptions.ResourceNotEnabledException;
+import com.alex.ecom_cart.util.pagination.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.BeanUtils;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -41,12 +54,17 @@ import java.util.stream.Collectors;
 public class OrderServiceImpl implements IOrderService {
 
     private final OrderRepository orderRepository;
+    private final CartRepository cartRepository;
+    private final CartProductRepository cartProductRepository;
     private final CustomerRepository customerRepository;
     private final ProductRepository productRepository;
-    private final OrderDetailRepository orderDetailRepository;
+    private final IInventoryService inventoryService;
+    private final IOutboxService outboxService;
+    private final CartStockReservations cartStockReservations;
     private final static short PAGE_SIZE = 5;
 
     @Cacheable(value = RedisConfig.CacheConstants.ORDERS_CACHE_NAME)
+    @Transactional(readOnly = true)
     @Override
     public Page<OrderResponse> readAll(String field, Boolean desc, Integer page) {
         Sort sorting = Sort.by("customer");
@@ -58,11 +76,28 @@ public class OrderServiceImpl implements IOrderService {
                 default -> throw new IllegalArgumentException("invalid field: " + field);
             }
         }
-        Page<OrderEntity> orderPage = desc
-                ? this.orderRepository.findAll(PageRequest.of(page, PAGE_SIZE, sorting.descending()))
-                : this.orderRepository.findAll(PageRequest.of(page, PAGE_SIZE, sorting.ascending()));
+        return desc
+                ? this.orderRepository.findAllResponses(PageRequest.of(page, PAGE_SIZE, sorting.descending()))
+                : this.orderRepository.findAllResponses(PageRequest.of(page, PAGE_SIZE, sorting.ascending()));
+    }
 
-        return orderPage.map(this::entityToResponse);
+    @Override
+    public KeysetPageResponse<OrderResponse> scroll(String field, Boolean desc, String after) {
+        // Seek on the foreign key column, an entity can not be compared in the seek predicate
+        Sort sorting = Sort.by("customer.id");
+        if (Objects.nonNull(field)) {
+            switch (field) {
+                case "customer" -> sorting = Sort.by("customer.id");
+                case "totalPrice" -> sorting = Sort.by("totalPrice");
+
+                default -> throw new IllegalArgumentException("invalid field: " + field);
+            }
+        }
+        Sort sort = KeysetCursor.sortWithId(sorting, desc);
+        Window<OrderRepository.OrderSummary> orders = this.orderRepository
+                .findSummariesBy(KeysetCursor.decode(after, sort), sort, Limit.of(PAGE_SIZE));
+        return KeysetCursor.toResponse(orders.map(order -> new OrderResponse(order.getId(), order.getTotalPrice(),
+                order.getOrderStatus(), order.getCreatedAt(), order.getCustomerUsername())));
     }
 
     @Override
@@ -77,29 +112,70 @@ public class OrderServiceImpl implements IOrderService {
         //Set the total price of the order
         order.setTotalPrice(totalPrice);
 
-        //Save the order
+        //Save the order, the details are cascaded and flushed together as one JDBC batch
         OrderEntity orderPersisted = orderRepository.save(order);
 
-        //save the details
-        for (OrderDetailEntity detail : order.getOrderDetails()) {
-            detail.setOrder(orderPersisted);
-            orderDetailRepository.save(detail);
+        return recordCreated(orderPersisted);
+
+    }
+
+    // Runs the checks of create without writing anything, so a group commit can leave out the orders bound to fail
+    @Transactional(readOnly = true)
+    public void validate(OrderRequest request) {
+        validateAndGetCustomer(request.getCustomerId());
+        validateAndGetProducts(groupQuantitiesByProduct(request.getProducts()));
+    }
+
+    @Override
+    public OrderResponse createFromCart(Long cartId) {
+        // The cart lines come with their products, nothing is read again line by line
+        CartEntity cart = cartRepository.findByIdWithProducts(cartId)
+                .orElseThrow(() -> new IdNotFoundException(Tables.cart.name()));
+
+        if (cart.getCartProducts() == null || cart.getCartProducts().isEmpty()) {
+            throw new IllegalStateException("Cannot checkout an empty cart");
         }
 
-        return entityToResponse(orderPersisted);
+        CustomerEntity customer = validateCustomer(cart.getCustomer());
+
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        Map<Long, ProductEntity> products = new LinkedHashMap<>();
+        for (CartProductEntity cartProduct : cart.getCartProducts()) {
+            quantities.put(cartProduct.getProduct().getId(), cartProduct.getQuantity());
+            products.put(cartProduct.getProduct().getId(), cartProduct.getProduct());
+        }
+        validateProducts(cartId, quantities, products);
+
+        OrderEntity order = createOrder(customer);
+        order.setTotalPrice(addOrderLines(order, quantities, products));
+        OrderEntity orderPersisted = orderRepository.save(order);
+
+        // Empty the cart with one statement in the same transaction as the order
+        cartProductRepository.deleteByCartIdInBulk(cartId);
 
+        return recordCreated(orderPersisted);
     }
 
 
+    private OrderResponse recordCreated(OrderEntity order) {
+        OrderResponse response = entityToResponse(order);
+        outboxService.record(Tables.order.name(), response.getId(), OutboxEventType.ORDER_CREATED, response);
+        return response;
+    }
+
     private CustomerEntity validateAndGetCustomer(Long customerId) {
         CustomerEntity customerFromDb = customerRepository.findById(customerId)
                 .orElseThrow(() -> new IdNotFoundException(Tables.customer.name()));
 
-        if (!customerFromDb.isEnabled()) {
-            throw new ResourceNotEnabledException(customerFromDb.getUsername());
+        return validateCustomer(customerFromDb);
+    }
+
+    private CustomerEntity validateCustomer(CustomerEntity customer) {
+        if (!customer.isEnabled()) {
+            throw new ResourceNotEnabledException(customer.getUsername());
         }
 
-        return customerFromDb;
+        return customer;
     }
 
 
@@ -114,38 +190,77 @@ public class OrderServiceImpl implements IOrderService {
 
 
     private BigDecimal processOrderProducts(OrderRequest request, OrderEntity order) {
-        BigDecimal totalPrice = BigDecimal.ZERO;
+        Map<Long, Integer> quantities = groupQuantitiesByProduct(request.getProducts());
+        Map<Long, ProductEntity> products = validateAndGetProducts(quantities);
 
-        for (OrderProductRequest p : request.getProducts()) {
-            ProductEntity product = validateAndGetProduct(p.getProductId(), p.getQuantity());
+        return addOrderLines(order, quantities, products);
+    }
+
+    private BigDecimal addOrderLines(OrderEntity order, Map<Long, Integer> quantities, Map<Long, ProductEntity> products) {
+        // Reserve the stock of the whole order in one step
+        reserveStock(quantities, products);
+
+        BigDecimal totalPrice = BigDecimal.ZERO;
 
-            // Reduce product stock
-            product.setStock(product.getStock() - p.getQuantity());
-            productRepository.save(product);
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            ProductEntity product = products.get(line.getKey());
 
             //Create order detail
-            createOrderDetail(order, product, p.getQuantity());
+            createOrderDetail(order, product, line.getValue());
 
             //Calculate the total price
-            totalPrice = totalPrice.add(product.getPrice().multiply(BigDecimal.valueOf(p.getQuantity())));
+            totalPrice = totalPrice.add(product.getPrice().multiply(BigDecimal.valueOf(line.getValue())));
         }
 
         return totalPrice;
     }
 
-    private ProductEntity validateAndGetProduct(Long productId, int quantity) {
-        ProductEntity product = productRepository.findById(productId)
-                .orElseThrow(() -> new IdNotFoundException(Tables.product.name()));
-
-        if (!product.isEnabled()) {
-            throw new ResourceNotEnabledException(product.getName());
+    private Map<Long, Integer> groupQuantitiesByProduct(List<OrderProductRequest> lines) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (OrderProductRequest p : lines) {
+            quantities.merge(p.getProductId(), p.getQuantity(), Integer::sum);
         }
+        return quantities;
+    }
+
+    private Map<Long, ProductEntity> validateAndGetProducts(Map<Long, Integer> quantities) {
+        Map<Long, ProductEntity> products = productRepository.findAllById(quantities.keySet())
+                .stream()
+                .collect(Collectors.toMap(ProductEntity::getId, Function.identity()));
+
+        validateProducts(null, quantities, products);
+
+        return products;
+    }
+
+    // A direct order has no cart, so it can not take the units any cart holds. A checkout can take its own
+    private void validateProducts(Long cartId, Map<Long, Integer> quantities, Map<Long, ProductEntity> products) {
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            ProductEntity product = products.get(line.getKey());
+
+            if (product == null) {
+                throw new IdNotFoundException(Tables.product.name());
+            }
+
+            if (!product.isEnabled()) {
+                throw new ResourceNotEnabledException(product.getName());
+            }
 
-        if (product.getStock() < quantity) {
-            throw new InsufficientStockException(product.getName());
+            if (product.getAvailableStock() < line.getValue()) {
+                throw new InsufficientStockException(product.getName());
+            }
+
+            cartStockReservations.check(cartId, product.getId(), product.getName(), line.getValue(),
+                    product.getAvailableStock());
         }
+    }
 
-        return product;
+    private void reserveStock(Map<Long, Integer> quantities, Map<Long, ProductEntity> products) {
+        // A concurrent checkout may have taken the stock after it was read, the whole order is rolled back
+        List<Long> rejected = inventoryService.reserve(products, quantities);
+        if (!rejected.isEmpty()) {
+            throw new InsufficientStockException(products.get(rejected.get(0)).getName());
+        }
     }
 
     private void createOrderDetail(OrderEntity order, ProductEntity product, int quantity) {
@@ -161,24 +276,21 @@ public class OrderServiceImpl implements IOrderService {
     }
 
     @Cacheable(value = RedisConfig.CacheConstants.ORDERS_CACHE_NAME)
+    @Transactional(readOnly = true)
     @Override
     public OrderResponse findById(Long id) {
-        OrderEntity orderFromDb = this.orderRepository.findById(id)
+        return this.orderRepository.findResponseById(id)
                 .orElseThrow(() -> new IdNotFoundException(Tables.order.name()));
-        return entityToResponse(orderFromDb);
     }
 
     @Cacheable(value = RedisConfig.CacheConstants.ORDERS_CACHE_NAME)
+    @Transactional(readOnly = true)
     @Override
     public List<OrderResponse> findByCustomerId(Long customerId) {
         if (!customerRepository.existsById(customerId)){
             throw new IdNotFoundException(Tables.customer.name());
         }
-        List<OrderEntity> orderFromDb = this.orderRepository.findByCustomerId(customerId);
-        return orderFromDb
-                .stream()
-                .map(this::entityToResponse)
-                .collect(Collectors.toList());
+        return this.orderRepository.findResponsesByCustomerId(customerId);
     }
 
     @Override
@@ -203,7 +315,10 @@ public class OrderServiceImpl implements IOrderService {
 
         OrderEntity orderUpdated = this.orderRepository.save(orderToUpdate);
 
-        return entityToResponse(orderUpdated);
+        OrderResponse response = entityToResponse(orderUpdated);
+        outboxService.record(Tables.order.name(), response.getId(), OutboxEventType.ORDER_STATUS_CHANGED, response);
+
+        return response;
     }
 
     @Override
@@ -218,7 +333,10 @@ public class OrderServiceImpl implements IOrderService {
         orderFromDb.setOrderStatus(OrderStatus.CANCELLED);
         this.orderRepository.save(orderFromDb);
 
-        return entityToResponse(orderFromDb);
+        OrderResponse response = entityToResponse(orderFromDb);
+        outboxService.record(Tables.order.name(), response.getId(), OutboxEventType.ORDER_CANCELLED, response);
+
+        return response;
 
     }
 
@@ -0,0 +1,70 @@
+package com.alex.ecom_cart.infrastructure.services;
+
+import com.alex.ecom_cart.domain.entities.OutboxEntity;
+import com.alex.ecom_cart.domain.repositories.OutboxRepository;
+import com.alex.ecom_cart.infrastructure.abstract_services.IOutboxService;
+import com.alex.ecom_cart.util.enums.OutboxEventType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+@RequiredArgsConstructor
+public class OutboxServiceImpl implements IOutboxService {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO outbox (aggregate_type, aggregate_id, event_type, payload, created_at) VALUES (?, ?, ?, ?, ?)";
+    private static final int BATCH_SIZE = 500;
+
+    private final OutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void record(String aggregateType, Long aggregateId, OutboxEventType eventType, Object payload) {
+        OutboxEntity event = OutboxEntity.builder()
+                .aggregateType(aggregateType)
+                .aggregateId(aggregateId)
+                .eventType(eventType)
+                .payload(writePayload(payload))
+                .createdAt(LocalDateTime.now())
+                .build();
+
+        outboxRepository.save(event);
+    }
+
+    @Override
+    public void recordAll(String aggregateType, OutboxEventType eventType, Map<Long, ?> payloadsByAggregateId) {
+        // Identity ids are not needed back, so unlike save these inserts can be batched
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Map.Entry<Long, String>> events = payloadsByAggregateId.entrySet().stream()
+                .map(event -> Map.entry(event.getKey(), writePayload(event.getValue())))
+                .toList();
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, events, BATCH_SIZE, (ps, event) -> {
+            ps.setString(1, aggregateType);
+            ps.setLong(2, event.getKey());
+            ps.setString(3, eventType.name());
+            ps.setString(4, event.getValue());
+            ps.setTimestamp(5, createdAt);
+        });
+    }
+
+    private String writePayload(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Outbox payload can not be written", e);
+        }
+    }
+}
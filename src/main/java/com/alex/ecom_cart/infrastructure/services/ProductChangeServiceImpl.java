@@ -0,0 +1,116 @@
+package com.alex.ecom_cart.infrastructure.services;
+
+import com.alex.ecom_cart.domain.entities.ProductChangeEntity;
+import com.alex.ecom_cart.domain.repositories.ProductChangeRepository;
+import com.alex.ecom_cart.infrastructure.abstract_services.IProductChangeService;
+import com.alex.ecom_cart.util.enums.ProductChangeType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/*
+ * Sequence numbers are taken on insert but rows become visible on commit, so a reader could see 11
+ * before 10 commits and skip 10 forever. Changes younger than the settle window are therefore left for
+ * the next call, which holds as long as no product write stays open longer than the window.
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+@Slf4j
+public class ProductChangeServiceImpl implements IProductChangeService {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO product_change (product_id, change_type, changed_at) VALUES (?, ?, ?)";
+    private static final int BATCH_SIZE = 500;
+
+    private final ProductChangeRepository productChangeRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxResults;
+    private final long settleMs;
+    private final int retentionDays;
+
+    public ProductChangeServiceImpl(ProductChangeRepository productChangeRepository,
+                                    JdbcTemplate jdbcTemplate,
+                                    @Value("${product.changes.max-results:500}") int maxResults,
+                                    @Value("${product.changes.settle-ms:5000}") long settleMs,
+                                    @Value("${product.changes.retention-days:30}") int retentionDays) {
+        this.productChangeRepository = productChangeRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxResults = maxResults;
+        this.settleMs = settleMs;
+        this.retentionDays = retentionDays;
+    }
+
+    @Override
+    public void record(Long productId, ProductChangeType changeType) {
+        recordAll(List.of(productId), changeType);
+    }
+
+    @Override
+    public void recordAll(Collection<Long> productIds, ProductChangeType changeType) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        Timestamp changedAt = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, productIds, BATCH_SIZE, (ps, productId) -> {
+            ps.setLong(1, productId);
+            ps.setString(2, changeType.name());
+            ps.setTimestamp(3, changedAt);
+        });
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public ChangeWindow findSince(long since) {
+        if (since < 0) {
+            throw new IllegalArgumentException("Invalid change token: " + since);
+        }
+        Long oldest = productChangeRepository.findOldestSeq();
+        // Without a token the client has nothing yet, and pruned rows may lie between an old token and the
+        // log, either way only a full reload is safe
+        if (since == 0 || (oldest != null && since < oldest - 1)) {
+            long newest = Objects.requireNonNullElse(productChangeRepository.findNewestSeq(), since);
+            return new ChangeWindow(Set.of(), newest, false, true);
+        }
+
+        List<ProductChangeEntity> changes = productChangeRepository
+                .findBySeqGreaterThanOrderBySeqAsc(since, Limit.of(maxResults));
+        LocalDateTime settled = LocalDateTime.now().minusNanos(settleMs * 1_000_000);
+        Set<Long> productIds = new LinkedHashSet<>();
+        long next = since;
+        boolean hasMore = changes.size() == maxResults;
+        for (ProductChangeEntity change : changes) {
+            if (change.getChangedAt().isAfter(settled)) {
+                hasMore = false;
+                break;
+            }
+            productIds.add(change.getProductId());
+            next = change.getSeq();
+        }
+        return new ChangeWindow(productIds, next, hasMore, false);
+    }
+
+    @Scheduled(fixedDelayString = "${product.changes.prune-interval-ms:3600000}")
+    @Transactional
+    public void prune() {
+        // The newest change always stays, an empty log could not tell an old token from a current one
+        Long newest = productChangeRepository.findNewestSeq();
+        if (newest == null) {
+            return;
+        }
+        int pruned = productChangeRepository.deleteChangedBefore(LocalDateTime.now().minusDays(retentionDays), newest);
+        log.debug("Pruned {} product changes older than {} days", pruned, retentionDays);
+    }
+}
@@ -0,0 +1,298 @@
+package com.alex.ecom_cart.infrastructure.services;
+
+import com.alex.ecom_cart.api.dtos.request.ProductRequest;
+import com.alex.ecom_cart.api.dtos.response.ProductImportResponse;
+import com.alex.ecom_cart.config.RedisConfig;
+import com.alex.ecom_cart.domain.entities.CategoryEntity;
+import com.alex.ecom_cart.domain.entities.ProductEntity;
+import com.alex.ecom_cart.domain.repositories.CategoryRepository;
+import com.alex.ecom_cart.domain.repositories.ProductRepository;
+import com.alex.ecom_cart.infrastructure.abstract_services.IProductChangeService;
+import com.alex.ecom_cart.infrastructure.abstract_services.IProductImportService;
+import com.alex.ecom_cart.infrastructure.cache.CacheHelper;
+import com.alex.ecom_cart.infrastructure.search.ProductFacetIndex;
+import com.alex.ecom_cart.infrastructure.search.ProductSearchIndex;
+import com.alex.ecom_cart.util.enums.ProductChangeType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/*
+ * The body is read one line at a time and only a chunk of valid rows is held in memory. Each chunk is
+ * written in its own transaction, product ids come from the pooled id_generator so Hibernate sends the
+ * inserts as JDBC batches. Categories are loaded once and every row is checked against them, a row that
+ * fails is reported with its line number and the rest of the file goes on. The category counters move in
+ * the transaction of their chunk. The cached pages of the categories that got products are evicted and
+ * the search indexes rebuilt once, after the last chunk or when the import stops early. The persistence context is flushed and cleared at
+ * the end of every chunk so memory stays bounded by the chunk size and not by the file.
+ */
+@Service
+@Slf4j
+public class ProductImportServiceImpl implements IProductImportService {
+
+    public static final MediaType TEXT_CSV = MediaType.valueOf("text/csv");
+    public static final MediaType APPLICATION_NDJSON = MediaType.valueOf("application/x-ndjson");
+    private static final List<String> CSV_COLUMNS = List.of("name", "description", "price", "stock", "category");
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final CacheHelper cacheHelper;
+    private final IProductChangeService productChangeService;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxErrors;
+
+    public ProductImportServiceImpl(ProductRepository productRepository,
+                                    CategoryRepository categoryRepository,
+                                    EntityManager entityManager,
+                                    Validator validator,
+                                    ObjectMapper objectMapper,
+                                    ProductSearchIndex productSearchIndex,
+                                    ProductFacetIndex productFacetIndex,
+                                    CacheHelper cacheHelper,
+                                    IProductChangeService productChangeService,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${product.import.chunk-size:500}") int chunkSize,
+                                    @Value("${product.import.max-errors:1000}") int maxErrors) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.productSearchIndex = productSearchIndex;
+        this.productFacetIndex = productFacetIndex;
+        this.cacheHelper = cacheHelper;
+        this.productChangeService = productChangeService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+    }
+
+    @Override
+    public ProductImportResponse importProducts(InputStream content, MediaType format) {
+        boolean csv = TEXT_CSV.isCompatibleWith(format);
+        if (!csv && !APPLICATION_NDJSON.isCompatibleWith(format)) {
+            throw new IllegalArgumentException("Invalid format: " + format + ", expected text/csv or application/x-ndjson");
+        }
+
+        Set<Long> categoryIds = StreamSupport.stream(categoryRepository.findAll().spliterator(), false)
+                .map(CategoryEntity::getId)
+                .collect(Collectors.toSet());
+        ImportReport report = new ImportReport(maxErrors);
+        List<Row> chunk = new ArrayList<>(chunkSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(content, StandardCharsets.UTF_8))) {
+            long lineNumber = 0;
+            int[] columns = null;
+            if (csv) {
+                lineNumber++;
+                columns = csvColumns(reader.readLine());
+            }
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    ProductRequest request = csv ? fromCsv(line, columns) : fromJson(line);
+                    validate(request, categoryIds);
+                    chunk.add(new Row(lineNumber, request));
+                } catch (IllegalArgumentException e) {
+                    report.reject(lineNumber, e.getMessage());
+                }
+
+                if (chunk.size() == chunkSize) {
+                    persist(chunk, report);
+                    chunk.clear();
+                }
+            }
+            persist(chunk, report);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            // The chunks already committed stay even when the body breaks off, so they must be visible too
+            if (report.imported > 0) {
+                cacheHelper.evictTags(RedisConfig.CacheConstants.PRODUCT_CACHE_NAME, report.categories.stream()
+                        .map(ProductServiceImpl::categoryTag)
+                        .toList());
+                productSearchIndex.rebuild();
+                productFacetIndex.rebuild();
+            }
+        }
+        log.info("Product import finished, {} imported and {} rejected", report.imported, report.rejected);
+
+        return ProductImportResponse.builder()
+                .imported(report.imported)
+                .rejected(report.rejected)
+                .errors(report.errors)
+                .build();
+    }
+
+    private void persist(List<Row> chunk, ImportReport report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                // A reference is enough for the foreign key, the category row was already checked
+                List<ProductEntity> saved = productRepository.saveAll(chunk.stream().map(row -> ProductEntity.builder()
+                        .name(row.request().getName())
+                        .description(row.request().getDescription())
+                        .price(row.request().getPrice())
+                        .stock(row.request().getStock())
+                        .createdAt(now)
+                        .category(entityManager.getReference(CategoryEntity.class, row.request().getCategory()))
+                        .enabled(true)
+                        .build()).toList());
+                chunk.stream()
+                        .collect(Collectors.groupingBy(row -> row.request().getCategory(), Collectors.counting()))
+                        .forEach((categoryId, count) -> categoryRepository.addProductCount(categoryId, count.intValue()));
+                productChangeService.recordAll(saved.stream().map(ProductEntity::getId).toList(), ProductChangeType.CREATED);
+                // Open-in-view keeps one EntityManager for the whole request, without this every written row
+                // stays managed and each later flush dirty-checks all of them
+                entityManager.flush();
+                entityManager.clear();
+            });
+            report.imported += chunk.size();
+            chunk.forEach(row -> report.categories.add(row.request().getCategory()));
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("Product import chunk starting at line {} rolled back", chunk.get(0).line(), e);
+            chunk.forEach(row -> report.reject(row.line(), "Rolled back with its chunk: " + e.getMostSpecificCause().getMessage()));
+        }
+    }
+
+    private void validate(ProductRequest request, Set<Long> categoryIds) {
+        Set<ConstraintViolation<ProductRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+        if (!categoryIds.contains(request.getCategory())) {
+            throw new IllegalArgumentException("Category not found: " + request.getCategory());
+        }
+    }
+
+    private ProductRequest fromJson(String line) {
+        try {
+            return objectMapper.readValue(line, ProductRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private static ProductRequest fromCsv(String line, int[] columns) {
+        List<String> values = splitCsv(line);
+        if (values.size() != columns.length) {
+            throw new IllegalArgumentException("Expected " + columns.length + " values but found " + values.size());
+        }
+        try {
+            return ProductRequest.builder()
+                    .name(values.get(columns[0]))
+                    .description(values.get(columns[1]))
+                    .price(values.get(columns[2]).isEmpty() ? null : new BigDecimal(values.get(columns[2])))
+                    .stock(values.get(columns[3]).isEmpty() ? null : Integer.valueOf(values.get(columns[3])))
+                    .category(values.get(columns[4]).isEmpty() ? null : Long.valueOf(values.get(columns[4])))
+                    .build();
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in " + line);
+        }
+    }
+
+    // Position of every expected column in the header, the columns may come in any order
+    private static int[] csvColumns(String header) {
+        if (header == null) {
+            throw new IllegalArgumentException("Missing CSV header, expected " + String.join(",", CSV_COLUMNS));
+        }
+        List<String> names = splitCsv(header).stream().map(name -> name.trim().toLowerCase(Locale.ROOT)).toList();
+        if (names.size() != CSV_COLUMNS.size() || !names.containsAll(CSV_COLUMNS)) {
+            throw new IllegalArgumentException("Invalid CSV header: " + header + ", expected " + String.join(",", CSV_COLUMNS));
+        }
+        return CSV_COLUMNS.stream().mapToInt(names::indexOf).toArray();
+    }
+
+    // RFC 4180 fields on a single line, quoted fields may hold commas and doubled quotes
+    static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted value in " + line);
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    private record Row(long line, ProductRequest request) {
+    }
+
+    private static class ImportReport {
+        private final int maxErrors;
+        private final List<ProductImportResponse.RowError> errors = new ArrayList<>();
+        private final Set<Long> categories = new HashSet<>();
+        private int imported;
+        private int rejected;
+
+        private ImportReport(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        private void reject(long line, String message) {
+            rejected++;
+            if (errors.size() < maxErrors) {
+                errors.add(new ProductImportResponse.RowError(line, message));
+            }
+        }
+    }
+}
@@ -1,31 +1,61 @@
 package com.alex.ecom_cart.infrastructure.services;
 
 import com.alex.ecom_cart.api.dtos.request.ProductRequest;
+import com.alex.ecom_cart.api.dtos.request.ProductStockRequest;
+import com.alex.ecom_cart.api.dtos.response.KeysetPageResponse;
+import com.alex.ecom_cart.api.dtos.response.ProductChangesResponse;
+import com.alex.ecom_cart.api.dtos.response.ProductFacetResponse;
 import com.alex.ecom_cart.api.dtos.response.ProductResponse;
+import com.alex.ecom_cart.api.dtos.response.ProductStockResponse;
 import com.alex.ecom_cart.config.RedisConfig;
 import com.alex.ecom_cart.domain.entities.CategoryEntity;
 import com.alex.ecom_cart.domain.entities.ProductEntity;
 import com.alex.ecom_cart.domain.repositories.CategoryRepository;
 import com.alex.ecom_cart.domain.repositories.ProductRepository;
+import com.alex.ecom_cart.infrastructure.abstract_services.IInventoryService;
+import com.alex.ecom_cart.infrastructure.abstract_services.IOutboxService;
+import com.alex.ecom_cart.infrastructure.abstract_services.IProductChangeService;
 import com.alex.ecom_cart.infrastructure.abstract_services.IProductService;
 import com.alex.ecom_cart.infrastructure.cache.CacheHelper;
+import com.alex.ecom_cart.infrastructure.search.ProductFacetIndex;
+import com.alex.ecom_cart.infrastructure.search.ProductSearchIndex;
+import com.alex.ecom_cart.util.enums.OutboxEventType;
+import com.alex.ecom_cart.util.enums.ProductChangeType;
+import com.alex.ecom_cart.util.enums.StockUpdateRejection;
 import com.alex.ecom_cart.util.enums.Tables;
 import com.alex.ecom_cart.util.exceptions.IdNotFoundException;
 import com.alex.ecom_cart.util.exceptions.ResourceNotEnabledException;
+import com.alex.ecom_cart.util.http.ETags;
+import com.alex.ecom_cart.util.pagination.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -37,11 +67,41 @@ public class ProductServiceImpl implements IProductService {
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private static final short PAGE_SIZE = 5;
+    private static final int MAX_STOCK_STRIPES = 64;
+    private static final int SEARCH_LIMIT = 20;
+    private static final int MAX_STOCK_UPDATES = 10000;
+    private static final int STOCK_BATCH_SIZE = 500;
+    private static final String DISABLED_PRODUCTS_KEY = "product:disabled";
     private final CacheHelper cacheHelper;
+    private final IInventoryService inventoryService;
+    private final IOutboxService outboxService;
+    private final IProductChangeService productChangeService;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
 
+    @Transactional(readOnly = true)
     @Override
     public Page<ProductResponse> readAll(String field, Boolean desc, Integer page) {
 
+        Sort sorting = sortingFor(field);
+        return desc
+                ? this.productRepository.findActiveResponses(PageRequest.of(page, PAGE_SIZE, sorting.descending()))
+                : this.productRepository.findActiveResponses(PageRequest.of(page, PAGE_SIZE, sorting.ascending()));
+    }
+
+    @Override
+    public KeysetPageResponse<ProductResponse> scroll(String field, Boolean desc, String after) {
+        // The description is nullable and not indexed, a seek on it could neither compare nulls nor use an index
+        if ("description".equals(field)) {
+            throw new IllegalArgumentException("Invalid field for scroll: " + field);
+        }
+        Sort sort = KeysetCursor.sortWithId(sortingFor(field), desc);
+        Window<ProductEntity> products = this.productRepository
+                .findByEnabledTrue(KeysetCursor.decode(after, sort), sort, Limit.of(PAGE_SIZE));
+        return KeysetCursor.toResponse(products.map(this::entityToResponse));
+    }
+
+    private Sort sortingFor(String field) {
         Sort sorting = Sort.by("name");
         if (Objects.nonNull(field)){
             switch (field){
@@ -51,13 +111,9 @@ public class ProductServiceImpl implements IProductService {
                 default -> throw new IllegalArgumentException("Invalid field: " + field);
             }
         }
-        Page<ProductEntity> products = desc
-                ? this.productRepository.findAllActive(PageRequest.of(page, PAGE_SIZE, sorting.descending()))
-                : this.productRepository.findAllActive(PageRequest.of(page, PAGE_SIZE, sorting.ascending()));
-        return products.map(this::entityToResponse);
+        return sorting;
     }
 
-    @CacheEvict(cacheNames = RedisConfig.CacheConstants.PRODUCT_CACHE_NAME, allEntries = true)
     @Override
     public ProductResponse create(ProductRequest request) {
         CategoryEntity categoryFromDb = this.categoryRepository.findById(request.getCategory())
@@ -74,44 +130,106 @@ public class ProductServiceImpl implements IProductService {
                 .build();
 
         ProductEntity productPersisted = this.productRepository.save(productToPersist);
+        this.categoryRepository.addProductCount(categoryFromDb.getId(), 1);
+        updateIndexes(productPersisted);
+        this.productChangeService.record(productPersisted.getId(), ProductChangeType.CREATED);
+        cacheHelper.evictTags(RedisConfig.CacheConstants.PRODUCT_CACHE_NAME, categoryTag(categoryFromDb.getId()));
 
         return this.entityToResponse(productPersisted);
     }
 
     @Cacheable(value = RedisConfig.CacheConstants.PRODUCT_CACHE_NAME, key = "'product:id:' + #id")
+    @Transactional(readOnly = true)
     @Override
     public ProductResponse findById(Long id) {
 
-        ProductEntity productFromDb = this.productRepository.findById(id)
-                .orElseThrow(() -> new IdNotFoundException(Tables.product.name()));
+        // Only a miss pays the second query that tells a disabled product from a missing one
+        return this.productRepository.findEnabledResponseById(id)
+                .orElseThrow(() -> this.productRepository.existsById(id)
+                        ? new ResourceNotEnabledException(Tables.product.name())
+                        : new IdNotFoundException(Tables.product.name()));
+    }
 
-        if (!productFromDb.isEnabled()){
-            throw new ResourceNotEnabledException(Tables.product.name());
-        }
+    // A version and a stock read by primary key, no entity and no cache, so it is current even when findById is cached
+    @Transactional(readOnly = true)
+    @Override
+    public Optional<String> findETag(Long id) {
+        return this.productRepository.findEnabledVersionById(id)
+                .map(version -> ETags.strong(version.getVersion(), version.getStock()));
+    }
+
+    /*
+     * Every page is cached on its own and tagged with its category, a product write evicts the pages of
+     * that category only. The total comes from the category counter instead of a count query.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public Page<ProductResponse> findByCategoryId(Long categoryId, String field, Boolean desc, Integer page) {
+        Sort sorting = desc ? sortingFor(field).descending() : sortingFor(field).ascending();
+        String key = "product:categoryId:" + categoryId + ":" + Objects.requireNonNullElse(field, "name") + ":"
+                + (desc ? "desc" : "asc") + ":" + page;
+
+        return cacheHelper.getCacheValue(RedisConfig.CacheConstants.PRODUCT_CACHE_NAME, key,
+                List.of(categoryTag(categoryId)), () -> {
+                    CategoryEntity category = this.categoryRepository.findById(categoryId)
+                            .orElseThrow(() -> new IdNotFoundException(Tables.category.name()));
+                    Pageable pageable = PageRequest.of(page, PAGE_SIZE, sorting.and(Sort.by("id")));
+                    return new PageImpl<>(this.productRepository.findResponsesByCategoryId(categoryId, pageable),
+                            pageable, category.getProductCount());
+                });
+    }
 
-        return entityToResponse(productFromDb);
+    @Cacheable(value = RedisConfig.CacheConstants.PRODUCT_CACHE_NAME, key = "'product:disabled'")
+    @Transactional(readOnly = true)
+    @Override
+    public List<ProductResponse> findDisabledProducts() {
+        return this.productRepository.findDisabledResponses();
     }
 
-    @Cacheable(value = RedisConfig.CacheConstants.PRODUCT_CACHE_NAME, key = "'product:categoryId:' + #id")
+    @Transactional(readOnly = true)
     @Override
-    public List<ProductResponse> findByCategoryId(Long id) {
-        if (!this.categoryRepository.existsById(id)){
-            throw  new IdNotFoundException(Tables.category.name());
+    public List<ProductResponse> search(String query) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query must not be empty");
+        }
+        List<Long> ranked = this.productSearchIndex.search(query, SEARCH_LIMIT);
+        if (ranked.isEmpty()) {
+            return List.of();
         }
-        List<ProductEntity> products = this.productRepository.findByCategoryIdAndNotDeleted(id);
 
-        return products.stream()
-                .map(this::entityToResponse)
-                .collect(Collectors.toList());
+        // The index only ranks, price and stock are always read fresh. Products disabled meanwhile drop out
+        Map<Long, ProductResponse> productsById = this.productRepository.findEnabledResponsesByIds(ranked).stream()
+                .collect(Collectors.toMap(ProductResponse::getId, Function.identity()));
+        return ranked.stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
 
-    @Cacheable(value = RedisConfig.CacheConstants.PRODUCT_CACHE_NAME)
+    @Transactional(readOnly = true)
     @Override
-    public List<ProductResponse> findDisabledProducts() {
-        List<ProductEntity> products = this.productRepository.findAllByEnabledFalse();
-        return products.stream()
-                .map(this::entityToResponse)
-                .collect(Collectors.toList());
+    public ProductFacetResponse filter(List<Long> categories, List<String> priceBands, Boolean inStock,
+                                       Boolean enabled, Integer page) {
+        ProductFacetIndex.FacetResult result = this.productFacetIndex.query(
+                Objects.requireNonNullElse(categories, List.of()), Objects.requireNonNullElse(priceBands, List.of()),
+                inStock, enabled, page, PAGE_SIZE);
+
+        List<ProductResponse> content = List.of();
+        if (!result.ids().isEmpty()) {
+            Map<Long, ProductResponse> productsById = this.productRepository.findResponsesByIds(result.ids()).stream()
+                    .collect(Collectors.toMap(ProductResponse::getId, Function.identity()));
+            content = result.ids().stream().map(productsById::get).filter(Objects::nonNull).toList();
+        }
+
+        return ProductFacetResponse.builder()
+                .content(content)
+                .page(page)
+                .totalElements(result.totalElements())
+                .categories(result.categories())
+                .priceBands(result.priceBands())
+                .inStock(result.inStock())
+                .outOfStock(result.outOfStock())
+                .build();
     }
 
     @Override
@@ -128,6 +246,11 @@ public class ProductServiceImpl implements IProductService {
         }
 
         evictProductCache(productToUpdate);
+        if (!categoryFromDb.getId().equals(productToUpdate.getCategory().getId())) {
+            this.categoryRepository.addProductCount(productToUpdate.getCategory().getId(), -1);
+            this.categoryRepository.addProductCount(categoryFromDb.getId(), 1);
+            cacheHelper.evictTags(RedisConfig.CacheConstants.PRODUCT_CACHE_NAME, categoryTag(categoryFromDb.getId()));
+        }
 
         productToUpdate.setName(request.getName());
         productToUpdate.setDescription(request.getDescription());
@@ -135,7 +258,11 @@ public class ProductServiceImpl implements IProductService {
         productToUpdate.setStock(request.getStock());
         productToUpdate.setCategory(categoryFromDb);
 
-        ProductEntity productUpdated = this.productRepository.save(productToUpdate);
+        // Flushed so the response carries the version this write commits with
+        ProductEntity productUpdated = this.productRepository.saveAndFlush(productToUpdate);
+        this.inventoryService.overwrite(productUpdated);
+        updateIndexes(productUpdated);
+        this.productChangeService.record(id, ProductChangeType.UPDATED);
         ProductResponse response = entityToResponse(productUpdated);
 
         putProductCache(productToUpdate, response);
@@ -155,7 +282,137 @@ public class ProductServiceImpl implements IProductService {
         evictProductCache(productFromDb);
 
         productFromDb.setStock(newStock);
-        ProductEntity updatedProduct = this.productRepository.save(productFromDb);
+        ProductEntity updatedProduct = this.productRepository.saveAndFlush(productFromDb);
+        this.inventoryService.overwrite(updatedProduct);
+        updateIndexes(updatedProduct);
+        this.outboxService.record(Tables.product.name(), id, OutboxEventType.PRODUCT_STOCK_UPDATED,
+                Map.of("productId", id, "stock", newStock));
+        this.productChangeService.record(id, ProductChangeType.STOCK_UPDATED);
+
+        ProductResponse response = entityToResponse(updatedProduct);
+
+        putProductCache(productFromDb, response);
+
+        return response;
+    }
+
+    @Override
+    public ProductStockResponse updateStocks(List<ProductStockRequest> requests) {
+        if (requests.size() > MAX_STOCK_UPDATES) {
+            throw new IllegalArgumentException("At most " + MAX_STOCK_UPDATES + " products can be updated at once");
+        }
+        Map<Long, ProductStockRequest> requestsById = new LinkedHashMap<>();
+        for (ProductStockRequest request : requests) {
+            if (request.getId() == null) {
+                throw new IllegalArgumentException("Every stock update needs a product id");
+            }
+            if (requestsById.putIfAbsent(request.getId(), request) != null) {
+                throw new IllegalArgumentException("Duplicated product id: " + request.getId());
+            }
+        }
+
+        Map<Long, StockUpdateRejection> rejected = new TreeMap<>();
+        Map<Long, ProductRepository.StockTarget> targets = this.productRepository.findStockTargets(requestsById.keySet())
+                .stream()
+                .collect(Collectors.toMap(ProductRepository.StockTarget::getId, Function.identity()));
+        Map<Long, Integer> overwrites = new HashMap<>();
+        Map<Long, Integer> deltas = new HashMap<>();
+        List<Long> hotIds = new ArrayList<>();
+        Map<Long, Integer> hotDeltas = new TreeMap<>();
+        requestsById.forEach((id, request) -> {
+            ProductRepository.StockTarget target = targets.get(id);
+            if ((request.getStock() == null) == (request.getDelta() == null)
+                    || (request.getStock() != null && request.getStock() < 0)) {
+                rejected.put(id, StockUpdateRejection.INVALID);
+            } else if (target == null) {
+                rejected.put(id, StockUpdateRejection.NOT_FOUND);
+            } else if (!target.getEnabled()) {
+                rejected.put(id, StockUpdateRejection.DISABLED);
+            } else if (target.getStockStripes() > 0 && request.getStock() != null) {
+                hotIds.add(id);
+            } else if (target.getStockStripes() > 0) {
+                hotDeltas.put(id, request.getDelta());
+            } else if (request.getStock() != null) {
+                overwrites.put(id, request.getStock());
+            } else {
+                deltas.put(id, request.getDelta());
+            }
+        });
+
+        // Products without stripes are updated straight on their rows, a few JDBC batches for the whole request
+        Map<Long, Integer> updated = new TreeMap<>(overwrites);
+        if (!overwrites.isEmpty()) {
+            this.productRepository.overwriteStock(overwrites, STOCK_BATCH_SIZE);
+            this.inventoryService.overwriteAll(overwrites);
+        }
+        if (!deltas.isEmpty()) {
+            this.productRepository.addStock(deltas, STOCK_BATCH_SIZE).forEach(id -> {
+                deltas.remove(id);
+                rejected.put(id, StockUpdateRejection.INSUFFICIENT_STOCK);
+            });
+            this.inventoryService.addAll(deltas);
+            if (!deltas.isEmpty()) {
+                this.productRepository.findStockTargets(deltas.keySet())
+                        .forEach(target -> updated.put(target.getId(), target.getStock()));
+            }
+        }
+
+        // Striped stock lives in several rows, an absolute stock goes through the entity like updateStock
+        for (ProductEntity product : this.productRepository.findAllById(hotIds)) {
+            int stock = requestsById.get(product.getId()).getStock();
+            product.setStock(stock);
+            this.inventoryService.overwrite(product);
+            updated.put(product.getId(), stock);
+        }
+        // A delta lands on one stripe with a relative update, rewriting every stripe would lose concurrent checkouts
+        hotDeltas.forEach((id, delta) -> this.inventoryService.addToStripes(id, targets.get(id).getStockStripes(), delta)
+                .ifPresentOrElse(stock -> updated.put(id, stock),
+                        () -> rejected.put(id, StockUpdateRejection.INSUFFICIENT_STOCK)));
+
+        if (!updated.isEmpty()) {
+            this.outboxService.recordAll(Tables.product.name(), OutboxEventType.PRODUCT_STOCK_UPDATED,
+                    updated.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey,
+                            line -> Map.of("productId", line.getKey(), "stock", line.getValue()))));
+            this.productChangeService.recordAll(updated.keySet(), ProductChangeType.STOCK_UPDATED);
+
+            Set<String> keys = new LinkedHashSet<>();
+            Set<String> tags = new LinkedHashSet<>();
+            updated.forEach((id, stock) -> {
+                keys.add("product:id:" + id);
+                tags.add(categoryTag(targets.get(id).getCategoryId()));
+            });
+            afterCommit(() -> updated.forEach((id, stock) -> {
+                ProductRepository.StockTarget target = targets.get(id);
+                this.productFacetIndex.index(id, target.getCategoryId(), target.getPrice(), stock, true);
+            }));
+            this.cacheHelper.evictCacheKeys(RedisConfig.CacheConstants.PRODUCT_CACHE_NAME, keys);
+            this.cacheHelper.evictTags(RedisConfig.CacheConstants.PRODUCT_CACHE_NAME, tags);
+        }
+
+        return ProductStockResponse.builder()
+                .updated(updated)
+                .rejected(rejected)
+                .build();
+    }
+
+    @Override
+    public ProductResponse updateStockStripes(Long id, Integer stripes) {
+        if (stripes < 0 || stripes > MAX_STOCK_STRIPES) {
+            throw new IllegalArgumentException("Stripes must be between 0 and " + MAX_STOCK_STRIPES);
+        }
+
+        ProductEntity productFromDb = this.productRepository.findById(id)
+                .orElseThrow(() -> new IdNotFoundException(Tables.product.name()));
+
+        if (!productFromDb.isEnabled()) {
+            throw new ResourceNotEnabledException(Tables.product.name());
+        }
+
+        evictProductCache(productFromDb);
+
+        this.inventoryService.updateStripes(productFromDb, stripes);
+        ProductEntity updatedProduct = this.productRepository.saveAndFlush(productFromDb);
+        updateIndexes(updatedProduct);
 
         ProductResponse response = entityToResponse(updatedProduct);
 
@@ -164,29 +421,111 @@ public class ProductServiceImpl implements IProductService {
         return response;
     }
 
-    @CacheEvict(cacheNames = RedisConfig.CacheConstants.PRODUCT_CACHE_NAME, allEntries = true)
     @Override
     public void delete(Long id) {
 
         ProductEntity productToDelete = this.productRepository.findById(id)
                 .orElseThrow(() -> new IdNotFoundException(Tables.product.name()));
 
+        // Whether it ends disabled or gone, the product leaves its category pages and may change the disabled list
+        evictProductCache(productToDelete);
+        cacheHelper.evictCacheKeys(RedisConfig.CacheConstants.PRODUCT_CACHE_NAME, DISABLED_PRODUCTS_KEY);
+
+        if (productToDelete.isEnabled()) {
+            this.categoryRepository.addProductCount(productToDelete.getCategory().getId(), -1);
+        }
+
         if (!productToDelete.getOrderDetails().isEmpty() || !productToDelete.getCartProducts().isEmpty()) {
             productToDelete.disable();
             this.productRepository.save(productToDelete);
+            updateIndexes(productToDelete);
+            this.productChangeService.record(id, ProductChangeType.DISABLED);
             log.info("Product with ID {} is associated with orders or carts. The product has been disabled instead of deleted.", productToDelete.getId());
         } else {
+            if (productToDelete.isHot()) {
+                this.inventoryService.updateStripes(productToDelete, 0);
+            }
             productToDelete.setCategory(null);
 
             this.productRepository.delete(productToDelete);
+            afterCommit(() -> {
+                this.productSearchIndex.remove(id);
+                this.productFacetIndex.remove(id);
+            });
+            this.productChangeService.record(id, ProductChangeType.DELETED);
+        }
+
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public ProductChangesResponse findChanges(String since) {
+        IProductChangeService.ChangeWindow window = this.productChangeService.findSince(parseChangeToken(since));
+
+        // Only the current state matters, a product changed several times is sent once
+        List<ProductResponse> changed = window.productIds().isEmpty()
+                ? List.of()
+                : this.productRepository.findEnabledResponsesByIds(window.productIds());
+        Set<Long> enabledIds = changed.stream().map(ProductResponse::getId).collect(Collectors.toSet());
+
+        return ProductChangesResponse.builder()
+                .changed(changed)
+                .removed(window.productIds().stream().filter(id -> !enabledIds.contains(id)).toList())
+                .next(String.valueOf(window.next()))
+                .hasMore(window.hasMore())
+                .reset(window.reset())
+                .build();
+    }
+
+    private static long parseChangeToken(String since) {
+        if (since == null || since.isBlank()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(since);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid change token: " + since);
         }
+    }
+
+    // Disabled products stay in the facet index, which can filter on them, but leave the search index.
+    // The values are taken now and applied once the row is committed, a rollback leaves the indexes alone
+    private void updateIndexes(ProductEntity product) {
+        Long id = product.getId();
+        String name = product.getName();
+        String description = product.getDescription();
+        Long categoryId = product.getCategory().getId();
+        BigDecimal price = product.getPrice();
+        Integer stock = product.getAvailableStock();
+        boolean enabled = product.isEnabled();
+        afterCommit(() -> {
+            if (enabled) {
+                this.productSearchIndex.index(id, name, description);
+            } else {
+                this.productSearchIndex.remove(id);
+            }
+            this.productFacetIndex.index(id, categoryId, price, stock, enabled);
+        });
+    }
 
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 
     private ProductResponse entityToResponse(ProductEntity productEntity) {
 
         ProductResponse response = new ProductResponse();
         BeanUtils.copyProperties(productEntity, response);
+        response.setStock(productEntity.getAvailableStock());
         response.setCategory(productEntity.getCategory().getId());
 
         return response;
@@ -200,8 +539,12 @@ public class ProductServiceImpl implements IProductService {
 
     private void evictProductCache(ProductEntity product){
         String cacheName = RedisConfig.CacheConstants.PRODUCT_CACHE_NAME;
-        cacheHelper.evictCacheKeys(cacheName, "product:id:" + product.getId(),
-                "product:categoryId:" + product.getCategory().getId());
+        cacheHelper.evictCacheKeys(cacheName, "product:id:" + product.getId());
+        cacheHelper.evictTags(cacheName, categoryTag(product.getCategory().getId()));
+    }
+
+    static String categoryTag(Long categoryId) {
+        return "category:" + categoryId;
     }
 
 
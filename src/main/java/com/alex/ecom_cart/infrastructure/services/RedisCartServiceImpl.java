@@ -0,0 +1,414 @@
+package com.alex.ecom_cart.infrastructure.services;
+
+import com.alex.ecom_cart.api.dtos.request.CartOperationRequest;
+import com.alex.ecom_cart.api.dtos.response.CartProductResponse;
+import com.alex.ecom_cart.api.dtos.response.CartResponse;
+import com.alex.ecom_cart.api.dtos.response.OrderResponse;
+import com.alex.ecom_cart.api.dtos.response.ProductResponse;
+import com.alex.ecom_cart.domain.entities.CartEntity;
+import com.alex.ecom_cart.domain.entities.CartProductEntity;
+import com.alex.ecom_cart.domain.entities.CustomerEntity;
+import com.alex.ecom_cart.domain.repositories.CartRepository;
+import com.alex.ecom_cart.domain.repositories.CustomerRepository;
+import com.alex.ecom_cart.infrastructure.abstract_services.ICartService;
+import com.alex.ecom_cart.infrastructure.abstract_services.IOrderService;
+import com.alex.ecom_cart.infrastructure.abstract_services.IProductService;
+import com.alex.ecom_cart.util.enums.CartOperationType;
+import com.alex.ecom_cart.util.enums.Tables;
+import com.alex.ecom_cart.util.exceptions.IdNotFoundException;
+import com.alex.ecom_cart.util.exceptions.ResourceNotEnabledException;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBatch;
+import org.redisson.api.RScript;
+import org.redisson.api.RScriptAsync;
+import org.redisson.api.RSet;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+/*
+ * Keeps every cart as a Redis hash of product id to quantity next to a key with its customer and a hash
+ * with the price each line was added at, so adding or removing a product is one script call and product
+ * details come from the product cache. After each change the cart is put in a dirty set that is drained
+ * periodically: the current lines of a drained cart replace its cart_product rows in a JDBC batch,
+ * however many changes it had in the meantime. A cart that expired from Redis before its flush is left
+ * as the database has it.
+ *
+ * A cart missing in Redis is loaded from the database first, which is also where expired carts come back
+ * from. Checkout flushes the cart before the order reads it. The keys of a cart share a {cart:id} hash tag
+ * so its scripts work on a Redis cluster while the carts spread over every slot, the dirty set lives
+ * in a slot of its own.
+ */
+@Service
+@ConditionalOnProperty(name = "cart.mode", havingValue = "redis")
+@Slf4j
+public class RedisCartServiceImpl implements ICartService {
+
+    private static final String DIRTY_KEY = "{cart}:dirty";
+
+    // KEYS = owner, lines, prices. Owner, quantities and snapshot prices, false when the cart is not loaded yet
+    private static final String READ_LINES = """
+            local owner = redis.call('GET', KEYS[1])
+            if not owner then return false end
+            return {owner, redis.call('HGETALL', KEYS[2]), redis.call('HGETALL', KEYS[3])}
+            """;
+
+    // ARGV = ttl seconds, product id, quantity, price
+    private static final String ADD_SCRIPT = """
+            if redis.call('EXISTS', KEYS[1]) == 0 then return false end
+            if redis.call('HINCRBY', KEYS[2], ARGV[2], ARGV[3]) <= 0 then
+                redis.call('HDEL', KEYS[2], ARGV[2])
+                redis.call('HDEL', KEYS[3], ARGV[2])
+            else
+                redis.call('HSET', KEYS[3], ARGV[2], ARGV[4])
+            end
+            redis.call('EXPIRE', KEYS[1], ARGV[1])
+            redis.call('EXPIRE', KEYS[2], ARGV[1])
+            redis.call('EXPIRE', KEYS[3], ARGV[1])
+            """ + READ_LINES;
+
+    // ARGV = ttl seconds, then op, product id, quantity and price for every operation
+    private static final String OPERATIONS_SCRIPT = """
+            if redis.call('EXISTS', KEYS[1]) == 0 then return false end
+            for i = 2, #ARGV, 4 do
+                local quantity = 0
+                if ARGV[i] == 'ADD' then
+                    quantity = redis.call('HINCRBY', KEYS[2], ARGV[i + 1], ARGV[i + 2])
+                elseif ARGV[i] == 'SET' then
+                    quantity = tonumber(ARGV[i + 2])
+                    if quantity > 0 then redis.call('HSET', KEYS[2], ARGV[i + 1], quantity) end
+                end
+                if quantity > 0 then
+                    redis.call('HSET', KEYS[3], ARGV[i + 1], ARGV[i + 3])
+                else
+                    redis.call('HDEL', KEYS[2], ARGV[i + 1])
+                    redis.call('HDEL', KEYS[3], ARGV[i + 1])
+                end
+            end
+            redis.call('EXPIRE', KEYS[1], ARGV[1])
+            redis.call('EXPIRE', KEYS[2], ARGV[1])
+            redis.call('EXPIRE', KEYS[3], ARGV[1])
+            """ + READ_LINES;
+
+    private static final String REMOVE_SCRIPT = """
+            if redis.call('EXISTS', KEYS[1]) == 0 then return false end
+            redis.call('HDEL', KEYS[2], ARGV[2])
+            redis.call('HDEL', KEYS[3], ARGV[2])
+            redis.call('EXPIRE', KEYS[1], ARGV[1])
+            redis.call('EXPIRE', KEYS[2], ARGV[1])
+            redis.call('EXPIRE', KEYS[3], ARGV[1])
+            """ + READ_LINES;
+
+    private static final String CLEAR_SCRIPT = """
+            if redis.call('EXISTS', KEYS[1]) == 0 then return false end
+            redis.call('DEL', KEYS[2], KEYS[3])
+            redis.call('EXPIRE', KEYS[1], ARGV[1])
+            """ + READ_LINES;
+
+    // ARGV = ttl seconds, customer id, then product id, quantity and price for every line, price may be empty
+    // Only loads a cart that is not there yet, a change made meanwhile is never overwritten with older rows
+    private static final String LOAD_SCRIPT = """
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                redis.call('SET', KEYS[1], ARGV[2], 'EX', ARGV[1])
+                redis.call('DEL', KEYS[2], KEYS[3])
+                for i = 3, #ARGV, 3 do
+                    redis.call('HSET', KEYS[2], ARGV[i], ARGV[i + 1])
+                    if ARGV[i + 2] ~= '' then redis.call('HSET', KEYS[3], ARGV[i], ARGV[i + 2]) end
+                end
+                redis.call('EXPIRE', KEYS[2], ARGV[1])
+                redis.call('EXPIRE', KEYS[3], ARGV[1])
+            end
+            """ + READ_LINES;
+
+    private static final String DELETE_LINES_SQL = "DELETE FROM cart_product WHERE cart_id = ?";
+    // A product deleted after it went into the cart is skipped instead of failing the foreign key
+    private static final String INSERT_LINE_SQL = "INSERT INTO cart_product (cart_id, product_id, quantity, unit_price) " +
+            "SELECT ?, id, ?, ? FROM product WHERE id = ?";
+
+    private final RedissonClient redissonClient;
+    private final CartRepository cartRepository;
+    private final CustomerRepository customerRepository;
+    private final IProductService productService;
+    private final IOrderService orderService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int flushBatchSize;
+    private final long ttlSeconds;
+
+    public RedisCartServiceImpl(RedissonClient redissonClient,
+                                CartRepository cartRepository,
+                                CustomerRepository customerRepository,
+                                IProductService productService,
+                                IOrderService orderService,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${cart.redis.flush-batch-size:500}") int flushBatchSize,
+                                @Value("${cart.redis.ttl-days:7}") int ttlDays) {
+        this.redissonClient = redissonClient;
+        this.cartRepository = cartRepository;
+        this.customerRepository = customerRepository;
+        this.productService = productService;
+        this.orderService = orderService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.flushBatchSize = flushBatchSize;
+        this.ttlSeconds = Duration.ofDays(ttlDays).toSeconds();
+    }
+
+    @Override
+    public CartResponse createCartForCustomer(Long customerId) {
+        CustomerEntity customerFromDb = customerRepository.findById(customerId)
+                .orElseThrow(() -> new IdNotFoundException(Tables.customer.name()));
+
+        if (!customerFromDb.isEnabled()) {
+            throw new ResourceNotEnabledException("Customer");
+        }
+
+        CartEntity cart = cartRepository.findByCustomerId(customerId)
+                .orElseGet(() -> cartRepository.save(CartEntity.builder().customer(customerFromDb).build()));
+        return toResponse(cart.getId(), load(cart.getId()));
+    }
+
+    @Override
+    public CartResponse addProductToCart(Long cartId, Long productId, int quantity) {
+        // Cached, and throws for a missing or disabled product like the database cart
+        ProductResponse product = productService.findById(productId);
+        return toResponse(cartId, change(ADD_SCRIPT, cartId, productId, quantity, product.getPrice().toPlainString()));
+    }
+
+    @Override
+    public CartResponse removeProductFromCart(Long cartId, Long productId) {
+        return toResponse(cartId, change(REMOVE_SCRIPT, cartId, productId));
+    }
+
+    @Override
+    public CartResponse applyOperations(Long cartId, List<CartOperationRequest> operations) {
+        CartServiceImpl.validateOperations(operations);
+        Map<Long, String> prices = new HashMap<>();
+        List<Object> arguments = new ArrayList<>(operations.size() * 4);
+        for (CartOperationRequest operation : operations) {
+            Long productId = operation.getProductId();
+            if (operation.getOp() != CartOperationType.REMOVE && !prices.containsKey(productId)) {
+                prices.put(productId, productService.findById(productId).getPrice().toPlainString());
+            }
+            arguments.add(operation.getOp().name());
+            arguments.add(productId);
+            arguments.add(operation.getQuantity() != null ? operation.getQuantity() : 0);
+            arguments.add(prices.getOrDefault(productId, ""));
+        }
+        // Applied in one script, another change to the cart lands before or after all of them
+        return toResponse(cartId, change(OPERATIONS_SCRIPT, cartId, arguments.toArray()));
+    }
+
+    @Override
+    public CartResponse getCartById(Long cartId) {
+        List<Object> lines = eval(READ_LINES, cartId);
+        return toResponse(cartId, lines != null ? lines : load(cartId));
+    }
+
+    @Override
+    public CartResponse getCartByCustomerId(Long customerId) {
+        CartEntity cart = cartRepository.findByCustomerId(customerId)
+                .orElseThrow(() -> new IdNotFoundException("Cart not found for customer"));
+        return getCartById(cart.getId());
+    }
+
+    @Override
+    public void clearCart(Long cartId) {
+        change(CLEAR_SCRIPT, cartId);
+    }
+
+    @Override
+    public OrderResponse checkout(Long cartId) {
+        // The order reads the cart rows, so they must hold every change first
+        dirtyCarts().remove(cartId.toString());
+        try {
+            flushCarts(List.of(cartId));
+        } catch (RuntimeException e) {
+            dirtyCarts().add(cartId.toString());
+            throw e;
+        }
+
+        OrderResponse order = orderService.createFromCart(cartId);
+
+        // The order emptied the rows, a change that arrived since the flush is dropped with the cart
+        redissonClient.getBucket(ownerKey(cartId), StringCodec.INSTANCE).delete();
+        redissonClient.getKeys().delete(linesKey(cartId), pricesKey(cartId));
+        return order;
+    }
+
+    @Scheduled(fixedDelayString = "${cart.redis.flush-interval-ms:1000}")
+    public void flush() {
+        int flushed;
+        do {
+            flushed = flushBatch();
+        } while (flushed == flushBatchSize);
+    }
+
+    int flushBatch() {
+        Set<String> cartIds = dirtyCarts().removeRandom(flushBatchSize);
+        if (cartIds.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = cartIds.stream().map(Long::valueOf).toList();
+        try {
+            flushCarts(ids);
+        } catch (DataAccessException | TransactionException e) {
+            // Back in the set for the next run, which writes whatever the carts hold by then. Nothing was
+            // written, so this run stops here instead of spinning on the same carts while the database is down
+            dirtyCarts().addAll(cartIds);
+            log.warn("Could not write {} carts to the database, they will be retried", ids.size(), e);
+            return 0;
+        }
+        return cartIds.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void flushCarts(Collection<Long> cartIds) {
+        // Popped before reading, a change made while writing marks the cart dirty again
+        RBatch batch = redissonClient.createBatch();
+        RScriptAsync script = batch.getScript(StringCodec.INSTANCE);
+        Map<Long, CompletableFuture<List<Object>>> pending = new TreeMap<>();
+        for (Long cartId : cartIds) {
+            pending.put(cartId, script.<List<Object>>evalAsync(RScript.Mode.READ_ONLY, READ_LINES,
+                    RScript.ReturnType.MULTI, cartKeys(cartId)).toCompletableFuture());
+        }
+        batch.execute();
+
+        List<Object[]> rows = new ArrayList<>();
+        List<Object[]> carts = new ArrayList<>();
+        pending.forEach((cartId, read) -> {
+            List<Object> cart = read.join();
+            if (cart == null) {
+                // Expired before its flush, the rows are all that is left of the cart
+                log.debug("Cart {} is no longer in Redis, its rows are kept", cartId);
+                return;
+            }
+            carts.add(new Object[]{cartId});
+            List<Object> lines = (List<Object>) cart.get(1);
+            List<Object> priceValues = (List<Object>) cart.get(2);
+            Map<String, String> prices = new HashMap<>();
+            for (int i = 0; i + 1 < priceValues.size(); i += 2) {
+                prices.put(priceValues.get(i).toString(), priceValues.get(i + 1).toString());
+            }
+            for (int i = 0; i + 1 < lines.size(); i += 2) {
+                String productId = lines.get(i).toString();
+                String price = prices.get(productId);
+                rows.add(new Object[]{cartId, Integer.valueOf(lines.get(i + 1).toString()),
+                        price != null ? new BigDecimal(price) : null, Long.valueOf(productId)});
+            }
+        });
+        if (carts.isEmpty()) {
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(DELETE_LINES_SQL, carts);
+            jdbcTemplate.batchUpdate(INSERT_LINE_SQL, rows);
+        });
+        log.debug("Wrote {} carts with {} lines to the database", carts.size(), rows.size());
+    }
+
+    private List<Object> change(String script, Long cartId, Object... arguments) {
+        List<Object> values = new ArrayList<>(arguments.length + 1);
+        values.add(ttlSeconds);
+        values.addAll(Arrays.asList(arguments));
+
+        List<Object> lines = eval(script, cartId, values.toArray());
+        if (lines == null) {
+            load(cartId);
+            lines = eval(script, cartId, values.toArray());
+        }
+        // Marked after the change, a flush that pops the cart earlier would miss it
+        dirtyCarts().add(cartId.toString());
+        return lines;
+    }
+
+    private List<Object> load(Long cartId) {
+        CartEntity cart = cartRepository.findByIdWithProducts(cartId)
+                .orElseThrow(() -> new IdNotFoundException(Tables.cart.name()));
+
+        List<Object> values = new ArrayList<>();
+        values.add(ttlSeconds);
+        values.add(cart.getCustomer().getId());
+        for (CartProductEntity cartProduct : cart.getCartProducts()) {
+            values.add(cartProduct.getProduct().getId());
+            values.add(cartProduct.getQuantity());
+            values.add(cartProduct.getUnitPrice() != null ? cartProduct.getUnitPrice().toPlainString() : "");
+        }
+        return eval(LOAD_SCRIPT, cartId, values.toArray());
+    }
+
+    private List<Object> eval(String script, Long cartId, Object... values) {
+        return redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, script,
+                RScript.ReturnType.MULTI, cartKeys(cartId), values);
+    }
+
+    private static List<Object> cartKeys(Long cartId) {
+        return List.of(ownerKey(cartId), linesKey(cartId), pricesKey(cartId));
+    }
+
+    // Product details come from the product cache, lines of products no longer sold are left out
+    @SuppressWarnings("unchecked")
+    private CartResponse toResponse(Long cartId, List<Object> cart) {
+        List<Object> lines = (List<Object>) cart.get(1);
+        List<Object> prices = (List<Object>) cart.get(2);
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (int i = 0; i + 1 < lines.size(); i += 2) {
+            quantities.put(Long.valueOf(lines.get(i).toString()), Integer.valueOf(lines.get(i + 1).toString()));
+        }
+        Map<Long, BigDecimal> snapshots = new HashMap<>();
+        for (int i = 0; i + 1 < prices.size(); i += 2) {
+            snapshots.put(Long.valueOf(prices.get(i).toString()), new BigDecimal(prices.get(i + 1).toString()));
+        }
+
+        List<CartProductResponse> products = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> {
+            try {
+                ProductResponse product = productService.findById(productId);
+                products.add(CartPricing.line(productId, product.getName(), product.getPrice(),
+                        snapshots.get(productId), product.getStock(), quantity));
+            } catch (IdNotFoundException | ResourceNotEnabledException e) {
+                log.debug("Product {} in cart {} is no longer available", productId, cartId);
+            }
+        });
+
+        return CartPricing.cart(cartId, Long.valueOf(cart.get(0).toString()), products);
+    }
+
+    private RSet<String> dirtyCarts() {
+        return redissonClient.getSet(DIRTY_KEY, StringCodec.INSTANCE);
+    }
+
+    private static String ownerKey(Long cartId) {
+        return "{cart:" + cartId + "}:owner";
+    }
+
+    private static String linesKey(Long cartId) {
+        return "{cart:" + cartId + "}:lines";
+    }
+
+    private static String pricesKey(Long cartId) {
+        return "{cart:" + cartId + "}:prices";
+    }
+}
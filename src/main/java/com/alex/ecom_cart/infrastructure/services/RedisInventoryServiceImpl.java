@@ -0,0 +1,296 @@
+package com.alex.ecom_cart.infrastructure.services;
+
+import com.alex.ecom_cart.domain.entities.ProductEntity;
+import com.alex.ecom_cart.domain.repositories.ProductRepository;
+import com.alex.ecom_cart.infrastructure.abstract_services.IInventoryService;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBatch;
+import org.redisson.api.RScript;
+import org.redisson.api.RScriptAsync;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+ * Keeps the available stock of every product as a Redis counter so checkouts never wait on the
+ * product row lock. Accepted reservations are also added to a pending hash that is periodically
+ * drained into the product.stock column in JDBC batches.
+ * All keys share the {inventory} hash tag so the scripts also work on a Redis cluster.
+ */
+@Service
+@ConditionalOnProperty(name = "inventory.mode", havingValue = "redis")
+@Slf4j
+public class RedisInventoryServiceImpl implements IInventoryService {
+
+    private static final String STOCK_KEY_PREFIX = "{inventory}:stock:";
+    private static final String PENDING_KEY = "{inventory}:pending";
+    private static final String DRAINING_KEY = "{inventory}:draining";
+    private static final String DRAIN_ID_KEY = "{inventory}:draining:id";
+    private static final int DRAIN_RETENTION_DAYS = 1;
+
+    // KEYS = stock counters + pending hash, ARGV = quantities + product ids
+    // Returns 0 when everything was reserved, i when line i lacks stock and -i when its counter is missing
+    private static final String RESERVE_SCRIPT = """
+            local n = #ARGV / 2
+            for i = 1, n do
+                local stock = redis.call('GET', KEYS[i])
+                if not stock then return -i end
+                if tonumber(stock) < tonumber(ARGV[i]) then return i end
+            end
+            for i = 1, n do
+                redis.call('DECRBY', KEYS[i], ARGV[i])
+                redis.call('HINCRBY', KEYS[n + 1], ARGV[n + i], ARGV[i])
+            end
+            return 0
+            """;
+
+    private static final String RELEASE_SCRIPT = """
+            local n = #ARGV / 2
+            for i = 1, n do
+                if redis.call('EXISTS', KEYS[i]) == 1 then
+                    redis.call('INCRBY', KEYS[i], ARGV[i])
+                end
+                redis.call('HINCRBY', KEYS[n + 1], ARGV[n + i], -tonumber(ARGV[i]))
+            end
+            return 0
+            """;
+
+    // The counter is the stock column minus what has been reserved but not reconciled yet
+    private static final String SEED_SCRIPT = """
+            if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end
+            local pending = tonumber(redis.call('HGET', KEYS[2], ARGV[1]) or '0')
+                    + tonumber(redis.call('HGET', KEYS[3], ARGV[1]) or '0')
+            redis.call('SET', KEYS[1], tonumber(ARGV[2]) - pending)
+            return 1
+            """;
+
+    private static final String OVERWRITE_SCRIPT = """
+            redis.call('SET', KEYS[1], ARGV[2])
+            redis.call('HDEL', KEYS[2], ARGV[1])
+            redis.call('HDEL', KEYS[3], ARGV[1])
+            return 0
+            """;
+
+    // Pending reservations are kept, they are still to be subtracted from the product row the delta went to
+    private static final String ADD_SCRIPT = """
+            if redis.call('EXISTS', KEYS[1]) == 1 then
+                redis.call('INCRBY', KEYS[1], ARGV[2])
+            end
+            return 0
+            """;
+
+    // A draining hash left by a failed run is retried with its id before new reservations are taken.
+    // KEYS = pending, draining, drain id. ARGV = id for a new drain. Returns the id and the drained hash
+    private static final String DRAIN_SCRIPT = """
+            if redis.call('EXISTS', KEYS[2]) == 0 then
+                if redis.call('EXISTS', KEYS[1]) == 0 then return {} end
+                redis.call('RENAME', KEYS[1], KEYS[2])
+                redis.call('SET', KEYS[3], ARGV[1])
+            end
+            local id = redis.call('GET', KEYS[3])
+            if not id then
+                id = ARGV[1]
+                redis.call('SET', KEYS[3], id)
+            end
+            return {id, redis.call('HGETALL', KEYS[2])}
+            """;
+
+    private final RedissonClient redissonClient;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int reconcileBatchSize;
+
+    public RedisInventoryServiceImpl(RedissonClient redissonClient,
+                                     ProductRepository productRepository,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${inventory.redis.reconcile-batch-size:500}") int reconcileBatchSize) {
+        this.redissonClient = redissonClient;
+        this.productRepository = productRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reconcileBatchSize = reconcileBatchSize;
+    }
+
+    @Override
+    public List<Long> reserve(Map<Long, ProductEntity> productsById, Map<Long, Integer> quantitiesByProductId) {
+        List<Long> productIds = new ArrayList<>(quantitiesByProductId.keySet());
+
+        long result = runScript(RESERVE_SCRIPT, productIds, quantitiesByProductId);
+        if (result < 0) {
+            // New product or Redis lost its data, load the missing counters and try once more
+            seed(productIds.stream()
+                    .collect(Collectors.toMap(Function.identity(), productId -> productsById.get(productId).getStock())));
+            result = runScript(RESERVE_SCRIPT, productIds, quantitiesByProductId);
+        }
+
+        if (result != 0) {
+            return List.of(productIds.get((int) Math.abs(result) - 1));
+        }
+
+        releaseOnRollback(productIds, quantitiesByProductId);
+        return List.of();
+    }
+
+    @Override
+    public void overwrite(ProductEntity product) {
+        Long productId = product.getId();
+        Integer stock = product.getStock();
+        afterCommit(() -> redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE,
+                OVERWRITE_SCRIPT, RScript.ReturnType.INTEGER,
+                List.of(stockKey(productId), PENDING_KEY, DRAINING_KEY), productId, stock));
+    }
+
+    @Override
+    public void overwriteAll(Map<Long, Integer> stockByProductId) {
+        afterCommit(() -> runInBatch(OVERWRITE_SCRIPT, stockByProductId));
+    }
+
+    @Override
+    public void addAll(Map<Long, Integer> deltasByProductId) {
+        afterCommit(() -> runInBatch(ADD_SCRIPT, deltasByProductId));
+    }
+
+    @Override
+    public void updateStripes(ProductEntity product, int stripes) {
+        throw new IllegalStateException("Striped stock is only supported with inventory.mode=database");
+    }
+
+    @Override
+    public OptionalInt addToStripes(Long productId, int stripes, int delta) {
+        throw new IllegalStateException("Striped stock is only supported with inventory.mode=database");
+    }
+
+    /*
+     * The drain id is recorded in the transaction that subtracts the drained reservations and the draining
+     * hash is only deleted after that commit. A run that fails in between finds the same hash and id again
+     * and skips the subtraction the database already holds.
+     */
+    @Scheduled(fixedDelayString = "${inventory.redis.reconcile-interval-ms:1000}")
+    @SuppressWarnings("unchecked")
+    public void reconcile() {
+        List<Object> result = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE,
+                DRAIN_SCRIPT, RScript.ReturnType.MULTI, List.of(PENDING_KEY, DRAINING_KEY, DRAIN_ID_KEY),
+                UUID.randomUUID().toString());
+        if (result == null || result.isEmpty()) {
+            return;
+        }
+        String drainId = result.get(0).toString();
+        List<Object> drained = (List<Object>) result.get(1);
+
+        Map<Long, Integer> deltas = new HashMap<>();
+        for (int i = 0; i < drained.size(); i += 2) {
+            int delta = Integer.parseInt(drained.get(i + 1).toString());
+            if (delta != 0) {
+                deltas.put(Long.valueOf(drained.get(i).toString()), delta);
+            }
+        }
+
+        boolean applied = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (!productRepository.recordInventoryDrain(drainId)) {
+                return false;
+            }
+            productRepository.subtractStock(deltas, reconcileBatchSize);
+            productRepository.pruneInventoryDrains(LocalDateTime.now().minusDays(DRAIN_RETENTION_DAYS));
+            return true;
+        }));
+        redissonClient.getKeys().delete(DRAINING_KEY, DRAIN_ID_KEY);
+
+        if (applied) {
+            log.debug("Reconciled reserved stock of {} products", deltas.size());
+        } else {
+            log.info("Drain {} was already applied to the database, dropped it from Redis", drainId);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        // Flush what the previous run left behind, then rebuild every counter Redis does not have
+        reconcile();
+        Map<Long, Integer> stockByProductId = productRepository.findStockOfEnabledProducts();
+        seed(stockByProductId);
+
+        log.info("Inventory counters checked for {} products", stockByProductId.size());
+    }
+
+    private void seed(Map<Long, Integer> stockByProductId) {
+        runInBatch(SEED_SCRIPT, stockByProductId);
+    }
+
+    // One round trip for all the products, each script still runs atomically on its own counter
+    private void runInBatch(String lua, Map<Long, Integer> valuesByProductId) {
+        if (valuesByProductId.isEmpty()) {
+            return;
+        }
+        RBatch batch = redissonClient.createBatch();
+        RScriptAsync script = batch.getScript(StringCodec.INSTANCE);
+        valuesByProductId.forEach((productId, value) -> script.evalAsync(RScript.Mode.READ_WRITE,
+                lua, RScript.ReturnType.INTEGER,
+                List.of(stockKey(productId), PENDING_KEY, DRAINING_KEY), productId, value));
+        batch.execute();
+    }
+
+    private void releaseOnRollback(List<Long> productIds, Map<Long, Integer> quantitiesByProductId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    runScript(RELEASE_SCRIPT, productIds, quantitiesByProductId);
+                }
+            }
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private long runScript(String lua, List<Long> productIds, Map<Long, Integer> quantitiesByProductId) {
+        List<Object> keys = new ArrayList<>(productIds.size() + 1);
+        Object[] values = new Object[productIds.size() * 2];
+        for (int i = 0; i < productIds.size(); i++) {
+            Long productId = productIds.get(i);
+            keys.add(stockKey(productId));
+            values[i] = quantitiesByProductId.get(productId);
+            values[productIds.size() + i] = productId;
+        }
+        keys.add(PENDING_KEY);
+
+        Long result = redissonClient.getScript(StringCodec.INSTANCE)
+                .eval(RScript.Mode.READ_WRITE, lua, RScript.ReturnType.INTEGER, keys, values);
+        return result;
+    }
+
+    private static String stockKey(Long productId) {
+        return STOCK_KEY_PREFIX + productId;
+    }
+}
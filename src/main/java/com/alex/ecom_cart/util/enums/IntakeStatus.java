@@ -0,0 +1,7 @@
+package com.alex.ecom_cart.util.enums;
+
+public enum IntakeStatus {
+
+    QUEUED, COMPLETED, FAILED
+
+}
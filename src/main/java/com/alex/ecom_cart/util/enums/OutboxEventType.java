@@ -0,0 +1,7 @@
+package com.alex.ecom_cart.util.enums;
+
+public enum OutboxEventType {
+
+    ORDER_CREATED, ORDER_STATUS_CHANGED, ORDER_CANCELLED, PRODUCT_STOCK_UPDATED
+
+}
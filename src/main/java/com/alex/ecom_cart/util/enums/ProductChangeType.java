@@ -0,0 +1,7 @@
+package com.alex.ecom_cart.util.enums;
+
+public enum ProductChangeType {
+
+    CREATED, UPDATED, STOCK_UPDATED, DISABLED, DELETED
+
+}
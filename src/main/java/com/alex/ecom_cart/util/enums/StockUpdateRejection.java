@@ -0,0 +1,7 @@
+package com.alex.ecom_cart.util.enums;
+
+public enum StockUpdateRejection {
+
+    NOT_FOUND, DISABLED, INVALID, INSUFFICIENT_STOCK
+
+}
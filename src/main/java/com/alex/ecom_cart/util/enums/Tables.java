@@ -5,5 +5,6 @@ public enum Tables {
     category,
     product,
     order,
-    cart
+    cart,
+    order_intake
 }
@@ -0,0 +1,9 @@
+package com.alex.ecom_cart.util.exceptions;
+
+public class GroupCommitTimeoutException extends RuntimeException {
+    private static final String ERROR_MESSAGE = "The order was not picked up within %d ms and was not placed, it is safe to try again";
+
+    public GroupCommitTimeoutException(long timeoutMs) {
+        super(String.format(ERROR_MESSAGE, timeoutMs));
+    }
+}
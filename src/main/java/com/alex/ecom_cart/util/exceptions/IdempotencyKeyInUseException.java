@@ -0,0 +1,9 @@
+package com.alex.ecom_cart.util.exceptions;
+
+public class IdempotencyKeyInUseException extends RuntimeException {
+    private static final String ERROR_MESSAGE = "A request with this Idempotency-Key is still being processed, try again later";
+
+    public IdempotencyKeyInUseException() {
+        super(ERROR_MESSAGE);
+    }
+}
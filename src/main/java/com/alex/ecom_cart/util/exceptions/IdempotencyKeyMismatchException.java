@@ -0,0 +1,9 @@
+package com.alex.ecom_cart.util.exceptions;
+
+public class IdempotencyKeyMismatchException extends RuntimeException {
+    private static final String ERROR_MESSAGE = "This Idempotency-Key was already used with a different request body";
+
+    public IdempotencyKeyMismatchException() {
+        super(ERROR_MESSAGE);
+    }
+}
@@ -0,0 +1,9 @@
+package com.alex.ecom_cart.util.exceptions;
+
+public class IntakeQueueFullException extends RuntimeException {
+    private static final String ERROR_MESSAGE = "Order intake is full (%d orders waiting), try again later";
+
+    public IntakeQueueFullException(long waiting) {
+        super(String.format(ERROR_MESSAGE, waiting));
+    }
+}
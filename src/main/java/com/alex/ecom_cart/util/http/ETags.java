@@ -0,0 +1,78 @@
+package com.alex.ecom_cart.util.http;
+
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.springframework.data.domain.Page;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.stream.Collectors;
+
+/*
+ * Weak ETags for read responses, Spring answers a matching If-None-Match with a 304 before the body is
+ * written. A single resource with a version gets a strong tag from it instead, see strong. The weak tag is the SHA-256 of the response serialized to JSON with sorted properties and map keys,
+ * so every node gives the same tag to the same values, enums included. The JSON is streamed into the
+ * digest and never held in memory. The tag is weak because it follows the values and not the exact bytes
+ * the HTTP message converter writes.
+ */
+public final class ETags {
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder()
+            .findAndAddModules()
+            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .build();
+
+    private ETags() {
+    }
+
+    public static <T> ResponseEntity<T> ok(T body) {
+        return ResponseEntity.ok().eTag("W/\"" + of(body) + "\"").body(body);
+    }
+
+    public static <T> ResponseEntity<T> ok(T body, String eTag) {
+        return ResponseEntity.ok().eTag(eTag).body(body);
+    }
+
+    // The parts must change whenever the representation does, the caller checks it before loading the body
+    public static String strong(Object... parts) {
+        return Arrays.stream(parts).map(String::valueOf).collect(Collectors.joining("-", "\"", "\""));
+    }
+
+    public static String of(Object body) {
+        MessageDigest digest = sha256();
+        try (OutputStream out = new DigestOutputStream(OutputStream.nullOutputStream(), digest)) {
+            if (body instanceof Page<?> page) {
+                // Only the position of the page, the pageable itself does not serialize in a stable way
+                digest.update(ByteBuffer.allocate(Integer.BYTES + Long.BYTES)
+                        .putInt(page.getNumber())
+                        .putLong(page.getTotalElements())
+                        .array());
+                MAPPER.writeValue(out, page.getContent());
+            } else {
+                MAPPER.writeValue(out, body);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
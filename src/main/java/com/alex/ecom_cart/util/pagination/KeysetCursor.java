@@ -0,0 +1,109 @@
+package com.alex.ecom_cart.util.pagination;
+
+import com.alex.ecom_cart.api.dtos.response.KeysetPageResponse;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.math.BigDecimal;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/*
+ * Turns the keys of the last row of a page (sort value + id) into an opaque url safe token and back.
+ * Each key keeps a one letter type tag so it is compared with the right type when it comes back.
+ * The sort columns must be non null and covered by an index together with id, see create_schema.sql.
+ */
+public final class KeysetCursor {
+
+    private static final String INVALID_CURSOR = "Invalid cursor";
+
+    private KeysetCursor() {
+    }
+
+    // Sorts by the requested field and then by id so every row has a unique position
+    public static Sort sortWithId(Sort sorting, boolean desc) {
+        Sort byId = Sort.by("id");
+        return desc ? sorting.descending().and(byId.descending()) : sorting.ascending().and(byId.ascending());
+    }
+
+    public static ScrollPosition decode(String cursor, Sort sort) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+
+        Map<String, Object> keys = new LinkedHashMap<>();
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            for (String entry : raw.split("&")) {
+                String[] parts = entry.split(":", 3);
+                keys.put(parts[0], readValue(parts[1], URLDecoder.decode(parts[2], StandardCharsets.UTF_8)));
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException(INVALID_CURSOR);
+        }
+
+        // A cursor taken with another sort field can not be applied to this one
+        Set<String> expectedKeys = sort.stream().map(Sort.Order::getProperty).collect(Collectors.toSet());
+        if (!keys.keySet().equals(expectedKeys)) {
+            throw new IllegalArgumentException(INVALID_CURSOR);
+        }
+        return ScrollPosition.forward(keys);
+    }
+
+    public static String encode(KeysetScrollPosition position) {
+        List<String> entries = new ArrayList<>();
+        position.getKeys().forEach((key, value) -> {
+            // A null can not be compared in the seek predicate, only non null columns are offered as scroll sorts
+            if (value == null) {
+                throw new IllegalStateException("Keyset sort key " + key + " is null");
+            }
+            entries.add(key + ":" + typeOf(value) + ":" + URLEncoder.encode(value.toString(), StandardCharsets.UTF_8));
+        });
+
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.join("&", entries).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static <T> KeysetPageResponse<T> toResponse(Window<T> window) {
+        String next = window.hasNext() && !window.isEmpty()
+                ? encode((KeysetScrollPosition) window.positionAt(window.size() - 1))
+                : null;
+
+        return KeysetPageResponse.<T>builder()
+                .content(window.getContent())
+                .size(window.size())
+                .next(next)
+                .build();
+    }
+
+    private static String typeOf(Object value) {
+        if (value instanceof String) return "s";
+        if (value instanceof Long) return "l";
+        if (value instanceof Integer) return "i";
+        if (value instanceof BigDecimal) return "d";
+        if (value instanceof LocalDateTime) return "t";
+        throw new IllegalStateException("Unsupported keyset value: " + value.getClass().getSimpleName());
+    }
+
+    private static Object readValue(String type, String value) {
+        return switch (type) {
+            case "s" -> value;
+            case "l" -> Long.valueOf(value);
+            case "i" -> Integer.valueOf(value);
+            case "d" -> new BigDecimal(value);
+            case "t" -> LocalDateTime.parse(value);
+            default -> throw new IllegalArgumentException(INVALID_CURSOR);
+        };
+    }
+}
@@ -1,11 +1,15 @@
 package com.alex.ecom_cart.api.controllers.status200;
 
+import com.alex.ecom_cart.DummyData;
 import com.alex.ecom_cart.api.controllers.CartController;
+import com.alex.ecom_cart.api.dtos.request.CartOperationRequest;
 import com.alex.ecom_cart.api.dtos.response.CartProductResponse;
 import com.alex.ecom_cart.api.dtos.response.CartResponse;
+import com.alex.ecom_cart.api.dtos.response.OrderResponse;
 import com.alex.ecom_cart.config.security.SecurityConfig;
 import com.alex.ecom_cart.infrastructure.abstract_services.ICartService;
 import com.alex.ecom_cart.infrastructure.services.security.UserDetailsServiceImpl;
+import com.alex.ecom_cart.util.enums.CartOperationType;
 import com.alex.ecom_cart.util.jwt.JwtUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,6 +18,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
@@ -129,6 +134,22 @@ class CartControllerStatus200Test {
                 .andExpect(jsonPath("$.cartId").value(1L));
     }
 
+    @Test
+    @WithMockUser(username = USERNAME_CUSTOMER, roles = CUSTOMER)
+    @DisplayName("Should apply a batch of cart operations")
+    void applyOperations() throws Exception {
+        List<CartOperationRequest> operations = List.of(
+                CartOperationRequest.builder().op(CartOperationType.ADD).productId(1L).quantity(1).build(),
+                CartOperationRequest.builder().op(CartOperationType.REMOVE).productId(2L).build());
+        when(cartService.applyOperations(1L, operations)).thenReturn(cartResponse);
+
+        mockMvc.perform(post(RESOURCE_PATH + "/1/ops")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(operations)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products[0].productId").value(1L));
+    }
+
     @Test
     @WithMockUser(username = USERNAME_CUSTOMER, roles = CUSTOMER)
     @DisplayName("Should clear cart")
@@ -137,4 +158,17 @@ class CartControllerStatus200Test {
         mockMvc.perform(delete("/cart/1/clear"))
                 .andExpect(status().isNoContent());
     }
+
+    @Test
+    @WithMockUser(username = USERNAME_CUSTOMER, roles = CUSTOMER)
+    @DisplayName("Should checkout the cart into a new order")
+    void checkout() throws Exception {
+        OrderResponse orderResponse = DummyData.createOrderResponse();
+        when(cartService.checkout(1L)).thenReturn(orderResponse);
+
+        mockMvc.perform(post(RESOURCE_PATH + "/1/checkout"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(orderResponse.getId()))
+                .andExpect(jsonPath("$.username").value(orderResponse.getUsername()));
+    }
 }
\ No newline at end of file
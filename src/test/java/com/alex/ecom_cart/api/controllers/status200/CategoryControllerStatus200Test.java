@@ -0,0 +1,65 @@
+package com.alex.ecom_cart.api.controllers.status200;
+
+import com.alex.ecom_cart.api.controllers.CategoryController;
+import com.alex.ecom_cart.api.dtos.response.CategoryResponse;
+import com.alex.ecom_cart.config.security.SecurityConfig;
+import com.alex.ecom_cart.infrastructure.abstract_services.ICategoryService;
+import com.alex.ecom_cart.infrastructure.services.security.UserDetailsServiceImpl;
+import com.alex.ecom_cart.util.jwt.JwtUtils;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(CategoryController.class)
+@Import(SecurityConfig.class)
+class CategoryControllerStatus200Test {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private UserDetailsServiceImpl userDetailsServiceImpl;
+
+    @MockitoBean
+    private JwtUtils jwtUtils;
+
+    @MockitoBean
+    private ICategoryService categoryService;
+
+    private static final String RESOURCE_PATH = "/category";
+
+    @Test
+    @DisplayName("Should return every category with its product count without authentication")
+    void findAll_ShouldReturnCategoriesWithCounts() throws Exception {
+        when(categoryService.findAll()).thenReturn(List.of(
+                new CategoryResponse(2L, "Books", 2),
+                new CategoryResponse(1L, "Electronics", 2)));
+
+        mockMvc.perform(get(RESOURCE_PATH))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$[0].name").value("Books"))
+                .andExpect(jsonPath("$[0].productCount").value(2))
+                .andExpect(jsonPath("$[1].id").value(1));
+    }
+
+    @Test
+    @DisplayName("Should return 204 when there are no categories")
+    void findAll_ShouldReturnNoContent_WhenEmpty() throws Exception {
+        when(categoryService.findAll()).thenReturn(List.of());
+
+        mockMvc.perform(get(RESOURCE_PATH))
+                .andExpect(status().isNoContent());
+    }
+}
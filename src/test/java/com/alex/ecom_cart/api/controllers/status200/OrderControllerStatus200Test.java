@@ -3,10 +3,14 @@ package com.alex.ecom_cart.api.controllers.status200;
 import com.alex.ecom_cart.DummyData;
 import com.alex.ecom_cart.api.controllers.OrderController;
 import com.alex.ecom_cart.api.dtos.request.OrderRequest;
+import com.alex.ecom_cart.api.dtos.response.OrderIntakeResponse;
 import com.alex.ecom_cart.api.dtos.response.OrderResponse;
 import com.alex.ecom_cart.config.security.SecurityConfig;
+import com.alex.ecom_cart.infrastructure.abstract_services.IIdempotencyService;
+import com.alex.ecom_cart.infrastructure.abstract_services.IOrderIntakeService;
 import com.alex.ecom_cart.infrastructure.abstract_services.IOrderService;
 import com.alex.ecom_cart.infrastructure.services.security.UserDetailsServiceImpl;
+import com.alex.ecom_cart.util.enums.IntakeStatus;
 import com.alex.ecom_cart.util.enums.OrderStatus;
 import com.alex.ecom_cart.util.jwt.JwtUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -27,6 +31,9 @@ import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -59,6 +66,12 @@ class OrderControllerStatus200Test {
     @MockitoBean
     private IOrderService orderService;
 
+    @MockitoBean
+    private IIdempotencyService idempotencyService;
+
+    @MockitoBean
+    private IOrderIntakeService orderIntakeService;
+
     OrderRequest orderRequest;
     OrderResponse orderResponse;
     DateTimeFormatter formatter;
@@ -107,6 +120,58 @@ class OrderControllerStatus200Test {
                 .andExpect(jsonPath("$.username").value(orderResponse.getUsername()));
     }
 
+    @Test
+    @WithMockUser(username = USERNAME_CUSTOMER, roles = {CUSTOMER})
+    @DisplayName("Should create order through the idempotency key when the header is present")
+    void createOrder_ShouldUseIdempotencyKey_WhenHeaderIsPresent() throws Exception {
+        when(idempotencyService.execute(eq("order:" + orderRequest.getCustomerId() + ":retry-1"), any(), any()))
+                .thenReturn(orderResponse);
+
+        mockMvc.perform(post(RESOURCE_PATH)
+                        .header("Idempotency-Key", "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(this.objectMapper.writeValueAsString(orderRequest)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(orderResponse.getId()));
+
+        verify(orderService, never()).create(any(OrderRequest.class));
+    }
+
+    @Test
+    @WithMockUser(username = USERNAME_CUSTOMER, roles = {CUSTOMER})
+    @DisplayName("Should accept the order and return its tracking id")
+    void enqueueOrder_ShouldReturnAccepted() throws Exception {
+        OrderIntakeResponse intakeResponse = OrderIntakeResponse.builder()
+                .trackingId("tracking-1")
+                .status(IntakeStatus.QUEUED)
+                .build();
+        when(orderIntakeService.enqueue(any(OrderRequest.class))).thenReturn(intakeResponse);
+
+        mockMvc.perform(post(RESOURCE_PATH + "/intake")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(this.objectMapper.writeValueAsString(orderRequest)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.trackingId").value("tracking-1"))
+                .andExpect(jsonPath("$.status").value(IntakeStatus.QUEUED.name()));
+    }
+
+    @Test
+    @WithMockUser(username = USERNAME_CUSTOMER, roles = {CUSTOMER})
+    @DisplayName("Should return the outcome of a queued order")
+    void getIntake_ShouldReturnOutcome() throws Exception {
+        OrderIntakeResponse intakeResponse = OrderIntakeResponse.builder()
+                .trackingId("tracking-1")
+                .status(IntakeStatus.COMPLETED)
+                .orderId(ORDER_ID)
+                .build();
+        when(orderIntakeService.findByTrackingId("tracking-1")).thenReturn(intakeResponse);
+
+        mockMvc.perform(get(RESOURCE_PATH + "/intake/tracking-1").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(IntakeStatus.COMPLETED.name()))
+                .andExpect(jsonPath("$.orderId").value(ORDER_ID));
+    }
+
     @Test
     @WithMockUser(username = USERNAME_ADMIN, roles = {ADMIN})
     @DisplayName("Should return order given Order ID")
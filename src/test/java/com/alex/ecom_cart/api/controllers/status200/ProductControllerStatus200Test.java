@@ -3,10 +3,17 @@ package com.alex.ecom_cart.api.controllers.status200;
 import com.alex.ecom_cart.DummyData;
 import com.alex.ecom_cart.api.controllers.ProductController;
 import com.alex.ecom_cart.api.dtos.request.ProductRequest;
+import com.alex.ecom_cart.api.dtos.request.ProductStockRequest;
+import com.alex.ecom_cart.api.dtos.response.ProductChangesResponse;
+import com.alex.ecom_cart.api.dtos.response.ProductFacetResponse;
+import com.alex.ecom_cart.api.dtos.response.ProductImportResponse;
 import com.alex.ecom_cart.api.dtos.response.ProductResponse;
+import com.alex.ecom_cart.api.dtos.response.ProductStockResponse;
 import com.alex.ecom_cart.config.security.SecurityConfig;
+import com.alex.ecom_cart.infrastructure.abstract_services.IProductImportService;
 import com.alex.ecom_cart.infrastructure.abstract_services.IProductService;
 import com.alex.ecom_cart.infrastructure.services.security.UserDetailsServiceImpl;
+import com.alex.ecom_cart.util.enums.StockUpdateRejection;
 import com.alex.ecom_cart.util.jwt.JwtUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,12 +24,16 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -40,6 +51,9 @@ class ProductControllerStatus200Test {
     @MockitoBean
     private IProductService productService;
 
+    @MockitoBean
+    private IProductImportService productImportService;
+
     @MockitoBean
     private JwtUtils jwtUtils;
 
@@ -85,6 +99,80 @@ class ProductControllerStatus200Test {
                 .andExpect(jsonPath("$.content[1].category").value(productResponseList.get(1).getCategory()));
     }
 
+    @Test
+    @DisplayName("Should return the products that match the search query")
+    void search_ShouldReturnMatchingProducts() throws Exception {
+        when(productService.search("laptop")).thenReturn(List.of(productResponse));
+
+        mockMvc.perform(get(RESOURCE_PATH + "/search").param("q", "laptop"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(productResponse.getId()))
+                .andExpect(jsonPath("$[0].name").value(productResponse.getName()));
+    }
+
+    @Test
+    @DisplayName("Should return the filtered products with the facet counts")
+    void filter_ShouldReturnProductsAndCounts() throws Exception {
+        ProductFacetResponse facets = ProductFacetResponse.builder()
+                .content(List.of(productResponse))
+                .totalElements(1)
+                .categories(Map.of(1L, 1))
+                .priceBands(Map.of("1000+", 1))
+                .inStock(1)
+                .build();
+        when(productService.filter(List.of(1L), List.of("1000+"), true, true, 0)).thenReturn(facets);
+
+        mockMvc.perform(get(RESOURCE_PATH + "/facets")
+                        .param("category", "1")
+                        .param("price", "1000+")
+                        .param("inStock", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(productResponse.getId()))
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.categories.1").value(1))
+                .andExpect(jsonPath("$.inStock").value(1));
+    }
+
+    @Test
+    @WithMockUser(username = "seller", roles = {SELLER})
+    @DisplayName("Should import a CSV body and return the import report")
+    void importProducts_ShouldReturnReport() throws Exception {
+        ProductImportResponse report = ProductImportResponse.builder()
+                .imported(1)
+                .rejected(1)
+                .errors(List.of(new ProductImportResponse.RowError(3, "Category not found: 9")))
+                .build();
+        when(productImportService.importProducts(any(), any())).thenReturn(report);
+
+        mockMvc.perform(post(RESOURCE_PATH + "/bulk")
+                        .contentType("text/csv")
+                        .content("name,description,price,stock,category\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(3));
+        verify(productImportService).importProducts(any(), eq(MediaType.valueOf("text/csv")));
+    }
+
+    @Test
+    @WithMockUser(username = "seller", roles = {SELLER})
+    @DisplayName("Should update many stocks and return the result per product id")
+    void updateStocks_ShouldReturnUpdatedAndRejected() throws Exception {
+        List<ProductStockRequest> request = List.of(
+                ProductStockRequest.builder().id(1L).stock(40).build(),
+                ProductStockRequest.builder().id(9L).delta(-2).build());
+        when(productService.updateStocks(request)).thenReturn(ProductStockResponse.builder()
+                .updated(Map.of(1L, 40))
+                .rejected(Map.of(9L, StockUpdateRejection.NOT_FOUND))
+                .build());
+
+        mockMvc.perform(patch(RESOURCE_PATH + "/stock")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated.1").value(40))
+                .andExpect(jsonPath("$.rejected.9").value("NOT_FOUND"));
+    }
+
     @Test
     @WithMockUser(username = "admin", roles = {ADMIN, SELLER})
     @DisplayName("Shoul create Product when productRequest is valid")
@@ -115,25 +203,66 @@ class ProductControllerStatus200Test {
     }
 
     @Test
-    @DisplayName("Should return all products given a valid category ID")
+    @DisplayName("Should return 304 without loading the product when If-None-Match has the current version")
+    void getById_ShouldReturn304_WhenETagMatches() throws Exception {
+        String uri = RESOURCE_PATH + "/" + PRODUCT_ID;
+        productResponse.setVersion(3L);
+        when(productService.findETag(PRODUCT_ID)).thenReturn(Optional.of("\"3-10\""));
+
+        mockMvc.perform(get(uri))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3-10\""));
+
+        mockMvc.perform(get(uri).header(HttpHeaders.IF_NONE_MATCH, "\"3-10\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        verify(productService, times(1)).findById(PRODUCT_ID);
+
+        when(productService.findETag(PRODUCT_ID)).thenReturn(Optional.of("\"3-9\""));
+        mockMvc.perform(get(uri).header(HttpHeaders.IF_NONE_MATCH, "\"3-10\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Should return the products changed since the token")
+    void changes_ShouldReturnChangedAndRemovedProducts() throws Exception {
+        ProductResponse productResponse = DummyData.createProductResponse();
+        when(productService.findChanges("40")).thenReturn(ProductChangesResponse.builder()
+                .changed(List.of(productResponse))
+                .removed(List.of(6L))
+                .next("42")
+                .build());
+
+        mockMvc.perform(get(RESOURCE_PATH + "/changes").param("since", "40"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changed[0].id").value(productResponse.getId()))
+                .andExpect(jsonPath("$.removed[0]").value(6))
+                .andExpect(jsonPath("$.next").value("42"))
+                .andExpect(jsonPath("$.hasMore").value(false));
+    }
+
+    @Test
+    @DisplayName("Should return a page of products given a valid category ID")
     void getByCategoryId_ShouldReturnProducts_WhenCategoryIdExists() throws Exception {
-        String uri = RESOURCE_PATH + "/" + "category" + "/" + 1;
+        String uri = RESOURCE_PATH + "/" + "category" + "/" + 1 + "?field=price&desc=false";
         List<ProductResponse> productResponseList = DummyData.createProductResponseList();
-        when(productService.findByCategoryId(1L)).thenReturn(productResponseList);
+        when(productService.findByCategoryId(1L, "price", false, 0))
+                .thenReturn(new PageImpl<>(productResponseList, PageRequest.of(0, 5), 7));
 
         mockMvc.perform(get(uri).contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$[0].name").value(productResponseList.get(0).getName()))
-                .andExpect(jsonPath("$[0].description").value(productResponseList.get(0).getDescription()))
-                .andExpect(jsonPath("$[0].price").value(productResponseList.get(0).getPrice()))
-                .andExpect(jsonPath("$[0].stock").value(productResponseList.get(0).getStock()))
-                .andExpect(jsonPath("$[0].category").value(productResponseList.get(0).getCategory()))
-                .andExpect(jsonPath("$[1].name").value(productResponseList.get(1).getName()))
-                .andExpect(jsonPath("$[1].description").value(productResponseList.get(1).getDescription()))
-                .andExpect(jsonPath("$[1].price").value(productResponseList.get(1).getPrice()))
-                .andExpect(jsonPath("$[1].stock").value(productResponseList.get(1).getStock()))
-                .andExpect(jsonPath("$[1].category").value(productResponseList.get(1).getCategory()));
+                .andExpect(jsonPath("$.totalElements").value(7))
+                .andExpect(jsonPath("$.content[0].name").value(productResponseList.get(0).getName()))
+                .andExpect(jsonPath("$.content[0].description").value(productResponseList.get(0).getDescription()))
+                .andExpect(jsonPath("$.content[0].price").value(productResponseList.get(0).getPrice()))
+                .andExpect(jsonPath("$.content[0].stock").value(productResponseList.get(0).getStock()))
+                .andExpect(jsonPath("$.content[0].category").value(productResponseList.get(0).getCategory()))
+                .andExpect(jsonPath("$.content[1].name").value(productResponseList.get(1).getName()))
+                .andExpect(jsonPath("$.content[1].description").value(productResponseList.get(1).getDescription()))
+                .andExpect(jsonPath("$.content[1].price").value(productResponseList.get(1).getPrice()))
+                .andExpect(jsonPath("$.content[1].stock").value(productResponseList.get(1).getStock()))
+                .andExpect(jsonPath("$.content[1].category").value(productResponseList.get(1).getCategory()));
 
     }
 
@@ -16,6 +16,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
@@ -23,6 +24,8 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.math.BigDecimal;
 import java.util.List;
 
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -103,4 +106,18 @@ class CartControllerStatus400Test {
                 .andExpect(jsonPath("$.code").value(400));
     }
 
-}
\ No newline at end of file
+    @Test
+    @WithMockUser(username = USERNAME_CUSTOMER, roles = CUSTOMER)
+    @DisplayName("Should return 400 when a cart operation is invalid")
+    void applyOperations_ShouldReturn400_WhenOperationInvalid() throws Exception {
+        when(cartService.applyOperations(eq(1L), anyList()))
+                .thenThrow(new IllegalArgumentException("SET of product 1 needs a quantity"));
+
+        mockMvc.perform(post(RESOURCE_PATH + "/1/ops")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"op\":\"SET\",\"productId\":1}]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value(400));
+    }
+
+}
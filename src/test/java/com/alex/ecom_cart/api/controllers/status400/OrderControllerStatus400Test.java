@@ -5,11 +5,15 @@ import com.alex.ecom_cart.api.controllers.OrderController;
 import com.alex.ecom_cart.api.dtos.request.OrderRequest;
 import com.alex.ecom_cart.api.dtos.response.OrderResponse;
 import com.alex.ecom_cart.config.security.SecurityConfig;
+import com.alex.ecom_cart.infrastructure.abstract_services.IIdempotencyService;
+import com.alex.ecom_cart.infrastructure.abstract_services.IOrderIntakeService;
 import com.alex.ecom_cart.infrastructure.abstract_services.IOrderService;
 import com.alex.ecom_cart.infrastructure.services.security.UserDetailsServiceImpl;
 import com.alex.ecom_cart.util.enums.OrderStatus;
 import com.alex.ecom_cart.util.enums.Tables;
 import com.alex.ecom_cart.util.exceptions.IdNotFoundException;
+import com.alex.ecom_cart.util.exceptions.IdempotencyKeyInUseException;
+import com.alex.ecom_cart.util.exceptions.IdempotencyKeyMismatchException;
 import com.alex.ecom_cart.util.jwt.JwtUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -59,6 +63,12 @@ class OrderControllerStatus400Test {
     @MockitoBean
     private IOrderService orderService;
 
+    @MockitoBean
+    private IIdempotencyService idempotencyService;
+
+    @MockitoBean
+    private IOrderIntakeService orderIntakeService;
+
 
     OrderRequest orderRequest;
     OrderResponse orderResponse;
@@ -117,6 +127,34 @@ class OrderControllerStatus400Test {
                 .andExpect(jsonPath("$.message").value("Id not found in customer"));
     }
 
+    @Test
+    @WithMockUser(username = USERNAME_CUSTOMER, roles = {CUSTOMER})
+    @DisplayName("Should Return 409 when the same Idempotency-Key is still being processed")
+    void createOrder_ShouldReturn409_WhenIdempotencyKeyInUse() throws Exception {
+        when(idempotencyService.execute(any(), any(), any())).thenThrow(new IdempotencyKeyInUseException());
+
+        mockMvc.perform(post(RESOURCE_PATH)
+                        .header("Idempotency-Key", "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(this.objectMapper.writeValueAsString(orderRequest)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.code").value(409));
+    }
+
+    @Test
+    @WithMockUser(username = USERNAME_CUSTOMER, roles = {CUSTOMER})
+    @DisplayName("Should Return 422 when the Idempotency-Key was used with a different body")
+    void createOrder_ShouldReturn422_WhenIdempotencyKeyReusedWithOtherBody() throws Exception {
+        when(idempotencyService.execute(any(), any(), any())).thenThrow(new IdempotencyKeyMismatchException());
+
+        mockMvc.perform(post(RESOURCE_PATH)
+                        .header("Idempotency-Key", "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(this.objectMapper.writeValueAsString(orderRequest)))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.code").value(422));
+    }
+
     @Test
     @WithMockUser(username = USERNAME_SELLER, roles = SELLER)
     @DisplayName("Should Return 400 when STATUS is invalid")
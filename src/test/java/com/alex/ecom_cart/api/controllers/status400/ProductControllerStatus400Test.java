@@ -5,6 +5,7 @@ import com.alex.ecom_cart.api.controllers.ProductController;
 import com.alex.ecom_cart.api.dtos.request.ProductRequest;
 import com.alex.ecom_cart.api.dtos.response.ProductResponse;
 import com.alex.ecom_cart.config.security.SecurityConfig;
+import com.alex.ecom_cart.infrastructure.abstract_services.IProductImportService;
 import com.alex.ecom_cart.infrastructure.abstract_services.IProductService;
 import com.alex.ecom_cart.infrastructure.services.security.UserDetailsServiceImpl;
 import com.alex.ecom_cart.util.enums.Tables;
@@ -41,6 +42,9 @@ class ProductControllerStatus400Test {
     @MockitoBean
     private IProductService productService;
 
+    @MockitoBean
+    private IProductImportService productImportService;
+
     @MockitoBean
     private JwtUtils jwtUtils;
 
@@ -99,7 +103,7 @@ class ProductControllerStatus400Test {
     @DisplayName("Should Return 400 when category ID does not exist")
     void getByCategoryId_ShouldReturn400_WhenIdNotFound() throws Exception {
         String uri = RESOURCE_PATH + "/" + "category" + "/" + INVALID_PRODUCT_ID;
-        when(productService.findByCategoryId(INVALID_PRODUCT_ID))
+        when(productService.findByCategoryId(INVALID_PRODUCT_ID, "name", true, 0))
                 .thenThrow(new IdNotFoundException(Tables.category.name()));
         mockMvc.perform(get(uri).contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest())
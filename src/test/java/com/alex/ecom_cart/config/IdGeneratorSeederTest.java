@@ -0,0 +1,53 @@
+package com.alex.ecom_cart.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+@DataJpaTest
+@Import(IdGeneratorSeeder.class)
+class IdGeneratorSeederTest {
+
+    @Autowired
+    private IdGeneratorSeeder idGeneratorSeeder;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("seed should start a missing generator after the highest id of its table")
+    void seed_ShouldStartMissingGeneratorsAfterExistingRows() {
+        jdbcTemplate.update("DELETE FROM id_generator");
+
+        idGeneratorSeeder.seed();
+
+        Long maxProductId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM product", Long.class);
+        assertEquals(maxProductId + 1, nextVal("product"));
+        assertEquals(IdGeneratorSeeder.TABLES_BY_GENERATOR.size(),
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM id_generator", Integer.class));
+    }
+
+    @Test
+    @DisplayName("seed should leave a generator that is already ahead of its table")
+    void seed_ShouldNotMoveGeneratorBack() {
+        jdbcTemplate.update("UPDATE id_generator SET next_val = 1000 WHERE sequence_name = 'order_'");
+        jdbcTemplate.update("UPDATE id_generator SET next_val = 1 WHERE sequence_name = 'cart'");
+
+        idGeneratorSeeder.seed();
+
+        assertEquals(1000L, nextVal("order_"));
+        Long maxCartId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM cart", Long.class);
+        assertEquals(maxCartId + 1, nextVal("cart"));
+    }
+
+    private Long nextVal(String generator) {
+        return jdbcTemplate.queryForObject("SELECT next_val FROM id_generator WHERE sequence_name = ?",
+                Long.class, generator);
+    }
+}
@@ -1,10 +1,12 @@
 package com.alex.ecom_cart.domain.repositories;
 
 import com.alex.ecom_cart.domain.entities.CartProductEntity;
+import com.alex.ecom_cart.domain.entities.CartProductId;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 import static org.mockito.Mockito.*;
@@ -28,4 +30,35 @@ class CartProductRepositoryTest extends RepositorySpec{
         List<CartProductEntity> afterDelete = cartProductRepository.findAll();
         assertTrue(afterDelete.isEmpty(), "Cart products should be empty after delete");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("deleteByCartIdInBulk should delete every product of the cart with one statement")
+    void deleteByCartIdInBulk_shouldDeleteProductsForGivenCart() {
+        Long cartId = 1L;
+
+        int deleted = cartProductRepository.deleteByCartIdInBulk(cartId);
+
+        assertTrue(deleted > 0, "Cart should have at least one product before delete");
+        assertTrue(cartProductRepository.findAll().isEmpty(), "Cart products should be empty after delete");
+    }
+
+    @Test
+    @DisplayName("upsertQuantity should add to an existing line and insert a new one")
+    void upsertQuantity_shouldAddToLineOrInsertIt() {
+        assertTrue(cartProductRepository.upsertQuantity(1L, 1L, 2) > 0);
+        assertTrue(cartProductRepository.upsertQuantity(1L, 2L, 3) > 0);
+
+        assertEquals(7, cartProductRepository.findById(new CartProductId(1L, 1L)).orElseThrow().getQuantity());
+        CartProductEntity inserted = cartProductRepository.findById(new CartProductId(1L, 2L)).orElseThrow();
+        assertEquals(3, inserted.getQuantity());
+        assertEquals(0, new BigDecimal("800.00").compareTo(inserted.getUnitPrice()), "The line keeps the price it was added at");
+    }
+
+    @Test
+    @DisplayName("upsertQuantity should write nothing when the cart or the product does not exist")
+    void upsertQuantity_shouldWriteNothing_WhenCartOrProductMissing() {
+        assertEquals(0, cartProductRepository.upsertQuantity(99L, 1L, 1));
+        assertEquals(0, cartProductRepository.upsertQuantity(1L, 999L, 1));
+        assertEquals(1, cartProductRepository.count());
+    }
+}
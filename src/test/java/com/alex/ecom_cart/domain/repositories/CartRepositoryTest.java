@@ -5,6 +5,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -39,4 +40,32 @@ class CartRepositoryTest extends RepositorySpec{
             assertTrue(cp.getQuantity() > 0, "Product quantity should be greater than 0");
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("findByIdWithProducts Should still fetch the lines of a cart locked by findByIdForUpdate")
+    void findByIdForUpdate_shouldLeaveLinesToTheFetch() {
+        Optional<CartEntity> locked = cartRepository.findByIdForUpdate(1L);
+        assertTrue(locked.isPresent());
+
+        CartEntity cart = cartRepository.findByIdWithProducts(1L).orElseThrow();
+        assertSame(locked.get(), cart);
+        assertEquals(1, cart.getCartProducts().size());
+        assertTrue(cartRepository.findByIdForUpdate(99L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("findLinesById Should return one row per line and a single empty row for an empty cart")
+    void findLinesById_shouldReturnLinesOfCart() {
+        List<CartRepository.CartLine> lines = cartRepository.findLinesById(1L);
+        assertEquals(1, lines.size());
+        assertEquals(1L, lines.get(0).getCustomerId());
+        assertEquals(1L, lines.get(0).getProductId());
+        assertEquals(5, lines.get(0).getQuantity());
+
+        List<CartRepository.CartLine> emptyCart = cartRepository.findLinesById(2L);
+        assertEquals(1, emptyCart.size());
+        assertNull(emptyCart.get(0).getProductId());
+
+        assertTrue(cartRepository.findLinesById(99L).isEmpty());
+    }
+}
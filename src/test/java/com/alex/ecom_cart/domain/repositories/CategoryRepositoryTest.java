@@ -0,0 +1,35 @@
+package com.alex.ecom_cart.domain.repositories;
+
+import com.alex.ecom_cart.domain.entities.CategoryEntity;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CategoryRepositoryTest extends RepositorySpec {
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Test
+    @DisplayName("findAllByOrderByName should return the categories with the count of their enabled products")
+    void findAllByOrderByName_shouldReturnCounts() {
+        List<CategoryEntity> categories = categoryRepository.findAllByOrderByName();
+
+        assertEquals(List.of("Books", "Clothing", "Electronics"), categories.stream().map(CategoryEntity::getName).toList());
+        assertEquals(List.of(1, 2, 2), categories.stream().map(CategoryEntity::getProductCount).toList(),
+                "Expected the disabled product of Books to be left out");
+    }
+
+    @Test
+    @DisplayName("recountProducts should repair counters moved by addProductCount")
+    void recountProducts_shouldRepairCounters() {
+        categoryRepository.addProductCount(1L, 5);
+        categoryRepository.recountProducts();
+
+        assertEquals(2, categoryRepository.findById(1L).orElseThrow().getProductCount());
+    }
+}
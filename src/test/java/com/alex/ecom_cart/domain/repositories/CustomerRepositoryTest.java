@@ -1,11 +1,14 @@
 package com.alex.ecom_cart.domain.repositories;
 
+import com.alex.ecom_cart.api.dtos.response.CustomerResponse;
 import com.alex.ecom_cart.domain.entities.CustomerEntity;
+import com.alex.ecom_cart.util.enums.Role;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 
 import java.util.List;
 import java.util.Optional;
@@ -105,4 +108,24 @@ class CustomerRepositoryTest extends RepositorySpec{
         boolean exists = customerRepository.existsByEmail(invalidEmail);
         assertFalse(exists, "Should be false because email does not exists");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("findActiveResponses should read enabled customers straight into responses")
+    void findActiveResponses_shouldProjectEnabledCustomers() {
+        Page<CustomerResponse> result = customerRepository.findActiveResponses(PageRequest.of(0, 5, Sort.by("username")));
+
+        assertEquals(4, result.getTotalElements(), "Expected 4 enabled customers");
+        assertEquals("admin", result.getContent().get(0).getUsername());
+        assertEquals("admin@example.com", result.getContent().get(0).getEmail());
+    }
+
+    @Test
+    @DisplayName("findRolesByCustomerIds should return every role of the given customers")
+    void findRolesByCustomerIds_shouldReturnRolesOfEachCustomer() {
+        List<CustomerRepository.CustomerRole> result = customerRepository.findRolesByCustomerIds(List.of(3L, 4L));
+
+        assertEquals(4, result.size(), "Expected 2 roles for admin and 2 for seller");
+        assertTrue(result.stream().anyMatch(role -> role.getCustomerId() == 3L && role.getRole() == Role.ADMIN));
+        assertTrue(result.stream().anyMatch(role -> role.getCustomerId() == 4L && role.getRole() == Role.SELLER));
+    }
+}
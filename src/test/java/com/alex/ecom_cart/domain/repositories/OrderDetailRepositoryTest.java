@@ -2,9 +2,14 @@ package com.alex.ecom_cart.domain.repositories;
 
 import com.alex.ecom_cart.domain.entities.OrderDetailEntity;
 import com.alex.ecom_cart.domain.entities.OrderEntity;
+import com.alex.ecom_cart.util.pagination.KeysetCursor;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 
 import java.util.List;
 
@@ -46,4 +51,19 @@ class OrderDetailRepositoryTest extends RepositorySpec{
                 "product ID should be 2"
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("findSummariesBy should scroll order details by product and read the ids from the foreign keys")
+    void findSummariesBy_shouldScrollOrderDetailsByKeyset() {
+        Sort sort = KeysetCursor.sortWithId(Sort.by("product.id"), false);
+
+        Window<OrderDetailRepository.OrderDetailSummary> first = orderDetailRepository.findSummariesBy(KeysetCursor.decode(null, sort), sort, Limit.of(3));
+        String cursor = KeysetCursor.encode((KeysetScrollPosition) first.positionAt(first.size() - 1));
+        Window<OrderDetailRepository.OrderDetailSummary> second = orderDetailRepository.findSummariesBy(KeysetCursor.decode(cursor, sort), sort, Limit.of(3));
+
+        assertEquals(List.of(2L, 3L, 4L), first.stream().map(OrderDetailRepository.OrderDetailSummary::getProductId).toList());
+        assertEquals(List.of(1L, 1L, 2L), first.stream().map(OrderDetailRepository.OrderDetailSummary::getOrderId).toList());
+        assertEquals(List.of(5L), second.stream().map(OrderDetailRepository.OrderDetailSummary::getProductId).toList());
+        assertFalse(second.hasNext(), "Expected the last window");
+    }
+}
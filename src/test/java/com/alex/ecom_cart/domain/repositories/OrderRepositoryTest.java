@@ -1,10 +1,16 @@
 package com.alex.ecom_cart.domain.repositories;
 
 import com.alex.ecom_cart.domain.entities.OrderEntity;
+import com.alex.ecom_cart.util.pagination.KeysetCursor;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -28,4 +34,20 @@ class OrderRepositoryTest extends RepositorySpec {
         assertTrue(result.stream().allMatch(order -> order.getCustomer().getId().equals(1L)));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("findSummariesBy should scroll orders by customer with the customer name and no entity")
+    void findSummariesBy_shouldScrollOrdersByKeyset() {
+        Sort sort = KeysetCursor.sortWithId(Sort.by("customer.id"), true);
+
+        Window<OrderRepository.OrderSummary> first = orderRepository.findSummariesBy(KeysetCursor.decode(null, sort), sort, Limit.of(1));
+        String cursor = KeysetCursor.encode((KeysetScrollPosition) first.positionAt(0));
+        Window<OrderRepository.OrderSummary> second = orderRepository.findSummariesBy(KeysetCursor.decode(cursor, sort), sort, Limit.of(1));
+
+        assertEquals("jane_smith", first.getContent().get(0).getCustomerUsername());
+        assertEquals(0, new BigDecimal("80.00").compareTo(first.getContent().get(0).getTotalPrice()));
+        assertTrue(first.hasNext(), "Expected the order of the other customer");
+        assertEquals("john_doe", second.getContent().get(0).getCustomerUsername());
+        assertFalse(second.hasNext(), "Expected the last window");
+    }
+}
@@ -1,14 +1,24 @@
 package com.alex.ecom_cart.domain.repositories;
 
+import com.alex.ecom_cart.api.dtos.response.ProductResponse;
 import com.alex.ecom_cart.domain.entities.CustomerEntity;
 import com.alex.ecom_cart.domain.entities.ProductEntity;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import com.alex.ecom_cart.util.pagination.KeysetCursor;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 class ProductRepositoryTest extends RepositorySpec{
@@ -57,4 +67,89 @@ class ProductRepositoryTest extends RepositorySpec{
 
         assertFalse(result.stream().allMatch(ProductEntity::isEnabled), "products should be disabled");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("decrementStock should only update enabled products with enough stock")
+    void decrementStock_shouldRejectDisabledAndInsufficientProducts() {
+        // product 1 has 10 units, product 6 is disabled
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        quantities.put(1L, 4);
+        quantities.put(2L, 21);
+        quantities.put(6L, 1);
+
+        List<Long> rejected = productRepository.decrementStock(quantities);
+
+        assertEquals(List.of(2L, 6L), rejected, "Expected product 2 and 6 to be rejected");
+        assertEquals(6, productRepository.findById(1L).orElseThrow().getStock(), "Expected stock to be decremented");
+    }
+
+    @Test
+    @DisplayName("addStock should apply deltas in one batch and leave rows that would go negative untouched")
+    void addStock_shouldRejectDeltasBelowZero() {
+        // product 1 has 10 units and product 2 has 20
+        productRepository.overwriteStock(Map.of(3L, 40), 500);
+        List<Long> rejected = productRepository.addStock(Map.of(1L, -4, 2L, -21), 500);
+
+        assertEquals(List.of(2L), rejected, "Expected product 2 to be rejected");
+        Map<Long, Integer> stock = productRepository.findStockTargets(List.of(1L, 2L, 3L)).stream()
+                .collect(Collectors.toMap(ProductRepository.StockTarget::getId, ProductRepository.StockTarget::getStock));
+        assertEquals(Map.of(1L, 6, 2L, 20, 3L, 40), stock);
+    }
+
+    @Test
+    @DisplayName("findByEnabledTrue should continue after the cursor of the previous window without repeating rows")
+    void findByEnabledTrue_shouldScrollEnabledProductsByKeyset() {
+        Sort sort = KeysetCursor.sortWithId(Sort.by("price"), true);
+
+        Window<ProductEntity> first = productRepository.findByEnabledTrue(KeysetCursor.decode(null, sort), sort, Limit.of(3));
+        String cursor = KeysetCursor.encode((KeysetScrollPosition) first.positionAt(first.size() - 1));
+        Window<ProductEntity> second = productRepository.findByEnabledTrue(KeysetCursor.decode(cursor, sort), sort, Limit.of(3));
+
+        assertEquals(3, first.size(), "Expected a full first window");
+        assertTrue(first.hasNext(), "Expected more products after the first window");
+        assertEquals(2, second.size(), "Expected the remaining enabled products");
+        assertFalse(second.hasNext(), "Expected the last window");
+        assertTrue(second.stream().noneMatch(product -> first.getContent().contains(product)), "Windows should not overlap");
+        assertTrue(second.stream().allMatch(ProductEntity::isEnabled), "products should be enabled");
+    }
+
+    @Test
+    @DisplayName("KeysetCursor should reject a cursor taken with another sort field")
+    void keysetCursor_shouldRejectCursorOfAnotherSort() {
+        Sort byPrice = KeysetCursor.sortWithId(Sort.by("price"), true);
+        Window<ProductEntity> window = productRepository.findByEnabledTrue(KeysetCursor.decode(null, byPrice), byPrice, Limit.of(1));
+        String cursor = KeysetCursor.encode((KeysetScrollPosition) window.positionAt(0));
+
+        Sort byName = KeysetCursor.sortWithId(Sort.by("name"), true);
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(cursor, byName));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("not-a-cursor", byName));
+    }
+
+    @Test
+    @DisplayName("findActiveResponses should read enabled products with their category id in one query")
+    void findActiveResponses_shouldProjectEnabledProducts() {
+        Page<ProductResponse> result = productRepository.findActiveResponses(PageRequest.of(0, 5, Sort.by("price").descending()));
+
+        assertEquals(5, result.getTotalElements(), "Expected 5 enabled products");
+        assertTrue(result.stream().allMatch(product -> product.getCategory() != null), "Category id should be selected");
+        assertTrue(productRepository.findEnabledResponseById(6L).isEmpty(), "product 6 is disabled");
+    }
+
+    @Test
+    @DisplayName("recordInventoryDrain should accept a drain id only once")
+    void recordInventoryDrain_shouldRejectRepeatedDrain() {
+        assertTrue(productRepository.recordInventoryDrain("drain-1"));
+        assertFalse(productRepository.recordInventoryDrain("drain-1"), "Expected the second run to be skipped");
+        assertEquals(1, productRepository.pruneInventoryDrains(LocalDateTime.now().plusMinutes(1)));
+    }
+
+    @Test
+    @DisplayName("findEnabledVersionById should read the version and the stock of an enabled product only")
+    void findEnabledVersionById_shouldReadVersionAndStock() {
+        ProductRepository.ProductVersion version = productRepository.findEnabledVersionById(1L).orElseThrow();
+
+        assertEquals(0L, version.getVersion());
+        assertEquals(productRepository.findEnabledResponseById(1L).orElseThrow().getStock(), version.getStock());
+        assertTrue(productRepository.findEnabledVersionById(6L).isEmpty(), "Product 6 is disabled");
+    }
+}
@@ -0,0 +1,55 @@
+package com.alex.ecom_cart.domain.repositories;
+
+import com.alex.ecom_cart.domain.entities.ProductStockStripeEntity;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductStockStripeRepositoryTest extends RepositorySpec {
+
+    @Autowired
+    private ProductStockStripeRepository productStockStripeRepository;
+
+    @Test
+    @DisplayName("replaceStripes should spread the stock evenly across the stripes")
+    void replaceStripes_shouldSpreadStock() {
+        productStockStripeRepository.replaceStripes(1L, 3, 10);
+
+        List<Integer> stock = productStockStripeRepository.findAll().stream()
+                .sorted((a, b) -> a.getId().getStripe().compareTo(b.getId().getStripe()))
+                .map(ProductStockStripeEntity::getStock)
+                .toList();
+
+        assertEquals(List.of(4, 3, 3), stock, "Expected the remainder to go to the first stripes");
+    }
+
+    @Test
+    @DisplayName("decrementStripes should take from several stripes when no single stripe has enough stock")
+    void decrementStripes_shouldTakeAcrossStripes() {
+        productStockStripeRepository.replaceStripes(1L, 3, 10);
+
+        assertTrue(productStockStripeRepository.decrementStripes(1L, 3, 7), "Expected 7 of 10 units to be reserved");
+        assertFalse(productStockStripeRepository.decrementStripes(1L, 3, 4), "Expected only 3 units to be left");
+
+        int left = productStockStripeRepository.findAll().stream().mapToInt(ProductStockStripeEntity::getStock).sum();
+        assertEquals(3, left);
+    }
+
+    @Test
+    @DisplayName("addToStripes should apply a delta relatively and refuse to take more than the stripes hold")
+    void addToStripes_shouldApplyRelativeDelta() {
+        productStockStripeRepository.replaceStripes(1L, 3, 10);
+        // An order taken between the read and the bulk update must not be overwritten
+        productStockStripeRepository.decrementStripes(1L, 3, 2);
+
+        assertTrue(productStockStripeRepository.addToStripes(1L, 3, 5));
+        assertEquals(13, productStockStripeRepository.sumStripes(1L));
+        assertFalse(productStockStripeRepository.addToStripes(1L, 3, -14), "Expected only 13 units to be held");
+        assertTrue(productStockStripeRepository.addToStripes(1L, 3, -13));
+        assertEquals(0, productStockStripeRepository.sumStripes(1L));
+    }
+}
@@ -0,0 +1,154 @@
+package com.alex.ecom_cart.infrastructure.cache;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import redis.embedded.RedisServer;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedisCacheManagerWrapperTest {
+
+    private static final int REDIS_PORT = 6392;
+    private static final String CACHE_NAME = "products";
+
+    private static RedisServer redisServer;
+    private static RedissonClient redissonClient;
+
+    private Cache cache;
+    private RedisCacheManagerWrapper cacheManagerWrapper;
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        redisServer = new RedisServer(REDIS_PORT);
+        redisServer.start();
+
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + REDIS_PORT);
+        redissonClient = Redisson.create(config);
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        redissonClient.shutdown();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redissonClient.getKeys().flushall();
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(CACHE_NAME);
+        cache = cacheManager.getCache(CACHE_NAME);
+        cacheManagerWrapper = new RedisCacheManagerWrapper(cacheManager, redissonClient, 60);
+    }
+
+    @Test
+    @DisplayName("evictTaggedKeys should evict only the values cached with the tag")
+    void evictTaggedKeys_ShouldEvictOnlyDependentKeys() {
+        cacheManagerWrapper.getCacheValue(CACHE_NAME, "product:categoryId:1:name:asc:0", List.of("category:1"), () -> "page 0");
+        cacheManagerWrapper.getCacheValue(CACHE_NAME, "product:categoryId:1:name:asc:1", List.of("category:1"), () -> "page 1");
+        cacheManagerWrapper.getCacheValue(CACHE_NAME, "product:categoryId:2:name:asc:0", List.of("category:2"), () -> "other");
+        cache.put("product:id:1", "laptop");
+
+        cacheManagerWrapper.evictTaggedKeys(CACHE_NAME, List.of("category:1"));
+
+        assertNull(cache.get("product:categoryId:1:name:asc:0"));
+        assertNull(cache.get("product:categoryId:1:name:asc:1"));
+        assertEquals("other", cache.get("product:categoryId:2:name:asc:0", String.class));
+        assertEquals("laptop", cache.get("product:id:1", String.class));
+        assertEquals(0, redissonClient.getKeys()
+                        .countExists(RedisCacheManagerWrapper.TAG_KEY_PREFIX + CACHE_NAME + ":category:1"),
+                "Expected the evicted keys to be removed from the tag");
+    }
+
+    @Test
+    @DisplayName("getCacheValue should not keep a value whose tag was evicted while it was loading")
+    void getCacheValue_ShouldDropValue_WhenEvictedDuringLoad() {
+        String key = "product:categoryId:1:name:asc:0";
+        // Loads outside the map like the Redis backed caches, so the eviction can run in the middle of a load
+        Cache loadingCache = new ConcurrentMapCache(CACHE_NAME) {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T get(Object key, Callable<T> valueLoader) {
+                ValueWrapper cached = get(key);
+                if (cached != null) {
+                    return (T) cached.get();
+                }
+                try {
+                    T value = valueLoader.call();
+                    put(key, value);
+                    return value;
+                } catch (Exception e) {
+                    throw new ValueRetrievalException(key, valueLoader, e);
+                }
+            }
+        };
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(loadingCache));
+        cacheManager.afterPropertiesSet();
+        RedisCacheManagerWrapper wrapper = new RedisCacheManagerWrapper(cacheManager, redissonClient, 60);
+
+        // The writer commits and evicts after the reader tagged the key and read the old rows
+        assertEquals("stale", wrapper.getCacheValue(CACHE_NAME, key, List.of("category:1"), () -> {
+            wrapper.evictTaggedKeys(CACHE_NAME, List.of("category:1"));
+            return "stale";
+        }));
+        assertNull(loadingCache.get(key), "Expected the stale page not to stay cached");
+
+        assertEquals("fresh", wrapper.getCacheValue(CACHE_NAME, key, List.of("category:1"), () -> "fresh"));
+        assertEquals("fresh", loadingCache.get(key, String.class));
+        wrapper.evictTaggedKeys(CACHE_NAME, List.of("category:1"));
+        assertNull(loadingCache.get(key), "Expected the reloaded page to be tagged for the next eviction");
+    }
+
+    @Test
+    @DisplayName("evictTaggedKeys should wait for the commit of the current transaction")
+    void evictTaggedKeys_ShouldRunAfterCommit() {
+        String key = "product:categoryId:1:name:asc:0";
+        cacheManagerWrapper.getCacheValue(CACHE_NAME, key, List.of("category:1"), () -> "page 0");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cacheManagerWrapper.evictTaggedKeys(CACHE_NAME, List.of("category:1"));
+            assertEquals("page 0", cache.get(key, String.class));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    @DisplayName("getCacheValue should tag a key only when it is loaded")
+    void getCacheValue_ShouldTagOnMissOnly() {
+        cache.put("product:categoryId:1:name:asc:0", "cached");
+
+        assertEquals("cached", cacheManagerWrapper.getCacheValue(CACHE_NAME, "product:categoryId:1:name:asc:0",
+                List.of("category:1"), () -> "loaded"));
+        assertEquals(0, redissonClient.getKeys().count());
+    }
+
+    @Test
+    @DisplayName("getCacheValue should rethrow the exception of the loader as it is")
+    void getCacheValue_ShouldRethrowLoaderException() {
+        assertThrows(IllegalStateException.class, () -> cacheManagerWrapper.getCacheValue(CACHE_NAME, "product:id:9",
+                () -> {
+                    throw new IllegalStateException("missing");
+                }));
+    }
+}
@@ -0,0 +1,159 @@
+package com.alex.ecom_cart.infrastructure.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RFuture;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class TwoLevelCacheManagerTest {
+
+    private static final String CACHE_NAME = "products";
+
+    private ConcurrentMapCacheManager remote;
+    private RTopic topic;
+    private TwoLevelCacheManager cacheManager;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        remote = new ConcurrentMapCacheManager(CACHE_NAME);
+        topic = mock(RTopic.class);
+        when(topic.publishAsync(any())).thenReturn(mock(RFuture.class));
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        when(redissonClient.getTopic(TwoLevelCacheManager.INVALIDATION_TOPIC)).thenReturn(topic);
+
+        cacheManager = new TwoLevelCacheManager(remote, redissonClient, 1 << 20, Duration.ofMinutes(1));
+    }
+
+    @Test
+    @DisplayName("get should answer from the local level once the value was read from Redis")
+    void get_ShouldServeFromLocalLevel_AfterFirstRead() {
+        remote.getCache(CACHE_NAME).put("product:id:1", "laptop");
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+
+        assertEquals("laptop", cache.get("product:id:1", String.class));
+        remote.getCache(CACHE_NAME).evict("product:id:1");
+
+        assertEquals("laptop", cache.get("product:id:1", String.class));
+    }
+
+    @Test
+    @DisplayName("put should write both levels and announce the key to the other nodes")
+    void put_ShouldWriteBothLevelsAndBroadcast() {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+
+        cache.put("product:id:1", "laptop");
+
+        assertEquals("laptop", remote.getCache(CACHE_NAME).get("product:id:1", String.class));
+        verify(topic).publishAsync(argThat(message -> message instanceof TwoLevelCacheManager.CacheInvalidation invalidation
+                && invalidation.cacheName().equals(CACHE_NAME) && invalidation.key().equals("product:id:1")));
+    }
+
+    @Test
+    @DisplayName("an invalidation from another node should only drop the local entry")
+    void onInvalidation_ShouldDropLocalEntry_WhenItComesFromAnotherNode() {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        cache.put("product:id:1", "laptop");
+        remote.getCache(CACHE_NAME).put("product:id:1", "updated laptop");
+
+        cacheManager.onInvalidation(new TwoLevelCacheManager.CacheInvalidation("other-node", CACHE_NAME, "product:id:1"));
+
+        assertEquals("updated laptop", cache.get("product:id:1", String.class));
+    }
+
+    @Test
+    @DisplayName("evictAll should drop the keys from both levels with a single broadcast")
+    void evictAll_ShouldEvictBothLevelsAndBroadcastOnce() {
+        TwoLevelCache cache = (TwoLevelCache) cacheManager.getCache(CACHE_NAME);
+        cache.put("product:id:1", "laptop");
+        cache.put("product:id:2", "phone");
+        clearInvocations(topic);
+
+        cache.evictAll(List.of("product:id:1", "product:id:2"));
+
+        assertNull(cache.get("product:id:1"));
+        assertNull(remote.getCache(CACHE_NAME).get("product:id:2"));
+        verify(topic, times(1)).publishAsync(any());
+    }
+
+    @Test
+    @DisplayName("an invalidation with several keys from another node should drop each local entry")
+    void onInvalidation_ShouldDropEveryLocalEntry_WhenKeyIsCollection() {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        cache.put("product:id:1", "laptop");
+        cache.put("product:id:2", "phone");
+        remote.getCache(CACHE_NAME).clear();
+
+        cacheManager.onInvalidation(new TwoLevelCacheManager.CacheInvalidation("other-node", CACHE_NAME,
+                List.of("product:id:1", "product:id:2")));
+
+        assertNull(cache.get("product:id:1"));
+        assertNull(cache.get("product:id:2"));
+    }
+
+    @Test
+    @DisplayName("a clear from another node should drop every local entry of that cache")
+    void onInvalidation_ShouldClearLocalLevel_WhenKeyIsNull() {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        cache.put("product:id:1", "laptop");
+        remote.getCache(CACHE_NAME).clear();
+
+        cacheManager.onInvalidation(new TwoLevelCacheManager.CacheInvalidation("other-node", CACHE_NAME, null));
+
+        assertNull(cache.get("product:id:1"));
+    }
+
+    @Test
+    @DisplayName("get should hand every caller its own copy, so changing a response does not change the cache")
+    @SuppressWarnings("unchecked")
+    void get_ShouldReturnCopies_FromLocalLevel() {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        cache.put("product:ids", new ArrayList<>(List.of(1L, 2L)));
+
+        List<Long> first = cache.get("product:ids", List.class);
+        first.add(3L);
+
+        assertEquals(List.of(1L, 2L), cache.get("product:ids", List.class));
+        assertNotSame(first, cache.get("product:ids", List.class));
+    }
+
+    @Test
+    @DisplayName("get should not keep a Redis value locally when an invalidation came in while it was read")
+    void get_ShouldNotRefillLocalLevel_WhenInvalidatedDuringRead() {
+        AtomicBoolean raced = new AtomicBoolean();
+        TwoLevelCache[] cache = new TwoLevelCache[1];
+        ConcurrentMapCache slowRemote = new ConcurrentMapCache(CACHE_NAME) {
+            @Override
+            public ValueWrapper get(Object key) {
+                ValueWrapper read = super.get(key);
+                if (raced.compareAndSet(false, true)) {
+                    // Another node writes the key and its invalidation lands while this read is on the wire
+                    super.put(key, "updated laptop");
+                    cache[0].evictLocal(key);
+                }
+                return read;
+            }
+        };
+        slowRemote.put("product:id:1", "laptop");
+        cache[0] = new TwoLevelCache(slowRemote, Caffeine.newBuilder().build(), key -> { });
+
+        assertEquals("laptop", cache[0].get("product:id:1", String.class));
+        assertEquals("updated laptop", cache[0].get("product:id:1", String.class));
+    }
+}
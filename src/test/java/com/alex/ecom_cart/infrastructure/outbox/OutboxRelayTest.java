@@ -0,0 +1,95 @@
+package com.alex.ecom_cart.infrastructure.outbox;
+
+import com.alex.ecom_cart.domain.entities.OutboxEntity;
+import com.alex.ecom_cart.domain.repositories.OutboxRepository;
+import com.alex.ecom_cart.util.enums.OutboxEventType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class OutboxRelayTest {
+
+    private OutboxRepository outboxRepository;
+    private InMemoryOutboxSink sink;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository = mock(OutboxRepository.class);
+        sink = new InMemoryOutboxSink();
+        relay = new OutboxRelay(outboxRepository, sink, mock(PlatformTransactionManager.class), 2);
+    }
+
+    @Test
+    @DisplayName("relay should publish every batch in id order and delete what was published")
+    void relay_ShouldPublishBatchesInOrder() {
+        List<OutboxEntity> first = List.of(event(1L), event(2L));
+        List<OutboxEntity> second = List.of(event(3L));
+        when(outboxRepository.findAllByOrderByIdAsc(any(Pageable.class))).thenReturn(first, second);
+
+        relay.relay();
+
+        assertEquals(List.of(1L, 2L, 3L), sink.getEvents().stream().map(OutboxEvent::getId).toList());
+        verify(outboxRepository).deleteAllInBatch(first);
+        verify(outboxRepository).deleteAllInBatch(second);
+    }
+
+    @Test
+    @DisplayName("relay should keep the batch when the sink fails")
+    void relay_ShouldNotDelete_WhenSinkFails() {
+        OutboxSink failingSink = events -> {
+            throw new IllegalStateException("sink down");
+        };
+        relay = new OutboxRelay(outboxRepository, failingSink, mock(PlatformTransactionManager.class), 2);
+        when(outboxRepository.findAllByOrderByIdAsc(any(Pageable.class))).thenReturn(List.of(event(1L)));
+
+        assertThrows(IllegalStateException.class, () -> relay.relay());
+        verify(outboxRepository, never()).deleteAllInBatch(any());
+    }
+
+    @Test
+    @DisplayName("ndjson sink should append one json line per event")
+    void ndjsonSink_ShouldAppendOneLinePerEvent(@TempDir Path dir) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        Path file = dir.resolve("events.ndjson");
+        NdjsonOutboxSink ndjsonSink = new NdjsonOutboxSink(objectMapper, file.toString());
+        relay = new OutboxRelay(outboxRepository, ndjsonSink, mock(PlatformTransactionManager.class), 2);
+        when(outboxRepository.findAllByOrderByIdAsc(any(Pageable.class))).thenReturn(List.of(event(1L)), List.of(event(2L)));
+
+        relay.relay();
+        relay.relay();
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        JsonNode line = objectMapper.readTree(lines.get(0));
+        assertEquals(1L, line.get("id").asLong());
+        assertEquals(OutboxEventType.ORDER_CREATED.name(), line.get("eventType").asText());
+        assertEquals(10, line.get("payload").get("id").asInt());
+    }
+
+    private OutboxEntity event(Long id) {
+        return OutboxEntity.builder()
+                .id(id)
+                .aggregateType("order")
+                .aggregateId(10L)
+                .eventType(OutboxEventType.ORDER_CREATED)
+                .payload("{\"id\":10}")
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
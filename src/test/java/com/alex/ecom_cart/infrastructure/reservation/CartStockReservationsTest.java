@@ -0,0 +1,118 @@
+package com.alex.ecom_cart.infrastructure.reservation;
+
+import com.alex.ecom_cart.util.exceptions.InsufficientStockException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartStockReservationsTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private CartStockReservations reservations;
+
+    @BeforeEach
+    void setUp() {
+        now.set(0);
+        reservations = new CartStockReservations(true, 10, 1000, 4, now::get);
+    }
+
+    @Test
+    @DisplayName("hold should turn away a cart when the holds of the others leave too little stock")
+    void hold_ShouldThrow_WhenOtherCartsHoldTheStock() {
+        reservations.hold(1L, 7L, "Laptop", 3, 5);
+
+        assertThrows(InsufficientStockException.class, () -> reservations.hold(2L, 7L, "Laptop", 3, 5));
+        reservations.hold(2L, 7L, "Laptop", 2, 5);
+        assertEquals(5, reservations.held(7L));
+    }
+
+    @Test
+    @DisplayName("hold should replace the hold of the line and always let it go down")
+    void hold_ShouldReplaceHoldOfLine() {
+        reservations.hold(1L, 7L, "Laptop", 4, 5);
+        reservations.hold(1L, 7L, "Laptop", 5, 5);
+        assertEquals(5, reservations.held(7L));
+
+        reservations.hold(1L, 7L, "Laptop", 2, 1);
+        assertEquals(2, reservations.held(7L));
+
+        reservations.hold(1L, 7L, "Laptop", 0, 1);
+        assertEquals(0, reservations.held(7L));
+    }
+
+    @Test
+    @DisplayName("expire should release the holds whose time to live ran out, counting from their last change")
+    void expire_ShouldReleaseExpiredHolds() {
+        reservations.hold(1L, 7L, "Laptop", 2, 5);
+        now.set(5000);
+        reservations.hold(2L, 7L, "Laptop", 1, 5);
+        reservations.hold(1L, 8L, "Mouse", 1, 5);
+
+        now.set(11000);
+        reservations.expire();
+        assertEquals(1, reservations.held(7L));
+        assertEquals(1, reservations.held(8L));
+
+        now.set(16000);
+        reservations.expire();
+        assertEquals(0, reservations.held(7L));
+        assertEquals(0, reservations.held(8L));
+    }
+
+    @Test
+    @DisplayName("releaseCart should drop every hold of the cart and leave the others")
+    void releaseCart_ShouldReleaseHoldsOfCart() {
+        reservations.hold(1L, 7L, "Laptop", 2, 5);
+        reservations.hold(1L, 8L, "Mouse", 1, 5);
+        reservations.hold(2L, 7L, "Laptop", 3, 5);
+
+        reservations.releaseCart(1L);
+
+        assertEquals(3, reservations.held(7L));
+        assertEquals(0, reservations.held(8L));
+    }
+
+    @Test
+    @DisplayName("check should count every hold for an order without a cart")
+    void check_ShouldCountEveryHold_WhenNoCart() {
+        reservations.hold(1L, 7L, "Laptop", 3, 5);
+
+        assertThrows(InsufficientStockException.class, () -> reservations.check(null, 7L, "Laptop", 3, 5));
+        reservations.check(null, 7L, "Laptop", 2, 5);
+        reservations.check(1L, 7L, "Laptop", 3, 5);
+    }
+
+    @Test
+    @DisplayName("the undo of a hold should put the line back as it was, unless it changed again since")
+    void hold_ShouldUndoToPreviousHold() {
+        reservations.hold(1L, 7L, "Laptop", 2, 5);
+        Runnable raise = reservations.hold(1L, 7L, "Laptop", 4, 5);
+
+        raise.run();
+        assertEquals(2, reservations.held(7L));
+
+        Runnable stale = reservations.hold(1L, 7L, "Laptop", 3, 5);
+        reservations.hold(1L, 7L, "Laptop", 1, 5);
+        stale.run();
+        assertEquals(1, reservations.held(7L));
+
+        Runnable first = reservations.hold(2L, 8L, "Mouse", 1, 5);
+        first.run();
+        assertEquals(0, reservations.held(8L));
+    }
+
+    @Test
+    @DisplayName("a disabled ledger should hold nothing and never throw")
+    void disabled_ShouldDoNothing() {
+        CartStockReservations disabled = new CartStockReservations(false, 10, 1000, 4, now::get);
+
+        disabled.hold(1L, 7L, "Laptop", 10, 1);
+        disabled.check(2L, 7L, "Laptop", 10, 1);
+
+        assertEquals(0, disabled.held(7L));
+    }
+}
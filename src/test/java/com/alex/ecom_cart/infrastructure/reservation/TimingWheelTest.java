@@ -0,0 +1,48 @@
+package com.alex.ecom_cart.infrastructure.reservation;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    @Test
+    @DisplayName("advance should return the items that came due, up to one tick late and never early")
+    void advance_ShouldReturnDueItems() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 4, 0);
+        wheel.schedule("a", 1500);
+        wheel.schedule("b", 2000);
+
+        assertEquals(List.of(), wheel.advance(1999));
+        assertEquals(List.of("a"), wheel.advance(2000));
+        assertEquals(List.of("b"), wheel.advance(3000));
+        assertEquals(List.of(), wheel.advance(10000));
+    }
+
+    @Test
+    @DisplayName("advance should bring deadlines past the window back down from the overflow wheels")
+    void advance_ShouldCascadeFromOverflowWheels() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 4, 0);
+        wheel.schedule("near", 3000);
+        wheel.schedule("far", 10000);
+        wheel.schedule("farthest", 40000);
+
+        assertEquals(List.of("near"), wheel.advance(9999));
+        assertEquals(List.of("far"), wheel.advance(11000));
+        assertEquals(List.of(), wheel.advance(40000));
+        assertEquals(List.of("farthest"), wheel.advance(41000));
+    }
+
+    @Test
+    @DisplayName("schedule should refuse a deadline that has already passed")
+    void schedule_ShouldRefusePastDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 4, 5000);
+
+        assertFalse(wheel.schedule("late", 4000));
+        assertTrue(wheel.schedule("now", 5000));
+        assertEquals(List.of("now"), wheel.advance(6000));
+    }
+}
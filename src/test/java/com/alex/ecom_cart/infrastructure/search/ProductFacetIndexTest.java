@@ -0,0 +1,91 @@
+package com.alex.ecom_cart.infrastructure.search;
+
+import com.alex.ecom_cart.domain.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProductFacetIndexTest {
+
+    private ProductFacetIndex productFacetIndex;
+
+    @BeforeEach
+    void setUp() {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        when(productRepository.findFacetProducts()).thenReturn(List.of(
+                product(1L, 1L, "1200.00", 10, true),
+                product(2L, 1L, "40.00", 0, true),
+                product(3L, 2L, "30.00", 5, true),
+                product(4L, 3L, "80.00", 3, true),
+                product(5L, 2L, "45.00", 2, false)));
+
+        productFacetIndex = new ProductFacetIndex(productRepository, List.of(new BigDecimal("50"), new BigDecimal("100")));
+        productFacetIndex.rebuild();
+    }
+
+    @Test
+    @DisplayName("query should OR the values of a facet and AND the facets")
+    void query_ShouldCombineFilters() {
+        ProductFacetIndex.FacetResult result = productFacetIndex.query(List.of(1L, 2L), List.of("0-50"), true, true, 0, 10);
+
+        assertEquals(List.of(3L), result.ids());
+        assertEquals(1, result.totalElements());
+    }
+
+    @Test
+    @DisplayName("the count of a facet should ignore the filter of that same facet")
+    void query_ShouldCountEachFacetWithoutItsOwnFilter() {
+        ProductFacetIndex.FacetResult result = productFacetIndex.query(List.of(1L), List.of(), null, true, 0, 10);
+
+        assertEquals(List.of(1L, 2L), result.ids());
+        assertEquals(Map.of(1L, 2, 2L, 1, 3L, 1), result.categories());
+        assertEquals(1, result.priceBands().get("0-50"));
+        assertEquals(0, result.priceBands().get("50-100"));
+        assertEquals(1, result.priceBands().get("100+"));
+        assertEquals(1, result.inStock());
+        assertEquals(1, result.outOfStock());
+    }
+
+    @Test
+    @DisplayName("query should page the matches in id order")
+    void query_ShouldPageMatches() {
+        assertEquals(List.of(3L, 4L), productFacetIndex.query(List.of(), List.of(), null, true, 1, 2).ids());
+        assertEquals(List.of(5L), productFacetIndex.query(List.of(), List.of(), null, false, 0, 10).ids());
+    }
+
+    @Test
+    @DisplayName("index and remove should move a product between bitmaps without a rebuild")
+    void index_ShouldReplaceAndRemoveProducts() {
+        productFacetIndex.index(2L, 3L, new BigDecimal("60.00"), 4, true);
+        productFacetIndex.remove(1L);
+
+        ProductFacetIndex.FacetResult result = productFacetIndex.query(List.of(3L), List.of("50-100"), true, true, 0, 10);
+
+        assertEquals(List.of(2L, 4L), result.ids());
+        assertFalse(result.categories().containsKey(1L));
+    }
+
+    @Test
+    @DisplayName("query should reject an unknown price band")
+    void query_ShouldThrow_WhenPriceBandIsUnknown() {
+        assertThrows(IllegalArgumentException.class,
+                () -> productFacetIndex.query(List.of(), List.of("10-20"), null, true, 0, 10));
+    }
+
+    private ProductRepository.FacetProduct product(Long id, Long categoryId, String price, Integer stock, boolean enabled) {
+        ProductRepository.FacetProduct product = mock(ProductRepository.FacetProduct.class);
+        when(product.getId()).thenReturn(id);
+        when(product.getCategoryId()).thenReturn(categoryId);
+        when(product.getPrice()).thenReturn(new BigDecimal(price));
+        when(product.getStock()).thenReturn(stock);
+        when(product.getEnabled()).thenReturn(enabled);
+        return product;
+    }
+}
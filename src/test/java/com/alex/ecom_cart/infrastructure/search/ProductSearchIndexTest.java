@@ -0,0 +1,70 @@
+package com.alex.ecom_cart.infrastructure.search;
+
+import com.alex.ecom_cart.domain.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex productSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        when(productRepository.findSearchableProducts()).thenReturn(List.of(
+                product(1L, "Gaming Laptop", "Fast laptop with a dedicated graphics card"),
+                product(2L, "Laptop Bag", "Padded bag for laptops up to 15 inches"),
+                product(3L, "Wireless Mouse", "Ergonomic mouse, works with any laptop")));
+
+        productSearchIndex = new ProductSearchIndex(productRepository);
+        productSearchIndex.rebuild();
+    }
+
+    @Test
+    @DisplayName("search should rank a name match above a description match")
+    void search_ShouldRankNameMatchesFirst() {
+        List<Long> result = productSearchIndex.search("laptop", 10);
+
+        assertEquals(3, result.size());
+        assertEquals(3L, result.get(2));
+    }
+
+    @Test
+    @DisplayName("search should require every term and match them as prefixes")
+    void search_ShouldMatchAllTermsByPrefix() {
+        assertEquals(List.of(2L), productSearchIndex.search("lap BAG", 10));
+        assertEquals(List.of(3L), productSearchIndex.search("wirel", 10));
+        assertTrue(productSearchIndex.search("laptop keyboard", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("index and remove should update the index without a rebuild")
+    void index_ShouldReplaceAndRemoveProducts() {
+        productSearchIndex.index(3L, "Wireless Keyboard", "Compact keyboard");
+        productSearchIndex.remove(2L);
+
+        assertEquals(List.of(3L), productSearchIndex.search("keyboard", 10));
+        assertTrue(productSearchIndex.search("mouse", 10).isEmpty());
+        assertTrue(productSearchIndex.search("bag", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("tokenize should ignore case, accents and punctuation")
+    void tokenize_ShouldNormalizeText() {
+        assertEquals(List.of("cafe", "con", "leche", "500g"), ProductSearchIndex.tokenize("Café con-Leche, 500g!"));
+    }
+
+    private ProductRepository.SearchableProduct product(Long id, String name, String description) {
+        ProductRepository.SearchableProduct product = mock(ProductRepository.SearchableProduct.class);
+        when(product.getId()).thenReturn(id);
+        when(product.getName()).thenReturn(name);
+        when(product.getDescription()).thenReturn(description);
+        return product;
+    }
+}
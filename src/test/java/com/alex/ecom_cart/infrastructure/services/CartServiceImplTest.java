@@ -1,6 +1,7 @@
 package com.alex.ecom_cart.infrastructure.services;
 
 import com.alex.ecom_cart.DummyData;
+import com.alex.ecom_cart.api.dtos.request.CartOperationRequest;
 import com.alex.ecom_cart.api.dtos.response.CartResponse;
 import com.alex.ecom_cart.domain.entities.CartEntity;
 import com.alex.ecom_cart.domain.entities.CartProductEntity;
@@ -10,15 +11,25 @@ import com.alex.ecom_cart.domain.repositories.CartProductRepository;
 import com.alex.ecom_cart.domain.repositories.CartRepository;
 import com.alex.ecom_cart.domain.repositories.CustomerRepository;
 import com.alex.ecom_cart.domain.repositories.ProductRepository;
+import com.alex.ecom_cart.infrastructure.abstract_services.IOrderService;
+import com.alex.ecom_cart.infrastructure.reservation.CartStockReservations;
+import com.alex.ecom_cart.util.enums.CartOperationType;
+import com.alex.ecom_cart.util.exceptions.IdNotFoundException;
 import com.alex.ecom_cart.util.exceptions.ResourceNotEnabledException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -33,6 +44,10 @@ class CartServiceImplTest extends ServiceSpec{
     private ProductRepository productRepository;
     @Mock
     private CartProductRepository cartProductRepository;
+    @Mock
+    private IOrderService orderService;
+    @Mock
+    private CartStockReservations cartStockReservations;
 
     @InjectMocks
     private CartServiceImpl cartService;
@@ -72,6 +87,8 @@ class CartServiceImplTest extends ServiceSpec{
     void createCartForCustomer_ShouldReturnExistingCart_WhenExists() {
         when(customerRepository.findById(customer.getId())).thenReturn(Optional.of(customer));
         when(cartRepository.findByCustomerId(customer.getId())).thenReturn(Optional.of(cart));
+        CartRepository.CartLine emptyCart = cartLine(null, null, null, null);
+        when(cartRepository.findLinesById(cart.getId())).thenReturn(List.of(emptyCart));
 
         CartResponse response = cartService.createCartForCustomer(customer.getId());
 
@@ -93,56 +110,195 @@ class CartServiceImplTest extends ServiceSpec{
     @Test
     @DisplayName("Should add product to cart")
     void addProductToCart_ShouldAdd_WhenValid() {
-        CartProductEntity cartProduct = new CartProductEntity(cart, product, 1);
-        when(cartRepository.findById(cart.getId())).thenReturn(Optional.of(cart));
-        when(productRepository.findById(product.getId())).thenReturn(Optional.of(product));
-        when(cartProductRepository.findById(any())).thenReturn(Optional.of(cartProduct));
-        when(cartProductRepository.save(any())).thenReturn(cartProduct);
-        when(cartRepository.findByIdWithProducts(cart.getId())).thenReturn(Optional.of(cart));
+        CartRepository.CartLine line = cartLine(product.getId(), 3, product.getPrice(), product.getPrice());
+        when(cartProductRepository.upsertQuantity(cart.getId(), product.getId(), 2)).thenReturn(1);
+        when(cartRepository.findLinesById(cart.getId())).thenReturn(List.of(line));
 
         CartResponse response = cartService.addProductToCart(cart.getId(), product.getId(), 2);
 
-        assertNotNull(response);
-        verify(cartProductRepository).save(any(CartProductEntity.class));
+        assertEquals(customer.getId(), response.getCustomerId());
+        assertEquals(3, response.getProducts().get(0).getQuantity());
+        verify(cartProductRepository, never()).save(any());
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    @DisplayName("Should hold the whole line when reservations are enabled")
+    void addProductToCart_ShouldHoldLine_WhenReservationsEnabled() {
+        CartRepository.CartLine line = cartLine(product.getId(), 3, product.getPrice(), product.getPrice());
+        when(cartStockReservations.isEnabled()).thenReturn(true);
+        when(cartProductRepository.upsertQuantity(cart.getId(), product.getId(), 2)).thenReturn(1);
+        when(cartRepository.findLinesById(cart.getId())).thenReturn(List.of(line));
+
+        cartService.addProductToCart(cart.getId(), product.getId(), 2);
+
+        verify(cartStockReservations).hold(cart.getId(), product.getId(), "Product " + product.getId(), 3, 10);
+    }
+
+    @Test
+    @DisplayName("Should undo the hold of the line when the add is rolled back")
+    void addProductToCart_ShouldUndoHold_WhenRolledBack() {
+        CartRepository.CartLine line = cartLine(product.getId(), 3, product.getPrice(), product.getPrice());
+        Runnable undo = mock(Runnable.class);
+        when(cartStockReservations.isEnabled()).thenReturn(true);
+        when(cartProductRepository.upsertQuantity(cart.getId(), product.getId(), 2)).thenReturn(1);
+        when(cartRepository.findLinesById(cart.getId())).thenReturn(List.of(line));
+        when(cartStockReservations.hold(cart.getId(), product.getId(), "Product " + product.getId(), 3, 10)).thenReturn(undo);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cartService.addProductToCart(cart.getId(), product.getId(), 2);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+                    synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            verify(undo, never()).run();
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+                    synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(undo).run();
+    }
+
+    @Test
+    @DisplayName("Should release the hold of a removed line only once the removal commits")
+    void removeProductFromCart_ShouldReleaseHoldAfterCommit() {
+        CartRepository.CartLine emptyCart = cartLine(null, null, null, null);
+        when(cartRepository.findLinesById(cart.getId())).thenReturn(List.of(emptyCart));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cartService.removeProductFromCart(cart.getId(), product.getId());
+            verify(cartStockReservations, never()).release(any(), any());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(cartStockReservations).release(cart.getId(), product.getId());
     }
 
     @Test
     @DisplayName("Shoul Throw ResourceNotEnabledException when product not enabled")
     void addProductToCart_ShouldThrowResourceNotEnabledException_WhenProductDisabled() {
         product.setEnabled(false);
-        when(cartRepository.findById(cart.getId())).thenReturn(Optional.of(cart));
+        when(cartRepository.existsById(cart.getId())).thenReturn(true);
         when(productRepository.findById(product.getId())).thenReturn(Optional.of(product));
 
         assertThrows(ResourceNotEnabledException.class, () ->
                 cartService.addProductToCart(cart.getId(), product.getId(), 1));
     }
 
+    @Test
+    @DisplayName("Should throw IdNotFoundException when adding to a cart that does not exist")
+    void addProductToCart_ShouldThrowIdNotFoundException_WhenCartMissing() {
+        assertThrows(IdNotFoundException.class, () ->
+                cartService.addProductToCart(cart.getId(), product.getId(), 1));
+        verifyNoInteractions(productRepository);
+    }
+
     @Test
     @DisplayName("Should remove product form cart")
     void removeProductFromCart_ShouldWork_WhenValid() {
-        when(cartRepository.findByIdWithProducts(cart.getId())).thenReturn(Optional.of(cart));
+        CartRepository.CartLine emptyCart = cartLine(null, null, null, null);
+        when(cartRepository.findLinesById(cart.getId())).thenReturn(List.of(emptyCart));
 
         CartResponse response = cartService.removeProductFromCart(cart.getId(), product.getId());
 
-        assertNotNull(response);
+        assertTrue(response.getProducts().isEmpty());
         verify(cartProductRepository).deleteById(any());
     }
 
+    @Test
+    @DisplayName("Should fold the operations over the cart lines and validate the products at once")
+    void applyOperations_ShouldApplyOperationsInOrder() {
+        ProductEntity other = DummyData.createProductEntity(DummyData.createCategoryEntity());
+        other.setId(2L);
+        cart.getCartProducts().add(new CartProductEntity(cart, product, 1));
+        when(cartRepository.findByIdForUpdate(cart.getId())).thenReturn(Optional.of(cart));
+        when(cartRepository.findByIdWithProducts(cart.getId())).thenReturn(Optional.of(cart));
+        when(productRepository.findAllById(Set.of(1L, 2L))).thenReturn(List.of(product, other));
+
+        CartResponse response = cartService.applyOperations(cart.getId(), List.of(
+                operation(CartOperationType.ADD, 1L, 2),
+                operation(CartOperationType.SET, 2L, 4),
+                operation(CartOperationType.ADD, 2L, 1),
+                operation(CartOperationType.REMOVE, 1L, null)));
+
+        assertEquals(1, response.getProducts().size());
+        assertEquals(2L, response.getProducts().get(0).getProductId());
+        assertEquals(5, response.getProducts().get(0).getQuantity());
+        verify(productRepository, times(1)).findAllById(any());
+        InOrder inOrder = inOrder(cartRepository);
+        inOrder.verify(cartRepository).findByIdForUpdate(cart.getId());
+        inOrder.verify(cartRepository).findByIdWithProducts(cart.getId());
+    }
+
+    @Test
+    @DisplayName("Should reject the whole batch when one operation is invalid")
+    void applyOperations_ShouldThrow_WhenOperationIsInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> cartService.applyOperations(cart.getId(),
+                List.of(operation(CartOperationType.ADD, 1L, 1), operation(CartOperationType.SET, 2L, null))));
+        assertThrows(IllegalArgumentException.class, () -> cartService.applyOperations(cart.getId(), List.of()));
+        verifyNoInteractions(cartRepository, productRepository);
+    }
+
+    @Test
+    @DisplayName("Should throw IdNotFoundException when an operation names a missing product")
+    void applyOperations_ShouldThrow_WhenProductMissing() {
+        when(cartRepository.findByIdForUpdate(cart.getId())).thenReturn(Optional.of(cart));
+        when(cartRepository.findByIdWithProducts(cart.getId())).thenReturn(Optional.of(cart));
+        when(productRepository.findAllById(Set.of(999L))).thenReturn(List.of());
+
+        assertThrows(IdNotFoundException.class, () -> cartService.applyOperations(cart.getId(),
+                List.of(operation(CartOperationType.ADD, 999L, 1))));
+    }
+
     @Test
     @DisplayName("Should return cart for given valid Cart ID")
     void getCartById_ShouldReturnCart_WhenExists() {
-        when(cartRepository.findById(cart.getId())).thenReturn(Optional.of(cart));
+        CartRepository.CartLine line = cartLine(product.getId(), 2, new BigDecimal("19.99"), new BigDecimal("19.99"));
+        when(cartRepository.findLinesById(cart.getId())).thenReturn(List.of(line));
 
         CartResponse response = cartService.getCartById(cart.getId());
 
         assertNotNull(response);
         assertEquals(cart.getId(), response.getCartId());
+        assertEquals(new BigDecimal("39.98"), response.getTotal());
+        assertFalse(response.getProducts().get(0).isPriceChanged());
+    }
+
+    @Test
+    @DisplayName("Should total the cart at live prices and flag changed prices and short stock")
+    void getCartById_ShouldFlagChangedLines() {
+        CartRepository.CartLine cheaper = cartLine(1L, 3, new BigDecimal("10.50"), new BigDecimal("12.00"));
+        CartRepository.CartLine unchanged = cartLine(2L, 1, new BigDecimal("0.25"), new BigDecimal("0.25"));
+        when(unchanged.getStock()).thenReturn(0);
+        when(cartRepository.findLinesById(cart.getId())).thenReturn(List.of(cheaper, unchanged));
+
+        CartResponse response = cartService.getCartById(cart.getId());
+
+        assertEquals(new BigDecimal("31.50"), response.getProducts().get(0).getLineTotal());
+        assertTrue(response.getProducts().get(0).isPriceChanged());
+        assertFalse(response.getProducts().get(0).isInsufficientStock());
+        assertFalse(response.getProducts().get(1).isPriceChanged());
+        assertTrue(response.getProducts().get(1).isInsufficientStock());
+        assertEquals(new BigDecimal("31.75"), response.getTotal());
+    }
+
+    @Test
+    @DisplayName("Should throw IdNotFoundException when the cart has no row")
+    void getCartById_ShouldThrow_WhenCartMissing() {
+        when(cartRepository.findLinesById(99L)).thenReturn(List.of());
+
+        assertThrows(IdNotFoundException.class, () -> cartService.getCartById(99L));
     }
 
     @Test
     @DisplayName("Should return cart for given valid customer ID")
     void getCartByCustomerId_ShouldReturnCart_WhenExists() {
-        when(cartRepository.findByCustomerId(customer.getId())).thenReturn(Optional.of(cart));
+        CartRepository.CartLine emptyCart = cartLine(null, null, null, null);
+        when(cartRepository.findLinesByCustomerId(customer.getId())).thenReturn(List.of(emptyCart));
 
         CartResponse response = cartService.getCartByCustomerId(customer.getId());
 
@@ -156,4 +312,21 @@ class CartServiceImplTest extends ServiceSpec{
         cartService.clearCart(cart.getId());
         verify(cartProductRepository).deleteAllByCartId(cart.getId());
     }
+
+    private CartOperationRequest operation(CartOperationType op, Long productId, Integer quantity) {
+        return CartOperationRequest.builder().op(op).productId(productId).quantity(quantity).build();
+    }
+
+    private CartRepository.CartLine cartLine(Long productId, Integer quantity, BigDecimal price, BigDecimal unitPrice) {
+        CartRepository.CartLine line = mock(CartRepository.CartLine.class);
+        when(line.getCartId()).thenReturn(cart.getId());
+        when(line.getCustomerId()).thenReturn(customer.getId());
+        when(line.getProductId()).thenReturn(productId);
+        when(line.getName()).thenReturn(productId != null ? "Product " + productId : null);
+        when(line.getPrice()).thenReturn(price);
+        when(line.getUnitPrice()).thenReturn(unitPrice);
+        when(line.getStock()).thenReturn(productId != null ? 10 : null);
+        when(line.getQuantity()).thenReturn(quantity);
+        return line;
+    }
 }
@@ -22,6 +22,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -54,18 +55,25 @@ class CustomerServiceImplTest extends ServiceSpec {
 
     @Test
     void readAll() {
-        List<CustomerEntity> customerList = List.of(customer);
+        List<CustomerResponse> customerList = List.of(
+                new CustomerResponse(customer.getId(), customer.getUsername(), customer.getEmail()));
 
         Pageable pageable = PageRequest.of(0, 5, Sort.by("username").ascending());
-        Page<CustomerEntity> customerPage = new PageImpl<>(customerList, pageable, customerList.size());
+        Page<CustomerResponse> customerPage = new PageImpl<>(customerList, pageable, customerList.size());
 
-        when(customerRepository.findAllActive(any(PageRequest.class))).thenReturn(customerPage);
+        CustomerRepository.CustomerRole customerRole = mock(CustomerRepository.CustomerRole.class);
+        when(customerRole.getCustomerId()).thenReturn(customer.getId());
+        when(customerRole.getRole()).thenReturn(role.getName());
+
+        when(customerRepository.findActiveResponses(any(PageRequest.class))).thenReturn(customerPage);
+        when(customerRepository.findRolesByCustomerIds(Set.of(customer.getId()))).thenReturn(List.of(customerRole));
 
         Page<CustomerResponse> resultPage = customerService.readAll(null, false, 0);
 
         assertNotNull(resultPage);
         assertEquals(1, resultPage.getTotalElements());
         assertEquals(customer.getUsername(), resultPage.getContent().get(0).getUsername());
+        assertEquals(List.of(role.getName().name()), resultPage.getContent().get(0).getRoles());
     }
 
     @Test
@@ -148,9 +156,9 @@ class CustomerServiceImplTest extends ServiceSpec {
     @Test
     @DisplayName("should return all desabled customers")
     void findAllDisabledCustomers_ShouldReturnDisabledCustomers() {
-        List<CustomerEntity> customers = DummyData.createDisabledCustomerList();
+        List<CustomerResponse> customers = List.of(new CustomerResponse(2L, "disabled_user", "disabled@example.com"));
 
-        when(customerRepository.findAllByEnabledFalse()).thenReturn(customers);
+        when(customerRepository.findDisabledResponses()).thenReturn(customers);
         List<CustomerResponse> response = customerService.findAllDisabledCustomers();
 
         assertNotNull(response);
@@ -244,6 +252,9 @@ class CustomerServiceImplTest extends ServiceSpec {
         assertFalse(customer.isEnabled());
         verify(customerRepository).save(customer);
         verify(customerRepository).flush();
+        verify(cacheHelper).evictCacheKeys("customers", "customer:id:" + customerId,
+                "customer:username:" + customer.getUsername(), "customer:email:" + customer.getEmail());
+        verify(cacheHelper).evictCacheKeys("customers", "customer:disabled");
     }
 
     @Test
@@ -0,0 +1,128 @@
+package com.alex.ecom_cart.infrastructure.services;
+
+import com.alex.ecom_cart.api.dtos.request.OrderProductRequest;
+import com.alex.ecom_cart.api.dtos.request.OrderRequest;
+import com.alex.ecom_cart.api.dtos.response.OrderResponse;
+import com.alex.ecom_cart.domain.repositories.OrderRepository;
+import com.alex.ecom_cart.domain.repositories.ProductRepository;
+import com.alex.ecom_cart.infrastructure.abstract_services.IOrderService;
+import com.alex.ecom_cart.util.exceptions.IdNotFoundException;
+import com.alex.ecom_cart.util.exceptions.InsufficientStockException;
+import com.alex.ecom_cart.util.exceptions.ResourceNotEnabledException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the group commit against the real transaction manager and H2, a database of its own keeps the stock untouched for the other tests
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ecom-cart_group_commit_test;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "order.group-commit.enabled=true",
+        "order.group-commit.window-ms=1000",
+        "order.group-commit.max-batch-size=4",
+        "order.group-commit.committers=1"})
+@ActiveProfiles("test")
+class GroupCommitOrderServiceImplDatabaseTest {
+
+    @Autowired
+    private IOrderService orderService;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private ProductRepository productRepository;
+
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() {
+        callers = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("create should commit the good orders of a mixed group and reject each bad one with its own error")
+    void create_ShouldCommitGoodOrdersOfMixedGroup() throws Exception {
+        assertInstanceOf(GroupCommitOrderServiceImpl.class, orderService);
+        long ordersBefore = orderRepository.count();
+
+        List<CompletableFuture<OrderResponse>> results = submit(
+                order(1L, 3L, 2),
+                order(1L, 999L, 1),
+                order(2L, 4L, 1),
+                order(2L, 6L, 1));
+
+        assertNotNull(results.get(0).get(10, TimeUnit.SECONDS).getId());
+        assertNotNull(results.get(2).get(10, TimeUnit.SECONDS).getId());
+        assertInstanceOf(IdNotFoundException.class, failureOf(results.get(1)));
+        assertInstanceOf(ResourceNotEnabledException.class, failureOf(results.get(3)));
+
+        assertEquals(ordersBefore + 2, orderRepository.count());
+        assertEquals(98, productRepository.findById(3L).orElseThrow().getStock());
+        assertEquals(49, productRepository.findById(4L).orElseThrow().getStock());
+    }
+
+    @Test
+    @DisplayName("create should write the group again order by order when a race on stock fails it after validation")
+    void create_ShouldRetryAlone_WhenStockRunsOutInsideTheGroup() throws Exception {
+        long ordersBefore = orderRepository.count();
+
+        // Each laptop order fits the stock of 10 on its own, both together do not
+        List<CompletableFuture<OrderResponse>> results = submit(
+                order(1L, 1L, 6),
+                order(2L, 1L, 6),
+                order(1L, 5L, 1));
+
+        int created = 0;
+        int rejected = 0;
+        for (CompletableFuture<OrderResponse> laptop : results.subList(0, 2)) {
+            try {
+                assertNotNull(laptop.get(10, TimeUnit.SECONDS).getId());
+                created++;
+            } catch (ExecutionException e) {
+                assertInstanceOf(InsufficientStockException.class, e.getCause());
+                rejected++;
+            }
+        }
+        assertEquals(1, created);
+        assertEquals(1, rejected);
+        assertNotNull(results.get(2).get(10, TimeUnit.SECONDS).getId());
+
+        assertEquals(ordersBefore + 2, orderRepository.count());
+        assertEquals(4, productRepository.findById(1L).orElseThrow().getStock());
+        assertEquals(199, productRepository.findById(5L).orElseThrow().getStock());
+    }
+
+    private List<CompletableFuture<OrderResponse>> submit(OrderRequest... requests) {
+        return List.of(requests).stream()
+                .map(request -> CompletableFuture.supplyAsync(() -> orderService.create(request), callers))
+                .toList();
+    }
+
+    private static Throwable failureOf(CompletableFuture<OrderResponse> result) {
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> result.get(10, TimeUnit.SECONDS));
+        return failure.getCause();
+    }
+
+    private static OrderRequest order(Long customerId, Long productId, int quantity) {
+        return OrderRequest.builder()
+                .customerId(customerId)
+                .products(List.of(OrderProductRequest.builder().productId(productId).quantity(quantity).build()))
+                .build();
+    }
+}
@@ -0,0 +1,154 @@
+package com.alex.ecom_cart.infrastructure.services;
+
+import com.alex.ecom_cart.DummyData;
+import com.alex.ecom_cart.api.dtos.request.OrderRequest;
+import com.alex.ecom_cart.api.dtos.response.OrderResponse;
+import com.alex.ecom_cart.util.exceptions.GroupCommitTimeoutException;
+import com.alex.ecom_cart.util.exceptions.InsufficientStockException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class GroupCommitOrderServiceImplTest {
+
+    private OrderServiceImpl orderService;
+    private PlatformTransactionManager transactionManager;
+    private GroupCommitOrderServiceImpl groupCommitOrderService;
+
+    @BeforeEach
+    void setUp() {
+        orderService = mock(OrderServiceImpl.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+
+        // A long window and a batch of three so the three calls below always share one transaction
+        groupCommitOrderService = new GroupCommitOrderServiceImpl(orderService, transactionManager, 2000, 3, 1, 100, 5000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        groupCommitOrderService.shutdown();
+    }
+
+    @Test
+    @DisplayName("create should write the valid orders in one transaction and answer the invalid one up front")
+    void create_ShouldGroupValidOrdersAndRejectInvalidOnes() throws Exception {
+        OrderRequest good = DummyData.createOrderRequest();
+        OrderRequest bad = DummyData.createOrderRequest();
+        bad.setCustomerId(2L);
+        OrderResponse response = DummyData.createOrderResponse();
+
+        when(orderService.create(good)).thenReturn(response);
+        doThrow(new InsufficientStockException("dummy")).when(orderService).validate(bad);
+
+        CompletableFuture<OrderResponse> first = CompletableFuture.supplyAsync(() -> groupCommitOrderService.create(good));
+        CompletableFuture<OrderResponse> second = CompletableFuture.supplyAsync(() -> groupCommitOrderService.create(bad));
+        CompletableFuture<OrderResponse> third = CompletableFuture.supplyAsync(() -> groupCommitOrderService.create(good));
+
+        assertEquals(response, first.get(5, TimeUnit.SECONDS));
+        assertEquals(response, third.get(5, TimeUnit.SECONDS));
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(InsufficientStockException.class, failure.getCause());
+
+        verify(orderService, never()).create(bad);
+        verify(transactionManager, times(1)).getTransaction(any());
+        verify(transactionManager, never()).rollback(any());
+    }
+
+    @Test
+    @DisplayName("create should roll the group back and write every order alone when one fails inside it")
+    void create_ShouldFallBackToSingleOrders_WhenAnOrderFailsInTheGroup() throws Exception {
+        OrderRequest good = DummyData.createOrderRequest();
+        OrderRequest raced = DummyData.createOrderRequest();
+        raced.setCustomerId(2L);
+        OrderResponse response = DummyData.createOrderResponse();
+
+        when(orderService.create(good)).thenReturn(response);
+        when(orderService.create(raced)).thenThrow(new InsufficientStockException("dummy"));
+
+        CompletableFuture<OrderResponse> first = CompletableFuture.supplyAsync(() -> groupCommitOrderService.create(good));
+        CompletableFuture<OrderResponse> second = CompletableFuture.supplyAsync(() -> groupCommitOrderService.create(raced));
+        CompletableFuture<OrderResponse> third = CompletableFuture.supplyAsync(() -> groupCommitOrderService.create(good));
+
+        assertEquals(response, first.get(5, TimeUnit.SECONDS));
+        assertEquals(response, third.get(5, TimeUnit.SECONDS));
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(InsufficientStockException.class, failure.getCause());
+
+        verify(transactionManager, times(1)).rollback(any());
+        verify(orderService, times(2)).create(raced);
+    }
+
+    @Test
+    @DisplayName("create should retry every order on its own when the group commit fails")
+    void create_ShouldFallBackToSingleOrders_WhenGroupCommitFails() {
+        OrderRequest request = DummyData.createOrderRequest();
+        OrderResponse response = DummyData.createOrderResponse();
+        when(orderService.create(request)).thenReturn(response);
+
+        TransactionStatus groupStatus = mock(TransactionStatus.class);
+        when(transactionManager.getTransaction(any())).thenReturn(groupStatus);
+        doThrow(new IllegalStateException("commit failed")).when(transactionManager).commit(groupStatus);
+
+        groupCommitOrderService.shutdown();
+        groupCommitOrderService = new GroupCommitOrderServiceImpl(orderService, transactionManager, 0, 1, 1, 100, 5000);
+
+        assertEquals(response, groupCommitOrderService.create(request));
+        verify(orderService, times(2)).create(request);
+    }
+
+    @Test
+    @DisplayName("create should keep waiting past the timeout for a group its order is already in")
+    void create_ShouldWaitForTheGroup_WhenGroupTakesLongerThanTheTimeout() throws Exception {
+        OrderRequest request = DummyData.createOrderRequest();
+        OrderResponse response = DummyData.createOrderResponse();
+        when(orderService.create(request)).thenReturn(response);
+        doAnswer(invocation -> {
+            Thread.sleep(300);
+            return null;
+        }).when(orderService).validate(request);
+
+        groupCommitOrderService.shutdown();
+        groupCommitOrderService = new GroupCommitOrderServiceImpl(orderService, transactionManager, 0, 1, 1, 100, 100);
+
+        assertEquals(response, groupCommitOrderService.create(request));
+        verify(orderService, times(1)).create(request);
+    }
+
+    @Test
+    @DisplayName("create should give up on an order that is still queued after the timeout and never write it")
+    void create_ShouldThrow_WhenOrderIsStillQueued() throws Exception {
+        OrderRequest blocking = DummyData.createOrderRequest();
+        OrderRequest queued = DummyData.createOrderRequest();
+        queued.setCustomerId(2L);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> release.await(5, TimeUnit.SECONDS)).when(orderService).validate(blocking);
+
+        groupCommitOrderService.shutdown();
+        groupCommitOrderService = new GroupCommitOrderServiceImpl(orderService, transactionManager, 0, 1, 1, 100, 100);
+
+        CompletableFuture<OrderResponse> first = CompletableFuture.supplyAsync(() -> groupCommitOrderService.create(blocking));
+        try {
+            // The only committer is stuck on the first order, so the second one never leaves the queue
+            Thread.sleep(50);
+            assertThrows(GroupCommitTimeoutException.class, () -> groupCommitOrderService.create(queued));
+        } finally {
+            release.countDown();
+        }
+        first.get(5, TimeUnit.SECONDS);
+        verify(orderService, never()).validate(queued);
+        verify(orderService, never()).create(queued);
+    }
+}
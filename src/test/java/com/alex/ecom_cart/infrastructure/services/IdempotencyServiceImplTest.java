@@ -0,0 +1,158 @@
+package com.alex.ecom_cart.infrastructure.services;
+
+import com.alex.ecom_cart.DummyData;
+import com.alex.ecom_cart.api.dtos.request.OrderRequest;
+import com.alex.ecom_cart.api.dtos.response.OrderResponse;
+import com.alex.ecom_cart.util.exceptions.IdempotencyKeyInUseException;
+import com.alex.ecom_cart.util.exceptions.IdempotencyKeyMismatchException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import redis.embedded.RedisServer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyServiceImplTest {
+
+    private static final int REDIS_PORT = 6391;
+    private static final String KEY = "order:1:retry-1";
+
+    private static RedisServer redisServer;
+    private static RedissonClient redissonClient;
+
+    private IdempotencyServiceImpl idempotencyService;
+    private OrderRequest orderRequest;
+    private OrderResponse orderResponse;
+    private AtomicInteger calls;
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        redisServer = new RedisServer(REDIS_PORT);
+        redisServer.start();
+
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + REDIS_PORT);
+        redissonClient = Redisson.create(config);
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        redissonClient.shutdown();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redissonClient.getKeys().flushall();
+        idempotencyService = new IdempotencyServiceImpl(redissonClient, new ObjectMapper(), 60, 5000);
+        orderRequest = DummyData.createOrderRequest();
+        orderResponse = DummyData.createOrderResponse();
+        calls = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("execute should return the stored result without running the action again")
+    void execute_ShouldReplayStoredResult_WhenKeyWasUsed() {
+        OrderResponse first = idempotencyService.execute(KEY, orderRequest, this::createOrder);
+        OrderResponse second = idempotencyService.execute(KEY, orderRequest, this::createOrder);
+
+        assertEquals(first, second);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    @DisplayName("execute should run the action again when the first call failed")
+    void execute_ShouldNotStoreFailures() {
+        assertThrows(IllegalStateException.class, () -> idempotencyService.execute(KEY, orderRequest, () -> {
+            throw new IllegalStateException("checkout failed");
+        }));
+
+        assertEquals(orderResponse, idempotencyService.execute(KEY, orderRequest, this::createOrder));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    @DisplayName("execute should make a concurrent duplicate wait for the in-flight result")
+    void execute_ShouldWaitForInFlightCall() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<OrderResponse> first = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute(KEY, orderRequest, () -> {
+                    started.countDown();
+                    await(release);
+                    return createOrder();
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<OrderResponse> duplicate = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute(KEY, orderRequest, this::createOrder));
+        release.countDown();
+
+        assertEquals(first.get(5, TimeUnit.SECONDS), duplicate.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    @DisplayName("execute should reject a key reused with a different request instead of replaying it")
+    void execute_ShouldReject_WhenRequestDiffers() {
+        idempotencyService.execute(KEY, orderRequest, this::createOrder);
+        OrderRequest otherRequest = DummyData.createOrderRequest();
+        otherRequest.setCustomerId(orderRequest.getCustomerId() + 1);
+
+        assertThrows(IdempotencyKeyMismatchException.class,
+                () -> idempotencyService.execute(KEY, otherRequest, this::createOrder));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    @DisplayName("execute should report a conflict when the in-flight call keeps the key past the wait")
+    void execute_ShouldThrowConflict_WhenKeyStaysLocked() throws Exception {
+        idempotencyService = new IdempotencyServiceImpl(redissonClient, new ObjectMapper(), 60, 50);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<OrderResponse> first = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute(KEY, orderRequest, () -> {
+                    started.countDown();
+                    await(release);
+                    return createOrder();
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertThrows(IdempotencyKeyInUseException.class,
+                () -> idempotencyService.execute(KEY, orderRequest, this::createOrder));
+        release.countDown();
+        assertEquals(orderResponse, first.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("execute should reject a blank key")
+    void execute_ShouldRejectBlankKey() {
+        assertThrows(IllegalArgumentException.class, () -> idempotencyService.execute(" ", orderRequest, this::createOrder));
+    }
+
+    private OrderResponse createOrder() {
+        calls.incrementAndGet();
+        return orderResponse;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -49,11 +49,11 @@ class OrderDetaisServiceImplTest extends ServiceSpec{
     @Test
     @DisplayName("Should return paged order detail responses sorted by price ascending")
     void readAll_ShouldReturnPagedOrderDetails() {
-        List<OrderDetailEntity> detailList = List.of(detail);
+        List<OrderDetailResponse> detailList = List.of(DummyData.createOrderDetailResponse());
         Pageable pageable = PageRequest.of(0, 5, Sort.by("product").ascending());
-        Page<OrderDetailEntity> page = new PageImpl<>(detailList, pageable, detailList.size());
+        Page<OrderDetailResponse> page = new PageImpl<>(detailList, pageable, detailList.size());
 
-        when(orderDetailRepository.findAll(any(PageRequest.class))).thenReturn(page);
+        when(orderDetailRepository.findAllResponses(any(PageRequest.class))).thenReturn(page);
 
         Page<OrderDetailResponse> resultPage = orderDetaisService.readAll("product", false, 0);
 
@@ -65,13 +65,13 @@ class OrderDetaisServiceImplTest extends ServiceSpec{
     @Test
     @DisplayName("Should return order details list when order ID exists")
     void findByOrderId_ShouldReturnOrderDetailResponses() {
-        ProductEntity product = DummyData.createProductEntity(DummyData.createCategoryEntity());
-        OrderDetailEntity detail1 = DummyData.createOrderDetailEntity(order, product);
-        OrderDetailEntity detail2 = DummyData.createOrderDetailEntity(order, product);
+        OrderDetailResponse detail1 = DummyData.createOrderDetailResponse();
+        OrderDetailResponse detail2 = DummyData.createOrderDetailResponse();
+        detail2.setId(2L);
         Long orderId = 1L;
 
         when(orderRepository.existsById(orderId)).thenReturn(true);
-        when(orderDetailRepository.findByOrderId(orderId)).thenReturn(List.of(detail1, detail2));
+        when(orderDetailRepository.findResponsesByOrderId(orderId)).thenReturn(List.of(detail1, detail2));
 
         List<OrderDetailResponse> responses = orderDetaisService.findByOrderId(orderId);
 
@@ -80,18 +80,17 @@ class OrderDetaisServiceImplTest extends ServiceSpec{
         assertEquals(detail1.getId(), responses.get(0).getId());
         assertEquals(detail2.getId(), responses.get(1).getId());
 
-        verify(orderDetailRepository).findByOrderId(orderId);
+        verify(orderDetailRepository).findResponsesByOrderId(orderId);
     }
 
     @Test
     @DisplayName("Should return order details list when product ID exists")
     void findByProductId() {
-        ProductEntity product = DummyData.createProductEntity(DummyData.createCategoryEntity());
-        OrderDetailEntity detail = DummyData.createOrderDetailEntity(order, product);
-        Long productId = product.getId();
+        OrderDetailResponse detail = DummyData.createOrderDetailResponse();
+        Long productId = detail.getProduct();
 
         when(productRepository.existsById(productId)).thenReturn(true);
-        when(orderDetailRepository.findByProductId(productId)).thenReturn(List.of(detail));
+        when(orderDetailRepository.findResponsesByProductId(productId)).thenReturn(List.of(detail));
 
         List<OrderDetailResponse> responses = orderDetaisService.findByProductId(productId);
 
@@ -99,6 +98,6 @@ class OrderDetaisServiceImplTest extends ServiceSpec{
         assertEquals(1, responses.size());
         assertEquals(detail.getId(), responses.get(0).getId());
 
-        verify(orderDetailRepository).findByProductId(productId);
+        verify(orderDetailRepository).findResponsesByProductId(productId);
     }
 }
\ No newline at end of file
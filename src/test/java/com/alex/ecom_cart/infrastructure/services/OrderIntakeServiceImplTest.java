@@ -0,0 +1,166 @@
+package com.alex.ecom_cart.infrastructure.services;
+
+import com.alex.ecom_cart.DummyData;
+import com.alex.ecom_cart.api.dtos.request.OrderRequest;
+import com.alex.ecom_cart.api.dtos.response.OrderIntakeResponse;
+import com.alex.ecom_cart.domain.entities.OrderIntakeEntity;
+import com.alex.ecom_cart.domain.repositories.OrderIntakeRepository;
+import com.alex.ecom_cart.infrastructure.abstract_services.IOrderService;
+import com.alex.ecom_cart.util.enums.IntakeStatus;
+import com.alex.ecom_cart.util.exceptions.InsufficientStockException;
+import com.alex.ecom_cart.util.exceptions.IntakeQueueFullException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OrderIntakeServiceImplTest {
+
+    private static final String TRACKING_ID = "tracking-1";
+
+    private OrderIntakeRepository orderIntakeRepository;
+    private IOrderService orderService;
+    private ObjectMapper objectMapper;
+    private OrderIntakeServiceImpl orderIntakeService;
+    private OrderRequest orderRequest;
+
+    @BeforeEach
+    void setUp() {
+        orderIntakeRepository = mock(OrderIntakeRepository.class);
+        orderService = mock(IOrderService.class);
+        objectMapper = new ObjectMapper();
+        orderIntakeService = new OrderIntakeServiceImpl(orderIntakeRepository, orderService, objectMapper,
+                mock(PlatformTransactionManager.class), 2, 1, 10, 3, 1000);
+        orderRequest = DummyData.createOrderRequest();
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderIntakeService.shutdown();
+    }
+
+    @Test
+    @DisplayName("enqueue should store the request as queued and return its tracking id")
+    void enqueue_ShouldStoreQueuedRequest() {
+        when(orderIntakeRepository.countByStatus(IntakeStatus.QUEUED)).thenReturn(0L);
+        when(orderIntakeRepository.save(any(OrderIntakeEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        OrderIntakeResponse response = orderIntakeService.enqueue(orderRequest);
+
+        assertNotNull(response.getTrackingId());
+        assertEquals(IntakeStatus.QUEUED, response.getStatus());
+        verify(orderIntakeRepository).save(argThat(intake ->
+                intake.getCustomerId().equals(orderRequest.getCustomerId()) && intake.getPayload().contains("products")));
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    @DisplayName("enqueue should reject the request when the queue is full")
+    void enqueue_ShouldThrow_WhenQueueIsFull() {
+        when(orderIntakeRepository.countByStatus(IntakeStatus.QUEUED)).thenReturn(2L);
+
+        assertThrows(IntakeQueueFullException.class, () -> orderIntakeService.enqueue(orderRequest));
+        verify(orderIntakeRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("process should create the order and mark the intake as completed")
+    void process_ShouldCompleteIntake() throws Exception {
+        when(orderIntakeRepository.findById(TRACKING_ID)).thenReturn(Optional.of(queued()));
+        when(orderService.create(any(OrderRequest.class))).thenReturn(DummyData.createOrderResponse());
+        when(orderIntakeRepository.transition(eq(TRACKING_ID), eq(IntakeStatus.QUEUED), eq(IntakeStatus.COMPLETED),
+                eq(1L), isNull(), any())).thenReturn(1);
+
+        orderIntakeService.process(TRACKING_ID);
+
+        verify(orderService).create(orderRequest);
+        verify(orderIntakeRepository, never()).transition(any(), any(), eq(IntakeStatus.FAILED), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("process should mark the intake as failed when the order is rejected")
+    void process_ShouldFailIntake_WhenOrderIsRejected() throws Exception {
+        when(orderIntakeRepository.findById(TRACKING_ID)).thenReturn(Optional.of(queued()));
+        when(orderService.create(any(OrderRequest.class))).thenThrow(new InsufficientStockException("dummy"));
+
+        orderIntakeService.process(TRACKING_ID);
+
+        verify(orderIntakeRepository).transition(eq(TRACKING_ID), eq(IntakeStatus.QUEUED), eq(IntakeStatus.FAILED),
+                isNull(), contains("insufficient stock"), any());
+    }
+
+    @Test
+    @DisplayName("process should leave the intake queued with a backoff when the database fails transiently")
+    void process_ShouldKeepIntakeQueued_WhenErrorIsTransient() throws Exception {
+        OrderIntakeEntity intake = queued();
+        intake.setAttempts(1);
+        when(orderIntakeRepository.findById(TRACKING_ID)).thenReturn(Optional.of(intake));
+        when(orderService.create(any(OrderRequest.class))).thenThrow(new CannotAcquireLockException("lock wait timeout"));
+
+        LocalDateTime before = LocalDateTime.now();
+        orderIntakeService.process(TRACKING_ID);
+
+        verify(orderIntakeRepository, never()).transition(any(), any(), any(), any(), any(), any());
+        verify(orderIntakeRepository).retryLater(eq(TRACKING_ID), eq(IntakeStatus.QUEUED), eq(2),
+                argThat(next -> !next.isBefore(before.plusSeconds(2))), eq("lock wait timeout"), any());
+    }
+
+    @Test
+    @DisplayName("process should mark the intake as failed once it used up its attempts")
+    void process_ShouldFailIntake_WhenAttemptsAreUsedUp() throws Exception {
+        OrderIntakeEntity intake = queued();
+        intake.setAttempts(2);
+        when(orderIntakeRepository.findById(TRACKING_ID)).thenReturn(Optional.of(intake));
+        when(orderService.create(any(OrderRequest.class))).thenThrow(new CannotAcquireLockException("lock wait timeout"));
+
+        orderIntakeService.process(TRACKING_ID);
+
+        verify(orderIntakeRepository).transition(eq(TRACKING_ID), eq(IntakeStatus.QUEUED), eq(IntakeStatus.FAILED),
+                isNull(), startsWith("Failed after 3 attempts"), any());
+        verify(orderIntakeRepository, never()).retryLater(any(), any(), anyInt(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("drain should hand out a single batch per run even when the queue is full")
+    void drain_ShouldProcessOneBatchPerRun() throws Exception {
+        List<String> batch = IntStream.range(0, 10).mapToObj(i -> TRACKING_ID).toList();
+        when(orderIntakeRepository.findReadyTrackingIds(eq(IntakeStatus.QUEUED), any(), any())).thenReturn(batch);
+
+        orderIntakeService.drain();
+
+        verify(orderIntakeRepository, times(1)).findReadyTrackingIds(eq(IntakeStatus.QUEUED), any(), any());
+    }
+
+    @Test
+    @DisplayName("process should skip an intake that is no longer queued")
+    void process_ShouldSkip_WhenAlreadyProcessed() throws Exception {
+        OrderIntakeEntity intake = queued();
+        intake.setStatus(IntakeStatus.COMPLETED);
+        when(orderIntakeRepository.findById(TRACKING_ID)).thenReturn(Optional.of(intake));
+
+        orderIntakeService.process(TRACKING_ID);
+
+        verifyNoInteractions(orderService);
+    }
+
+    private OrderIntakeEntity queued() throws Exception {
+        return OrderIntakeEntity.builder()
+                .trackingId(TRACKING_ID)
+                .customerId(orderRequest.getCustomerId())
+                .payload(objectMapper.writeValueAsString(orderRequest))
+                .status(IntakeStatus.QUEUED)
+                .build();
+    }
+}
@@ -5,11 +5,16 @@ import com.alex.ecom_cart.api.dtos.request.OrderProductRequest;
 import com.alex.ecom_cart.api.dtos.request.OrderRequest;
 import com.alex.ecom_cart.api.dtos.response.OrderResponse;
 import com.alex.ecom_cart.domain.entities.*;
+import com.alex.ecom_cart.domain.repositories.CartProductRepository;
+import com.alex.ecom_cart.domain.repositories.CartRepository;
 import com.alex.ecom_cart.domain.repositories.CustomerRepository;
-import com.alex.ecom_cart.domain.repositories.OrderDetailRepository;
 import com.alex.ecom_cart.domain.repositories.OrderRepository;
 import com.alex.ecom_cart.domain.repositories.ProductRepository;
+import com.alex.ecom_cart.infrastructure.abstract_services.IInventoryService;
+import com.alex.ecom_cart.infrastructure.abstract_services.IOutboxService;
+import com.alex.ecom_cart.infrastructure.reservation.CartStockReservations;
 import com.alex.ecom_cart.util.enums.OrderStatus;
+import com.alex.ecom_cart.util.enums.OutboxEventType;
 import com.alex.ecom_cart.util.exceptions.IdNotFoundException;
 import com.alex.ecom_cart.util.exceptions.InsufficientStockException;
 import com.alex.ecom_cart.util.exceptions.ResourceNotEnabledException;
@@ -21,11 +26,15 @@ import org.mockito.Mock;
 import org.springframework.data.domain.*;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class OrderServiceImplTest extends ServiceSpec{
@@ -33,11 +42,19 @@ class OrderServiceImplTest extends ServiceSpec{
     @Mock
     private OrderRepository orderRepository;
     @Mock
+    private CartRepository cartRepository;
+    @Mock
+    private CartProductRepository cartProductRepository;
+    @Mock
     private CustomerRepository customerRepository;
     @Mock
     private ProductRepository productRepository;
     @Mock
-    private OrderDetailRepository orderDetailRepository;
+    private IInventoryService inventoryService;
+    @Mock
+    private IOutboxService outboxService;
+    @Mock
+    private CartStockReservations cartStockReservations;
 
     @InjectMocks
     private OrderServiceImpl orderService;
@@ -64,44 +81,83 @@ class OrderServiceImplTest extends ServiceSpec{
 
     @Test
     void readAll() {
-        OrderEntity order = DummyData.createOrderEntity(customer, List.of());
-        order.setTotalPrice(product.getPrice().multiply(BigDecimal.valueOf(2)));
+        OrderResponse order = DummyData.createOrderResponse();
 
-        List<OrderEntity> orders = List.of(order);
+        List<OrderResponse> orders = List.of(order);
         Pageable pageable = PageRequest.of(0, 5, Sort.by("totalPrice").ascending());
-        Page<OrderEntity> orderPage = new PageImpl<>(orders, pageable, orders.size());
+        Page<OrderResponse> orderPage = new PageImpl<>(orders, pageable, orders.size());
 
-        when(orderRepository.findAll(any(PageRequest.class))).thenReturn(orderPage);
+        when(orderRepository.findAllResponses(any(PageRequest.class))).thenReturn(orderPage);
 
         Page<OrderResponse> result = orderService.readAll("totalPrice", false, 0);
 
         assertNotNull(result);
         assertEquals(1, result.getTotalElements());
         assertEquals(order.getTotalPrice(), result.getContent().get(0).getTotalPrice());
-        assertEquals(order.getCustomer().getUsername(), result.getContent().get(0).getUsername());
+        assertEquals(order.getUsername(), result.getContent().get(0).getUsername());
 
-        verify(orderRepository).findAll(any(PageRequest.class));
+        verify(orderRepository).findAllResponses(argThat(pageRequest ->
+                pageRequest.getSort().equals(Sort.by("totalPrice").ascending())));
     }
 
     @Test
     @DisplayName("Happy path Should create an order with valid customer and products")
     void create_ShouldReturnOrderResponse() {
         when(customerRepository.findById(customer.getId())).thenReturn(Optional.of(customer));
-        when(productRepository.findById(product.getId())).thenReturn(Optional.of(product));
-        when(productRepository.save(any(ProductEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(productRepository.findAllById(any())).thenReturn(List.of(product));
+        when(inventoryService.reserve(anyMap(), anyMap())).thenReturn(List.of());
         when(orderRepository.save(any(OrderEntity.class))).thenAnswer(inv -> {
             OrderEntity order = inv.getArgument(0);
             order.setId(1L);
             return order;
         });
-        when(orderDetailRepository.save(any(OrderDetailEntity.class))).thenAnswer(inv -> inv.getArgument(0));
 
         OrderResponse response = orderService.create(orderRequest);
 
         assertNotNull(response);
         assertEquals(customer.getUsername(), response.getUsername());
-        verify(orderRepository).save(any(OrderEntity.class));
-        verify(orderDetailRepository, times(1)).save(any(OrderDetailEntity.class));
+        verify(orderRepository).save(argThat(order -> order.getOrderDetails().size() == 1));
+        verify(inventoryService).reserve(eq(Map.of(product.getId(), product)), eq(Map.of(product.getId(), 2)));
+        verify(productRepository, never()).save(any(ProductEntity.class));
+        verify(outboxService).record("order", 1L, OutboxEventType.ORDER_CREATED, response);
+    }
+
+    @Test
+    @DisplayName("Happy path Should create an order from the cart lines and empty the cart")
+    void createFromCart_ShouldReturnOrderResponse() {
+        CartEntity cart = CartEntity.builder()
+                .id(1L)
+                .customer(customer)
+                .cartProducts(new ArrayList<>())
+                .build();
+        cart.getCartProducts().add(new CartProductEntity(cart, product, 3));
+
+        when(cartRepository.findByIdWithProducts(1L)).thenReturn(Optional.of(cart));
+        when(inventoryService.reserve(anyMap(), anyMap())).thenReturn(List.of());
+        when(orderRepository.save(any(OrderEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        OrderResponse response = orderService.createFromCart(1L);
+
+        assertEquals(product.getPrice().multiply(BigDecimal.valueOf(3)), response.getTotalPrice());
+        verify(inventoryService).reserve(eq(Map.of(product.getId(), product)), eq(Map.of(product.getId(), 3)));
+        verify(cartProductRepository).deleteByCartIdInBulk(1L);
+        verify(productRepository, never()).findAllById(any());
+        verify(cartStockReservations).check(1L, product.getId(), product.getName(), 3, product.getAvailableStock());
+    }
+
+    @Test
+    @DisplayName("Unhappy path Should throw IllegalStateException when the cart is empty")
+    void createFromCart_ShouldThrow_WhenCartIsEmpty() {
+        CartEntity cart = CartEntity.builder()
+                .id(1L)
+                .customer(customer)
+                .cartProducts(new ArrayList<>())
+                .build();
+        when(cartRepository.findByIdWithProducts(1L)).thenReturn(Optional.of(cart));
+
+        assertThrows(IllegalStateException.class, () -> orderService.createFromCart(1L));
+        verify(orderRepository, never()).save(any());
+        verify(cartProductRepository, never()).deleteByCartIdInBulk(anyLong());
     }
 
     @Test
@@ -126,7 +182,7 @@ class OrderServiceImplTest extends ServiceSpec{
     void create_ShouldThrow_WhenProductDisabled() {
         product.setEnabled(false);
         when(customerRepository.findById(anyLong())).thenReturn(Optional.of(customer));
-        when(productRepository.findById(anyLong())).thenReturn(Optional.of(product));
+        when(productRepository.findAllById(any())).thenReturn(List.of(product));
 
         assertThrows(ResourceNotEnabledException.class, () -> orderService.create(orderRequest));
     }
@@ -136,28 +192,56 @@ class OrderServiceImplTest extends ServiceSpec{
     void create_ShouldThrow_WhenInsufficientStock() {
         product.setStock(1);
         when(customerRepository.findById(anyLong())).thenReturn(Optional.of(customer));
-        when(productRepository.findById(anyLong())).thenReturn(Optional.of(product));
+        when(productRepository.findAllById(any())).thenReturn(List.of(product));
+
+        assertThrows(InsufficientStockException.class, () -> orderService.create(orderRequest));
+        verify(inventoryService, never()).reserve(anyMap(), anyMap());
+    }
+
+    @Test
+    @DisplayName("Unhappy path Should throw InsufficientStockException when carts hold the stock")
+    void create_ShouldThrow_WhenCartsHoldTheStock() {
+        when(customerRepository.findById(anyLong())).thenReturn(Optional.of(customer));
+        when(productRepository.findAllById(any())).thenReturn(List.of(product));
+        doThrow(new InsufficientStockException(product.getName())).when(cartStockReservations)
+                .check(null, product.getId(), product.getName(), 2, product.getAvailableStock());
+
+        assertThrows(InsufficientStockException.class, () -> orderService.create(orderRequest));
+        verify(inventoryService, never()).reserve(anyMap(), anyMap());
+    }
+
+    @Test
+    @DisplayName("Unhappy path Should throw InsufficientStockException when a concurrent order took the stock")
+    void create_ShouldThrow_WhenConditionalDecrementIsRejected() {
+        when(customerRepository.findById(anyLong())).thenReturn(Optional.of(customer));
+        when(productRepository.findAllById(any())).thenReturn(List.of(product));
+        when(inventoryService.reserve(anyMap(), anyMap())).thenReturn(List.of(product.getId()));
 
         assertThrows(InsufficientStockException.class, () -> orderService.create(orderRequest));
+        verify(orderRepository, never()).save(any(OrderEntity.class));
+    }
+
+    @Test
+    @DisplayName("Unhappy path Should throw IdNotFoundException when a product does not exist")
+    void create_ShouldThrow_WhenProductNotFound() {
+        when(customerRepository.findById(anyLong())).thenReturn(Optional.of(customer));
+        when(productRepository.findAllById(any())).thenReturn(List.of());
+
+        assertThrows(IdNotFoundException.class, () -> orderService.create(orderRequest));
     }
 
     @Test
     @DisplayName("Happy path Should return an order when ID is valid")
     void findById_ShouldReturnOrderResponse_WhenIdExists() {
-        CustomerEntity customer = DummyData.createCustomerEntity(DummyData.createRoleEntityCustomer());
-        ProductEntity product = DummyData.createProductEntity(DummyData.createCategoryEntity());
+        OrderResponse order = DummyData.createOrderResponse();
 
-        OrderDetailEntity detail = DummyData.createOrderDetailEntity(null, product);
-        OrderEntity order = DummyData.createOrderEntity(customer, List.of(detail));
-        detail.setOrder(order); // setear relación bidireccional
-
-        when(orderRepository.findById(order.getId())).thenReturn(Optional.of(order));
+        when(orderRepository.findResponseById(order.getId())).thenReturn(Optional.of(order));
 
         OrderResponse response = orderService.findById(order.getId());
 
         assertNotNull(response);
         assertEquals(order.getId(), response.getId());
-        assertEquals(order.getCustomer().getUsername(), response.getUsername());
+        assertEquals(order.getUsername(), response.getUsername());
         assertEquals(order.getTotalPrice(), response.getTotalPrice());
         assertEquals(order.getOrderStatus(), response.getOrderStatus());
     }
@@ -166,7 +250,7 @@ class OrderServiceImplTest extends ServiceSpec{
     @DisplayName("Unhappy pathShould throw IdNotFoundException when order ID does not exist")
     void findById_ShouldThrowException_WhenIdNotFound() {
         Long orderId = 999L;
-        when(orderRepository.findById(orderId)).thenReturn(Optional.empty());
+        when(orderRepository.findResponseById(orderId)).thenReturn(Optional.empty());
 
         assertThrows(IdNotFoundException.class, () -> orderService.findById(orderId));
     }
@@ -175,14 +259,10 @@ class OrderServiceImplTest extends ServiceSpec{
     @DisplayName("Should return order list for given customer ID")
     void findByCustomerId_ShouldReturnOrders() {
         CustomerEntity customer = DummyData.createCustomerEntity(DummyData.createRoleEntityCustomer());
-        ProductEntity product = DummyData.createProductEntity(DummyData.createCategoryEntity());
-
-        OrderDetailEntity detail = DummyData.createOrderDetailEntity(null, product);
-        OrderEntity order = DummyData.createOrderEntity(customer, List.of(detail));
-        detail.setOrder(order); // Relación bidireccional
+        OrderResponse order = DummyData.createOrderResponse();
 
         when(customerRepository.existsById(customer.getId())).thenReturn(true);
-        when(orderRepository.findByCustomerId(customer.getId())).thenReturn(List.of(order));
+        when(orderRepository.findResponsesByCustomerId(customer.getId())).thenReturn(List.of(order));
 
         List<OrderResponse> result = orderService.findByCustomerId(customer.getId());
 
@@ -211,6 +291,7 @@ class OrderServiceImplTest extends ServiceSpec{
         assertNotNull(response);
         assertEquals(OrderStatus.SHIPPED, response.getOrderStatus());
         verify(orderRepository).save(order);
+        verify(outboxService).record("order", order.getId(), OutboxEventType.ORDER_STATUS_CHANGED, response);
     }
 
     @Test
@@ -244,6 +325,7 @@ class OrderServiceImplTest extends ServiceSpec{
         assertNotNull(response);
         assertEquals(OrderStatus.CANCELLED, response.getOrderStatus());
         verify(orderRepository).save(order);
+        verify(outboxService).record("order", order.getId(), OutboxEventType.ORDER_CANCELLED, response);
     }
 
     @Test
@@ -0,0 +1,95 @@
+package com.alex.ecom_cart.infrastructure.services;
+
+import com.alex.ecom_cart.domain.entities.ProductChangeEntity;
+import com.alex.ecom_cart.domain.repositories.ProductChangeRepository;
+import com.alex.ecom_cart.infrastructure.abstract_services.IProductChangeService;
+import com.alex.ecom_cart.util.enums.ProductChangeType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ProductChangeServiceImplTest {
+
+    private ProductChangeRepository productChangeRepository;
+    private ProductChangeServiceImpl productChangeService;
+
+    @BeforeEach
+    void setUp() {
+        productChangeRepository = mock(ProductChangeRepository.class);
+        productChangeService = new ProductChangeServiceImpl(productChangeRepository, mock(JdbcTemplate.class), 3, 5000, 30);
+        when(productChangeRepository.findOldestSeq()).thenReturn(1L);
+    }
+
+    @Test
+    @DisplayName("findSince should send every changed product once and move the token to the last change")
+    void findSince_ShouldCollapseChangesOfTheSameProduct() {
+        when(productChangeRepository.findBySeqGreaterThanOrderBySeqAsc(eq(10L), any(Limit.class))).thenReturn(List.of(
+                change(11L, 1L, 60), change(12L, 2L, 60), change(13L, 1L, 60)));
+
+        IProductChangeService.ChangeWindow window = productChangeService.findSince(10L);
+
+        assertEquals(Set.of(1L, 2L), window.productIds());
+        assertEquals(13L, window.next());
+        assertTrue(window.hasMore(), "Expected a full window to announce more changes");
+        assertFalse(window.reset());
+    }
+
+    @Test
+    @DisplayName("findSince should leave changes younger than the settle window for the next call")
+    void findSince_ShouldStopAtUnsettledChanges() {
+        when(productChangeRepository.findBySeqGreaterThanOrderBySeqAsc(eq(10L), any(Limit.class))).thenReturn(List.of(
+                change(11L, 1L, 60), change(12L, 2L, 1), change(13L, 3L, 60)));
+
+        IProductChangeService.ChangeWindow window = productChangeService.findSince(10L);
+
+        assertEquals(Set.of(1L), window.productIds());
+        assertEquals(11L, window.next());
+        assertFalse(window.hasMore());
+    }
+
+    @Test
+    @DisplayName("findSince should ask for a reload when the token is older than the change log")
+    void findSince_ShouldReset_WhenTokenWasPruned() {
+        when(productChangeRepository.findOldestSeq()).thenReturn(500L);
+        when(productChangeRepository.findNewestSeq()).thenReturn(900L);
+
+        IProductChangeService.ChangeWindow window = productChangeService.findSince(10L);
+
+        assertTrue(window.reset());
+        assertEquals(900L, window.next());
+        verify(productChangeRepository, never()).findBySeqGreaterThanOrderBySeqAsc(any(), any());
+    }
+
+    @Test
+    @DisplayName("findSince should ask for a reload from the newest change when there is no token yet")
+    void findSince_ShouldReset_WhenTokenIsMissing() {
+        when(productChangeRepository.findNewestSeq()).thenReturn(900L);
+
+        IProductChangeService.ChangeWindow window = productChangeService.findSince(0L);
+
+        assertTrue(window.reset());
+        assertEquals(900L, window.next());
+        assertTrue(window.productIds().isEmpty());
+        verify(productChangeRepository, never()).findBySeqGreaterThanOrderBySeqAsc(any(), any());
+    }
+
+    private static ProductChangeEntity change(Long seq, Long productId, int secondsAgo) {
+        return ProductChangeEntity.builder()
+                .seq(seq)
+                .productId(productId)
+                .changeType(ProductChangeType.UPDATED)
+                .changedAt(LocalDateTime.now().minusSeconds(secondsAgo))
+                .build();
+    }
+}
@@ -0,0 +1,175 @@
+package com.alex.ecom_cart.infrastructure.services;
+
+import com.alex.ecom_cart.api.dtos.response.ProductImportResponse;
+import com.alex.ecom_cart.domain.entities.CategoryEntity;
+import com.alex.ecom_cart.domain.entities.ProductEntity;
+import com.alex.ecom_cart.domain.repositories.CategoryRepository;
+import com.alex.ecom_cart.domain.repositories.ProductRepository;
+import com.alex.ecom_cart.infrastructure.abstract_services.IProductChangeService;
+import com.alex.ecom_cart.infrastructure.cache.CacheHelper;
+import com.alex.ecom_cart.infrastructure.search.ProductFacetIndex;
+import com.alex.ecom_cart.infrastructure.search.ProductSearchIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ProductImportServiceImplTest {
+
+    private static final String CSV_HEADER = "name,description,price,stock,category\n";
+
+    private ProductRepository productRepository;
+    private ProductSearchIndex productSearchIndex;
+    private ProductFacetIndex productFacetIndex;
+    private CacheHelper cacheHelper;
+    private EntityManager entityManager;
+    private ProductImportServiceImpl productImportService;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        CategoryRepository categoryRepository = mock(CategoryRepository.class);
+        when(categoryRepository.findAll()).thenReturn(List.of(
+                CategoryEntity.builder().id(1L).name("Electronics").build(),
+                CategoryEntity.builder().id(2L).name("Books").build()));
+        entityManager = mock(EntityManager.class);
+        when(entityManager.getReference(eq(CategoryEntity.class), any()))
+                .thenAnswer(inv -> CategoryEntity.builder().id(inv.getArgument(1)).build());
+        productSearchIndex = mock(ProductSearchIndex.class);
+        productFacetIndex = mock(ProductFacetIndex.class);
+        cacheHelper = mock(CacheHelper.class);
+
+        productImportService = new ProductImportServiceImpl(productRepository, categoryRepository, entityManager,
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), productSearchIndex,
+                productFacetIndex, cacheHelper, mock(IProductChangeService.class), mock(PlatformTransactionManager.class), 2, 10);
+    }
+
+    @Test
+    @DisplayName("importProducts should write valid CSV rows in chunks and report the invalid ones")
+    @SuppressWarnings("unchecked")
+    void importProducts_ShouldWriteChunksAndReportRejectedRows_WhenCsv() {
+        String csv = CSV_HEADER
+                + "Gaming Laptop,\"Fast laptop, 16GB\",1200.00,10,1\n"
+                + "Wireless Mouse,Ergonomic mouse,25.50,40,2\n"
+                + "Keyboard,Mechanical keyboard,abc,5,1\n"
+                + "\n"
+                + "Novel Book,Paperback edition,15.00,8,3\n"
+                + "Monitor Stand,Adjustable stand,45.00,12,1\n";
+
+        ProductImportResponse response = productImportService.importProducts(body(csv), ProductImportServiceImpl.TEXT_CSV);
+
+        assertEquals(3, response.getImported());
+        assertEquals(2, response.getRejected());
+        assertEquals(List.of(4L, 6L), response.getErrors().stream().map(ProductImportResponse.RowError::getLine).toList());
+        verify(productRepository, times(2)).saveAll(anyList());
+        verify(productRepository).saveAll(argThat((List<ProductEntity> products) -> products.size() == 2
+                && products.get(0).getDescription().equals("Fast laptop, 16GB")
+                && products.get(1).getCategory().getId().equals(2L)));
+        verify(productSearchIndex).rebuild();
+        verify(productFacetIndex).rebuild();
+        verify(cacheHelper).evictTags(eq("products"), argThat((Collection<String> tags) ->
+                tags.size() == 2 && tags.containsAll(List.of("category:1", "category:2"))));
+    }
+
+    @Test
+    @DisplayName("importProducts should read NDJSON rows and validate them like a single create")
+    void importProducts_ShouldValidateRows_WhenNdjson() {
+        String ndjson = """
+                {"name":"Gaming Laptop","description":"Fast laptop","price":1200.00,"stock":10,"category":1}
+                {"name":"Mouse","description":"Ergonomic mouse","price":25.50,"stock":40,"category":2}
+                {"name":"Wireless Mouse",
+                """;
+
+        ProductImportResponse response = productImportService.importProducts(body(ndjson),
+                ProductImportServiceImpl.APPLICATION_NDJSON);
+
+        assertEquals(1, response.getImported());
+        assertEquals(2, response.getRejected());
+        assertTrue(response.getErrors().get(0).getMessage().startsWith("name:"));
+        assertTrue(response.getErrors().get(1).getMessage().startsWith("Invalid JSON"));
+    }
+
+    @Test
+    @DisplayName("importProducts should report every row of a chunk the database rejected")
+    void importProducts_ShouldRejectChunk_WhenWriteFails() {
+        when(productRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("duplicate"));
+
+        ProductImportResponse response = productImportService.importProducts(body(CSV_HEADER
+                + "Gaming Laptop,Fast laptop,1200.00,10,1\n"), ProductImportServiceImpl.TEXT_CSV);
+
+        assertEquals(0, response.getImported());
+        assertEquals(1, response.getRejected());
+        verifyNoInteractions(productSearchIndex, productFacetIndex, cacheHelper);
+    }
+
+    @Test
+    @DisplayName("importProducts should flush and clear the persistence context after every chunk")
+    void importProducts_ShouldClearPersistenceContext_AfterEachChunk() {
+        String csv = CSV_HEADER
+                + "Gaming Laptop,Fast laptop,1200.00,10,1\n"
+                + "Wireless Mouse,Ergonomic mouse,25.50,40,2\n"
+                + "Monitor Stand,Adjustable stand,45.00,12,1\n";
+
+        productImportService.importProducts(body(csv), ProductImportServiceImpl.TEXT_CSV);
+
+        InOrder inOrder = inOrder(productRepository, entityManager);
+        for (int chunk = 0; chunk < 2; chunk++) {
+            inOrder.verify(productRepository).saveAll(anyList());
+            inOrder.verify(entityManager).flush();
+            inOrder.verify(entityManager).clear();
+        }
+    }
+
+    @Test
+    @DisplayName("importProducts should still evict and rebuild for the chunks written before the body broke off")
+    void importProducts_ShouldRebuildIndexes_WhenBodyFailsAfterAChunk() {
+        InputStream broken = new SequenceInputStream(body(CSV_HEADER
+                + "Gaming Laptop,Fast laptop,1200.00,10,1\n"
+                + "Wireless Mouse,Ergonomic mouse,25.50,40,2\n"), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        });
+
+        assertThrows(UncheckedIOException.class, () -> productImportService.importProducts(broken,
+                ProductImportServiceImpl.TEXT_CSV));
+
+        verify(productRepository).saveAll(anyList());
+        verify(cacheHelper).evictTags(eq("products"), anyCollection());
+        verify(productSearchIndex).rebuild();
+        verify(productFacetIndex).rebuild();
+    }
+
+    @Test
+    @DisplayName("importProducts should reject a CSV body without the expected header")
+    void importProducts_ShouldThrow_WhenHeaderIsInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> productImportService.importProducts(
+                body("name,price\nGaming Laptop,1200.00\n"), ProductImportServiceImpl.TEXT_CSV));
+        assertThrows(IllegalArgumentException.class, () -> productImportService.importProducts(
+                body(CSV_HEADER), MediaType.APPLICATION_JSON));
+    }
+
+    private static InputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
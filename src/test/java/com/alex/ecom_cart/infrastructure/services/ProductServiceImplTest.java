@@ -2,12 +2,23 @@ package com.alex.ecom_cart.infrastructure.services;
 
 import com.alex.ecom_cart.DummyData;
 import com.alex.ecom_cart.api.dtos.request.ProductRequest;
+import com.alex.ecom_cart.api.dtos.request.ProductStockRequest;
+import com.alex.ecom_cart.api.dtos.response.ProductChangesResponse;
 import com.alex.ecom_cart.api.dtos.response.ProductResponse;
+import com.alex.ecom_cart.api.dtos.response.ProductStockResponse;
 import com.alex.ecom_cart.domain.entities.CategoryEntity;
 import com.alex.ecom_cart.domain.entities.ProductEntity;
 import com.alex.ecom_cart.domain.repositories.CategoryRepository;
 import com.alex.ecom_cart.domain.repositories.ProductRepository;
+import com.alex.ecom_cart.infrastructure.abstract_services.IInventoryService;
+import com.alex.ecom_cart.infrastructure.abstract_services.IOutboxService;
+import com.alex.ecom_cart.infrastructure.abstract_services.IProductChangeService;
 import com.alex.ecom_cart.infrastructure.cache.CacheHelper;
+import com.alex.ecom_cart.infrastructure.search.ProductFacetIndex;
+import com.alex.ecom_cart.infrastructure.search.ProductSearchIndex;
+import com.alex.ecom_cart.util.enums.OutboxEventType;
+import com.alex.ecom_cart.util.enums.ProductChangeType;
+import com.alex.ecom_cart.util.enums.StockUpdateRejection;
 import com.alex.ecom_cart.util.exceptions.IdNotFoundException;
 import com.alex.ecom_cart.util.exceptions.ResourceNotEnabledException;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,12 +27,24 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.data.domain.*;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.Callable;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class ProductServiceImplTest extends ServiceSpec{
@@ -35,6 +58,21 @@ class ProductServiceImplTest extends ServiceSpec{
     @Mock
     private CacheHelper cacheHelper;
 
+    @Mock
+    private IInventoryService inventoryService;
+
+    @Mock
+    private IOutboxService outboxService;
+
+    @Mock
+    private IProductChangeService productChangeService;
+
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
+    @Mock
+    private ProductFacetIndex productFacetIndex;
+
     @InjectMocks
     private ProductServiceImpl productService;
 
@@ -52,12 +90,12 @@ class ProductServiceImplTest extends ServiceSpec{
     @Test
     void readAll() {
 
-        List<ProductEntity> productList = List.of(product);
+        List<ProductResponse> productList = List.of(DummyData.createProductResponse());
 
         Pageable pageable = PageRequest.of(0, 5, Sort.by("name").ascending());
-        Page<ProductEntity> productPage = new PageImpl<>(productList, pageable, productList.size());
+        Page<ProductResponse> productPage = new PageImpl<>(productList, pageable, productList.size());
 
-        when(productRepository.findAllActive(any(PageRequest.class))).thenReturn(productPage);
+        when(productRepository.findActiveResponses(any(PageRequest.class))).thenReturn(productPage);
 
         Page<ProductResponse> resultPage = productService.readAll(null, false, 0);
 
@@ -81,6 +119,10 @@ class ProductServiceImplTest extends ServiceSpec{
         assertNotNull(response);
         assertEquals(request.getName(), response.getName());
         verify(productRepository, times(1)).save(any(ProductEntity.class));
+        verify(categoryRepository).addProductCount(category.getId(), 1);
+        verify(cacheHelper).evictTags("products", "category:1");
+        verify(cacheHelper, never()).evictCacheKeys(eq("products"), anyCollection());
+        verify(productChangeService).record(product.getId(), ProductChangeType.CREATED);
 
     }
 
@@ -88,7 +130,7 @@ class ProductServiceImplTest extends ServiceSpec{
     @DisplayName("happy path should return product when it exists and is enabled")
     void findById_ShouldReturnProduct_WhenEnabled() {
 
-        when(productRepository.findById(productId)).thenReturn(Optional.of(product));
+        when(productRepository.findEnabledResponseById(productId)).thenReturn(Optional.of(DummyData.createProductResponse()));
 
         ProductResponse response = productService.findById(productId);
 
@@ -105,42 +147,60 @@ class ProductServiceImplTest extends ServiceSpec{
     @Test
     @DisplayName("Unhappy path  Should throw IdNotFoundException when product does not exist")
     void findById_ShouldThrowException_WhenProductIdNotFound() {
-        when(productRepository.findById(productId)).thenReturn(Optional.empty());
+        when(productRepository.findEnabledResponseById(productId)).thenReturn(Optional.empty());
+        when(productRepository.existsById(productId)).thenReturn(false);
         assertThrows(IdNotFoundException.class, () -> productService.findById(productId));
     }
 
     @Test
     @DisplayName("Unhappy path  Should throw ResourceNotEnabledException when product is not enabled")
     void findById_ShouldThrowException_WhenProductDisabled() {
-        when(productRepository.findById(productId)).thenReturn(Optional.of(DummyData.createProductEntityDisaled(category)));
+        when(productRepository.findEnabledResponseById(productId)).thenReturn(Optional.empty());
+        when(productRepository.existsById(productId)).thenReturn(true);
         assertThrows(ResourceNotEnabledException.class, () -> productService.findById(productId));
     }
 
     @Test
-    @DisplayName("Should return all products given a valid category ID")
+    @DisplayName("Should return a page of products given a valid category ID, with the total of the category counter")
     void findByCategoryId_ShouldReturnProducts_WhenCategoryIdExists() {
 
-        CategoryEntity category = DummyData.createCategoryEntity();
-        List<ProductEntity> products = DummyData.createProductEntityList(category);
+        category.setProductCount(7);
+        List<ProductResponse> products = DummyData.createProductResponseList();
         Long categoryId = category.getId();
 
-        when(categoryRepository.existsById(categoryId)).thenReturn(true);
-        when(productRepository.findByCategoryIdAndNotDeleted(categoryId)).thenReturn(products);
-        List<ProductResponse> response = productService.findByCategoryId(categoryId);
+        when(cacheHelper.getCacheValue(any(), any(), anyCollection(), any())).thenAnswer(invocation ->
+                invocation.<Callable<?>>getArgument(3).call());
+        when(categoryRepository.findById(categoryId)).thenReturn(Optional.of(category));
+        when(productRepository.findResponsesByCategoryId(eq(categoryId), any(Pageable.class))).thenReturn(products);
+        Page<ProductResponse> response = productService.findByCategoryId(categoryId, "price", false, 0);
 
         assertNotNull(response);
+        assertEquals(2, response.getContent().size());
+        assertEquals(7, response.getTotalElements());
+        verify(cacheHelper).getCacheValue(eq("products"), eq("product:categoryId:1:price:asc:0"),
+                eq(List.of("category:1")), any());
+        verify(productRepository).findResponsesByCategoryId(eq(categoryId), argThat((Pageable pageable) ->
+                pageable.getSort().equals(Sort.by("price").ascending().and(Sort.by("id")))));
+        verify(productRepository, never()).count();
+    }
 
-        int expectedElements = 2;
-        assertEquals(expectedElements, response.size());
+    @Test
+    @DisplayName("Should throw IdNotFoundException when the category does not exist")
+    void findByCategoryId_ShouldThrowException_WhenCategoryIdNotFound() {
+        when(cacheHelper.getCacheValue(any(), any(), anyCollection(), any())).thenAnswer(invocation ->
+                invocation.<Callable<?>>getArgument(3).call());
+        when(categoryRepository.findById(99L)).thenReturn(Optional.empty());
+
+        assertThrows(IdNotFoundException.class, () -> productService.findByCategoryId(99L, "name", true, 0));
     }
 
     @Test
     @DisplayName("should return all desabled products")
     void findDisabledProducts_ShouldReturnAllDisabledProducts() {
 
-        List<ProductEntity> products = List.of(DummyData.createProductEntityDisaled(category));
+        List<ProductResponse> products = List.of(DummyData.createProductResponse());
 
-        when(productRepository.findAllByEnabledFalse()).thenReturn(products);
+        when(productRepository.findDisabledResponses()).thenReturn(products);
         List<ProductResponse> response = productService.findDisabledProducts();
 
         assertNotNull(response);
@@ -156,7 +216,8 @@ class ProductServiceImplTest extends ServiceSpec{
 
         when(categoryRepository.findById(category.getId())).thenReturn(Optional.of(category));
         when(productRepository.findById(productId)).thenReturn(Optional.of(product));
-        when(productRepository.save(any(ProductEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(productRepository.findEnabledResponseById(productId)).thenReturn(Optional.of(DummyData.createProductResponse()));
+        when(productRepository.saveAndFlush(any(ProductEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
         ProductResponse response = productService.findById(productId);
 
         assertNotNull(response);
@@ -181,6 +242,27 @@ class ProductServiceImplTest extends ServiceSpec{
     }
 
 
+    @Test
+    @DisplayName("update should only touch the search and facet indexes once the transaction commits")
+    void update_ShouldIndexAfterCommit() {
+        ProductRequest updateRequest = DummyData.createProductRequestUpdate();
+        when(categoryRepository.findById(category.getId())).thenReturn(Optional.of(category));
+        when(productRepository.findById(productId)).thenReturn(Optional.of(product));
+        when(productRepository.saveAndFlush(any(ProductEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            productService.update(updateRequest, productId);
+            verifyNoInteractions(productSearchIndex, productFacetIndex);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(productSearchIndex).index(productId, updateRequest.getName(), updateRequest.getDescription());
+        verify(productFacetIndex).index(eq(productId), eq(category.getId()), eq(updateRequest.getPrice()), any(), eq(true));
+    }
+
     @Test
     @DisplayName("Unhappy path Should throw ResourceNotEnabledException when product is not enabled")
     void update_ShouldThrowException_WhenProductDisabled() {
@@ -199,7 +281,8 @@ class ProductServiceImplTest extends ServiceSpec{
 
         when(categoryRepository.findById(category.getId())).thenReturn(Optional.of(category));
         when(productRepository.findById(productId)).thenReturn(Optional.of(product));
-        when(productRepository.save(any(ProductEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(productRepository.findEnabledResponseById(productId)).thenReturn(Optional.of(DummyData.createProductResponse()));
+        when(productRepository.saveAndFlush(any(ProductEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         ProductResponse response = productService.findById(productId);
 
@@ -219,7 +302,103 @@ class ProductServiceImplTest extends ServiceSpec{
                 () -> assertEquals(product.getName(), updateResponse.getName()),
                 () -> assertEquals(product.getStock(), updateResponse.getStock())
         );
+        verify(outboxService).record("product", productId, OutboxEventType.PRODUCT_STOCK_UPDATED,
+                Map.of("productId", productId, "stock", 25));
+
+    }
+
+    @Test
+    @DisplayName("Should update many stocks in batches and report the products that could not be updated")
+    void updateStocks_ShouldBatchUpdatesAndReportRejections() {
+        ProductRepository.StockTarget regular = stockTarget(1L, 10, 0, true);
+        ProductRepository.StockTarget withDelta = stockTarget(2L, 20, 0, true);
+        ProductRepository.StockTarget disabled = stockTarget(6L, 5, 0, false);
+        ProductRepository.StockTarget tooFew = stockTarget(3L, 1, 0, true);
+        when(productRepository.findStockTargets(any()))
+                .thenReturn(List.of(regular, withDelta, disabled, tooFew))
+                .thenReturn(List.of(stockTarget(2L, 25, 0, true)));
+        when(productRepository.addStock(Map.of(2L, 5, 3L, -2), 500)).thenReturn(List.of(3L));
+
+        ProductStockResponse response = productService.updateStocks(List.of(
+                ProductStockRequest.builder().id(1L).stock(40).build(),
+                ProductStockRequest.builder().id(2L).delta(5).build(),
+                ProductStockRequest.builder().id(3L).delta(-2).build(),
+                ProductStockRequest.builder().id(6L).stock(1).build(),
+                ProductStockRequest.builder().id(9L).stock(1).build(),
+                ProductStockRequest.builder().id(4L).stock(1).delta(1).build()));
+
+        assertEquals(Map.of(1L, 40, 2L, 25), response.getUpdated());
+        assertEquals(Map.of(3L, StockUpdateRejection.INSUFFICIENT_STOCK, 4L, StockUpdateRejection.INVALID,
+                6L, StockUpdateRejection.DISABLED, 9L, StockUpdateRejection.NOT_FOUND), response.getRejected());
+        verify(productRepository).overwriteStock(Map.of(1L, 40), 500);
+        verify(inventoryService).overwriteAll(Map.of(1L, 40));
+        verify(inventoryService).addAll(Map.of(2L, 5));
+        verify(outboxService).recordAll("product", OutboxEventType.PRODUCT_STOCK_UPDATED, Map.of(
+                1L, Map.of("productId", 1L, "stock", 40),
+                2L, Map.of("productId", 2L, "stock", 25)));
+        verify(cacheHelper).evictCacheKeys(eq("products"),
+                argThat((Collection<String> keys) -> keys.containsAll(List.of("product:id:1", "product:id:2"))));
+        verify(cacheHelper).evictTags(eq("products"), argThat((Collection<String> tags) -> tags.equals(Set.of("category:1"))));
+    }
+
+    @Test
+    @DisplayName("Should apply a delta to a striped product on its stripes without reading its stock")
+    void updateStocks_ShouldAddToStripes_WhenProductIsStriped() {
+        when(productRepository.findStockTargets(any()))
+                .thenReturn(List.of(stockTarget(7L, 0, 4, true), stockTarget(8L, 0, 4, true)));
+        when(inventoryService.addToStripes(7L, 4, 5)).thenReturn(OptionalInt.of(23));
+        when(inventoryService.addToStripes(8L, 4, -3)).thenReturn(OptionalInt.empty());
+
+        ProductStockResponse response = productService.updateStocks(List.of(
+                ProductStockRequest.builder().id(7L).delta(5).build(),
+                ProductStockRequest.builder().id(8L).delta(-3).build()));
+
+        assertEquals(Map.of(7L, 23), response.getUpdated());
+        assertEquals(Map.of(8L, StockUpdateRejection.INSUFFICIENT_STOCK), response.getRejected());
+        verify(inventoryService, never()).overwrite(any());
+        verify(productRepository, never()).addStock(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should reject a stock update batch with a repeated product id")
+    void updateStocks_ShouldThrow_WhenIdIsRepeated() {
+        List<ProductStockRequest> requests = List.of(
+                ProductStockRequest.builder().id(1L).stock(40).build(),
+                ProductStockRequest.builder().id(1L).delta(5).build());
+
+        assertThrows(IllegalArgumentException.class, () -> productService.updateStocks(requests));
+        verifyNoInteractions(productRepository);
+    }
+
+    private ProductRepository.StockTarget stockTarget(Long id, Integer stock, Integer stripes, Boolean enabled) {
+        ProductRepository.StockTarget target = mock(ProductRepository.StockTarget.class);
+        lenient().when(target.getId()).thenReturn(id);
+        lenient().when(target.getCategoryId()).thenReturn(1L);
+        lenient().when(target.getPrice()).thenReturn(BigDecimal.TEN);
+        lenient().when(target.getStock()).thenReturn(stock);
+        lenient().when(target.getStockStripes()).thenReturn(stripes);
+        lenient().when(target.getEnabled()).thenReturn(enabled);
+        return target;
+    }
+
+    @Test
+    @DisplayName("Should split the stock of a product across stripes")
+    void updateStockStripes() {
+        when(productRepository.findById(productId)).thenReturn(Optional.of(product));
+        when(productRepository.saveAndFlush(any(ProductEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ProductResponse response = productService.updateStockStripes(productId, 4);
 
+        assertNotNull(response);
+        verify(inventoryService).updateStripes(product, 4);
+        verify(productRepository).saveAndFlush(product);
+    }
+
+    @Test
+    @DisplayName("Should throw IllegalArgumentException when the number of stripes is out of range")
+    void updateStockStripes_ShouldThrow_WhenStripesOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> productService.updateStockStripes(productId, 65));
+        verify(inventoryService, never()).updateStripes(any(), anyInt());
     }
 
     @Test
@@ -228,6 +407,7 @@ class ProductServiceImplTest extends ServiceSpec{
 
         when(categoryRepository.findById(category.getId())).thenReturn(Optional.of(category));
         when(productRepository.findById(productId)).thenReturn(Optional.of(product));
+        when(productRepository.findEnabledResponseById(productId)).thenReturn(Optional.of(DummyData.createProductResponse()));
         when(productRepository.save(any(ProductEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
         ProductResponse response = productService.findById(1L);
 
@@ -236,5 +416,71 @@ class ProductServiceImplTest extends ServiceSpec{
         productService.delete(productId);
 
         verify(productRepository, atLeastOnce()).delete(any(ProductEntity.class));
+        verify(categoryRepository).addProductCount(category.getId(), -1);
+        verify(productChangeService).record(productId, ProductChangeType.DELETED);
+        verify(cacheHelper).evictCacheKeys("products", "product:id:" + productId);
+        verify(cacheHelper).evictCacheKeys("products", "product:disabled");
+        verify(cacheHelper).evictTags("products", "category:1");
+    }
+
+    @Test
+    @DisplayName("findETag should build the strong tag from the version and the stock without loading the product")
+    void findETag_ShouldReadVersionOnly() {
+        ProductRepository.ProductVersion version = mock(ProductRepository.ProductVersion.class);
+        when(version.getVersion()).thenReturn(3L);
+        when(version.getStock()).thenReturn(10);
+        when(productRepository.findEnabledVersionById(productId)).thenReturn(Optional.of(version));
+
+        assertEquals(Optional.of("\"3-10\""), productService.findETag(productId));
+        verify(productRepository, never()).findById(anyLong());
+        verify(productRepository, never()).findEnabledResponseById(anyLong());
+    }
+
+    @Test
+    @DisplayName("findChanges should send the current state of changed products and the ids of removed ones")
+    void findChanges_ShouldSplitChangedAndRemovedProducts() {
+        when(productChangeService.findSince(40L))
+                .thenReturn(new IProductChangeService.ChangeWindow(new LinkedHashSet<>(List.of(1L, 6L)), 42L, true, false));
+        when(productRepository.findEnabledResponsesByIds(Set.of(1L, 6L))).thenReturn(List.of(DummyData.createProductResponse()));
+
+        ProductChangesResponse response = productService.findChanges("40");
+
+        assertEquals(List.of(1L), response.getChanged().stream().map(ProductResponse::getId).toList());
+        assertEquals(List.of(6L), response.getRemoved());
+        assertEquals("42", response.getNext());
+        assertTrue(response.isHasMore());
+    }
+
+    @Test
+    @DisplayName("findChanges should reject a token that is not a change sequence")
+    void findChanges_ShouldThrow_WhenTokenIsInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> productService.findChanges("yesterday"));
+        verifyNoInteractions(productChangeService);
+    }
+
+    @Test
+    @DisplayName("search should return the products in the order ranked by the index")
+    void search_ShouldKeepIndexRanking() {
+        List<ProductResponse> products = DummyData.createProductResponseList();
+        when(productSearchIndex.search(eq("dummy"), anyInt())).thenReturn(List.of(2L, 1L));
+        when(productRepository.findEnabledResponsesByIds(List.of(2L, 1L))).thenReturn(products);
+
+        List<ProductResponse> response = productService.search("dummy");
+
+        assertEquals(List.of(2L, 1L), response.stream().map(ProductResponse::getId).toList());
+    }
+
+    @Test
+    @DisplayName("search should reject an empty query")
+    void search_ShouldThrow_WhenQueryIsBlank() {
+        assertThrows(IllegalArgumentException.class, () -> productService.search(" "));
+        verifyNoInteractions(productSearchIndex);
+    }
+
+    @Test
+    @DisplayName("scroll should reject the nullable description as a keyset sort")
+    void scroll_ShouldThrow_WhenSortFieldIsNullable() {
+        assertThrows(IllegalArgumentException.class, () -> productService.scroll("description", false, null));
+        verify(productRepository, never()).findByEnabledTrue(any(), any(), any());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,202 @@
+package com.alex.ecom_cart.infrastructure.services;
+
+import com.alex.ecom_cart.DummyData;
+import com.alex.ecom_cart.api.dtos.request.CartOperationRequest;
+import com.alex.ecom_cart.api.dtos.response.CartResponse;
+import com.alex.ecom_cart.api.dtos.response.ProductResponse;
+import com.alex.ecom_cart.domain.entities.CartEntity;
+import com.alex.ecom_cart.domain.entities.CartProductEntity;
+import com.alex.ecom_cart.domain.entities.CustomerEntity;
+import com.alex.ecom_cart.domain.entities.ProductEntity;
+import com.alex.ecom_cart.domain.repositories.CartRepository;
+import com.alex.ecom_cart.domain.repositories.CustomerRepository;
+import com.alex.ecom_cart.infrastructure.abstract_services.IOrderService;
+import com.alex.ecom_cart.infrastructure.abstract_services.IProductService;
+import com.alex.ecom_cart.util.enums.CartOperationType;
+import com.alex.ecom_cart.util.exceptions.IdNotFoundException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.config.Config;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import redis.embedded.RedisServer;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RedisCartServiceImplTest {
+
+    private static final int REDIS_PORT = 6393;
+
+    private static RedisServer redisServer;
+    private static RedissonClient redissonClient;
+
+    private CartRepository cartRepository;
+    private IProductService productService;
+    private IOrderService orderService;
+    private JdbcTemplate jdbcTemplate;
+    private RedisCartServiceImpl cartService;
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        redisServer = new RedisServer(REDIS_PORT);
+        redisServer.start();
+
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + REDIS_PORT);
+        redissonClient = Redisson.create(config);
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        redissonClient.shutdown();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redissonClient.getKeys().flushall();
+        cartRepository = mock(CartRepository.class);
+        productService = mock(IProductService.class);
+        orderService = mock(IOrderService.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        cartService = new RedisCartServiceImpl(redissonClient, cartRepository, mock(CustomerRepository.class),
+                productService, orderService, jdbcTemplate, mock(PlatformTransactionManager.class), 500, 7);
+
+        CustomerEntity customer = DummyData.createCustomerEntity(DummyData.createRoleEntityCustomer());
+        ProductEntity product = DummyData.createProductEntity(DummyData.createCategoryEntity());
+        CartEntity cart = CartEntity.builder().id(1L).customer(customer).cartProducts(new ArrayList<>()).build();
+        cart.getCartProducts().add(new CartProductEntity(cart, product, 2));
+        when(cartRepository.findByIdWithProducts(1L)).thenReturn(Optional.of(cart));
+
+        ProductResponse productResponse = DummyData.createProductResponse();
+        when(productService.findById(anyLong())).thenReturn(productResponse);
+    }
+
+    @Test
+    @DisplayName("addProductToCart should load the cart from the database once and add to its hash")
+    void addProductToCart_ShouldLoadCartAndIncrementQuantity() {
+        cartService.addProductToCart(1L, 1L, 3);
+        CartResponse response = cartService.addProductToCart(1L, 2L, 1);
+
+        assertEquals(2, response.getProducts().size());
+        assertEquals(5, response.getProducts().get(0).getQuantity());
+        assertEquals(1, response.getProducts().get(1).getQuantity());
+        verify(cartRepository, times(1)).findByIdWithProducts(1L);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("addProductToCart should drop the line when its quantity reaches zero")
+    void addProductToCart_ShouldRemoveLine_WhenQuantityIsNotPositive() {
+        CartResponse response = cartService.addProductToCart(1L, 1L, -2);
+
+        assertTrue(response.getProducts().isEmpty());
+    }
+
+    @Test
+    @DisplayName("applyOperations should apply every operation in one script call")
+    void applyOperations_ShouldApplyOperationsInOrder() {
+        CartResponse response = cartService.applyOperations(1L, List.of(
+                CartOperationRequest.builder().op(CartOperationType.SET).productId(2L).quantity(4).build(),
+                CartOperationRequest.builder().op(CartOperationType.ADD).productId(2L).quantity(1).build(),
+                CartOperationRequest.builder().op(CartOperationType.REMOVE).productId(1L).build()));
+
+        assertEquals(1, response.getProducts().size());
+        assertEquals(2L, response.getProducts().get(0).getProductId());
+        assertEquals(5, response.getProducts().get(0).getQuantity());
+        verify(productService, times(2)).findById(2L);
+        verify(productService, never()).findById(1L);
+    }
+
+    @Test
+    @DisplayName("getCartById should flag a line whose price changed since it was added")
+    void getCartById_ShouldFlagChangedPrice() {
+        cartService.addProductToCart(1L, 2L, 2);
+        ProductResponse raised = DummyData.createProductResponse();
+        raised.setPrice(new BigDecimal("1600.00"));
+        when(productService.findById(2L)).thenReturn(raised);
+
+        CartResponse response = cartService.getCartById(1L);
+
+        assertFalse(response.getProducts().get(0).isPriceChanged(), "The loaded line had no snapshot");
+        assertTrue(response.getProducts().get(1).isPriceChanged());
+        assertEquals(new BigDecimal("3200.00"), response.getProducts().get(1).getLineTotal());
+        assertEquals(new BigDecimal("6200.00"), response.getTotal());
+    }
+
+    @Test
+    @DisplayName("getCartById should throw when the cart is neither in Redis nor in the database")
+    void getCartById_ShouldThrow_WhenCartDoesNotExist() {
+        assertThrows(IdNotFoundException.class, () -> cartService.getCartById(2L));
+    }
+
+    @Test
+    @DisplayName("flush should write every changed cart once with its latest lines")
+    @SuppressWarnings("unchecked")
+    void flush_ShouldWriteLatestLinesOfChangedCarts() {
+        cartService.addProductToCart(1L, 1L, 1);
+        cartService.addProductToCart(1L, 1L, 1);
+        cartService.removeProductFromCart(1L, 3L);
+
+        cartService.flush();
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("DELETE"), anyList());
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT"), rows.capture());
+        assertArrayEquals(new Object[]{1L, 4, DummyData.createProductResponse().getPrice(), 1L}, rows.getValue().get(0));
+
+        cartService.flush();
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    @DisplayName("flush should keep the rows of a cart that expired from Redis before it was written")
+    void flush_ShouldSkipCart_WhenItExpired() {
+        cartService.addProductToCart(1L, 1L, 1);
+        redissonClient.getKeys().delete("{cart:1}:owner", "{cart:1}:lines", "{cart:1}:prices");
+
+        cartService.flush();
+
+        verifyNoInteractions(jdbcTemplate);
+        assertTrue(redissonClient.getSet("{cart}:dirty", StringCodec.INSTANCE).isEmpty());
+    }
+
+    @Test
+    @DisplayName("flushBatch should put the carts back and report nothing written when the database fails")
+    void flushBatch_ShouldStopAndKeepCartsDirty_WhenDatabaseFails() {
+        cartService.addProductToCart(1L, 1L, 1);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new DataAccessResourceFailureException("down"));
+
+        assertEquals(0, cartService.flushBatch());
+        assertTrue(redissonClient.getSet("{cart}:dirty", StringCodec.INSTANCE).contains("1"));
+    }
+
+    @Test
+    @DisplayName("checkout should write the cart before the order reads it and drop it from Redis")
+    void checkout_ShouldFlushCartBeforeCreatingOrder() {
+        cartService.addProductToCart(1L, 1L, 1);
+
+        cartService.checkout(1L);
+
+        var inOrder = inOrder(jdbcTemplate, orderService);
+        inOrder.verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+        inOrder.verify(orderService).createFromCart(1L);
+        assertFalse(redissonClient.getBucket("{cart:1}:owner", StringCodec.INSTANCE).isExists());
+        assertTrue(redissonClient.getSet("{cart}:dirty", StringCodec.INSTANCE).isEmpty());
+    }
+}
@@ -0,0 +1,166 @@
+package com.alex.ecom_cart.infrastructure.services;
+
+import com.alex.ecom_cart.DummyData;
+import com.alex.ecom_cart.domain.entities.ProductEntity;
+import com.alex.ecom_cart.domain.repositories.ProductRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.config.Config;
+import org.springframework.transaction.PlatformTransactionManager;
+import redis.embedded.RedisServer;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class RedisInventoryServiceImplTest {
+
+    private static final int REDIS_PORT = 6390;
+
+    private static RedisServer redisServer;
+    private static RedissonClient redissonClient;
+
+    private ProductRepository productRepository;
+    private RedisInventoryServiceImpl inventoryService;
+    private Map<Long, ProductEntity> products;
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        redisServer = new RedisServer(REDIS_PORT);
+        redisServer.start();
+
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + REDIS_PORT);
+        redissonClient = Redisson.create(config);
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        redissonClient.shutdown();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redissonClient.getKeys().flushall();
+        productRepository = mock(ProductRepository.class);
+        inventoryService = new RedisInventoryServiceImpl(redissonClient, productRepository,
+                mock(PlatformTransactionManager.class), 500);
+
+        when(productRepository.recordInventoryDrain(anyString())).thenReturn(true);
+        when(productRepository.findStockOfEnabledProducts()).thenReturn(Map.of(1L, 10, 2L, 3));
+        inventoryService.recover();
+
+        List<ProductEntity> productList = DummyData.createProductEntityList(DummyData.createCategoryEntity());
+        products = Map.of(1L, productList.get(0), 2L, productList.get(1));
+    }
+
+    @Test
+    @DisplayName("reserve should decrement every counter when all lines have stock")
+    void reserve_ShouldDecrementCounters_WhenStockIsAvailable() {
+        List<Long> rejected = inventoryService.reserve(products, quantities(4, 3));
+
+        assertTrue(rejected.isEmpty());
+        assertEquals("6", stock(1L));
+        assertEquals("0", stock(2L));
+    }
+
+    @Test
+    @DisplayName("reserve should not touch any counter when one line lacks stock")
+    void reserve_ShouldRejectWholeOrder_WhenOneLineLacksStock() {
+        List<Long> rejected = inventoryService.reserve(products, quantities(4, 5));
+
+        assertEquals(List.of(2L), rejected);
+        assertEquals("10", stock(1L));
+        assertEquals("3", stock(2L));
+    }
+
+    @Test
+    @DisplayName("reserve should load a missing counter from the database")
+    void reserve_ShouldSeedCounter_WhenItIsMissing() {
+        ProductEntity product = DummyData.createProductEntity(DummyData.createCategoryEntity());
+        product.setId(3L);
+
+        List<Long> rejected = inventoryService.reserve(Map.of(3L, product), Map.of(3L, 2));
+
+        assertTrue(rejected.isEmpty());
+        assertEquals(String.valueOf(product.getStock() - 2), stock(3L));
+    }
+
+    @Test
+    @DisplayName("reconcile should apply the pending reservations to the database in one batch")
+    void reconcile_ShouldApplyPendingReservations() {
+        inventoryService.reserve(products, quantities(4, 1));
+        inventoryService.reserve(products, quantities(1, 1));
+
+        inventoryService.reconcile();
+
+        verify(productRepository).subtractStock(Map.of(1L, 5, 2L, 2), 500);
+        inventoryService.reconcile();
+        verify(productRepository, times(1)).subtractStock(anyMap(), anyInt());
+    }
+
+    @Test
+    @DisplayName("reconcile should not subtract a drain twice when the database already recorded it")
+    void reconcile_ShouldSkipDrain_WhenAlreadyApplied() {
+        inventoryService.reserve(products, quantities(4, 1));
+        // The previous run committed but failed before the draining hash was deleted
+        redissonClient.getKeys().rename("{inventory}:pending", "{inventory}:draining");
+        redissonClient.getBucket("{inventory}:draining:id", StringCodec.INSTANCE).set("drain-1");
+        when(productRepository.recordInventoryDrain("drain-1")).thenReturn(false);
+
+        inventoryService.reconcile();
+
+        verify(productRepository, never()).subtractStock(anyMap(), anyInt());
+        assertEquals(0, redissonClient.getKeys().countExists("{inventory}:draining", "{inventory}:draining:id"));
+    }
+
+    @Test
+    @DisplayName("overwrite should replace the counter and drop its pending reservations")
+    void overwrite_ShouldResetCounter() {
+        inventoryService.reserve(products, quantities(4, 1));
+
+        ProductEntity product = products.get(1L);
+        product.setStock(50);
+        inventoryService.overwrite(product);
+        inventoryService.reconcile();
+
+        assertEquals("50", stock(1L));
+        verify(productRepository).subtractStock(Map.of(2L, 1), 500);
+    }
+
+    @Test
+    @DisplayName("overwriteAll and addAll should update many counters in one batch")
+    void overwriteAllAndAddAll_ShouldUpdateCounters() {
+        inventoryService.reserve(products, quantities(4, 1));
+
+        inventoryService.overwriteAll(Map.of(1L, 50));
+        inventoryService.addAll(Map.of(2L, 5, 3L, 7));
+
+        assertEquals("50", stock(1L));
+        assertEquals("7", stock(2L));
+        assertNull(stock(3L), "A missing counter is seeded on the next reservation instead");
+    }
+
+    private Map<Long, Integer> quantities(int first, int second) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        quantities.put(1L, first);
+        quantities.put(2L, second);
+        return quantities;
+    }
+
+    private String stock(Long productId) {
+        return redissonClient.<String>getBucket("{inventory}:stock:" + productId, StringCodec.INSTANCE).get();
+    }
+}
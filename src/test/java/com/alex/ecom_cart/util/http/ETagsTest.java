@@ -0,0 +1,75 @@
+package com.alex.ecom_cart.util.http;
+
+import com.alex.ecom_cart.DummyData;
+import com.alex.ecom_cart.api.dtos.response.ProductResponse;
+import com.alex.ecom_cart.api.dtos.response.ProductStockResponse;
+import com.alex.ecom_cart.util.enums.StockUpdateRejection;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ETagsTest {
+
+    @Test
+    @DisplayName("of should give equal responses the same tag and change it with any value")
+    void of_ShouldFollowResponseValues() {
+        ProductResponse product = DummyData.createProductResponse();
+        ProductResponse same = DummyData.createProductResponse();
+
+        assertEquals(ETags.of(product), ETags.of(same));
+
+        same.setStock(product.getStock() + 1);
+        assertNotEquals(ETags.of(product), ETags.of(same));
+    }
+
+    @Test
+    @DisplayName("of should tell lists and pages apart by order, size and position")
+    void of_ShouldTagCollections() {
+        ProductResponse first = DummyData.createProductResponse();
+        ProductResponse second = DummyData.createProductResponse();
+        second.setId(2L);
+
+        assertNotEquals(ETags.of(List.of(first, second)), ETags.of(List.of(second, first)));
+        assertNotEquals(ETags.of(List.of(first)), ETags.of(List.of(first, first)));
+        assertNotEquals(ETags.of(new PageImpl<>(List.of(first), PageRequest.of(0, 1), 2)),
+                ETags.of(new PageImpl<>(List.of(first), PageRequest.of(1, 1), 2)));
+    }
+
+    @Test
+    @DisplayName("of should hash the JSON of the values so enums get the same tag on every JVM")
+    void of_ShouldHashStableJson() throws Exception {
+        ProductStockResponse response = ProductStockResponse.builder()
+                .updated(Map.of(2L, 5, 1L, 4))
+                .rejected(Map.of(3L, StockUpdateRejection.NOT_FOUND))
+                .build();
+        byte[] json = "{\"rejected\":{\"3\":\"NOT_FOUND\"},\"updated\":{\"1\":4,\"2\":5}}"
+                .getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json)), ETags.of(response));
+    }
+
+    @Test
+    @DisplayName("strong should quote the parts of a version without the weak prefix")
+    void strong_ShouldJoinParts() {
+        assertEquals("\"3-10\"", ETags.strong(3L, 10));
+        assertEquals("\"3-10\"", ETags.ok(DummyData.createProductResponse(), ETags.strong(3L, 10)).getHeaders().getETag());
+    }
+
+    @Test
+    @DisplayName("ok should return the body with its tag")
+    void ok_ShouldSetETagHeader() {
+        ProductResponse product = DummyData.createProductResponse();
+
+        assertEquals("W/\"" + ETags.of(product) + "\"", ETags.ok(product).getHeaders().getETag());
+        assertSame(product, ETags.ok(product).getBody());
+    }
+}
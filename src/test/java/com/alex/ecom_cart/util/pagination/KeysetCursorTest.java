@@ -0,0 +1,82 @@
+package com.alex.ecom_cart.util.pagination;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetCursorTest {
+
+    private static final Sort BY_NAME = KeysetCursor.sortWithId(Sort.by("name"), false);
+
+    @Test
+    @DisplayName("decode should give back the keys and types that encode wrote")
+    void encodeAndDecode_ShouldRoundTrip() {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("name", "Jeans & T-shirt: 50% off");
+        keys.put("price", new BigDecimal("1200.50"));
+        keys.put("createdAt", LocalDateTime.of(2024, 5, 1, 10, 30, 15));
+        keys.put("stock", 7);
+        keys.put("id", 42L);
+        Sort sort = Sort.by("name", "price", "createdAt", "stock", "id");
+
+        String cursor = KeysetCursor.encode(ScrollPosition.forward(keys));
+        KeysetScrollPosition position = (KeysetScrollPosition) KeysetCursor.decode(cursor, sort);
+
+        assertEquals(keys, position.getKeys());
+        assertTrue(cursor.matches("[A-Za-z0-9_-]+"), "Expected a url safe cursor");
+    }
+
+    @Test
+    @DisplayName("decode should start from the beginning without a cursor")
+    void decode_ShouldStartAtTheBeginning_WhenCursorIsMissing() {
+        assertTrue(((KeysetScrollPosition) KeysetCursor.decode(null, BY_NAME)).isInitial());
+        assertTrue(((KeysetScrollPosition) KeysetCursor.decode(" ", BY_NAME)).isInitial());
+    }
+
+    @Test
+    @DisplayName("decode should reject cursors that were tampered with")
+    void decode_ShouldReject_WhenCursorIsTampered() {
+        String valid = KeysetCursor.encode(ScrollPosition.forward(Map.of("name", "Laptop", "id", 1L)));
+
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("not a cursor!", BY_NAME));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(valid.substring(1), BY_NAME));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(raw("name:s:Laptop&id:x:1"), BY_NAME));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(raw("name:s:Laptop&id:l:one"), BY_NAME));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(raw("name:s:Laptop&id"), BY_NAME));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(raw("name:s:Laptop"), BY_NAME));
+    }
+
+    @Test
+    @DisplayName("decode should reject a cursor taken with another sort field")
+    void decode_ShouldReject_WhenSortFieldDiffers() {
+        String byPrice = KeysetCursor.encode(ScrollPosition.forward(Map.of("price", new BigDecimal("10.00"), "id", 1L)));
+
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(byPrice, BY_NAME));
+    }
+
+    @Test
+    @DisplayName("encode should refuse a null sort key instead of writing a cursor that can not be sought")
+    void encode_ShouldThrow_WhenSortKeyIsNull() {
+        Map<String, Object> keys = new HashMap<>();
+        keys.put("description", null);
+        keys.put("id", 1L);
+
+        assertThrows(IllegalStateException.class, () -> KeysetCursor.encode(ScrollPosition.forward(keys)));
+    }
+
+    private static String raw(String cursor) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+}